@@ -0,0 +1,170 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.metrics.avg.InternalAvg;
+import org.elasticsearch.search.aggregations.metrics.sum.InternalSum;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reduces the query results of many shards, as they are received from remote nodes, with the incremental reduce of the coordinating
+ * node. With the current wire format the aggregations are buffered in their serialized form until they are reduced, while the 6.4.1
+ * format reads them eagerly. Run with {@code -prof gc} to compare the allocation rates.
+ * <p>
+ * It lives in the package of the search actions so that it can drive their package private result consumer.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class SearchPhaseReduceBenchmark {
+
+    @Param({"1000", "2000"})
+    public int numShards;
+
+    @Param({"5", "512"})
+    public int batchedReduceSize;
+
+    @Param({"6.4.1", "6.5.0"})
+    public String wireVersion;
+
+    private static final int NUMBER_OF_TERMS = 500;
+
+    private NamedWriteableRegistry namedWriteableRegistry;
+
+    private SearchPhaseController controller;
+
+    private SearchRequest request;
+
+    private Version version;
+
+    private BytesReference[] shardResponses;
+
+    @Setup
+    public void setUp() throws IOException {
+        namedWriteableRegistry = new NamedWriteableRegistry(
+            new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+        controller = new SearchPhaseController(Settings.EMPTY,
+            finalReduce -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, finalReduce),
+            namedWriteableRegistry, new NoopCircuitBreaker(CircuitBreaker.REQUEST));
+        request = new SearchRequest();
+        request.source(new SearchSourceBuilder().size(0).aggregation(AggregationBuilders.terms("terms").field("host")
+            .subAggregation(AggregationBuilders.sum("sum").field("bytes"))
+            .subAggregation(AggregationBuilders.avg("avg").field("response_time"))));
+        request.setBatchedReduceSize(batchedReduceSize);
+        version = Version.fromString(wireVersion);
+
+        Random random = new Random(42);
+        shardResponses = new BytesReference[numShards];
+        for (int shard = 0; shard < numShards; shard++) {
+            QuerySearchResult result = new QuerySearchResult(shard, shardTarget(shard));
+            result.topDocs(new TopDocs(NUMBER_OF_TERMS, new ScoreDoc[0], Float.NaN), new DocValueFormat[0]);
+            result.aggregations(new InternalAggregations(Collections.singletonList(shardTerms(random))));
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.setVersion(version);
+                result.writeTo(out);
+                shardResponses[shard] = out.bytes();
+            }
+        }
+    }
+
+    private static SearchShardTarget shardTarget(int shard) {
+        return new SearchShardTarget("node", new Index("index", "_na_"), shard, null);
+    }
+
+    private static StringTerms shardTerms(Random random) {
+        List<StringTerms.Bucket> buckets = new ArrayList<>(NUMBER_OF_TERMS);
+        for (int i = 0; i < NUMBER_OF_TERMS; i++) {
+            long docCount = 1 + random.nextInt(1000);
+            InternalAggregations subAggs = new InternalAggregations(Arrays.asList(
+                new InternalSum("sum", random.nextInt(100_000) * docCount, DocValueFormat.RAW, Collections.emptyList(),
+                    Collections.emptyMap()),
+                new InternalAvg("avg", random.nextDouble() * 1000 * docCount, docCount, DocValueFormat.RAW, Collections.emptyList(),
+                    Collections.emptyMap())));
+            buckets.add(new StringTerms.Bucket(new BytesRef("host-" + i), docCount, subAggs, false, 0, DocValueFormat.RAW));
+        }
+        return new StringTerms("terms", BucketOrder.count(false), NUMBER_OF_TERMS, 1, Collections.emptyList(), Collections.emptyMap(),
+            DocValueFormat.RAW, NUMBER_OF_TERMS, false, 0, buckets, 0);
+    }
+
+    @Benchmark
+    public SearchPhaseController.ReducedQueryPhase reduce() throws IOException {
+        InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(request, numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            // read the response the way the transport layer does, as if it came from a node with the given version
+            try (StreamInput in = new NamedWriteableAwareStreamInput(shardResponses[shard].streamInput(), namedWriteableRegistry)) {
+                in.setVersion(version);
+                QuerySearchResult result = new QuerySearchResult();
+                result.readFrom(in);
+                result.setSearchShardTarget(shardTarget(shard));
+                result.setShardIndex(shard);
+                consumer.consumeResult(result);
+            }
+        }
+        return consumer.reduce();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.bulk;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.bulk.BulkItemRequest;
+import org.elasticsearch.action.bulk.BulkRequestShardGrouper;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the items of a large bulk request that is spread across many indices by the shard that they are routed to, the way the
+ * coordinating node does before it sends the shard level bulk requests.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class BulkRequestShardGrouperBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int numberOfIndices;
+
+    @Param({"1", "5"})
+    public int numberOfShards;
+
+    @Param({"10000"})
+    public int numberOfItems;
+
+    private MetaData metaData;
+
+    private Index[] concreteIndices;
+
+    private IndexRequest[] requests;
+
+    @Setup
+    public void setUp() {
+        MetaData.Builder metaDataBuilder = MetaData.builder();
+        for (int i = 0; i < numberOfIndices; i++) {
+            metaDataBuilder.put(IndexMetaData.builder("index_" + i)
+                .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+                .numberOfShards(numberOfShards)
+                .numberOfReplicas(1));
+        }
+        metaData = metaDataBuilder.build();
+
+        Random random = new Random(42);
+        concreteIndices = new Index[numberOfItems];
+        requests = new IndexRequest[numberOfItems];
+        for (int i = 0; i < numberOfItems; i++) {
+            String index = "index_" + random.nextInt(numberOfIndices);
+            concreteIndices[i] = metaData.index(index).getIndex();
+            requests[i] = new IndexRequest(index, "_doc", Integer.toString(i));
+        }
+    }
+
+    @Benchmark
+    public Map<ShardId, BulkItemRequest[]> group() {
+        BulkRequestShardGrouper grouper = new BulkRequestShardGrouper(metaData, numberOfItems);
+        for (int i = 0; i < numberOfItems; i++) {
+            grouper.add(i, concreteIndices[i], requests[i]);
+        }
+        return grouper.group();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput and the hit rate of the LRU and the frequency based (W-TinyLFU) eviction policies of {@link Cache}
+ * for a skewed access distribution that is interleaved with scans of keys that are accessed only once, as it happens for
+ * instance with the request cache.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CacheBenchmark {
+    // the number of distinct keys that are drawn from the skewed distribution
+    private static final int NUMBER_OF_KEYS = 1 << 16;
+
+    // the number of precomputed accesses, must be a power of two
+    private static final int NUMBER_OF_ACCESSES = 1 << 20;
+
+    @Param({"lru", "tinylfu"})
+    public String policy;
+
+    @Param({"4096"})
+    public int maximumWeight;
+
+    // the percentage of accesses to keys that are used only once
+    @Param({"0", "25"})
+    public int scanPercentage;
+
+    private Cache<Integer, Integer> cache;
+
+    private int[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = CacheBuilder.<Integer, Integer>builder()
+            .setMaximumWeight(maximumWeight)
+            .setFrequencyBasedAdmission("tinylfu".equals(policy))
+            .build();
+        keys = new int[NUMBER_OF_ACCESSES];
+        Random random = new Random(42);
+        ZipfDistribution zipf = new ZipfDistribution(NUMBER_OF_KEYS, 1.0d);
+        int nextScanKey = NUMBER_OF_KEYS;
+        for (int i = 0; i < keys.length; i++) {
+            if (random.nextInt(100) < scanPercentage) {
+                keys[i] = nextScanKey++;
+            } else {
+                keys[i] = zipf.sample(random);
+            }
+        }
+        // fill the cache so that we measure the steady state
+        for (int key : keys) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HitRate {
+        public long hits;
+        public long misses;
+
+        private int index;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+            index = ThreadLocalRandom.current().nextInt(NUMBER_OF_ACCESSES);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer getOrPutSingleThread(HitRate hitRate) {
+        return getOrPut(hitRate);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer getOrPutEightThreads(HitRate hitRate) {
+        return getOrPut(hitRate);
+    }
+
+    private Integer getOrPut(HitRate hitRate) {
+        final int key = keys[hitRate.index++ & (NUMBER_OF_ACCESSES - 1)];
+        Integer value = cache.get(key);
+        if (value == null) {
+            hitRate.misses++;
+            cache.put(key, key);
+            value = key;
+        } else {
+            hitRate.hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Draws integers in {@code [0, numberOfElements)} where the probability of {@code k} is proportional to
+     * {@code 1 / (k + 1)^exponent}, by binary search over the precomputed cumulative distribution.
+     */
+    private static final class ZipfDistribution {
+        private final double[] cumulativeProbabilities;
+
+        ZipfDistribution(int numberOfElements, double exponent) {
+            cumulativeProbabilities = new double[numberOfElements];
+            double sum = 0;
+            for (int i = 0; i < numberOfElements; i++) {
+                sum += 1.0d / Math.pow(i + 1, exponent);
+                cumulativeProbabilities[i] = sum;
+            }
+            for (int i = 0; i < numberOfElements; i++) {
+                cumulativeProbabilities[i] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            final double p = random.nextDouble();
+            int low = 0;
+            int high = cumulativeProbabilities.length - 1;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (cumulativeProbabilities[mid] < p) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
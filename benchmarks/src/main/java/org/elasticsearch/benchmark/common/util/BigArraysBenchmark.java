@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.util;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares big arrays whose pages are allocated on the heap with big arrays whose pages are direct buffers, for the
+ * access patterns of bucket aggregations: incrementing counts of random buckets, and growing and filling an array.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class BigArraysBenchmark {
+    // the number of precomputed bucket ordinals, must be a power of two
+    private static final int NUMBER_OF_ORDINALS = 1 << 16;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    // the number of buckets
+    @Param({"100000", "10000000"})
+    public int size;
+
+    private PageCacheRecycler recycler;
+
+    private BigArrays bigArrays;
+
+    private LongArray counts;
+
+    private DoubleArray sums;
+
+    private long[] ordinals;
+
+    @Setup
+    public void setUp() {
+        recycler = new PageCacheRecycler(Settings.builder().put(PageCacheRecycler.DIRECT_SETTING.getKey(), direct).build());
+        bigArrays = new BigArrays(recycler, null);
+        counts = bigArrays.newLongArray(size);
+        sums = bigArrays.newDoubleArray(size);
+        ordinals = new long[NUMBER_OF_ORDINALS];
+        final Random random = new Random(42);
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = random.nextInt(size);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        counts.close();
+        sums.close();
+        recycler.close();
+    }
+
+    @Benchmark
+    public long incrementRandomBuckets() {
+        long total = 0;
+        for (long ordinal : ordinals) {
+            total += counts.increment(ordinal, 1);
+            sums.increment(ordinal, 0.5d);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long growAndFill() {
+        LongArray array = bigArrays.newLongArray(1, false);
+        try {
+            for (long i = 0; i < NUMBER_OF_ORDINALS; i++) {
+                array = bigArrays.grow(array, i + 1);
+                array.set(i, i);
+            }
+            return array.get(NUMBER_OF_ORDINALS - 1);
+        } finally {
+            array.close();
+        }
+    }
+}
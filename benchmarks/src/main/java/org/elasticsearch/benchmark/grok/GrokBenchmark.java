@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.util;
+package org.elasticsearch.benchmark.grok;
+
+import org.elasticsearch.grok.Grok;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches a corpus of syslog lines from many programs against a grok expression that combines one pattern per program, the
+ * way the grok processor combines its patterns. Most lines are only matched by one of the patterns, or by none of them, which
+ * is the case that the literal prefilter of grok expressions helps with.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class GrokBenchmark {
+    private static final String[] PROGRAMS = new String[] {
+        "sshd", "cron", "postfix/smtpd", "postfix/qmgr", "dhclient", "ntpd", "named", "dovecot", "systemd-logind", "sudo",
+        "su", "crond", "rsyslogd", "nginx", "haproxy", "kubelet", "dockerd", "containerd", "auditd", "avahi-daemon"
+    };
+    // programs that none of the patterns match
+    private static final String[] OTHER_PROGRAMS = new String[] { "kernel", "anacron", "smartd", "polkitd", "chronyd" };
+
+    private static final int NUMBER_OF_LINES = 1000;
+
+    @Param({"1", "5", "20"})
+    public int numberOfPatterns;
+
+    // the ratio of lines that are logged by a program that none of the patterns match
+    @Param({"0.1", "0.9"})
+    public double missRatio;
+
+    private Grok grok;
+
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < numberOfPatterns; i++) {
+            if (i > 0) {
+                expression.append('|');
+            }
+            expression.append("(?:%{SYSLOGTIMESTAMP:timestamp} %{SYSLOGHOST:host} ").append(PROGRAMS[i])
+                .append("\\[%{POSINT:pid}\\]: %{GREEDYDATA:message})");
+        }
+        grok = new Grok(Grok.getBuiltinPatterns(), expression.toString());
+
+        Random random = new Random(42);
+        lines = new String[NUMBER_OF_LINES];
+        for (int i = 0; i < lines.length; i++) {
+            String program;
+            if (random.nextDouble() < missRatio) {
+                program = OTHER_PROGRAMS[random.nextInt(OTHER_PROGRAMS.length)];
+            } else {
+                program = PROGRAMS[random.nextInt(numberOfPatterns)];
+            }
+            lines[i] = String.format(Locale.ROOT, "Mar %2d %02d:%02d:%02d host-%d.example.com %s[%d]: session %d opened for user u%d",
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(50), program,
+                1 + random.nextInt(65535), random.nextInt(100000), random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    public void captures(Blackhole blackhole) {
+        for (String line : lines) {
+            Map<String, Object> captures = grok.captures(line);
+            blackhole.consume(captures);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.benchmark.index.mapper;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesModule;
+import org.elasticsearch.indices.analysis.AnalysisModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses typical log documents, with and without recycling the Lucene fields across documents the way the write threads do.
+ * Run with {@code -prof gc} to compare the allocation rates.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class DocumentParserBenchmark {
+
+    private static final int NUMBER_OF_DOCUMENTS = 1024;
+
+    private static final String MAPPING = "{\"_doc\":{\"properties\":{"
+        + "\"@timestamp\":{\"type\":\"date\"},"
+        + "\"host\":{\"type\":\"keyword\"},"
+        + "\"level\":{\"type\":\"keyword\"},"
+        + "\"method\":{\"type\":\"keyword\"},"
+        + "\"path\":{\"type\":\"keyword\"},"
+        + "\"status\":{\"type\":\"integer\"},"
+        + "\"bytes\":{\"type\":\"long\"},"
+        + "\"response_time\":{\"type\":\"double\"},"
+        + "\"message\":{\"type\":\"text\"}"
+        + "}}}";
+
+    private static final String[] HOSTS = {"web-01", "web-02", "web-03", "web-04"};
+    private static final String[] LEVELS = {"INFO", "WARN", "ERROR"};
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+    private static final String[] PATHS = {"/", "/login", "/search", "/products", "/cart", "/checkout"};
+    private static final int[] STATUSES = {200, 201, 204, 301, 404, 500};
+
+    private DocumentMapper documentMapper;
+
+    private SourceToParse[] sources;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Settings settings = Settings.builder()
+            .put(Environment.PATH_HOME_SETTING.getKey(), System.getProperty("java.io.tmpdir"))
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build();
+        IndexSettings indexSettings = new IndexSettings(IndexMetaData.builder("logs").settings(settings).build(), settings);
+        IndexAnalyzers indexAnalyzers = new AnalysisModule(new Environment(settings, null), Collections.emptyList())
+            .getAnalysisRegistry().build(indexSettings);
+        MapperService mapperService = new MapperService(indexSettings, indexAnalyzers, NamedXContentRegistry.EMPTY,
+            new SimilarityService(indexSettings, null, Collections.emptyMap()),
+            new IndicesModule(Collections.emptyList()).getMapperRegistry(), () -> null);
+        documentMapper = mapperService.merge("_doc", new CompressedXContent(MAPPING), MapperService.MergeReason.MAPPING_UPDATE,
+            false);
+
+        Random random = new Random(42);
+        sources = new SourceToParse[NUMBER_OF_DOCUMENTS];
+        for (int i = 0; i < NUMBER_OF_DOCUMENTS; i++) {
+            String method = METHODS[random.nextInt(METHODS.length)];
+            String path = PATHS[random.nextInt(PATHS.length)];
+            int status = STATUSES[random.nextInt(STATUSES.length)];
+            String source = String.format(Locale.ROOT, "{\"@timestamp\":%d,\"host\":\"%s\",\"level\":\"%s\",\"method\":\"%s\","
+                    + "\"path\":\"%s\",\"status\":%d,\"bytes\":%d,\"response_time\":%f,\"message\":\"%s %s returned %d\"}",
+                1538352000000L + i * 1000L, HOSTS[random.nextInt(HOSTS.length)], LEVELS[random.nextInt(LEVELS.length)], method, path,
+                status, random.nextInt(100_000), random.nextDouble() * 1000, method, path, status);
+            sources[i] = SourceToParse.source("logs", "_doc", Integer.toString(i), new BytesArray(source), XContentType.JSON);
+        }
+    }
+
+    private SourceToParse nextSource() {
+        SourceToParse source = sources[next];
+        next = (next + 1) % NUMBER_OF_DOCUMENTS;
+        return source;
+    }
+
+    @Benchmark
+    public ParsedDocument parse() {
+        return documentMapper.parse(nextSource());
+    }
+
+    @Benchmark
+    public ParsedDocument parseReusingFields() {
+        return documentMapper.parse(nextSource(), true);
+    }
+}
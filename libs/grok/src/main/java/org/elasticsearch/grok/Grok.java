@@ -63,6 +63,9 @@ public final class Grok {
     private static final Regex GROK_PATTERN_REGEX = new Regex(GROK_PATTERN.getBytes(StandardCharsets.UTF_8), 0,
             GROK_PATTERN.getBytes(StandardCharsets.UTF_8).length, Option.NONE, UTF8Encoding.INSTANCE, Syntax.DEFAULT);
 
+    // the escapes that stand for a single atom without any argument
+    private static final String SINGLE_CHARACTER_ESCAPES = "dDwWsShHbBAzZGtnrfvae";
+
     private static final Map<String, String> builtinPatterns;
 
     static {
@@ -76,6 +79,9 @@ public final class Grok {
     private final Map<String, String> patternBank;
     private final boolean namedCaptures;
     private final Regex compiledExpression;
+    private final GrokMatchGroup[] matchGroups;
+    private final int[][] matchGroupBackRefs;
+    private final String[] requiredLiterals;
     private final ThreadWatchdog threadWatchdog;
 
     public Grok(Map<String, String> patternBank, String grokPattern) {
@@ -104,6 +110,20 @@ public final class Grok {
         String expression = toRegex(grokPattern);
         byte[] expressionBytes = expression.getBytes(StandardCharsets.UTF_8);
         this.compiledExpression = new Regex(expressionBytes, 0, expressionBytes.length, Option.DEFAULT, UTF8Encoding.INSTANCE);
+
+        // the named groups are resolved once rather than on every match
+        List<GrokMatchGroup> matchGroups = new ArrayList<>(compiledExpression.numberOfNames());
+        List<int[]> matchGroupBackRefs = new ArrayList<>(compiledExpression.numberOfNames());
+        for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
+            NameEntry e = entry.next();
+            matchGroups.add(new GrokMatchGroup(new String(e.name, e.nameP, e.nameEnd - e.nameP, StandardCharsets.UTF_8)));
+            matchGroupBackRefs.add(e.getBackRefs());
+        }
+        this.matchGroups = matchGroups.toArray(new GrokMatchGroup[0]);
+        this.matchGroupBackRefs = matchGroupBackRefs.toArray(new int[0][]);
+
+        List<String> requiredLiterals = requiredLiterals(grokPattern);
+        this.requiredLiterals = requiredLiterals == null ? null : requiredLiterals.toArray(new String[0]);
     }
 
     /**
@@ -219,11 +239,15 @@ public final class Grok {
      * @return true if grok expression matches text, false otherwise.
      */
     public boolean match(String text) {
-        Matcher matcher = compiledExpression.matcher(text.getBytes(StandardCharsets.UTF_8));
+        if (mightMatch(text) == false) {
+            return false;
+        }
+        byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
+        Matcher matcher = compiledExpression.matcher(textAsBytes);
         int result;
         try {
             threadWatchdog.register();
-            result = matcher.search(0, text.length(), Option.DEFAULT);
+            result = matcher.search(0, textAsBytes.length, Option.DEFAULT);
         } finally {
             threadWatchdog.unregister();
         }
@@ -238,6 +262,9 @@ public final class Grok {
      * @return a map containing field names and their respective coerced values that matched.
      */
     public Map<String, Object> captures(String text) {
+        if (mightMatch(text) == false) {
+            return null;
+        }
         byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
         Map<String, Object> fields = new HashMap<>();
         Matcher matcher = compiledExpression.matcher(textAsBytes);
@@ -254,17 +281,15 @@ public final class Grok {
         } else if (result == Matcher.FAILED) {
             // TODO: I think we should throw an error here?
             return null;
-        } else if (compiledExpression.numberOfNames() > 0) {
+        } else if (matchGroups.length > 0) {
             Region region = matcher.getEagerRegion();
-            for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
-                NameEntry e = entry.next();
-                String groupName = new String(e.name, e.nameP, e.nameEnd - e.nameP, StandardCharsets.UTF_8);
-                for (int number : e.getBackRefs()) {
+            for (int i = 0; i < matchGroups.length; i++) {
+                for (int number : matchGroupBackRefs[i]) {
                     if (region.beg[number] >= 0) {
                         String matchValue = new String(textAsBytes, region.beg[number], region.end[number] - region.beg[number],
                             StandardCharsets.UTF_8);
-                        GrokMatchGroup match = new GrokMatchGroup(groupName, matchValue);
-                        fields.put(match.getName(), match.getValue());
+                        GrokMatchGroup match = matchGroups[i];
+                        fields.put(match.getName(), match.getValue(matchValue));
                         break;
                     }
                 }
@@ -273,6 +298,223 @@ public final class Grok {
         return fields;
     }
 
+    /**
+     * Checks whether the text contains the literal that any text matching one of the alternatives of the grok expression
+     * must contain, which is much cheaper than running the regex over texts that do not match.
+     */
+    private boolean mightMatch(String text) {
+        if (requiredLiterals == null) {
+            return true;
+        }
+        for (String requiredLiteral : requiredLiterals) {
+            if (text.contains(requiredLiteral)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts, for each top level alternative of a grok expression, the longest literal that any text matching the
+     * alternative must contain. Alternatives that are made of a single non capturing or named group, like the ones that
+     * multiple grok patterns are combined into, are looked into. The analysis is conservative: anything that is not a plain
+     * character outside of groups, character classes and pattern references ends a literal.
+     *
+     * @return the literals, or <code>null</code> if any of the alternatives does not require a literal
+     */
+    static List<String> requiredLiterals(String grokPattern) {
+        if (grokPattern.contains("(?i") || grokPattern.contains("(?m") || grokPattern.contains("(?x") || grokPattern.contains("(?-")) {
+            // options change what the literals match
+            return null;
+        }
+        List<String> alternatives = splitAlternatives(grokPattern);
+        if (alternatives == null) {
+            return null;
+        }
+        List<String> literals = new ArrayList<>(alternatives.size());
+        for (String alternative : alternatives) {
+            String literal = requiredLiteral(unwrapGroup(alternative));
+            if (literal == null) {
+                return null;
+            }
+            literals.add(literal);
+        }
+        return literals;
+    }
+
+    private static List<String> splitAlternatives(String pattern) {
+        List<String> alternatives = new ArrayList<>();
+        int start = 0;
+        int depth = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = skipCharacterClass(pattern, i);
+            } else if (c == '%' && pattern.startsWith("{", i + 1)) {
+                i = skipPatternReference(pattern, i);
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                alternatives.add(pattern.substring(start, i));
+                start = i + 1;
+            }
+            if (i < 0 || depth < 0) {
+                return null;
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        alternatives.add(pattern.substring(start));
+        return alternatives;
+    }
+
+    private static String unwrapGroup(String alternative) {
+        int end;
+        if (alternative.startsWith("(?:")) {
+            end = 3;
+        } else if (alternative.startsWith("(?<") && alternative.startsWith("(?<=") == false && alternative.startsWith("(?<!") == false) {
+            end = alternative.indexOf('>') + 1;
+        } else {
+            return alternative;
+        }
+        if (end > 0 && skipGroup(alternative, 0) == alternative.length() - 1) {
+            return alternative.substring(end, alternative.length() - 1);
+        }
+        return alternative;
+    }
+
+    private static String requiredLiteral(String pattern) {
+        String longest = null;
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            // the character that this atom matches, or 0 if it does not match a single known character
+            char literal = 0;
+            int next;
+            if (c == '\\') {
+                if (i + 1 == pattern.length()) {
+                    return null;
+                }
+                char escaped = pattern.charAt(i + 1);
+                if (Character.isLetterOrDigit(escaped) == false) {
+                    literal = escaped;
+                } else if (SINGLE_CHARACTER_ESCAPES.indexOf(escaped) == -1) {
+                    // hex, unicode, octal, property and back references would need more parsing
+                    return null;
+                }
+                next = i + 2;
+            } else if (c == '[') {
+                next = skipCharacterClass(pattern, i) + 1;
+            } else if (c == '%' && pattern.startsWith("{", i + 1)) {
+                next = skipPatternReference(pattern, i) + 1;
+            } else if (c == '(') {
+                next = skipGroup(pattern, i) + 1;
+            } else if (c == '{') {
+                int end = pattern.indexOf('}', i);
+                next = end == -1 ? i + 1 : end + 1;
+            } else if (c == '|' || c == ')') {
+                return null;
+            } else if (c == '.' || c == '^' || c == '$' || c == '}' || c == '?' || c == '*' || c == '+' || Character.isSurrogate(c)) {
+                next = i + 1;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if (next <= 0) {
+                return null;
+            }
+            if (literal != 0 && Character.isSurrogate(literal) == false) {
+                char quantifier = next < pattern.length() ? pattern.charAt(next) : 0;
+                if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+                    // the character is optional
+                    longest = longest(longest, current);
+                    current.setLength(0);
+                } else if (quantifier == '+') {
+                    current.append(literal);
+                    longest = longest(longest, current);
+                    current.setLength(0);
+                } else {
+                    current.append(literal);
+                }
+            } else {
+                longest = longest(longest, current);
+                current.setLength(0);
+            }
+            i = next;
+        }
+        return longest(longest, current);
+    }
+
+    private static String longest(String longest, StringBuilder current) {
+        if (current.length() > 0 && (longest == null || current.length() > longest.length())) {
+            return current.toString();
+        }
+        return longest;
+    }
+
+    /**
+     * @return the index of the bracket that closes the character class that starts at the given index, or -1
+     */
+    private static int skipCharacterClass(String pattern, int start) {
+        int depth = 0;
+        for (int i = start; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                // a closing bracket right after the opening one, negated or not, is part of the class
+                boolean first = i == start + 1 || (i == start + 2 && pattern.charAt(start + 1) == '^');
+                if (first == false && --depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the brace that closes the pattern reference that starts at the given index, or -1
+     */
+    private static int skipPatternReference(String pattern, int start) {
+        return pattern.indexOf('}', start);
+    }
+
+    /**
+     * @return the index of the parenthesis that closes the group that starts at the given index, or -1
+     */
+    private static int skipGroup(String pattern, int start) {
+        int depth = 0;
+        for (int i = start; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = skipCharacterClass(pattern, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '%' && pattern.startsWith("{", i + 1)) {
+                i = skipPatternReference(pattern, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public static Map<String, String> getBuiltinPatterns() {
         return builtinPatterns;
     }
@@ -19,14 +19,17 @@
 
 package org.elasticsearch.grok;
 
+/**
+ * The field that a named group of a grok expression is extracted into, parsed once from the name of the group, which is
+ * made of the pattern name, the optional field name and the optional type the value should be converted to.
+ */
 final class GrokMatchGroup {
     private static final String DEFAULT_TYPE = "string";
     private final String patternName;
     private final String fieldName;
     private final String type;
-    private final String groupValue;
 
-    GrokMatchGroup(String groupName, String groupValue) {
+    GrokMatchGroup(String groupName) {
         String[] parts = groupName.split(":");
         patternName = parts[0];
         if (parts.length >= 2) {
@@ -40,14 +43,13 @@ final class GrokMatchGroup {
         } else {
             type = DEFAULT_TYPE;
         }
-        this.groupValue = groupValue;
     }
 
     public String getName() {
         return (fieldName == null) ? patternName : fieldName;
     }
 
-    public Object getValue() {
+    public Object getValue(String groupValue) {
         if (groupValue == null) { return null; }
 
         switch(type) {
@@ -446,6 +446,46 @@ public class GrokTests extends ESTestCase {
         assertNull(matches);
     }
 
+    public void testRequiredLiterals() {
+        assertThat(Grok.requiredLiterals("%{SYSLOGTIMESTAMP:timestamp} %{SYSLOGHOST:host} sshd\\[%{POSINT:pid}\\]: Failed password"),
+            equalTo(Collections.singletonList("]: Failed password")));
+        assertThat(Grok.requiredLiterals("(?:foo%{WORD}bar)|(?<_ingest._grok_match_index.1>baz+)|qux"),
+            equalTo(Arrays.asList("foo", "baz", "qux")));
+        assertThat(Grok.requiredLiterals("a?bc{2,3}de*f"), equalTo(Collections.singletonList("b")));
+        assertThat(Grok.requiredLiterals("[]x]yz[[:alpha:]]"), equalTo(Collections.singletonList("yz")));
+        assertThat(Grok.requiredLiterals("\\d+ items"), equalTo(Collections.singletonList(" items")));
+        assertThat(Grok.requiredLiterals("(?:foo)?bar"), equalTo(Collections.singletonList("bar")));
+        // an alternative without a literal disables the prefilter
+        assertThat(Grok.requiredLiterals("foo|%{WORD}"), nullValue());
+        assertThat(Grok.requiredLiterals("(?:foo|bar)"), nullValue());
+        assertThat(Grok.requiredLiterals(""), nullValue());
+        // so do options and escapes that are not understood
+        assertThat(Grok.requiredLiterals("(?i)foo"), nullValue());
+        assertThat(Grok.requiredLiterals("\\x41bc"), nullValue());
+        assertThat(Grok.requiredLiterals("(foo"), nullValue());
+    }
+
+    public void testMultiplePatternsWithRequiredLiterals() {
+        Grok grok = new Grok(basePatterns, "(?:sshd\\[%{POSINT:pid}\\]: Failed password for %{USERNAME:user})|" +
+            "(?:%{WORD:verb} %{URIPATHPARAM:request} HTTP/%{NUMBER:httpversion})");
+        Map<String, Object> matches = grok.captures("sshd[1234]: Failed password for root");
+        assertEquals("1234", matches.get("pid"));
+        assertEquals("root", matches.get("user"));
+        matches = grok.captures("GET /index.html HTTP/1.1");
+        assertEquals("GET", matches.get("verb"));
+        assertEquals("/index.html", matches.get("request"));
+        assertEquals("1.1", matches.get("httpversion"));
+        assertNull(grok.captures("kernel: eth0 link up"));
+        assertFalse(grok.match("kernel: eth0 link up"));
+        assertTrue(grok.match("GET /index.html HTTP/1.1"));
+    }
+
+    public void testMatchMultiByteText() {
+        // the match starts past the number of chars of the text, but not past its number of bytes
+        Grok grok = new Grok(basePatterns, "end");
+        assertTrue(grok.match("\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9 end"));
+    }
+
     private void assertGrokedField(String fieldName) {
         String line = "foo";
         Grok grok = new Grok(basePatterns, "%{WORD:" + fieldName + "}");
@@ -137,6 +137,8 @@ public final class ConvertProcessor extends AbstractProcessor {
 
     private final String field;
     private final String targetField;
+    private final IngestDocument.FieldPath fieldPath;
+    private final IngestDocument.FieldPath targetFieldPath;
     private final Type convertType;
     private final boolean ignoreMissing;
 
@@ -144,6 +146,8 @@ public final class ConvertProcessor extends AbstractProcessor {
         super(tag);
         this.field = field;
         this.targetField = targetField;
+        this.fieldPath = new IngestDocument.FieldPath(field);
+        this.targetFieldPath = new IngestDocument.FieldPath(targetField);
         this.convertType = convertType;
         this.ignoreMissing = ignoreMissing;
     }
@@ -166,7 +170,7 @@ public final class ConvertProcessor extends AbstractProcessor {
 
     @Override
     public void execute(IngestDocument document) {
-        Object oldValue = document.getFieldValue(field, Object.class, ignoreMissing);
+        Object oldValue = document.getFieldValue(fieldPath, Object.class, ignoreMissing);
         Object newValue;
 
         if (oldValue == null && ignoreMissing) {
@@ -185,7 +189,7 @@ public final class ConvertProcessor extends AbstractProcessor {
         } else {
             newValue = convertType.convert(oldValue);
         }
-        document.setFieldValue(targetField, newValue);
+        document.setFieldValue(targetFieldPath, newValue);
     }
 
     @Override
@@ -47,6 +47,8 @@ public final class DateProcessor extends AbstractProcessor {
     private final TemplateScript.Factory locale;
     private final String field;
     private final String targetField;
+    private final IngestDocument.FieldPath fieldPath;
+    private final IngestDocument.FieldPath targetFieldPath;
     private final List<String> formats;
     private final List<Function<Map<String, Object>, Function<String, DateTime>>> dateParsers;
 
@@ -57,6 +59,8 @@ public final class DateProcessor extends AbstractProcessor {
         this.locale = locale;
         this.field = field;
         this.targetField = targetField;
+        this.fieldPath = new IngestDocument.FieldPath(field);
+        this.targetFieldPath = new IngestDocument.FieldPath(targetField);
         this.formats = formats;
         this.dateParsers = new ArrayList<>(this.formats.size());
         for (String format : formats) {
@@ -75,7 +79,7 @@ public final class DateProcessor extends AbstractProcessor {
 
     @Override
     public void execute(IngestDocument ingestDocument) {
-        Object obj = ingestDocument.getFieldValue(field, Object.class);
+        Object obj = ingestDocument.getFieldValue(fieldPath, Object.class);
         String value = null;
         if (obj != null) {
             // Not use Objects.toString(...) here, because null gets changed to "null" which may confuse some date parsers
@@ -97,7 +101,7 @@ public final class DateProcessor extends AbstractProcessor {
             throw new IllegalArgumentException("unable to parse date [" + value + "]", lastException);
         }
 
-        ingestDocument.setFieldValue(targetField, ISODateTimeFormat.dateTime().print(dateTime));
+        ingestDocument.setFieldValue(targetFieldPath, ISODateTimeFormat.dateTime().print(dateTime));
     }
 
     @Override
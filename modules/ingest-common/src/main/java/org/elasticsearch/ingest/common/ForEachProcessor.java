@@ -23,6 +23,8 @@ import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.ingest.Processor;
+import org.elasticsearch.ingest.ProcessorMetric;
+import org.elasticsearch.ingest.WrappingProcessor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,13 +44,14 @@ import static org.elasticsearch.ingest.ConfigurationUtils.readStringProperty;
  *
  * Note that this processor is experimental.
  */
-public final class ForEachProcessor extends AbstractProcessor {
+public final class ForEachProcessor extends AbstractProcessor implements WrappingProcessor {
 
     public static final String TYPE = "foreach";
 
     private final String field;
     private final Processor processor;
     private final boolean ignoreMissing;
+    private final ProcessorMetric processorMetric = new ProcessorMetric();
 
     ForEachProcessor(String tag, String field, Processor processor, boolean ignoreMissing) {
         super(tag);
@@ -74,7 +77,7 @@ public final class ForEachProcessor extends AbstractProcessor {
         for (Object value : values) {
             Object previousValue = ingestDocument.getIngestMetadata().put("_value", value);
             try {
-                processor.execute(ingestDocument);
+                processorMetric.execute(processor, ingestDocument);
             } finally {
                 newValues.add(ingestDocument.getIngestMetadata().put("_value", previousValue));
             }
@@ -95,6 +98,16 @@ public final class ForEachProcessor extends AbstractProcessor {
         return processor;
     }
 
+    @Override
+    public Processor getInnerProcessor() {
+        return processor;
+    }
+
+    @Override
+    public ProcessorMetric getInnerProcessorMetric() {
+        return processorMetric;
+    }
+
     public static final class Factory implements Processor.Factory {
         @Override
         public ForEachProcessor create(Map<String, Processor.Factory> factories, String tag,
@@ -60,7 +60,7 @@ public final class RenameProcessor extends AbstractProcessor {
 
     @Override
     public void execute(IngestDocument document) {
-        String path = document.renderTemplate(field);
+        IngestDocument.FieldPath path = document.renderFieldPath(field);
         if (document.hasField(path, true) == false) {
             if (ignoreMissing) {
                 return;
@@ -72,7 +72,7 @@ public final class RenameProcessor extends AbstractProcessor {
         // If we didn't do this then we would fail if we set the value in the target_field
         // and then on failure processors would not see that value we tried to rename as we already
         // removed it.
-        String target = document.renderTemplate(targetField);
+        IngestDocument.FieldPath target = document.renderFieldPath(targetField);
         if (document.hasField(target, true)) {
             throw new IllegalArgumentException("field [" + target + "] already exists");
         }
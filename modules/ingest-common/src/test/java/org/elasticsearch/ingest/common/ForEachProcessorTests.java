@@ -28,6 +28,8 @@ import java.util.Locale;
 import java.util.Map;
 import org.elasticsearch.ingest.CompoundProcessor;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestStats;
+import org.elasticsearch.ingest.Pipeline;
 import org.elasticsearch.ingest.Processor;
 import org.elasticsearch.ingest.TestProcessor;
 import org.elasticsearch.ingest.TestTemplateService;
@@ -60,6 +62,23 @@ public class ForEachProcessorTests extends ESTestCase {
         assertThat(result.get(2), equalTo("BAZ"));
     }
 
+    public void testProcessorStats() throws Exception {
+        IngestDocument ingestDocument = new IngestDocument(
+            "_index", "_type", "_id", null, null, null, null, Collections.singletonMap("values", Arrays.asList("a", "b", "c"))
+        );
+
+        ForEachProcessor processor = new ForEachProcessor("_tag", "values", new TestProcessor(id -> {}), false);
+        Pipeline pipeline = new Pipeline("_id", null, null, new CompoundProcessor(processor));
+        pipeline.execute(ingestDocument);
+
+        List<IngestStats.ProcessorStats> stats = pipeline.getProcessorStats();
+        assertThat(stats.size(), equalTo(2));
+        assertThat(stats.get(0).getName(), equalTo("foreach:_tag"));
+        assertThat(stats.get(0).getCount(), equalTo(1L));
+        assertThat(stats.get(1).getName(), equalTo("foreach:_tag/test-processor"));
+        assertThat(stats.get(1).getCount(), equalTo(3L));
+    }
+
     public void testExecuteWithFailure() throws Exception {
         IngestDocument ingestDocument = new IngestDocument(
             "_index", "_type", "_id", null, null, null, null, Collections.singletonMap("values", Arrays.asList("a", "b", "c"))
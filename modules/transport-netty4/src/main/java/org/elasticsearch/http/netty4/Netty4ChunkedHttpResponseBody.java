@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.rest.ChunkedRestResponse;
+
+/**
+ * The body of a {@link ChunkedRestResponse}, which the {@link io.netty.handler.stream.ChunkedWriteHandler} pulls one chunk at a
+ * time whenever the channel is writable. Every chunk is serialized into a buffer from the allocator of the channel, so that the
+ * response is never fully materialized on heap and a slow client only holds up the chunks that were not flushed yet.
+ */
+final class Netty4ChunkedHttpResponseBody implements ChunkedInput<HttpContent> {
+
+    private final ChunkedRestResponse response;
+    private final int chunkSize;
+    private final Releasable onClose;
+    private long progress;
+    private boolean endOfInput;
+    private boolean closed;
+
+    Netty4ChunkedHttpResponseBody(ChunkedRestResponse response, int chunkSize, Releasable onClose) {
+        this.response = response;
+        this.chunkSize = chunkSize;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return endOfInput;
+    }
+
+    @Override
+    public void close() {
+        if (closed == false) {
+            closed = true;
+            try {
+                response.close();
+            } finally {
+                onClose.close();
+            }
+        }
+    }
+
+    @Deprecated
+    @Override
+    public HttpContent readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public HttpContent readChunk(ByteBufAllocator allocator) throws Exception {
+        if (endOfInput) {
+            return null;
+        }
+        if (response.isDone()) {
+            endOfInput = true;
+            return LastHttpContent.EMPTY_LAST_CONTENT;
+        }
+        final ByteBuf buffer = allocator.buffer(chunkSize);
+        boolean success = false;
+        try {
+            progress += response.encodeChunk(new ByteBufOutputStream(buffer), chunkSize);
+            success = true;
+        } finally {
+            if (success == false) {
+                buffer.release();
+            }
+        }
+        if (response.isDone()) {
+            endOfInput = true;
+            return new DefaultLastHttpContent(buffer);
+        }
+        return new DefaultHttpContent(buffer);
+    }
+
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+}
@@ -25,6 +25,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
@@ -32,6 +33,7 @@ import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
@@ -43,6 +45,7 @@ import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
 import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
 import org.elasticsearch.rest.AbstractRestChannel;
+import org.elasticsearch.rest.ChunkedRestResponse;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.transport.netty4.Netty4Utils;
@@ -90,6 +93,10 @@ final class Netty4HttpChannel extends AbstractRestChannel {
 
     @Override
     public void sendResponse(RestResponse response) {
+        if (response instanceof ChunkedRestResponse && HttpMethod.HEAD.equals(nettyRequest.method()) == false && isHttp10() == false) {
+            sendChunkedResponse((ChunkedRestResponse) response);
+            return;
+        }
         // if the response object was created upstream, then use it;
         // otherwise, create a new one
         ByteBuf buffer = Netty4Utils.toByteBuf(response.content());
@@ -99,30 +106,15 @@ final class Netty4HttpChannel extends AbstractRestChannel {
         } else {
             resp = newResponse(buffer);
         }
-        resp.setStatus(getStatus(response.status()));
-
-        Netty4CorsHandler.setCorsResponseHeaders(nettyRequest, resp, transport.getCorsConfig());
-
-        String opaque = nettyRequest.headers().get("X-Opaque-Id");
-        if (opaque != null) {
-            setHeaderField(resp, "X-Opaque-Id", opaque);
-        }
-
-        // Add all custom headers
-        addCustomHeaders(resp, response.getHeaders());
-        addCustomHeaders(resp, threadContext.getResponseHeaders());
+        addHeaders(resp, response);
 
         BytesReference content = response.content();
         boolean releaseContent = content instanceof Releasable;
         boolean releaseBytesStreamOutput = bytesOutputOrNull() instanceof ReleasableBytesStreamOutput;
         try {
-            // If our response doesn't specify a content-type header, set one
-            setHeaderField(resp, HttpHeaderNames.CONTENT_TYPE.toString(), response.contentType(), false);
             // If our response has no content-length, calculate and set one
             setHeaderField(resp, HttpHeaderNames.CONTENT_LENGTH.toString(), String.valueOf(buffer.readableBytes()), false);
 
-            addCookies(resp);
-
             final ChannelPromise promise = channel.newPromise();
 
             if (releaseContent) {
@@ -156,7 +148,72 @@ final class Netty4HttpChannel extends AbstractRestChannel {
             if (pipelinedRequest != null) {
                 pipelinedRequest.release();
             }
+            if (response instanceof ChunkedRestResponse) {
+                ((ChunkedRestResponse) response).close();
+            }
+        }
+    }
+
+    /**
+     * Sends the head of the response right away and its body in chunks that are serialized as the channel becomes writable.
+     */
+    private void sendChunkedResponse(ChunkedRestResponse response) {
+        final HttpResponse resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpUtil.setTransferEncodingChunked(resp, true);
+        addHeaders(resp, response);
+
+        // the bytes stream output backs the builder of the response, so it is released once the body was written or discarded
+        final BytesStreamOutput bytesOutput = bytesOutputOrNull();
+        final Netty4ChunkedHttpResponseBody body = new Netty4ChunkedHttpResponseBody(response,
+            Math.toIntExact(transport.responseChunkSize.getBytes()), () -> {
+                if (bytesOutput instanceof ReleasableBytesStreamOutput) {
+                    ((ReleasableBytesStreamOutput) bytesOutput).close();
+                }
+            });
+        boolean success = false;
+        try {
+            final ChannelPromise promise = channel.newPromise();
+            if (isCloseConnection()) {
+                promise.addListener(ChannelFutureListener.CLOSE);
+            } else {
+                // the head of the response is already sent when the body fails, so the client can only tell from the connection
+                promise.addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+            }
+            if (pipelinedRequest != null) {
+                channel.writeAndFlush(pipelinedRequest.createChunkedHttpResponse(resp, body, promise), promise);
+            } else {
+                channel.write(resp);
+                channel.writeAndFlush(body, promise);
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                body.close();
+            }
+            if (pipelinedRequest != null) {
+                pipelinedRequest.release();
+            }
+        }
+    }
+
+    private void addHeaders(HttpResponse resp, RestResponse response) {
+        resp.setStatus(getStatus(response.status()));
+
+        Netty4CorsHandler.setCorsResponseHeaders(nettyRequest, resp, transport.getCorsConfig());
+
+        String opaque = nettyRequest.headers().get("X-Opaque-Id");
+        if (opaque != null) {
+            setHeaderField(resp, "X-Opaque-Id", opaque);
         }
+
+        // Add all custom headers
+        addCustomHeaders(resp, response.getHeaders());
+        addCustomHeaders(resp, threadContext.getResponseHeaders());
+
+        // If our response doesn't specify a content-type header, set one
+        setHeaderField(resp, HttpHeaderNames.CONTENT_TYPE.toString(), response.contentType(), false);
+
+        addCookies(resp);
     }
 
     private void setHeaderField(HttpResponse resp, String headerField, String value) {
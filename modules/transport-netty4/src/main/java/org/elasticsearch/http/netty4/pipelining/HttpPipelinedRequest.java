@@ -21,7 +21,10 @@ package org.elasticsearch.http.netty4.pipelining;
 
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
 import io.netty.util.ReferenceCounted;
 
 /**
@@ -43,7 +46,15 @@ public class HttpPipelinedRequest implements ReferenceCounted {
     }
 
     public HttpPipelinedResponse createHttpResponse(final FullHttpResponse response, final ChannelPromise promise) {
-        return new HttpPipelinedResponse(response, promise, sequence);
+        return new HttpPipelinedResponse(response, null, promise, sequence);
+    }
+
+    /**
+     * Creates a response whose body is written in chunks after its head, once the responses to the preceding requests are written.
+     */
+    public HttpPipelinedResponse createChunkedHttpResponse(final HttpResponse response, final ChunkedInput<HttpContent> body,
+                                                          final ChannelPromise promise) {
+        return new HttpPipelinedResponse(response, body, promise, sequence);
     }
 
     @Override
@@ -20,25 +20,38 @@ package org.elasticsearch.http.netty4.pipelining;
  */
 
 import io.netty.channel.ChannelPromise;
-import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
 
 class HttpPipelinedResponse implements Comparable<HttpPipelinedResponse>, ReferenceCounted {
 
-    private final FullHttpResponse response;
+    private final HttpResponse response;
+    private final ChunkedInput<HttpContent> body;
     private final ChannelPromise promise;
     private final int sequence;
 
-    HttpPipelinedResponse(FullHttpResponse response, ChannelPromise promise, int sequence) {
+    /**
+     * @param response the response, which is a full response unless its body is written in chunks
+     * @param body     the chunks of the body of the response, or <code>null</code> if the response is a full response
+     */
+    HttpPipelinedResponse(HttpResponse response, ChunkedInput<HttpContent> body, ChannelPromise promise, int sequence) {
         this.response = response;
+        this.body = body;
         this.promise = promise;
         this.sequence = sequence;
     }
 
-    public FullHttpResponse response() {
+    public HttpResponse response() {
         return response;
     }
 
+    public ChunkedInput<HttpContent> body() {
+        return body;
+    }
+
     public ChannelPromise promise() {
         return promise;
     }
@@ -54,41 +67,54 @@ class HttpPipelinedResponse implements Comparable<HttpPipelinedResponse>, Refere
 
     @Override
     public int refCnt() {
-        return response.refCnt();
+        return response instanceof ReferenceCounted ? ((ReferenceCounted) response).refCnt() : 1;
     }
 
     @Override
     public ReferenceCounted retain() {
-        response.retain();
+        ReferenceCountUtil.retain(response);
         return this;
     }
 
     @Override
     public ReferenceCounted retain(int increment) {
-        response.retain(increment);
+        ReferenceCountUtil.retain(response, increment);
         return this;
     }
 
     @Override
     public ReferenceCounted touch() {
-        response.touch();
+        ReferenceCountUtil.touch(response);
         return this;
     }
 
     @Override
     public ReferenceCounted touch(Object hint) {
-        response.touch(hint);
+        ReferenceCountUtil.touch(response, hint);
         return this;
     }
 
     @Override
     public boolean release() {
-        return response.release();
+        closeBody();
+        return ReferenceCountUtil.release(response);
     }
 
     @Override
     public boolean release(int decrement) {
-        return response.release(decrement);
+        closeBody();
+        return ReferenceCountUtil.release(response, decrement);
+    }
+
+    // the body is never written if the response is released, so we need to close it ourselves
+    private void closeBody() {
+        if (body != null) {
+            try {
+                body.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("failed to close the body of the response", e);
+            }
+        }
     }
 
 }
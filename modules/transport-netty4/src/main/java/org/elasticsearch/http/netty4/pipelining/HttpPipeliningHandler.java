@@ -104,7 +104,12 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
                          * responses that precede it in the pipeline are written first. Note that the promise from the method invocation is
                          * not ignored, it will already be attached to an existing response and consumed when that response is drained.
                          */
-                        ctx.write(top.response(), top.promise());
+                        if (top.body() != null) {
+                            ctx.write(top.response());
+                            ctx.write(top.body(), top.promise());
+                        } else {
+                            ctx.write(top.response(), top.promise());
+                        }
                         writeSequence++;
                     }
                 } else {
@@ -34,11 +34,15 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -54,14 +58,17 @@ import org.elasticsearch.common.util.ByteArray;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.http.NullDispatcher;
 import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
 import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
+import org.elasticsearch.http.netty4.pipelining.HttpPipeliningHandler;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
@@ -86,6 +93,7 @@ import static org.elasticsearch.http.HttpTransportSettings.SETTING_CORS_ENABLED;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -314,6 +322,101 @@ public class Netty4HttpChannelTests extends ESTestCase {
         }
     }
 
+    public void testChunkedResponse() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(HttpTransportSettings.SETTING_HTTP_RESPONSE_CHUNK_SIZE.getKey(), "1kb")
+            .build();
+        try (Netty4HttpServerTransport httpServerTransport =
+                 new Netty4HttpServerTransport(settings, networkService, bigArrays, threadPool, xContentRegistry(), new NullDispatcher())) {
+            final FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new ChunkedWriteHandler());
+            final Netty4HttpRequest request = new Netty4HttpRequest(xContentRegistry(), httpRequest, embeddedChannel);
+            final HttpPipelinedRequest pipelinedRequest = randomBoolean() ? new HttpPipelinedRequest(request.request(), 0) : null;
+            if (pipelinedRequest != null) {
+                embeddedChannel.pipeline().addLast(new HttpPipeliningHandler(logger, 1));
+            }
+            final Netty4HttpChannel channel =
+                new Netty4HttpChannel(httpServerTransport, request, pipelinedRequest, randomBoolean(), threadPool.getThreadContext());
+
+            final int numFields = randomIntBetween(0, 1000);
+            final List<ToXContent> parts = new ArrayList<>();
+            parts.add((builder, params) -> builder.startObject());
+            for (int i = 0; i < numFields; i++) {
+                final int field = i;
+                parts.add((builder, params) -> builder.field("field_" + field, "value_" + field));
+            }
+            parts.add((builder, params) -> builder.endObject());
+            final XContentBuilder expected = JsonXContent.contentBuilder();
+            for (ToXContent part : parts) {
+                part.toXContent(expected, ToXContent.EMPTY_PARAMS);
+            }
+
+            channel.sendResponse(new ChunkedRestResponse(RestStatus.OK, channel.newBuilder(), request, parts.iterator()));
+
+            final HttpResponse response = embeddedChannel.readOutbound();
+            assertThat(response, not(instanceOf(FullHttpResponse.class)));
+            assertTrue(HttpUtil.isTransferEncodingChunked(response));
+            assertThat(response.headers().get(HttpHeaderNames.CONTENT_LENGTH), nullValue());
+            final BytesStreamOutput body = new BytesStreamOutput();
+            HttpContent content;
+            do {
+                content = embeddedChannel.readOutbound();
+                assertNotNull(content);
+                assertThat(content.content().readableBytes(), lessThanOrEqualTo(1024 + 64));
+                content.content().readBytes(body, content.content().readableBytes());
+                content.release();
+            } while (content instanceof LastHttpContent == false);
+            assertNull(embeddedChannel.readOutbound());
+            assertEquals(BytesReference.bytes(expected).utf8ToString(), body.bytes().utf8ToString());
+            // ESTestCase#after will invoke ensureAllArraysAreReleased which will fail if the builder of the response was not released
+        }
+    }
+
+    public void testChunkedResponseFailureClosesConnection() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(HttpTransportSettings.SETTING_HTTP_RESPONSE_CHUNK_SIZE.getKey(), "1kb")
+            .build();
+        try (Netty4HttpServerTransport httpServerTransport =
+                 new Netty4HttpServerTransport(settings, networkService, bigArrays, threadPool, xContentRegistry(), new NullDispatcher())) {
+            final FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new ChunkedWriteHandler());
+            final Netty4HttpRequest request = new Netty4HttpRequest(xContentRegistry(), httpRequest, embeddedChannel);
+            final HttpPipelinedRequest pipelinedRequest = randomBoolean() ? new HttpPipelinedRequest(request.request(), 0) : null;
+            if (pipelinedRequest != null) {
+                embeddedChannel.pipeline().addLast(new HttpPipeliningHandler(logger, 1));
+            }
+            final Netty4HttpChannel channel =
+                new Netty4HttpChannel(httpServerTransport, request, pipelinedRequest, randomBoolean(), threadPool.getThreadContext());
+
+            // the body fails after a few chunks were sent
+            final int failingField = randomIntBetween(100, 1000);
+            final List<ToXContent> parts = new ArrayList<>();
+            parts.add((builder, params) -> builder.startObject());
+            for (int i = 0; i < failingField; i++) {
+                final int field = i;
+                parts.add((builder, params) -> builder.field("field_" + field, "value_" + field));
+            }
+            parts.add((builder, params) -> {
+                throw new IOException("simulated failure");
+            });
+            parts.add((builder, params) -> builder.endObject());
+
+            assertTrue(embeddedChannel.isOpen());
+            channel.sendResponse(new ChunkedRestResponse(RestStatus.OK, channel.newBuilder(), request, parts.iterator()));
+
+            final HttpResponse response = embeddedChannel.readOutbound();
+            assertTrue(HttpUtil.isTransferEncodingChunked(response));
+            Object content;
+            while ((content = embeddedChannel.readOutbound()) != null) {
+                // the body is never terminated, the client can only tell that it is incomplete from the closed connection
+                assertThat(content, not(instanceOf(LastHttpContent.class)));
+                ((HttpContent) content).release();
+            }
+            assertFalse(embeddedChannel.isOpen());
+            // ESTestCase#after will invoke ensureAllArraysAreReleased which will fail if the builder of the response was not released
+        }
+    }
+
     private FullHttpResponse executeRequest(final Settings settings, final String host) {
         return executeRequest(settings, null, host);
     }
@@ -176,8 +176,10 @@ public class Version implements Comparable<Version>, ToXContentFragment {
     public static final Version V_6_4_0 = new Version(V_6_4_0_ID, org.apache.lucene.util.Version.LUCENE_7_4_0);
     public static final int V_6_4_1_ID = 6040199;
     public static final Version V_6_4_1 = new Version(V_6_4_1_ID, org.apache.lucene.util.Version.LUCENE_7_4_0);
+    public static final int V_6_5_0_ID = 6050099;
+    public static final Version V_6_5_0 = new Version(V_6_5_0_ID, org.apache.lucene.util.Version.LUCENE_7_4_0);
 
-    public static final Version CURRENT = V_6_4_1;
+    public static final Version CURRENT = V_6_5_0;
 
     static {
         assert CURRENT.luceneVersion.equals(org.apache.lucene.util.Version.LATEST) : "Version must be upgraded to ["
@@ -190,6 +192,8 @@ public class Version implements Comparable<Version>, ToXContentFragment {
 
     public static Version fromId(int id) {
         switch (id) {
+            case V_6_5_0_ID:
+                return V_6_5_0;
             case V_6_4_1_ID:
                 return V_6_4_1;
             case V_6_4_0_ID:
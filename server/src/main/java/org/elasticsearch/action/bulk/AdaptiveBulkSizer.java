@@ -0,0 +1,159 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+
+/**
+ * Tunes the size of the bulk requests that a {@link BulkProcessor} sends, and how many of them it sends concurrently, with an
+ * additive increase, multiplicative decrease controller:
+ * <ul>
+ *     <li>Every bulk request that completes within the target latency, without any rejected item, grows the limits by a fixed
+ *     step, until they reach the limits that the bulk processor was configured with.</li>
+ *     <li>A bulk request that took longer than the target latency halves the bulk size, based on the size of that request.</li>
+ *     <li>A bulk request with rejected items, or that was rejected as a whole, halves both the bulk size and the number of
+ *     concurrent requests.</li>
+ * </ul>
+ * Every attempt to send a bulk request counts, including the retries of rejected items.
+ */
+final class AdaptiveBulkSizer {
+
+    // the limits never go lower than this fraction of the configured limits
+    static final int MIN_FRACTION = 32;
+    // the limits grow by this fraction of the configured limits at a time
+    static final int STEP_FRACTION = 16;
+
+    private final long targetLatencyInMillis;
+    private final int maxBulkActions;
+    private final long maxBulkSize;
+    private final int maxConcurrentRequests;
+
+    private int bulkActions;
+    private long bulkSize;
+    private int concurrentRequests;
+
+    /**
+     * @param targetLatency         the time the bulk requests should take on the cluster
+     * @param maxBulkActions        the maximum number of actions per bulk request, or {@code -1} if not limited
+     * @param maxBulkSize           the maximum size of a bulk request in bytes, or {@code -1} if not limited
+     * @param maxConcurrentRequests the maximum number of concurrent bulk requests
+     */
+    AdaptiveBulkSizer(TimeValue targetLatency, int maxBulkActions, long maxBulkSize, int maxConcurrentRequests) {
+        if (targetLatency.millis() <= 0) {
+            throw new IllegalArgumentException("target latency must be positive but was [" + targetLatency + "]");
+        }
+        this.targetLatencyInMillis = targetLatency.millis();
+        this.maxBulkActions = maxBulkActions;
+        this.maxBulkSize = maxBulkSize;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.bulkActions = maxBulkActions;
+        this.bulkSize = maxBulkSize;
+        // starts with a single request in flight, and opens up as long as the cluster keeps up
+        this.concurrentRequests = Math.min(1, maxConcurrentRequests);
+    }
+
+    /**
+     * The number of actions after which a bulk request is sent, or {@code -1} if not limited.
+     */
+    synchronized int getBulkActions() {
+        return bulkActions;
+    }
+
+    /**
+     * The size in bytes after which a bulk request is sent, or {@code -1} if not limited.
+     */
+    synchronized long getBulkSize() {
+        return bulkSize;
+    }
+
+    /**
+     * The number of bulk requests that may be in flight while new actions are added.
+     */
+    synchronized int getConcurrentRequests() {
+        return concurrentRequests;
+    }
+
+    /**
+     * Adapts the limits to the response of an attempt to send the given bulk request.
+     */
+    synchronized void onResponse(BulkRequest request, BulkResponse response) {
+        boolean rejected = false;
+        for (BulkItemResponse item : response) {
+            if (item.isFailed() && item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+                rejected = true;
+                break;
+            }
+        }
+        if (rejected) {
+            decrease(request, true);
+        } else if (response.getTook().millis() > targetLatencyInMillis) {
+            decrease(request, false);
+        } else {
+            increase();
+        }
+    }
+
+    /**
+     * Adapts the limits to an attempt to send the given bulk request that failed as a whole.
+     */
+    synchronized void onFailure(BulkRequest request, RestStatus status) {
+        if (status == RestStatus.TOO_MANY_REQUESTS) {
+            decrease(request, true);
+        }
+    }
+
+    private void decrease(BulkRequest request, boolean rejected) {
+        // requests may have been sent before reaching the limits, when flushed explicitly or by the flush interval
+        if (maxBulkActions != -1) {
+            int actions = Math.min(bulkActions, request.numberOfActions());
+            bulkActions = Math.max(lowerBound(maxBulkActions), actions / 2);
+        }
+        if (maxBulkSize != -1) {
+            long size = Math.min(bulkSize, request.estimatedSizeInBytes());
+            bulkSize = Math.max(lowerBound(maxBulkSize), size / 2);
+        }
+        if (rejected && maxConcurrentRequests > 0) {
+            concurrentRequests = Math.max(1, concurrentRequests / 2);
+        }
+    }
+
+    private void increase() {
+        if (maxBulkActions != -1) {
+            bulkActions = (int) Math.min(maxBulkActions, bulkActions + step(maxBulkActions));
+        }
+        if (maxBulkSize != -1) {
+            bulkSize = Math.min(maxBulkSize, bulkSize + step(maxBulkSize));
+        }
+        concurrentRequests = Math.min(maxConcurrentRequests, concurrentRequests + 1);
+    }
+
+    private static long lowerBound(long max) {
+        return Math.max(1, max / MIN_FRACTION);
+    }
+
+    private static int lowerBound(int max) {
+        return Math.max(1, max / MIN_FRACTION);
+    }
+
+    private static long step(long max) {
+        return Math.max(1, max / STEP_FRACTION);
+    }
+}
@@ -19,8 +19,11 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -33,6 +36,9 @@ public class BulkItemRequest implements Streamable {
     private int id;
     private DocWriteRequest request;
     private volatile BulkItemResponse primaryResponse;
+    // the documents that the primary parsed, encoded with ParsedDocumentCodec, for the replicas to index
+    @Nullable
+    private BytesReference parsedDocument;
 
     BulkItemRequest() {
 
@@ -65,6 +71,15 @@ public class BulkItemRequest implements Streamable {
         this.primaryResponse = primaryResponse;
     }
 
+    @Nullable
+    BytesReference getParsedDocument() {
+        return parsedDocument;
+    }
+
+    void setParsedDocument(@Nullable BytesReference parsedDocument) {
+        this.parsedDocument = parsedDocument;
+    }
+
     /**
      * Abort this request, and store a {@link org.elasticsearch.action.bulk.BulkItemResponse.Failure} response.
      *
@@ -102,6 +117,9 @@ public class BulkItemRequest implements Streamable {
         if (in.readBoolean()) {
             primaryResponse = BulkItemResponse.readBulkItem(in);
         }
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            parsedDocument = in.readOptionalBytesReference();
+        }
     }
 
     @Override
@@ -109,5 +127,8 @@ public class BulkItemRequest implements Streamable {
         out.writeVInt(id);
         DocWriteRequest.writeDocumentRequest(out, request);
         out.writeOptionalStreamable(primaryResponse);
+        if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+            out.writeOptionalBytesReference(parsedDocument);
+        }
     }
 }
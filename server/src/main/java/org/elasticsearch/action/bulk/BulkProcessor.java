@@ -88,6 +88,7 @@ public class BulkProcessor implements Closeable {
         private ByteSizeValue bulkSize = new ByteSizeValue(5, ByteSizeUnit.MB);
         private TimeValue flushInterval = null;
         private BackoffPolicy backoffPolicy = BackoffPolicy.exponentialBackoff();
+        private TimeValue targetLatency = null;
 
         private Builder(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, Listener listener,
                         Scheduler scheduler, Runnable onClose) {
@@ -152,12 +153,24 @@ public class BulkProcessor implements Closeable {
             return this;
         }
 
+        /**
+         * Enables adaptive sizing, which tunes the number of actions and the size of the bulk requests, as well as the number of
+         * concurrent requests, to what the cluster sustains. Bulk requests that take longer than the given target latency on the
+         * cluster shrink the bulk requests, rejected bulk items shrink them and lower the number of concurrent requests as well,
+         * and all other bulk requests let them grow again. The bulk actions, bulk size and concurrent requests that are set on
+         * this builder are the upper limits. Defaults to not set.
+         */
+        public Builder setAdaptiveSizing(TimeValue targetLatency) {
+            this.targetLatency = targetLatency;
+            return this;
+        }
+
         /**
          * Builds a new bulk processor.
          */
         public BulkProcessor build() {
             return new BulkProcessor(consumer, backoffPolicy, listener, concurrentRequests, bulkActions, bulkSize, flushInterval,
-                    scheduler, onClose);
+                    targetLatency, scheduler, onClose);
         }
     }
 
@@ -178,6 +191,8 @@ public class BulkProcessor implements Closeable {
 
     private final int bulkActions;
     private final long bulkSize;
+    @Nullable
+    private final AdaptiveBulkSizer adaptiveBulkSizer;
 
     private final Scheduler.Cancellable cancellableFlushTask;
 
@@ -193,11 +208,20 @@ public class BulkProcessor implements Closeable {
     BulkProcessor(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, BackoffPolicy backoffPolicy, Listener listener,
                   int concurrentRequests, int bulkActions, ByteSizeValue bulkSize, @Nullable TimeValue flushInterval,
                   Scheduler scheduler, Runnable onClose) {
+        this(consumer, backoffPolicy, listener, concurrentRequests, bulkActions, bulkSize, flushInterval, null, scheduler, onClose);
+    }
+
+    BulkProcessor(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, BackoffPolicy backoffPolicy, Listener listener,
+                  int concurrentRequests, int bulkActions, ByteSizeValue bulkSize, @Nullable TimeValue flushInterval,
+                  @Nullable TimeValue targetLatency, Scheduler scheduler, Runnable onClose) {
         this.bulkActions = bulkActions;
         this.bulkSize = bulkSize.getBytes();
+        this.adaptiveBulkSizer = targetLatency == null ? null
+            : new AdaptiveBulkSizer(targetLatency, bulkActions, this.bulkSize, concurrentRequests);
         this.bulkRequest = new BulkRequest();
         this.scheduler = scheduler;
-        this.bulkRequestHandler = new BulkRequestHandler(consumer, backoffPolicy, listener, scheduler, concurrentRequests);
+        this.bulkRequestHandler = new BulkRequestHandler(consumer, backoffPolicy, listener, scheduler, concurrentRequests,
+            adaptiveBulkSizer);
         // Start period flushing task after everything is setup
         this.cancellableFlushTask = startFlushTask(flushInterval, scheduler);
         this.onClose = onClose;
@@ -297,12 +321,17 @@ public class BulkProcessor implements Closeable {
     }
 
     /**
-     * Adds the data from the bytes to be processed by the bulk processor
+     * Adds the data from the bytes to be processed by the bulk processor. All of the data is parsed before any of it is added,
+     * so that nothing is sent if a line fails to parse. The parsed items are then added one by one, and bulk requests are
+     * executed as soon as they reach the configured number of actions or size, rather than as a single bulk request.
      */
     public synchronized BulkProcessor add(BytesReference data, @Nullable String defaultIndex, @Nullable String defaultType,
                                           @Nullable String defaultPipeline, @Nullable Object payload, XContentType xContentType) throws Exception {
-        bulkRequest.add(data, defaultIndex, defaultType, null, null, null, defaultPipeline, payload, true, xContentType);
-        executeIfNeeded();
+        BulkRequest parsed = new BulkRequest();
+        parsed.add(data, defaultIndex, defaultType, null, null, null, defaultPipeline, payload, true, xContentType);
+        for (DocWriteRequest request : parsed.requests()) {
+            internalAdd(request, payload);
+        }
         return this;
     }
 
@@ -340,6 +369,8 @@ public class BulkProcessor implements Closeable {
     }
 
     private boolean isOverTheLimit() {
+        final int bulkActions = adaptiveBulkSizer == null ? this.bulkActions : adaptiveBulkSizer.getBulkActions();
+        final long bulkSize = adaptiveBulkSizer == null ? this.bulkSize : adaptiveBulkSizer.getBulkSize();
         if (bulkActions != -1 && bulkRequest.numberOfActions() >= bulkActions) {
             return true;
         }
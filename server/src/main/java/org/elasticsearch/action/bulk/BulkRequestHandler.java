@@ -20,7 +20,9 @@ package org.elasticsearch.action.bulk;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.Scheduler;
@@ -40,16 +42,52 @@ public final class BulkRequestHandler {
     private final Semaphore semaphore;
     private final Retry retry;
     private final int concurrentRequests;
+    @Nullable
+    private final AdaptiveBulkSizer adaptiveBulkSizer;
+    // permits that are held back because the adaptive bulk sizer lowered the number of concurrent requests
+    private int withheldPermits;
+    private boolean closing;
 
     BulkRequestHandler(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, BackoffPolicy backoffPolicy,
                        BulkProcessor.Listener listener, Scheduler scheduler, int concurrentRequests) {
+        this(consumer, backoffPolicy, listener, scheduler, concurrentRequests, null);
+    }
+
+    BulkRequestHandler(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, BackoffPolicy backoffPolicy,
+                       BulkProcessor.Listener listener, Scheduler scheduler, int concurrentRequests,
+                       @Nullable AdaptiveBulkSizer adaptiveBulkSizer) {
         assert concurrentRequests >= 0;
         this.logger = Loggers.getLogger(getClass());
-        this.consumer = consumer;
+        this.consumer = adaptiveBulkSizer == null ? consumer : observeAttempts(consumer, adaptiveBulkSizer);
         this.listener = listener;
         this.concurrentRequests = concurrentRequests;
+        this.adaptiveBulkSizer = adaptiveBulkSizer;
         this.retry = new Retry(backoffPolicy, scheduler);
         this.semaphore = new Semaphore(concurrentRequests > 0 ? concurrentRequests : 1);
+        if (adaptiveBulkSizer != null && concurrentRequests > 0) {
+            withheldPermits = concurrentRequests - adaptiveBulkSizer.getConcurrentRequests();
+            semaphore.acquireUninterruptibly(withheldPermits);
+        }
+    }
+
+    /**
+     * Feeds every attempt to send a bulk request to the adaptive bulk sizer, including the retries of rejected items.
+     */
+    private static BiConsumer<BulkRequest, ActionListener<BulkResponse>> observeAttempts(
+            BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, AdaptiveBulkSizer adaptiveBulkSizer) {
+        return (bulkRequest, listener) -> consumer.accept(bulkRequest, new ActionListener<BulkResponse>() {
+            @Override
+            public void onResponse(BulkResponse response) {
+                adaptiveBulkSizer.onResponse(bulkRequest, response);
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                adaptiveBulkSizer.onFailure(bulkRequest, ExceptionsHelper.status(e));
+                listener.onFailure(e);
+            }
+        });
     }
 
     public void execute(BulkRequest bulkRequest, long executionId) {
@@ -66,7 +104,7 @@ public final class BulkRequestHandler {
                     try {
                         listener.afterBulk(executionId, bulkRequest, response);
                     } finally {
-                        semaphore.release();
+                        releasePermit();
                         latch.countDown();
                     }
                 }
@@ -76,7 +114,7 @@ public final class BulkRequestHandler {
                     try {
                         listener.afterBulk(executionId, bulkRequest, e);
                     } finally {
-                        semaphore.release();
+                        releasePermit();
                         latch.countDown();
                     }
                 }
@@ -99,7 +137,33 @@ public final class BulkRequestHandler {
         }
     }
 
+    /**
+     * Releases the permit of a bulk request that completed, unless the adaptive bulk sizer lowered the number of concurrent
+     * requests in the meantime. Permits that were held back are released again once it raises the number.
+     */
+    private void releasePermit() {
+        if (adaptiveBulkSizer == null || concurrentRequests == 0) {
+            semaphore.release();
+            return;
+        }
+        synchronized (this) {
+            int toWithhold = closing ? 0 : concurrentRequests - adaptiveBulkSizer.getConcurrentRequests();
+            int permits = withheldPermits + 1;
+            withheldPermits = Math.min(permits, toWithhold);
+            if (permits > withheldPermits) {
+                semaphore.release(permits - withheldPermits);
+            }
+        }
+    }
+
     boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            closing = true;
+            if (withheldPermits > 0) {
+                semaphore.release(withheldPermits);
+                withheldPermits = 0;
+            }
+        }
         if (semaphore.tryAcquire(this.concurrentRequests, timeout, unit)) {
             semaphore.release(this.concurrentRequests);
             return true;
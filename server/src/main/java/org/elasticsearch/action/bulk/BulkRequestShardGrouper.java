@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.routing.OperationRouting;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups the items of a bulk request by the shard that they are routed to. The metadata of each index is looked up once per
+ * bulk request rather than once per item, the shard ids are computed from it directly, and the items of each shard are
+ * collected into an array of the exact size once all items have been added.
+ */
+public final class BulkRequestShardGrouper {
+
+    private final MetaData metaData;
+    private final Map<Index, IndexGroup> indexGroups = new HashMap<>();
+    // the items in the order they were added, along with the index group and the shard they are routed to
+    private final int[] itemIds;
+    private final DocWriteRequest<?>[] requests;
+    private final IndexGroup[] itemIndexGroups;
+    private final int[] itemShards;
+    private int size;
+    private int numberOfShards;
+    // bulk requests often target a single index, or runs of items for the same index
+    private IndexGroup lastIndexGroup;
+
+    /**
+     * @param metaData the metadata to route the items with
+     * @param maxItems the maximum number of items that are going to be added
+     */
+    public BulkRequestShardGrouper(MetaData metaData, int maxItems) {
+        this.metaData = metaData;
+        this.itemIds = new int[maxItems];
+        this.requests = new DocWriteRequest<?>[maxItems];
+        this.itemIndexGroups = new IndexGroup[maxItems];
+        this.itemShards = new int[maxItems];
+    }
+
+    /**
+     * Routes the given item to its shard. The routing of the request must have been resolved already.
+     *
+     * @param itemId        the slot of the item in the bulk request
+     * @param concreteIndex the concrete index that the item is written to
+     * @param request       the item
+     */
+    public void add(int itemId, Index concreteIndex, DocWriteRequest<?> request) {
+        IndexGroup indexGroup = lastIndexGroup;
+        if (indexGroup == null || indexGroup.index.equals(concreteIndex) == false) {
+            indexGroup = indexGroups.get(concreteIndex);
+            if (indexGroup == null) {
+                indexGroup = new IndexGroup(metaData.getIndexSafe(concreteIndex));
+                indexGroups.put(concreteIndex, indexGroup);
+            }
+            lastIndexGroup = indexGroup;
+        }
+        int shard = OperationRouting.generateShardId(indexGroup.indexMetaData, request.id(), request.routing());
+        if (indexGroup.counts[shard]++ == 0) {
+            numberOfShards++;
+        }
+        itemIds[size] = itemId;
+        requests[size] = request;
+        itemIndexGroups[size] = indexGroup;
+        itemShards[size] = shard;
+        size++;
+    }
+
+    /**
+     * Returns the items that were added, grouped by shard. The items of each shard keep the order they were added in.
+     */
+    public Map<ShardId, BulkItemRequest[]> group() {
+        Map<ShardId, BulkItemRequest[]> requestsByShard = new HashMap<>(2 * numberOfShards);
+        for (IndexGroup group : indexGroups.values()) {
+            group.itemsByShard = new BulkItemRequest[group.counts.length][];
+            group.positions = new int[group.counts.length];
+            for (int shard = 0; shard < group.counts.length; shard++) {
+                if (group.counts[shard] > 0) {
+                    BulkItemRequest[] items = new BulkItemRequest[group.counts[shard]];
+                    group.itemsByShard[shard] = items;
+                    requestsByShard.put(new ShardId(group.index, shard), items);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            IndexGroup group = itemIndexGroups[i];
+            int shard = itemShards[i];
+            group.itemsByShard[shard][group.positions[shard]++] = new BulkItemRequest(itemIds[i], requests[i]);
+        }
+        return requestsByShard;
+    }
+
+    private static final class IndexGroup {
+        private final Index index;
+        private final IndexMetaData indexMetaData;
+        private final int[] counts;
+        private BulkItemRequest[][] itemsByShard;
+        private int[] positions;
+
+        IndexGroup(IndexMetaData indexMetaData) {
+            this.index = indexMetaData.getIndex();
+            this.indexMetaData = indexMetaData;
+            this.counts = new int[indexMetaData.getNumberOfShards()];
+        }
+    }
+}
@@ -43,6 +43,7 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
@@ -54,6 +55,8 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.get.GetResult;
 import org.elasticsearch.index.mapper.Mapping;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.ParsedDocumentCodec;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
@@ -66,6 +69,8 @@ import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.LongSupplier;
 
@@ -138,7 +143,12 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                                                             final BulkItemRequest bulkItemRequest,
                                                             final IndexShard primary,
                                                             final MappingUpdatePerformer mappingUpdater) throws Exception {
-        Engine.IndexResult indexResult = executeIndexRequestOnPrimary(indexRequest, primary, mappingUpdater);
+        final AtomicReference<ParsedDocument> indexedDocument = new AtomicReference<>();
+        final Consumer<ParsedDocument> onIndexed = primary.indexSettings().isReplicateParsedDocuments() ? indexedDocument::set : null;
+        Engine.IndexResult indexResult = executeIndexRequestOnPrimary(indexRequest, primary, mappingUpdater, onIndexed);
+        // the replicas index the documents that the primary parsed, unless they hold fields that cannot be sent along
+        bulkItemRequest.setParsedDocument(
+            indexedDocument.get() == null ? null : ParsedDocumentCodec.encode(indexedDocument.get()));
         switch (indexResult.getResultType()) {
             case SUCCESS:
                 IndexResponse response = new IndexResponse(primary.shardId(), indexRequest.type(), indexRequest.id(),
@@ -489,7 +499,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             switch (replicaItemExecutionMode(item, i)) {
                 case NORMAL:
                     final DocWriteResponse primaryResponse = item.getPrimaryResponse().getResponse();
-                    operationResult = performOpOnReplica(primaryResponse, docWriteRequest, replica);
+                    operationResult = performOpOnReplica(primaryResponse, docWriteRequest, item.getParsedDocument(), replica);
                     assert operationResult != null : "operation result must never be null when primary response has no failure";
                     location = syncOperationResultOrThrow(operationResult, location);
                     break;
@@ -510,7 +520,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
     }
 
     private static Engine.Result performOpOnReplica(DocWriteResponse primaryResponse, DocWriteRequest docWriteRequest,
-                                                    IndexShard replica) throws Exception {
+                                                    @Nullable BytesReference parsedDocument, IndexShard replica) throws Exception {
         final Engine.Result result;
         switch (docWriteRequest.opType()) {
             case CREATE:
@@ -523,7 +533,8 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                         .routing(indexRequest.routing()).parent(indexRequest.parent());
                 result = replica.applyIndexOperationOnReplica(primaryResponse.getSeqNo(), primaryResponse.getVersion(),
                     indexRequest.versionType().versionTypeForReplicationAndRecovery(), indexRequest.getAutoGeneratedTimestamp(),
-                    indexRequest.isRetry(), sourceToParse);
+                    indexRequest.isRetry(), sourceToParse,
+                    parsedDocument == null ? null : ParsedDocumentCodec.decode(parsedDocument, sourceToParse));
                 break;
             case DELETE:
                 DeleteRequest deleteRequest = (DeleteRequest) docWriteRequest;
@@ -552,13 +563,23 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
     /** Executes index operation on primary shard after updates mapping if dynamic mappings are found */
     static Engine.IndexResult executeIndexRequestOnPrimary(IndexRequest request, IndexShard primary,
                                                            MappingUpdatePerformer mappingUpdater) throws Exception {
+        return executeIndexRequestOnPrimary(request, primary, mappingUpdater, null);
+    }
+
+    /**
+     * Executes index operation on primary shard after updates mapping if dynamic mappings are found, and passes the document that
+     * was indexed to the given consumer
+     */
+    static Engine.IndexResult executeIndexRequestOnPrimary(IndexRequest request, IndexShard primary,
+                                                           MappingUpdatePerformer mappingUpdater,
+                                                           @Nullable Consumer<ParsedDocument> onIndexed) throws Exception {
         final SourceToParse sourceToParse =
             SourceToParse.source(request.index(), request.type(), request.id(), request.source(), request.getContentType())
                 .routing(request.routing()).parent(request.parent());
         return executeOnPrimaryWhileHandlingMappingUpdates(primary.shardId(), request.type(),
             () ->
                 primary.applyIndexOperationOnPrimary(request.version(), request.versionType(), sourceToParse,
-                    request.getAutoGeneratedTimestamp(), request.isRetry()),
+                    request.getAutoGeneratedTimestamp(), request.isRetry(), onIndexed),
             e -> primary.getFailedIndexResult(e, request.version()),
             mappingUpdater);
     }
@@ -340,6 +340,11 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         SearchPhaseController.ReducedQueryPhase reduce() {
             throw new UnsupportedOperationException("reduce is not supported");
         }
+
+        /**
+         * Releases the resources that are held by the collected results. Must be safe to call more than once.
+         */
+        void release() {}
     }
 
     /**
@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The parsed form of the id of a point in time: the index expressions it was opened with, and for every shard the node holding its
+ * reader context and the id of that context on the node.
+ */
+final class PointInTimeId {
+
+    private final String[] indices;
+    private final Map<ShardId, ShardReader> shards;
+
+    PointInTimeId(String[] indices, Map<ShardId, ShardReader> shards) {
+        this.indices = indices;
+        this.shards = Collections.unmodifiableMap(shards);
+    }
+
+    String[] getIndices() {
+        return indices;
+    }
+
+    Map<ShardId, ShardReader> getShards() {
+        return shards;
+    }
+
+    String encode() {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.CURRENT);
+            Version.writeVersion(Version.CURRENT, out);
+            out.writeStringArray(indices);
+            out.writeVInt(shards.size());
+            for (Map.Entry<ShardId, ShardReader> entry : shards.entrySet()) {
+                entry.getKey().writeTo(out);
+                out.writeString(entry.getValue().getNodeId());
+                out.writeLong(entry.getValue().getReaderId());
+            }
+            return Base64.getUrlEncoder().encodeToString(BytesReference.toBytes(out.bytes()));
+        } catch (IOException e) {
+            throw new AssertionError("writing to an in-memory stream should not fail", e);
+        }
+    }
+
+    static PointInTimeId decode(String id) {
+        try (StreamInput in = new BytesArray(Base64.getUrlDecoder().decode(id)).streamInput()) {
+            in.setVersion(Version.readVersion(in));
+            String[] indices = in.readStringArray();
+            int numShards = in.readVInt();
+            Map<ShardId, ShardReader> shards = new LinkedHashMap<>(numShards);
+            for (int i = 0; i < numShards; i++) {
+                ShardId shardId = ShardId.readShardId(in);
+                shards.put(shardId, new ShardReader(in.readString(), in.readLong()));
+            }
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Not all bytes were read");
+            }
+            return new PointInTimeId(indices, shards);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot parse point in time id", e);
+        }
+    }
+
+    /**
+     * The node holding the reader context of a shard of a point in time, and the id of the context on that node.
+     */
+    static final class ShardReader {
+
+        private final String nodeId;
+        private final long readerId;
+
+        ShardReader(String nodeId, long readerId) {
+            this.nodeId = nodeId;
+            this.readerId = readerId;
+        }
+
+        String getNodeId() {
+            return nodeId;
+        }
+
+        long getReaderId() {
+            return readerId;
+        }
+    }
+}
@@ -32,8 +32,14 @@ import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.collect.HppcMaps;
 import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
@@ -73,6 +79,9 @@ public final class SearchPhaseController extends AbstractComponent {
     private static final ScoreDoc[] EMPTY_DOCS = new ScoreDoc[0];
 
     private final Function<Boolean, ReduceContext> reduceContextFunction;
+    @Nullable
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final CircuitBreaker requestBreaker;
 
     /**
      * Constructor.
@@ -80,8 +89,23 @@ public final class SearchPhaseController extends AbstractComponent {
      * @param reduceContextFunction A function that builds a context for the reduce of an {@link InternalAggregation}
      */
     public SearchPhaseController(Settings settings, Function<Boolean, ReduceContext> reduceContextFunction) {
+        this(settings, reduceContextFunction, null, new NoopCircuitBreaker(CircuitBreaker.REQUEST));
+    }
+
+    /**
+     * Constructor.
+     * @param settings Node settings
+     * @param reduceContextFunction A function that builds a context for the reduce of an {@link InternalAggregation}
+     * @param namedWriteableRegistry the registry to read the aggregations that are buffered in their serialized form with, or
+     *                               <code>null</code> if the results of intermediate reduces should not be serialized
+     * @param requestBreaker the breaker that the aggregations buffered for incremental reduces are accounted to
+     */
+    public SearchPhaseController(Settings settings, Function<Boolean, ReduceContext> reduceContextFunction,
+                                 @Nullable NamedWriteableRegistry namedWriteableRegistry, CircuitBreaker requestBreaker) {
         super(settings);
         this.reduceContextFunction = reduceContextFunction;
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.requestBreaker = requestBreaker;
     }
 
     public AggregatedDfs aggregateDfs(Collection<DfsSearchResult> results) {
@@ -520,6 +544,18 @@ public final class SearchPhaseController extends AbstractComponent {
             null, reduceContext);
     }
 
+    /**
+     * Returns the given aggregations in their compact serialized form if this controller can read them back, so that the result of an
+     * intermediate reduce does not keep the whole aggregation tree in memory until the next reduce.
+     */
+    private DelayableWriteable<InternalAggregations> compactAggs(InternalAggregations aggregations) {
+        DelayableWriteable<InternalAggregations> reference = DelayableWriteable.referencing(aggregations);
+        if (namedWriteableRegistry == null) {
+            return reference;
+        }
+        return reference.asSerialized(InternalAggregations::readAggregations, namedWriteableRegistry);
+    }
+
     private InternalAggregations reduceAggs(List<InternalAggregations> aggregationsList,
                                             List<SiblingPipelineAggregator> pipelineAggregators, ReduceContext reduceContext) {
         InternalAggregations aggregations = InternalAggregations.reduce(aggregationsList, reduceContext);
@@ -615,7 +651,7 @@ public final class SearchPhaseController extends AbstractComponent {
      * iff the buffer is exhausted.
      */
     static final class QueryPhaseResultConsumer extends InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> {
-        private final InternalAggregations[] aggsBuffer;
+        private final DelayableWriteable<InternalAggregations>[] aggsBuffer;
         private final TopDocs[] topDocsBuffer;
         private final boolean hasAggs;
         private final boolean hasTopDocs;
@@ -624,6 +660,11 @@ public final class SearchPhaseController extends AbstractComponent {
         private final SearchPhaseController controller;
         private int numReducePhases = 0;
         private final TopDocsStats topDocsStats = new TopDocsStats();
+        // the serialized size of the buffered aggregations, that is accounted to the request circuit breaker
+        private long aggsBufferBytes = 0;
+        // set if the buffered aggregations tripped the request circuit breaker, in which case the search fails when it is reduced
+        private CircuitBreakingException failure;
+        private boolean released = false;
 
         /**
          * Creates a new {@link QueryPhaseResultConsumer}
@@ -632,6 +673,7 @@ public final class SearchPhaseController extends AbstractComponent {
          * @param bufferSize the size of the reduce buffer. if the buffer size is smaller than the number of expected results
          *                   the buffer is used to incrementally reduce aggregation results before all shards responded.
          */
+        @SuppressWarnings("unchecked")
         private QueryPhaseResultConsumer(SearchPhaseController controller, int expectedResultSize, int bufferSize,
                                          boolean hasTopDocs, boolean hasAggs) {
             super(expectedResultSize);
@@ -646,7 +688,7 @@ public final class SearchPhaseController extends AbstractComponent {
             }
             this.controller = controller;
             // no need to buffer anything if we have less expected results. in this case we don't consume any results ahead of time.
-            this.aggsBuffer = new InternalAggregations[hasAggs ? bufferSize : 0];
+            this.aggsBuffer = new DelayableWriteable[hasAggs ? bufferSize : 0];
             this.topDocsBuffer = new TopDocs[hasTopDocs ? bufferSize : 0];
             this.hasTopDocs = hasTopDocs;
             this.hasAggs = hasAggs;
@@ -662,26 +704,50 @@ public final class SearchPhaseController extends AbstractComponent {
         }
 
         private synchronized void consumeInternal(QuerySearchResult querySearchResult) {
-            if (index == bufferSize) {
+            if (failure != null || released) {
+                // the search fails or has completed already, so we drop the aggregations right away to free up memory
                 if (hasAggs) {
-                    InternalAggregations reducedAggs = controller.reduceAggsIncrementally(Arrays.asList(aggsBuffer));
-                    Arrays.fill(aggsBuffer, null);
-                    aggsBuffer[0] = reducedAggs;
+                    querySearchResult.consumeDelayableAggs();
                 }
-                if (hasTopDocs) {
-                    TopDocs reducedTopDocs = controller.mergeTopDocs(Arrays.asList(topDocsBuffer),
-                        querySearchResult.from() + querySearchResult.size() // we have to merge here in the same way we collect on a shard
-                        , 0);
-                    Arrays.fill(topDocsBuffer, null);
-                    topDocsBuffer[0] = reducedTopDocs;
+                return;
+            }
+            try {
+                if (index == bufferSize) {
+                    if (hasAggs) {
+                        // the shard results are only read when they are reduced, which bounds the number of aggregation trees in memory
+                        List<InternalAggregations> aggs = new ArrayList<>(bufferSize);
+                        for (int i = 0; i < bufferSize; i++) {
+                            aggs.add(aggsBuffer[i].expand());
+                            aggsBuffer[i] = null;
+                        }
+                        DelayableWriteable<InternalAggregations> reducedAggs =
+                            controller.compactAggs(controller.reduceAggsIncrementally(aggs));
+                        releaseAggsBuffer();
+                        addAggsBufferBytes(reducedAggs);
+                        aggsBuffer[0] = reducedAggs;
+                    }
+                    if (hasTopDocs) {
+                        TopDocs reducedTopDocs = controller.mergeTopDocs(Arrays.asList(topDocsBuffer),
+                            querySearchResult.from() + querySearchResult.size() // we have to merge here in the same way we collect on a shard
+                            , 0);
+                        Arrays.fill(topDocsBuffer, null);
+                        topDocsBuffer[0] = reducedTopDocs;
+                    }
+                    numReducePhases++;
+                    index = 1;
+                }
+                if (hasAggs) {
+                    DelayableWriteable<InternalAggregations> aggs = querySearchResult.consumeDelayableAggs();
+                    addAggsBufferBytes(aggs);
+                    aggsBuffer[index] = aggs;
                 }
-                numReducePhases++;
-                index = 1;
+            } catch (CircuitBreakingException e) {
+                failure = e;
+                Arrays.fill(aggsBuffer, null);
+                releaseAggsBuffer();
+                return;
             }
             final int i = index++;
-            if (hasAggs) {
-                aggsBuffer[i] = (InternalAggregations) querySearchResult.consumeAggs();
-            }
             if (hasTopDocs) {
                 final TopDocs topDocs = querySearchResult.consumeTopDocs(); // can't be null
                 topDocsStats.add(topDocs);
@@ -690,8 +756,29 @@ public final class SearchPhaseController extends AbstractComponent {
             }
         }
 
+        private void addAggsBufferBytes(DelayableWriteable<InternalAggregations> aggs) {
+            // aggregations that are not serialized come from the local node, whose responses are never serialized
+            if (aggs instanceof DelayableWriteable.Serialized) {
+                final long bytes = ((DelayableWriteable.Serialized<InternalAggregations>) aggs).ramBytesUsed();
+                controller.requestBreaker.addEstimateBytesAndMaybeBreak(bytes, "<reduce_aggs>");
+                aggsBufferBytes += bytes;
+            }
+        }
+
+        private synchronized void releaseAggsBuffer() {
+            controller.requestBreaker.addWithoutBreaking(-aggsBufferBytes);
+            aggsBufferBytes = 0;
+        }
+
         private synchronized List<InternalAggregations> getRemainingAggs() {
-            return hasAggs ? Arrays.asList(aggsBuffer).subList(0, index) : null;
+            if (hasAggs == false) {
+                return null;
+            }
+            List<InternalAggregations> aggs = new ArrayList<>(index);
+            for (int i = 0; i < index; i++) {
+                aggs.add(aggsBuffer[i].expand());
+            }
+            return aggs;
         }
 
         private synchronized List<TopDocs> getRemainingTopDocs() {
@@ -701,8 +788,24 @@ public final class SearchPhaseController extends AbstractComponent {
 
         @Override
         public ReducedQueryPhase reduce() {
-            return controller.reducedQueryPhase(results.asList(), getRemainingAggs(), getRemainingTopDocs(), topDocsStats,
-                numReducePhases, false);
+            try {
+                synchronized (this) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                }
+                return controller.reducedQueryPhase(results.asList(), getRemainingAggs(), getRemainingTopDocs(), topDocsStats,
+                    numReducePhases, false);
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        synchronized void release() {
+            released = true;
+            Arrays.fill(aggsBuffer, null);
+            releaseAggsBuffer();
         }
 
         /**
@@ -713,6 +816,13 @@ public final class SearchPhaseController extends AbstractComponent {
         }
 
         int getNumReducePhases() { return numReducePhases; }
+
+        /**
+         * Returns the number of bytes of the buffered aggregations that are accounted to the request circuit breaker
+         */
+        synchronized long getAggsBufferBytes() {
+            return aggsBufferBytes;
+        }
     }
 
     /**
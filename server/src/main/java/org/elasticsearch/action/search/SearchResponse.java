@@ -223,7 +223,28 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
         return builder;
     }
 
+    /**
+     * Splits {@link #toXContent(XContentBuilder, Params)} into parts that are written to the same builder one after the other, so
+     * that the hits and aggregations of large responses can be serialized incrementally.
+     */
+    public List<ToXContent> toXContentChunks() {
+        final List<ToXContent> chunks = new ArrayList<>();
+        chunks.add((builder, params) -> {
+            builder.startObject();
+            return headerToXContent(builder, params);
+        });
+        chunks.addAll(internalResponse.toXContentChunks());
+        chunks.add((builder, params) -> builder.endObject());
+        return chunks;
+    }
+
     public XContentBuilder innerToXContent(XContentBuilder builder, Params params) throws IOException {
+        headerToXContent(builder, params);
+        internalResponse.toXContent(builder, params);
+        return builder;
+    }
+
+    private XContentBuilder headerToXContent(XContentBuilder builder, Params params) throws IOException {
         if (scrollId != null) {
             builder.field(SCROLL_ID.getPreferredName(), scrollId);
         }
@@ -238,7 +259,6 @@ public class SearchResponse extends ActionResponse implements StatusToXContentOb
         RestActions.buildBroadcastShardsHeader(builder, params, getTotalShards(), getSuccessfulShards(), getSkippedShards(),
             getFailedShards(), getShardFailures());
         clusters.toXContent(builder, params);
-        internalResponse.toXContent(builder, params);
         return builder;
     }
 
@@ -20,6 +20,7 @@
 package org.elasticsearch.action.search;
 
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.SearchHits;
@@ -29,7 +30,9 @@ import org.elasticsearch.search.profile.SearchProfileShardResults;
 import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -103,17 +106,28 @@ public class SearchResponseSections implements ToXContentFragment {
 
     @Override
     public final XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
-        hits.toXContent(builder, params);
+        for (ToXContent chunk : toXContentChunks()) {
+            chunk.toXContent(builder, params);
+        }
+        return builder;
+    }
+
+    /**
+     * Splits {@link #toXContent(XContentBuilder, Params)} into parts that are written to the same builder one after the other,
+     * see {@link SearchHits#toXContentChunks()} and {@link Aggregations#toXContentChunks()}.
+     */
+    public final List<ToXContent> toXContentChunks() {
+        final List<ToXContent> chunks = new ArrayList<>(hits.toXContentChunks());
         if (aggregations != null) {
-            aggregations.toXContent(builder, params);
+            chunks.addAll(aggregations.toXContentChunks());
         }
         if (suggest != null) {
-            suggest.toXContent(builder, params);
+            chunks.add(suggest);
         }
         if (profileResults != null) {
-            profileResults.toXContent(builder, params);
+            chunks.add(profileResults);
         }
-        return builder;
+        return chunks;
     }
 
     protected void writeTo(StreamOutput out) throws IOException {
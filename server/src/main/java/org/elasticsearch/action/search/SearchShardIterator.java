@@ -34,6 +34,7 @@ public final class SearchShardIterator extends PlainShardIterator {
 
     private final OriginalIndices originalIndices;
     private String clusterAlias;
+    private final long readerId;
     private boolean skip = false;
 
     /**
@@ -44,9 +45,19 @@ public final class SearchShardIterator extends PlainShardIterator {
      * @param shards  shards to iterate
      */
     public SearchShardIterator(String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices) {
+        this(clusterAlias, shardId, shards, originalIndices, -1);
+    }
+
+    /**
+     * Creates a {@link PlainShardIterator} instance that iterates over the shards that hold the reader context with the given id
+     * of a point in time.
+     */
+    SearchShardIterator(String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices,
+                        long readerId) {
         super(shardId, shards);
         this.originalIndices = originalIndices;
         this.clusterAlias = clusterAlias;
+        this.readerId = readerId;
     }
 
     /**
@@ -60,6 +71,13 @@ public final class SearchShardIterator extends PlainShardIterator {
         return clusterAlias;
     }
 
+    /**
+     * Returns the id of the reader context of the point in time to search on the shard, or {@code -1} to search its current state.
+     */
+    long getReaderId() {
+        return readerId;
+    }
+
     /**
      * Reset the iterator and mark it as skippable
      * @see #skip()
@@ -26,11 +26,14 @@ import org.elasticsearch.action.IndicesRequest;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -40,6 +43,7 @@ import org.elasticsearch.search.fetch.ScrollQueryFetchSearchResult;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
 import org.elasticsearch.search.fetch.ShardFetchSearchRequest;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ShardFieldRanges;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.internal.ShardSearchTransportRequest;
 import org.elasticsearch.search.query.QuerySearchRequest;
@@ -82,6 +86,8 @@ public class SearchTransportService extends AbstractComponent {
     public static final String FETCH_ID_SCROLL_ACTION_NAME = "indices:data/read/search[phase/fetch/id/scroll]";
     public static final String FETCH_ID_ACTION_NAME = "indices:data/read/search[phase/fetch/id]";
     public static final String QUERY_CAN_MATCH_NAME = "indices:data/read/search[can_match]";
+    public static final String OPEN_READER_CONTEXT_ACTION_NAME = "indices:data/read/search[open_reader_context]";
+    public static final String FREE_READER_CONTEXT_ACTION_NAME = "indices:data/read/search[free_reader_context]";
 
     private final TransportService transportService;
     private final BiFunction<Transport.Connection, SearchActionListener, ActionListener> responseWrapper;
@@ -114,6 +120,18 @@ public class SearchTransportService extends AbstractComponent {
             TransportRequestOptions.EMPTY, new ActionListenerResponseHandler<>(listener, SearchFreeContextResponse::new));
     }
 
+    public void sendOpenReaderContext(Transport.Connection connection, OpenReaderContextRequest request, Task task,
+                                      ActionListener<OpenReaderContextResponse> listener) {
+        transportService.sendChildRequest(connection, OPEN_READER_CONTEXT_ACTION_NAME, request, task,
+            TransportRequestOptions.EMPTY, new ActionListenerResponseHandler<>(listener, OpenReaderContextResponse::new));
+    }
+
+    public void sendFreeReaderContext(Transport.Connection connection, long readerId,
+                                      ActionListener<SearchFreeContextResponse> listener) {
+        transportService.sendRequest(connection, FREE_READER_CONTEXT_ACTION_NAME, new ScrollFreeContextRequest(readerId),
+            TransportRequestOptions.EMPTY, new ActionListenerResponseHandler<>(listener, SearchFreeContextResponse::new));
+    }
+
     public void sendCanMatch(Transport.Connection connection, final ShardSearchTransportRequest request, SearchTask task, final
                             ActionListener<CanMatchResponse> listener) {
         if (connection.getNode().getVersion().onOrAfter(Version.V_5_6_0)) {
@@ -276,6 +294,82 @@ public class SearchTransportService extends AbstractComponent {
         }
     }
 
+    static class OpenReaderContextRequest extends TransportRequest implements IndicesRequest {
+        private ShardId shardId;
+        private TimeValue keepAlive;
+        private OriginalIndices originalIndices;
+
+        OpenReaderContextRequest() {
+        }
+
+        OpenReaderContextRequest(ShardId shardId, TimeValue keepAlive, OriginalIndices originalIndices) {
+            this.shardId = shardId;
+            this.keepAlive = keepAlive;
+            this.originalIndices = originalIndices;
+        }
+
+        public ShardId shardId() {
+            return shardId;
+        }
+
+        public TimeValue keepAlive() {
+            return keepAlive;
+        }
+
+        @Override
+        public String[] indices() {
+            return originalIndices.indices();
+        }
+
+        @Override
+        public IndicesOptions indicesOptions() {
+            return originalIndices.indicesOptions();
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            shardId = ShardId.readShardId(in);
+            keepAlive = in.readTimeValue();
+            originalIndices = OriginalIndices.readOriginalIndices(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            shardId.writeTo(out);
+            out.writeTimeValue(keepAlive);
+            OriginalIndices.writeOriginalIndices(originalIndices, out);
+        }
+    }
+
+    static class OpenReaderContextResponse extends TransportResponse {
+        private long readerId;
+
+        OpenReaderContextResponse() {
+        }
+
+        OpenReaderContextResponse(long readerId) {
+            this.readerId = readerId;
+        }
+
+        public long readerId() {
+            return readerId;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            readerId = in.readLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeLong(readerId);
+        }
+    }
+
     public static class SearchFreeContextResponse extends TransportResponse {
 
         private boolean freed;
@@ -325,6 +419,26 @@ public class SearchTransportService extends AbstractComponent {
             });
         TransportActionProxy.registerProxyAction(transportService, FREE_CONTEXT_ACTION_NAME,
                 (Supplier<TransportResponse>) SearchFreeContextResponse::new);
+        transportService.registerRequestHandler(OPEN_READER_CONTEXT_ACTION_NAME, OpenReaderContextRequest::new, ThreadPool.Names.SAME,
+            new TaskAwareTransportRequestHandler<OpenReaderContextRequest>() {
+                @Override
+                public void messageReceived(OpenReaderContextRequest request, TransportChannel channel, Task task) throws Exception {
+                    long readerId = searchService.openReaderContext(request.shardId(), request.keepAlive());
+                    channel.sendResponse(new OpenReaderContextResponse(readerId));
+                }
+            });
+        TransportActionProxy.registerProxyAction(transportService, OPEN_READER_CONTEXT_ACTION_NAME,
+                (Supplier<TransportResponse>) OpenReaderContextResponse::new);
+        transportService.registerRequestHandler(FREE_READER_CONTEXT_ACTION_NAME, ScrollFreeContextRequest::new, ThreadPool.Names.SAME,
+            new TaskAwareTransportRequestHandler<ScrollFreeContextRequest>() {
+                @Override
+                public void messageReceived(ScrollFreeContextRequest request, TransportChannel channel, Task task) throws Exception {
+                    boolean freed = searchService.freeReaderContext(request.id());
+                    channel.sendResponse(new SearchFreeContextResponse(freed));
+                }
+            });
+        TransportActionProxy.registerProxyAction(transportService, FREE_READER_CONTEXT_ACTION_NAME,
+                (Supplier<TransportResponse>) SearchFreeContextResponse::new);
         transportService.registerRequestHandler(CLEAR_SCROLL_CONTEXTS_ACTION_NAME, () -> TransportRequest.Empty.INSTANCE,
             ThreadPool.Names.SAME, new TaskAwareTransportRequestHandler<TransportRequest.Empty>() {
                 @Override
@@ -447,8 +561,10 @@ public class SearchTransportService extends AbstractComponent {
             new TaskAwareTransportRequestHandler<ShardSearchTransportRequest>() {
                 @Override
                 public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel, Task task) throws Exception {
+                    // the field ranges must be computed before the query gets rewritten
+                    ShardFieldRanges fieldRanges = searchService.cacheableFieldRanges(request);
                     boolean canMatch = searchService.canMatch(request);
-                    channel.sendResponse(new CanMatchResponse(canMatch));
+                    channel.sendResponse(new CanMatchResponse(canMatch, fieldRanges));
                 }
             });
         TransportActionProxy.registerProxyAction(transportService, QUERY_CAN_MATCH_NAME,
@@ -457,30 +573,50 @@ public class SearchTransportService extends AbstractComponent {
 
     public static final class CanMatchResponse extends SearchPhaseResult {
         private boolean canMatch;
+        private ShardFieldRanges fieldRanges;
 
         public CanMatchResponse() {
         }
 
         public CanMatchResponse(boolean canMatch) {
-            this.canMatch = canMatch;
+            this(canMatch, null);
         }
 
+        public CanMatchResponse(boolean canMatch, @Nullable ShardFieldRanges fieldRanges) {
+            this.canMatch = canMatch;
+            this.fieldRanges = fieldRanges;
+        }
 
         @Override
         public void readFrom(StreamInput in) throws IOException {
             super.readFrom(in);
             canMatch = in.readBoolean();
+            if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+                fieldRanges = in.readOptionalWriteable(ShardFieldRanges::new);
+            }
         }
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             super.writeTo(out);
             out.writeBoolean(canMatch);
+            if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+                out.writeOptionalWriteable(fieldRanges);
+            }
         }
 
         public boolean canMatch() {
             return canMatch;
         }
+
+        /**
+         * Returns the ranges of the date fields of the shard that the coordinating node may cache, or {@code null} if the shard
+         * still receives writes.
+         */
+        @Nullable
+        public ShardFieldRanges getFieldRanges() {
+            return fieldRanges;
+        }
     }
 
 
@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ShardFieldRanges;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caches the ranges of the date fields of the shards of write-blocked indices that shards report in their can_match responses,
+ * so that the {@link CanMatchPreFilterSearchPhase} can skip the shards that cannot match a range query without a round trip.
+ * Cached ranges are only used as long as the index is write-blocked and its metadata did not change since they were computed.
+ */
+public final class ShardFieldRangesCache {
+
+    /** The maximum number of shards whose field ranges are cached, {@code 0} disables the cache. */
+    public static final Setting<Integer> CACHE_SIZE_SETTING = Setting.intSetting(
+            "action.search.pre_filter_field_ranges_cache.size", 10000, 0, Property.NodeScope);
+
+    private final ClusterService clusterService;
+    private final Cache<ShardId, ShardFieldRanges> cache;
+
+    ShardFieldRangesCache(Settings settings, ClusterService clusterService) {
+        this.clusterService = clusterService;
+        int size = CACHE_SIZE_SETTING.get(settings);
+        this.cache = size == 0 ? null : CacheBuilder.<ShardId, ShardFieldRanges>builder().setMaximumWeight(size).build();
+    }
+
+    /**
+     * Returns {@code true} if the cached field ranges of the given shard prove that the query of the given source cannot match any
+     * of its documents.
+     */
+    boolean cannotMatch(ShardId shardId, @Nullable String clusterAlias, @Nullable SearchSourceBuilder source, long nowInMillis) {
+        if (cache == null || clusterAlias != null || SearchService.canRewriteToMatchNone(source) == false) {
+            return false;
+        }
+        if (source.pointInTimeBuilder() != null) {
+            // the cached ranges describe the live shard, not the reader that the point in time pinned
+            return false;
+        }
+        ShardFieldRanges fieldRanges = cache.get(shardId);
+        if (fieldRanges == null) {
+            return false;
+        }
+        if (isValid(clusterService.state(), shardId, fieldRanges) == false) {
+            cache.invalidate(shardId, fieldRanges);
+            return false;
+        }
+        List<RangeQueryBuilder> rangeQueries = new ArrayList<>();
+        ShardFieldRanges.collectRequiredRanges(source.query(), rangeQueries);
+        try {
+            return fieldRanges.isDisjoint(rangeQueries, () -> nowInMillis);
+        } catch (RuntimeException e) {
+            // let the shard report that the range cannot be parsed
+            return false;
+        }
+    }
+
+    /**
+     * Caches the field ranges that the given shard reported, if any.
+     */
+    void put(ShardId shardId, @Nullable String clusterAlias, @Nullable ShardFieldRanges fieldRanges) {
+        if (cache == null || clusterAlias != null || fieldRanges == null) {
+            return;
+        }
+        ShardFieldRanges existing = cache.get(shardId);
+        cache.put(shardId, existing == null ? fieldRanges : existing.merge(fieldRanges));
+    }
+
+    /**
+     * Returns the number of shards whose field ranges are cached.
+     */
+    int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    private static boolean isValid(ClusterState state, ShardId shardId, ShardFieldRanges fieldRanges) {
+        IndexMetaData indexMetaData = state.metaData().index(shardId.getIndex());
+        return indexMetaData != null && indexMetaData.getVersion() == fieldRanges.getIndexMetaDataVersion()
+            && state.blocks().indexBlocked(ClusterBlockLevel.WRITE, shardId.getIndexName());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.search;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TransportClosePointInTimeAction extends HandledTransportAction<ClosePointInTimeRequest, ClearScrollResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportClosePointInTimeAction(Settings settings, TransportService transportService, ThreadPool threadPool,
+                                           ClusterService clusterService, ActionFilters actionFilters,
+                                           IndexNameExpressionResolver indexNameExpressionResolver,
+                                           SearchTransportService searchTransportService) {
+        super(settings, ClosePointInTimeAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver,
+            ClosePointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected void doExecute(ClosePointInTimeRequest request, ActionListener<ClearScrollResponse> listener) {
+        final PointInTimeId pointInTimeId;
+        try {
+            pointInTimeId = PointInTimeId.decode(request.getId());
+        } catch (IllegalArgumentException e) {
+            listener.onFailure(e);
+            return;
+        }
+        freeReaderContexts(logger, clusterService.state().nodes(), searchTransportService, pointInTimeId.getShards().values(),
+            listener);
+    }
+
+    /**
+     * Frees the given reader contexts on the nodes that hold them, and reports how many of them were freed. Contexts on nodes that
+     * left the cluster are considered gone.
+     */
+    static void freeReaderContexts(Logger logger, DiscoveryNodes nodes, SearchTransportService searchTransportService,
+                                   Collection<PointInTimeId.ShardReader> readers, ActionListener<ClearScrollResponse> listener) {
+        if (readers.isEmpty()) {
+            listener.onResponse(new ClearScrollResponse(true, 0));
+            return;
+        }
+        final CountDown countDown = new CountDown(readers.size());
+        final AtomicInteger numFreed = new AtomicInteger();
+        final AtomicBoolean succeeded = new AtomicBoolean(true);
+        for (PointInTimeId.ShardReader reader : readers) {
+            final DiscoveryNode node = nodes.get(reader.getNodeId());
+            if (node == null) {
+                if (countDown.countDown()) {
+                    listener.onResponse(new ClearScrollResponse(succeeded.get(), numFreed.get()));
+                }
+                continue;
+            }
+            try {
+                searchTransportService.sendFreeReaderContext(searchTransportService.getConnection(null, node), reader.getReaderId(),
+                    new ActionListener<SearchTransportService.SearchFreeContextResponse>() {
+                        @Override
+                        public void onResponse(SearchTransportService.SearchFreeContextResponse response) {
+                            if (response.isFreed()) {
+                                numFreed.incrementAndGet();
+                            }
+                            onDone();
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            logger.warn(() -> new ParameterizedMessage("failed to free reader context [{}] on node [{}]",
+                                reader.getReaderId(), node), e);
+                            succeeded.set(false);
+                            onDone();
+                        }
+
+                        private void onDone() {
+                            if (countDown.countDown()) {
+                                listener.onResponse(new ClearScrollResponse(succeeded.get(), numFreed.get()));
+                            }
+                        }
+                    });
+            } catch (Exception e) {
+                logger.warn(() -> new ParameterizedMessage("failed to free reader context [{}] on node [{}]", reader.getReaderId(), node),
+                    e);
+                succeeded.set(false);
+                if (countDown.countDown()) {
+                    listener.onResponse(new ClearScrollResponse(succeeded.get(), numFreed.get()));
+                }
+            }
+        }
+    }
+}
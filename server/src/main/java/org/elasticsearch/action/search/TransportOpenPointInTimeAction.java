@@ -0,0 +1,190 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.search;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opens a point in time by opening a reader context on one copy of every shard of the requested indices, and encodes the shards,
+ * the nodes holding the contexts and the ids of the contexts in the id of the point in time. If a shard cannot open a reader
+ * context on any of its copies, the contexts opened on the other shards are freed and the request fails.
+ */
+public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenPointInTimeRequest, OpenPointInTimeResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportOpenPointInTimeAction(Settings settings, TransportService transportService, ThreadPool threadPool,
+                                          ClusterService clusterService, ActionFilters actionFilters,
+                                          IndexNameExpressionResolver indexNameExpressionResolver,
+                                          SearchTransportService searchTransportService) {
+        super(settings, OpenPointInTimeAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver,
+            OpenPointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected final void doExecute(OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener) {
+        throw new UnsupportedOperationException("the task parameter is required");
+    }
+
+    @Override
+    protected void doExecute(Task task, OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener) {
+        final ClusterState clusterState = clusterService.state();
+        final GroupShardsIterator<ShardIterator> shardIterators;
+        try {
+            clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
+            Index[] indices = indexNameExpressionResolver.concreteIndices(clusterState, request.indicesOptions(), request.indices());
+            String[] concreteIndices = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, indices[i].getName());
+                concreteIndices[i] = indices[i].getName();
+            }
+            Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, request.routing(),
+                request.indices());
+            shardIterators = clusterService.operationRouting().searchShards(clusterState, concreteIndices, routingMap,
+                request.preference());
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        if (shardIterators.size() == 0) {
+            listener.onResponse(new OpenPointInTimeResponse(new PointInTimeId(request.indices(), new LinkedHashMap<>()).encode()));
+            return;
+        }
+
+        final OriginalIndices originalIndices = new OriginalIndices(request);
+        final List<ShardIterator> shards = new ArrayList<>(shardIterators.size());
+        for (ShardIterator shardIterator : shardIterators) {
+            shards.add(shardIterator);
+        }
+        final AtomicArray<PointInTimeId.ShardReader> readers = new AtomicArray<>(shards.size());
+        final AtomicArray<Exception> failures = new AtomicArray<>(shards.size());
+        final CountDown countDown = new CountDown(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            final int shardIndex = i;
+            openOnShard(clusterState, task, shards.get(i), originalIndices, request.keepAlive(), null,
+                new ActionListener<PointInTimeId.ShardReader>() {
+                    @Override
+                    public void onResponse(PointInTimeId.ShardReader reader) {
+                        readers.set(shardIndex, reader);
+                        onDone();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        failures.set(shardIndex, e);
+                        onDone();
+                    }
+
+                    private void onDone() {
+                        if (countDown.countDown()) {
+                            onShardsOpened(clusterState, request, shards, readers, failures, listener);
+                        }
+                    }
+                });
+        }
+    }
+
+    private void openOnShard(ClusterState clusterState, Task task, ShardIterator shardIterator, OriginalIndices originalIndices,
+                             TimeValue keepAlive, Exception lastFailure, ActionListener<PointInTimeId.ShardReader> listener) {
+        final ShardRouting shard = shardIterator.nextOrNull();
+        if (shard == null) {
+            listener.onFailure(lastFailure != null ? lastFailure : new NoShardAvailableActionException(shardIterator.shardId()));
+            return;
+        }
+        final DiscoveryNode node = clusterState.nodes().get(shard.currentNodeId());
+        if (node == null) {
+            openOnShard(clusterState, task, shardIterator, originalIndices, keepAlive, lastFailure, listener);
+            return;
+        }
+        final ShardId shardId = shardIterator.shardId();
+        try {
+            searchTransportService.sendOpenReaderContext(searchTransportService.getConnection(null, node),
+                new SearchTransportService.OpenReaderContextRequest(shardId, keepAlive, originalIndices), task,
+                new ActionListener<SearchTransportService.OpenReaderContextResponse>() {
+                    @Override
+                    public void onResponse(SearchTransportService.OpenReaderContextResponse response) {
+                        listener.onResponse(new PointInTimeId.ShardReader(node.getId(), response.readerId()));
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        logger.debug(() -> new ParameterizedMessage("{} failed to open reader context on [{}]", shardId, node), e);
+                        openOnShard(clusterState, task, shardIterator, originalIndices, keepAlive, e, listener);
+                    }
+                });
+        } catch (Exception e) {
+            openOnShard(clusterState, task, shardIterator, originalIndices, keepAlive, e, listener);
+        }
+    }
+
+    private void onShardsOpened(ClusterState clusterState, OpenPointInTimeRequest request, List<ShardIterator> shards,
+                                AtomicArray<PointInTimeId.ShardReader> readers, AtomicArray<Exception> failures,
+                                ActionListener<OpenPointInTimeResponse> listener) {
+        final List<Exception> shardFailures = failures.asList();
+        if (shardFailures.isEmpty() == false) {
+            final Exception failure = shardFailures.get(0);
+            TransportClosePointInTimeAction.freeReaderContexts(logger, clusterState.nodes(), searchTransportService, readers.asList(),
+                ActionListener.wrap(r -> listener.onFailure(failure), e -> {
+                    failure.addSuppressed(e);
+                    listener.onFailure(failure);
+                }));
+            return;
+        }
+        final Map<ShardId, PointInTimeId.ShardReader> shardReaders = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            shardReaders.put(shards.get(i).shardId(), readers.get(i));
+        }
+        listener.onResponse(new OpenPointInTimeResponse(new PointInTimeId(request.indices(), shardReaders).encode()));
+    }
+}
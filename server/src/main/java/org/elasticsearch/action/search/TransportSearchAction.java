@@ -25,6 +25,7 @@ import org.elasticsearch.action.admin.cluster.shards.ClusterSearchShardsGroup;
 import org.elasticsearch.action.admin.cluster.shards.ClusterSearchShardsResponse;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -32,7 +33,9 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Setting;
@@ -42,6 +45,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.tasks.Task;
@@ -75,6 +79,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final RemoteClusterService remoteClusterService;
     private final SearchPhaseController searchPhaseController;
     private final SearchService searchService;
+    private final ShardFieldRangesCache fieldRangesCache;
 
     @Inject
     public TransportSearchAction(Settings settings, ThreadPool threadPool, TransportService transportService, SearchService searchService,
@@ -88,14 +93,15 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         SearchTransportService.registerRequestHandler(transportService, searchService);
         this.clusterService = clusterService;
         this.searchService = searchService;
+        this.fieldRangesCache = new ShardFieldRangesCache(settings, clusterService);
     }
 
-    private Map<String, AliasFilter> buildPerIndexAliasFilter(SearchRequest request, ClusterState clusterState,
+    private Map<String, AliasFilter> buildPerIndexAliasFilter(String[] indexExpressions, ClusterState clusterState,
                                                               Index[] concreteIndices, Map<String, AliasFilter> remoteAliasMap) {
         final Map<String, AliasFilter> aliasFilterMap = new HashMap<>();
         for (Index index : concreteIndices) {
             clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, index.getName());
-            AliasFilter aliasFilter = searchService.buildAliasFilter(clusterState, index.getName(), request.indices());
+            AliasFilter aliasFilter = searchService.buildAliasFilter(clusterState, index.getName(), indexExpressions);
             assert aliasFilter != null;
             aliasFilterMap.put(index.getUUID(), aliasFilter);
         }
@@ -286,26 +292,38 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
         // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
         // of just for the _search api
-        final Index[] indices;
-        if (localIndices.indices().length == 0 && remoteClusterIndices.isEmpty() == false) {
-            indices = Index.EMPTY_ARRAY; // don't search on _all if only remote indices were specified
+        final Map<String, AliasFilter> aliasFilter;
+        final Map<String, Set<String>> routingMap;
+        final GroupShardsIterator<SearchShardIterator> shardIterators;
+        final PointInTimeBuilder pointInTime = searchRequest.source() == null ? null : searchRequest.source().pointInTimeBuilder();
+        if (pointInTime != null) {
+            // the shards and the nodes to search on are the ones that hold the reader contexts of the point in time
+            final PointInTimeId pointInTimeId = PointInTimeId.decode(pointInTime.getId());
+            final Index[] indices = pointInTimeId.getShards().keySet().stream().map(ShardId::getIndex).distinct().toArray(Index[]::new);
+            aliasFilter = buildPerIndexAliasFilter(pointInTimeId.getIndices(), clusterState, indices, remoteAliasMap);
+            routingMap = Collections.emptyMap();
+            shardIterators = pointInTimeShardIterators(clusterState, pointInTimeId, searchRequest.indicesOptions());
         } else {
-            indices = indexNameExpressionResolver.concreteIndices(clusterState, searchRequest.indicesOptions(),
-                timeProvider.getAbsoluteStartMillis(), localIndices.indices());
-        }
-        Map<String, AliasFilter> aliasFilter = buildPerIndexAliasFilter(searchRequest, clusterState, indices, remoteAliasMap);
-        Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, searchRequest.routing(),
-            searchRequest.indices());
-        routingMap = routingMap == null ? Collections.emptyMap() : Collections.unmodifiableMap(routingMap);
-        String[] concreteIndices = new String[indices.length];
-        for (int i = 0; i < indices.length; i++) {
-            concreteIndices[i] = indices[i].getName();
+            final Index[] indices;
+            if (localIndices.indices().length == 0 && remoteClusterIndices.isEmpty() == false) {
+                indices = Index.EMPTY_ARRAY; // don't search on _all if only remote indices were specified
+            } else {
+                indices = indexNameExpressionResolver.concreteIndices(clusterState, searchRequest.indicesOptions(),
+                    timeProvider.getAbsoluteStartMillis(), localIndices.indices());
+            }
+            aliasFilter = buildPerIndexAliasFilter(searchRequest.indices(), clusterState, indices, remoteAliasMap);
+            Map<String, Set<String>> searchRouting = indexNameExpressionResolver.resolveSearchRouting(clusterState, searchRequest.routing(),
+                searchRequest.indices());
+            routingMap = searchRouting == null ? Collections.emptyMap() : Collections.unmodifiableMap(searchRouting);
+            String[] concreteIndices = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                concreteIndices[i] = indices[i].getName();
+            }
+            Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
+            GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
+                    concreteIndices, routingMap, searchRequest.preference(), searchService.getResponseCollectorService(), nodeSearchCounts);
+            shardIterators = mergeShardsIterators(localShardsIterator, localIndices, remoteShardIterators);
         }
-        Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
-        GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
-                concreteIndices, routingMap, searchRequest.preference(), searchService.getResponseCollectorService(), nodeSearchCounts);
-        GroupShardsIterator<SearchShardIterator> shardIterators = mergeShardsIterators(localShardsIterator, localIndices,
-            remoteShardIterators);
 
         failIfOverShardCountLimit(clusterService, shardIterators.size());
 
@@ -353,6 +371,28 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
             Collections.unmodifiableMap(aliasFilter), concreteIndexBoosts, routingMap, listener, preFilterSearchShards, clusters).start();
     }
 
+    static GroupShardsIterator<SearchShardIterator> pointInTimeShardIterators(ClusterState clusterState, PointInTimeId pointInTimeId,
+                                                                              IndicesOptions indicesOptions) {
+        final OriginalIndices originalIndices = new OriginalIndices(pointInTimeId.getIndices(), indicesOptions);
+        final List<SearchShardIterator> shards = new ArrayList<>(pointInTimeId.getShards().size());
+        for (Map.Entry<ShardId, PointInTimeId.ShardReader> entry : pointInTimeId.getShards().entrySet()) {
+            final ShardId shardId = entry.getKey();
+            final PointInTimeId.ShardReader reader = entry.getValue();
+            final List<ShardRouting> routings = new ArrayList<>(1);
+            final IndexShardRoutingTable shardRoutingTable = clusterState.routingTable().shardRoutingTableOrNull(shardId);
+            if (shardRoutingTable != null) {
+                for (ShardRouting shardRouting : shardRoutingTable.activeShards()) {
+                    if (shardRouting.shardId().equals(shardId) && reader.getNodeId().equals(shardRouting.currentNodeId())) {
+                        routings.add(shardRouting);
+                    }
+                }
+            }
+            // a shard whose copy moved away from the node holding its reader context fails with no shard available
+            shards.add(new SearchShardIterator(null, shardId, routings, originalIndices, reader.getReaderId()));
+        }
+        return new GroupShardsIterator<>(shards);
+    }
+
     private boolean shouldPreFilterSearchShards(SearchRequest searchRequest, GroupShardsIterator<SearchShardIterator> shardIterators) {
         SearchSourceBuilder source = searchRequest.source();
         return searchRequest.searchType() == QUERY_THEN_FETCH && // we can't do this for DFS it needs to fan out to all shards all the time
@@ -399,7 +439,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                         action.start();
                     }
                 };
-            }, clusters);
+            }, clusters, fieldRangesCache);
         } else {
             AbstractSearchAsyncAction searchAsyncAction;
             switch (searchRequest.searchType()) {
@@ -52,17 +52,20 @@ import java.util.function.ToLongBiFunction;
  * if they are reading a segment that a writer is writing to).
  * <p>
  * The LRU functionality is backed by a single doubly-linked list chaining the entries in order of insertion. This
- * LRU list is protected by a lock that serializes all writes to it. There are opportunities for improvements
- * here if write throughput is a concern.
- * <ol>
- * <li>LRU list mutations could be inserted into a blocking queue that a single thread is reading from
- * and applying to the LRU list.</li>
- * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
- * <li>Locks on the list could be taken per node being modified instead of globally.</li>
- * </ol>
+ * LRU list is protected by a lock that serializes all writes to it. Reads do not take this lock: a read is recorded
+ * without locking in a striped, lossy {@link ReadBuffer} and the promotions are applied to the LRU list in batches, either
+ * by the reader that fills up its stripe if the lock is free at that time, or by the next writer. Under heavy read
+ * contention some promotions may be dropped, which only makes the LRU order approximate.
  * <p>
- * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
- * invalidation) or an explicit call to {@link #refresh()}.
+ * Optionally the cache can use a W-TinyLFU policy instead of pure LRU when the maximum weight is exceeded (see
+ * {@link CacheBuilder#setFrequencyBasedAdmission(boolean)}). New entries are then inserted into a small LRU window, which
+ * takes one percent of the maximum weight. Entries that fall out of the window are only admitted into the main LRU list if
+ * they were accessed more often, according to a {@link FrequencySketch}, than the entry that would have to be evicted from
+ * the main list to make room for them. This protects frequently used entries from being flushed out by scans of entries that
+ * are only used once.
+ * <p>
+ * Evictions only occur after a mutation to the cache (meaning a drain of the buffered reads, a cache insertion, or a
+ * manual invalidation) or an explicit call to {@link #refresh()}.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -97,6 +100,17 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // true if entries are only admitted into the main LRU list if they are used more frequently than the entries they replace
+    private boolean frequencyBasedAdmission;
+
+    // the weight of the entries in the admission window
+    private long windowWeight = 0;
+
+    // the access frequencies of the keys, only maintained if frequencyBasedAdmission is true
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private static final long INITIAL_SKETCH_CAPACITY_LIMIT = 1 << 14;
+
     // use CacheBuilder to construct
     Cache() {
     }
@@ -144,6 +158,19 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    void setFrequencyBasedAdmission(boolean frequencyBasedAdmission) {
+        this.frequencyBasedAdmission = frequencyBasedAdmission;
+        if (frequencyBasedAdmission && maximumWeight != -1) {
+            // growing the sketch discards the recorded frequencies, so size it upfront for caches whose weight is their count
+            sketch.ensureCapacity(Math.min(2 * maximumWeight, INITIAL_SKETCH_CAPACITY_LIMIT));
+        }
+    }
+
+    // pkg-private for testing
+    boolean isFrequencyBasedAdmission() {
+        return frequencyBasedAdmission;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -168,6 +195,8 @@ public class Cache<K, V> {
         Entry<K, V> before;
         Entry<K, V> after;
         State state = State.NEW;
+        // true if the entry is linked in the admission window rather than in the main LRU list
+        boolean inWindow;
 
         Entry(K key, V value, long writeTime) {
             this.key = key;
@@ -347,9 +376,18 @@ public class Cache<K, V> {
     Entry<K, V> head;
     Entry<K, V> tail;
 
+    // the admission window, only used if frequencyBasedAdmission is true
+    Entry<K, V> windowHead;
+    Entry<K, V> windowTail;
+
     // lock protecting mutations to the LRU list
     private final ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
 
+    // reads that still have to be applied to the LRU list
+    private final ReadBuffer<Entry<K, V>> readBuffer = new ReadBuffer<>();
+
+    private final Consumer<Entry<K, V>> onBufferedRead = this::onBufferedRead;
+
     /**
      * Returns the value to which the specified key is mapped, or null if this map contains no mapping for the key.
      *
@@ -366,11 +404,40 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            afterRead(entry, now);
             return entry.value;
         }
     }
 
+    private void afterRead(Entry<K, V> entry, long now) {
+        if (readBuffer.offer(entry)) {
+            // only drain if nobody else is holding the lock, the pending reads will otherwise be applied by the lock holder or the
+            // next writer
+            try (ReleasableLock lock = lruLock.tryAcquire()) {
+                if (lock != null) {
+                    drainReadBuffer();
+                    evict(now);
+                }
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        assert lruLock.isHeldByCurrentThread();
+
+        readBuffer.drain(onBufferedRead);
+    }
+
+    private void onBufferedRead(Entry<K, V> entry) {
+        // new entries are linked by the thread that inserted them, and deleted entries must not be linked again
+        if (entry.state == State.EXISTING) {
+            relinkAtHead(entry);
+            if (frequencyBasedAdmission) {
+                sketch.increment(entry.key);
+            }
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -532,6 +599,7 @@ public class Cache<K, V> {
      */
     public void invalidateAll() {
         Entry<K, V> h;
+        Entry<K, V> w;
 
         boolean[] haveSegmentLock = new boolean[NUMBER_OF_SEGMENTS];
         try {
@@ -540,16 +608,21 @@ public class Cache<K, V> {
                 haveSegmentLock[i] = true;
             }
             try (ReleasableLock ignored = lruLock.acquire()) {
+                drainReadBuffer();
                 h = head;
+                w = windowHead;
                 Arrays.stream(segments).forEach(segment -> segment.map = new HashMap<>());
-                Entry<K, V> current = head;
-                while (current != null) {
+                for (Entry<K, V> current = head; current != null; current = current.after) {
+                    current.state = State.DELETED;
+                }
+                for (Entry<K, V> current = windowHead; current != null; current = current.after) {
                     current.state = State.DELETED;
-                    current = current.after;
                 }
                 head = tail = null;
+                windowHead = windowTail = null;
                 count = 0;
                 weight = 0;
+                windowWeight = 0;
             }
         } finally {
             for (int i = NUMBER_OF_SEGMENTS - 1; i >= 0; i--) {
@@ -558,6 +631,10 @@ public class Cache<K, V> {
                 }
             }
         }
+        while (w != null) {
+            removalListener.onRemoval(new RemovalNotification<>(w.key, w.value, RemovalNotification.RemovalReason.INVALIDATED));
+            w = w.after;
+        }
         while (h != null) {
             removalListener.onRemoval(new RemovalNotification<>(h.key, h.value, RemovalNotification.RemovalReason.INVALIDATED));
             h = h.after;
@@ -570,6 +647,7 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffer();
             evict(now);
         }
     }
@@ -601,7 +679,7 @@ public class Cache<K, V> {
      */
     public Iterable<K> keys() {
         return () -> new Iterator<K>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator();
 
             @Override
             public boolean hasNext() {
@@ -629,7 +707,7 @@ public class Cache<K, V> {
      */
     public Iterable<V> values() {
         return () -> new Iterator<V>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator();
 
             @Override
             public boolean hasNext() {
@@ -652,9 +730,13 @@ public class Cache<K, V> {
         private Entry<K, V> current;
         private Entry<K, V> next;
 
-        CacheIterator(Entry<K, V> head) {
+        CacheIterator() {
+            try (ReleasableLock ignored = lruLock.acquire()) {
+                drainReadBuffer();
+            }
             current = null;
-            next = head;
+            // the admission window holds the most recently inserted entries
+            next = windowHead != null ? windowHead : head;
         }
 
         @Override
@@ -666,6 +748,9 @@ public class Cache<K, V> {
         public Entry<K, V> next() {
             current = next;
             next = next.after;
+            if (next == null && current.inWindow) {
+                next = head;
+            }
             return current;
         }
 
@@ -728,6 +813,7 @@ public class Cache<K, V> {
     private boolean promote(Entry<K, V> entry, long now) {
         boolean promoted = true;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffer();
             switch (entry.state) {
                 case DELETED:
                     promoted = false;
@@ -749,9 +835,58 @@ public class Cache<K, V> {
     private void evict(long now) {
         assert lruLock.isHeldByCurrentThread();
 
-        while (tail != null && shouldPrune(tail, now)) {
+        if (frequencyBasedAdmission) {
+            evictWithAdmission(now);
+        } else {
+            while (tail != null && shouldPrune(tail, now)) {
+                evictEntry(tail);
+            }
+        }
+    }
+
+    private void evictWithAdmission(long now) {
+        assert lruLock.isHeldByCurrentThread();
+
+        while (windowTail != null && isExpired(windowTail, now)) {
+            evictEntry(windowTail);
+        }
+        while (tail != null && isExpired(tail, now)) {
             evictEntry(tail);
         }
+        // entries falling out of the window are candidates for the main LRU list; if there is no room left for a candidate, it
+        // has to be used more frequently than the least recently used entry of the main list in order to replace it
+        while (windowTail != null && windowWeight > maximumWindowWeight()) {
+            final Entry<K, V> candidate = windowTail;
+            moveToMain(candidate);
+            while (exceedsWeight()) {
+                final Entry<K, V> victim = tail;
+                if (victim == candidate || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                    evictEntry(candidate);
+                    break;
+                }
+                evictEntry(victim);
+            }
+        }
+        while (tail != null && exceedsWeight()) {
+            evictEntry(tail);
+        }
+        while (windowTail != null && exceedsWeight()) {
+            evictEntry(windowTail);
+        }
+    }
+
+    private long maximumWindowWeight() {
+        return maximumWeight == -1 ? Long.MAX_VALUE : Math.max(1, maximumWeight / 100);
+    }
+
+    private void moveToMain(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+        assert entry.state == State.EXISTING && entry.inWindow;
+
+        detach(entry);
+        windowWeight -= weigher.applyAsLong(entry.key, entry.value);
+        entry.inWindow = false;
+        attachAtHead(entry);
     }
 
     private void evictEntry(Entry<K, V> entry) {
@@ -789,37 +924,14 @@ public class Cache<K, V> {
         assert lruLock.isHeldByCurrentThread();
 
         if (entry.state == State.EXISTING) {
-            final Entry<K, V> before = entry.before;
-            final Entry<K, V> after = entry.after;
-
-            if (before == null) {
-                // removing the head
-                assert head == entry;
-                head = after;
-                if (head != null) {
-                    head.before = null;
-                }
-            } else {
-                // removing inner element
-                before.after = after;
-                entry.before = null;
-            }
-
-            if (after == null) {
-                // removing tail
-                assert tail == entry;
-                tail = before;
-                if (tail != null) {
-                    tail.after = null;
-                }
-            } else {
-                // removing inner element
-                after.before = before;
-                entry.after = null;
-            }
+            detach(entry);
 
             count--;
-            weight -= weigher.applyAsLong(entry.key, entry.value);
+            final long entryWeight = weigher.applyAsLong(entry.key, entry.value);
+            weight -= entryWeight;
+            if (entry.inWindow) {
+                windowWeight -= entryWeight;
+            }
             entry.state = State.DELETED;
             return true;
         } else {
@@ -830,27 +942,91 @@ public class Cache<K, V> {
     private void linkAtHead(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
-        Entry<K, V> h = head;
-        entry.before = null;
-        entry.after = head;
-        head = entry;
-        if (h == null) {
-            tail = entry;
-        } else {
-            h.before = entry;
+        final long entryWeight = weigher.applyAsLong(entry.key, entry.value);
+        if (frequencyBasedAdmission) {
+            entry.inWindow = true;
+            windowWeight += entryWeight;
         }
+        attachAtHead(entry);
 
         count++;
-        weight += weigher.applyAsLong(entry.key, entry.value);
+        weight += entryWeight;
         entry.state = State.EXISTING;
+
+        if (frequencyBasedAdmission) {
+            if (count > sketch.capacity()) {
+                sketch.ensureCapacity(2L * count);
+            }
+            sketch.increment(entry.key);
+        }
     }
 
     private void relinkAtHead(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
-        if (head != entry) {
-            unlink(entry);
-            linkAtHead(entry);
+        if (entry.inWindow ? windowHead != entry : head != entry) {
+            detach(entry);
+            attachAtHead(entry);
+        }
+    }
+
+    // removes the entry from the list it is linked in, without changing the count and weight of the cache
+    private void detach(Entry<K, V> entry) {
+        final Entry<K, V> before = entry.before;
+        final Entry<K, V> after = entry.after;
+
+        if (before == null) {
+            // removing the head
+            if (entry.inWindow) {
+                assert windowHead == entry;
+                windowHead = after;
+            } else {
+                assert head == entry;
+                head = after;
+            }
+        } else {
+            // removing inner element
+            before.after = after;
+            entry.before = null;
+        }
+
+        if (after == null) {
+            // removing tail
+            if (entry.inWindow) {
+                assert windowTail == entry;
+                windowTail = before;
+            } else {
+                assert tail == entry;
+                tail = before;
+            }
+            if (before != null) {
+                before.after = null;
+            }
+        } else {
+            // removing inner element
+            after.before = before;
+            entry.after = null;
+        }
+    }
+
+    // links the entry at the head of the list it belongs to, without changing the count and weight of the cache
+    private void attachAtHead(Entry<K, V> entry) {
+        final Entry<K, V> h = entry.inWindow ? windowHead : head;
+        entry.before = null;
+        entry.after = h;
+        if (entry.inWindow) {
+            windowHead = entry;
+        } else {
+            head = entry;
+        }
+        if (h == null) {
+            if (entry.inWindow) {
+                windowTail = entry;
+            } else {
+                tail = entry;
+            }
+        } else {
+            h.before = entry;
         }
     }
 
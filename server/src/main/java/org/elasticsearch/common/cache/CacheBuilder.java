@@ -30,6 +30,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private boolean frequencyBasedAdmission;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -90,6 +91,17 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Sets whether entries should only be admitted into the cache when the maximum weight is exceeded if they are accessed more
+     * frequently than the entries they would replace (W-TinyLFU), rather than always evicting the least recently used entries.
+     *
+     * @param frequencyBasedAdmission true to use frequency based admission
+     */
+    public CacheBuilder<K, V> setFrequencyBasedAdmission(boolean frequencyBasedAdmission) {
+        this.frequencyBasedAdmission = frequencyBasedAdmission;
+        return this;
+    }
+
     public Cache<K, V> build() {
         Cache<K, V> cache = new Cache<>();
         if (maximumWeight != -1) {
@@ -107,6 +119,9 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        if (frequencyBasedAdmission) {
+            cache.setFrequencyBasedAdmission(true);
+        }
         return cache;
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A striped, lossy buffer of reads that have not yet been applied to the eviction policy of a {@link Cache}.
+ * <p>
+ * Readers record an access by appending the entry to the ring buffer of the stripe selected by their thread. Appending is
+ * lock-free; if the stripe is full or another reader wins the race for the same slot the read is dropped, which is acceptable
+ * because the eviction policy only needs an approximate recency and frequency of accesses. The buffer is drained by a single
+ * thread at a time, namely the one holding the lock protecting the eviction policy.
+ *
+ * @param <E> the type of the buffered elements
+ */
+final class ReadBuffer<E> {
+
+    // the number of slots in the ring buffer of each stripe, must be a power of two
+    static final int BUFFER_SIZE = 16;
+
+    // the number of pending reads in a stripe after which readers should try to drain the buffer
+    static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+    private static final int MAXIMUM_NUMBER_OF_STRIPES = 64;
+
+    private final Stripe<E>[] stripes;
+
+    private final int stripeMask;
+
+    @SuppressWarnings("unchecked")
+    ReadBuffer() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int numberOfStripes = Math.min(MAXIMUM_NUMBER_OF_STRIPES, Integer.highestOneBit(Math.max(1, processors - 1)) << 1);
+        stripes = new Stripe[numberOfStripes];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        stripeMask = numberOfStripes - 1;
+    }
+
+    /**
+     * Records an element in the buffer of the stripe of the current thread.
+     *
+     * @param element the element to record
+     * @return true if the buffer should be drained
+     */
+    boolean offer(E element) {
+        final Stripe<E> stripe = stripes[probe() & stripeMask];
+        final long head = stripe.readCounter;
+        final long tail = stripe.writeCounter.get();
+        final long size = tail - head;
+        if (size >= BUFFER_SIZE) {
+            // the stripe is full, drop the read and ask for the buffer to be drained
+            return true;
+        }
+        if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+            stripe.buffer.lazySet((int) (tail & BUFFER_MASK), element);
+            return size + 1 >= DRAIN_THRESHOLD;
+        }
+        // another reader of this stripe won the race for the slot, drop the read
+        return false;
+    }
+
+    /**
+     * Drains all published elements of all stripes. Must only be called by a single thread at a time.
+     *
+     * @param consumer the consumer of the drained elements
+     */
+    void drain(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            long head = stripe.readCounter;
+            final long tail = stripe.writeCounter.get();
+            for (; head != tail; head++) {
+                final int index = (int) (head & BUFFER_MASK);
+                final E element = stripe.buffer.get(index);
+                if (element == null) {
+                    // the slot was claimed but the element is not yet published, pick it up on the next drain
+                    break;
+                }
+                stripe.buffer.lazySet(index, null);
+                consumer.accept(element);
+            }
+            stripe.readCounter = head;
+        }
+    }
+
+    private static int probe() {
+        final long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32));
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private static final class Stripe<E> {
+        final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        final AtomicLong writeCounter = new AtomicLong();
+        volatile long readCounter;
+    }
+}
@@ -33,6 +33,11 @@ public class NamedWriteableAwareStreamInput extends FilterStreamInput {
         this.namedWriteableRegistry = namedWriteableRegistry;
     }
 
+    @Override
+    public NamedWriteableRegistry namedWriteableRegistry() {
+        return namedWriteableRegistry;
+    }
+
     @Override
     public <C extends NamedWriteable> C readNamedWriteable(Class<C> categoryClass) throws IOException {
         String name = readString();
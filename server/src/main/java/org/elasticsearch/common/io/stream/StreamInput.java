@@ -124,6 +124,13 @@ public abstract class StreamInput extends InputStream {
         this.version = version;
     }
 
+    /**
+     * The registry of named writeables that this stream reads with, or <code>null</code> if it has none.
+     */
+    public NamedWriteableRegistry namedWriteableRegistry() {
+        return null;
+    }
+
     /**
      * Reads and returns a single byte.
      */
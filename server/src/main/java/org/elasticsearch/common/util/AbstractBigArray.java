@@ -25,6 +25,7 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.recycler.Recycler;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /** Common implementation for array lists that slice data into fixed-size blocks. */
@@ -108,7 +109,7 @@ abstract class AbstractBigArray extends AbstractArray {
         cache = grow(cache, page + 1);
         assert cache[page] == null;
         cache[page] = v;
-        assert Array.getLength(v.v()) == expectedSize;
+        assert (v.v() instanceof ByteBuffer ? ((ByteBuffer) v.v()).capacity() : Array.getLength(v.v())) == expectedSize;
         return v.v();
       }
 
@@ -148,6 +149,12 @@ abstract class AbstractBigArray extends AbstractArray {
         }
     }
 
+    protected final ByteBuffer newDirectPage(int page) {
+        assert recycler != null && recycler.isDirect();
+        final Recycler.V<ByteBuffer> v = recycler.directPage(clearOnResize);
+        return registerNewPage(v, page, BigArrays.PAGE_SIZE_IN_BYTES);
+    }
+
     protected final void releasePage(int page) {
         if (recycler != null) {
             cache[page].close();
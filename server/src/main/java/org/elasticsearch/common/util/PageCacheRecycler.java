@@ -30,6 +30,8 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -54,15 +56,19 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING  =
         Setting.doubleSetting("cache.recycler.page.weight.objects", 0.1d, 0d, Property.NodeScope);
+    // whether the pages of big int, long and double arrays are allocated outside of the heap
+    public static final Setting<Boolean> DIRECT_SETTING =
+        Setting.boolSetting("cache.recycler.page.direct", false, Property.NodeScope);
 
     private final Recycler<byte[]> bytePage;
     private final Recycler<int[]> intPage;
     private final Recycler<long[]> longPage;
     private final Recycler<Object[]> objectPage;
+    private final Recycler<ByteBuffer> directPage;
 
     @Override
     public void close() {
-        Releasables.close(true, bytePage, intPage, longPage, objectPage);
+        Releasables.close(true, bytePage, intPage, longPage, objectPage, directPage);
     }
 
     public PageCacheRecycler(Settings settings) {
@@ -141,6 +147,24 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
         });
 
         assert BigArrays.PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxIntPageCount + maxLongPageCount + maxObjectPageCount) <= limit;
+
+        if (DIRECT_SETTING.get(settings)) {
+            // Direct pages replace the int and long pages of big arrays so they get the same share of pages. They are not
+            // freed explicitly: pages that can not be recycled are released together with their buffer by the garbage
+            // collector, which only tracks a small object per page.
+            directPage = build(type, maxIntPageCount + maxLongPageCount, availableProcessors, new AbstractRecyclerC<ByteBuffer>() {
+                @Override
+                public ByteBuffer newInstance(int sizing) {
+                    return ByteBuffer.allocateDirect(BigArrays.PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+                }
+                @Override
+                public void recycle(ByteBuffer value) {
+                    // nothing to do
+                }
+            });
+        } else {
+            directPage = null;
+        }
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -167,6 +191,29 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
         return v;
     }
 
+    /**
+     * Whether the pages of big int, long and double arrays are allocated outside of the heap, see {@link #directPage(boolean)}.
+     */
+    public boolean isDirect() {
+        return directPage != null;
+    }
+
+    /**
+     * Returns a direct buffer of {@link BigArrays#PAGE_SIZE_IN_BYTES} bytes in native byte order, only available if
+     * {@link #isDirect()}.
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        assert isDirect();
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            final ByteBuffer page = v.v();
+            for (int i = 0; i < BigArrays.PAGE_SIZE_IN_BYTES; i += Long.BYTES) {
+                page.putLong(i, 0L);
+            }
+        }
+        return v;
+    }
+
     public Recycler.V<Object[]> objectPage() {
         // object pages are cleared on release anyway
         return objectPage.obtain();
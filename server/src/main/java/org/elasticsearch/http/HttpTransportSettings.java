@@ -86,6 +86,12 @@ public final class HttpTransportSettings {
         Setting.byteSizeSetting("http.max_content_length", new ByteSizeValue(100, ByteSizeUnit.MB), Property.NodeScope);
     public static final Setting<ByteSizeValue> SETTING_HTTP_MAX_CHUNK_SIZE =
         Setting.byteSizeSetting("http.max_chunk_size", new ByteSizeValue(8, ByteSizeUnit.KB), Property.NodeScope);
+    // search responses are serialized while they are sent, in chunks of http.response_chunk_size, rather than up-front
+    public static final Setting<Boolean> SETTING_HTTP_CHUNKED_SEARCH_RESPONSES =
+        Setting.boolSetting("http.chunked_search_responses", false, Property.NodeScope);
+    public static final Setting<ByteSizeValue> SETTING_HTTP_RESPONSE_CHUNK_SIZE =
+        Setting.byteSizeSetting("http.response_chunk_size", new ByteSizeValue(64, ByteSizeUnit.KB),
+            new ByteSizeValue(1, ByteSizeUnit.KB), new ByteSizeValue(1, ByteSizeUnit.MB), Property.NodeScope);
     public static final Setting<ByteSizeValue> SETTING_HTTP_MAX_HEADER_SIZE =
         Setting.byteSizeSetting("http.max_header_size", new ByteSizeValue(8, ByteSizeUnit.KB), Property.NodeScope);
     public static final Setting<Integer> SETTING_HTTP_MAX_WARNING_HEADER_COUNT =
@@ -24,6 +24,7 @@ import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.TriFunction;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
@@ -46,6 +47,7 @@ import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.IndexStore;
 import org.elasticsearch.indices.IndicesQueryCache;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.indices.mapper.MapperRegistry;
@@ -351,6 +353,29 @@ public final class IndexModule {
             IndicesFieldDataCache indicesFieldDataCache,
             NamedWriteableRegistry namedWriteableRegistry)
         throws IOException {
+        return newIndexService(environment, xContentRegistry, shardStoreDeleter, circuitBreakerService, bigArrays, threadPool,
+            scriptService, client, indicesQueryCache, mapperRegistry, indicesFieldDataCache, namedWriteableRegistry, null);
+    }
+
+    /**
+     * Creates the index service, the shards of which sync their translogs through the given service unless it is
+     * <code>null</code>, in which case every shard syncs its own translog.
+     */
+    public IndexService newIndexService(
+            NodeEnvironment environment,
+            NamedXContentRegistry xContentRegistry,
+            IndexService.ShardStoreDeleter shardStoreDeleter,
+            CircuitBreakerService circuitBreakerService,
+            BigArrays bigArrays,
+            ThreadPool threadPool,
+            ScriptService scriptService,
+            Client client,
+            IndicesQueryCache indicesQueryCache,
+            MapperRegistry mapperRegistry,
+            IndicesFieldDataCache indicesFieldDataCache,
+            NamedWriteableRegistry namedWriteableRegistry,
+            @Nullable TranslogGroupCommitService translogGroupCommitService)
+        throws IOException {
         final IndexEventListener eventListener = freeze();
         IndexSearcherWrapperFactory searcherWrapperFactory = indexSearcherWrapper.get() == null
             ? (shard) -> null : indexSearcherWrapper.get();
@@ -384,7 +409,8 @@ public final class IndexModule {
                 new SimilarityService(indexSettings, scriptService, similarities),
                 shardStoreDeleter, analysisRegistry, engineFactory, circuitBreakerService, bigArrays, threadPool, scriptService,
                 client, queryCache, store, eventListener, searcherWrapperFactory, mapperRegistry,
-                indicesFieldDataCache, searchOperationListeners, indexOperationListeners, namedWriteableRegistry);
+                indicesFieldDataCache, searchOperationListeners, indexOperationListeners, namedWriteableRegistry,
+                translogGroupCommitService);
     }
 
     /**
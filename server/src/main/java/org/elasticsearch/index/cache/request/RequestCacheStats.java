@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -35,15 +36,24 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
     long evictions;
     long hitCount;
     long missCount;
+    long segmentHitCount;
+    long segmentMissCount;
 
     public RequestCacheStats() {
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0);
+    }
+
+    public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount, long segmentHitCount,
+                             long segmentMissCount) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.segmentHitCount = segmentHitCount;
+        this.segmentMissCount = segmentMissCount;
     }
 
     public void add(RequestCacheStats stats) {
@@ -51,6 +61,8 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.segmentHitCount += stats.segmentHitCount;
+        this.segmentMissCount += stats.segmentMissCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -73,12 +85,30 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         return this.missCount;
     }
 
+    /**
+     * The number of times the aggregations of a segment were found in the cache.
+     */
+    public long getSegmentHitCount() {
+        return this.segmentHitCount;
+    }
+
+    /**
+     * The number of times the aggregations of a segment were not found in the cache.
+     */
+    public long getSegmentMissCount() {
+        return this.segmentMissCount;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            segmentHitCount = in.readVLong();
+            segmentMissCount = in.readVLong();
+        }
     }
 
     @Override
@@ -87,6 +117,10 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+            out.writeVLong(segmentHitCount);
+            out.writeVLong(segmentMissCount);
+        }
     }
 
     @Override
@@ -96,6 +130,8 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        builder.field(Fields.SEGMENT_HIT_COUNT, getSegmentHitCount());
+        builder.field(Fields.SEGMENT_MISS_COUNT, getSegmentMissCount());
         builder.endObject();
         return builder;
     }
@@ -107,5 +143,7 @@ public class RequestCacheStats implements Streamable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String SEGMENT_HIT_COUNT = "segment_hit_count";
+        static final String SEGMENT_MISS_COUNT = "segment_miss_count";
     }
 }
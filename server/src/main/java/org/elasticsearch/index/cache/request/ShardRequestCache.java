@@ -31,9 +31,12 @@ public final class ShardRequestCache {
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric segmentHitCount = new CounterMetric();
+    final CounterMetric segmentMissCount = new CounterMetric();
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count(),
+            segmentHitCount.count(), segmentMissCount.count());
     }
 
     public void onHit() {
@@ -44,6 +47,14 @@ public final class ShardRequestCache {
         missCount.inc();
     }
 
+    public void onSegmentHit() {
+        segmentHitCount.inc();
+    }
+
+    public void onSegmentMiss() {
+        segmentMissCount.inc();
+    }
+
     public void onCached(Accountable key, Accountable value) {
         totalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
     }
@@ -21,7 +21,6 @@ package org.elasticsearch.index.mapper;
 
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
-import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
@@ -57,6 +56,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.LongSupplier;
 
 import static org.elasticsearch.index.mapper.TypeParsers.parseDateTimeFormatter;
 
@@ -308,14 +308,18 @@ public class DateFieldMapper extends FieldMapper {
             if (forcedDateParser != null) {
                 dateParser = forcedDateParser;
             }
+            return parseToMilliseconds(value, roundUp, zone, dateParser, context::nowInMillis);
+        }
 
+        private static long parseToMilliseconds(Object value, boolean roundUp, @Nullable DateTimeZone zone, DateMathParser dateParser,
+                LongSupplier nowInMillis) {
             String strValue;
             if (value instanceof BytesRef) {
                 strValue = ((BytesRef) value).utf8ToString();
             } else {
                 strValue = value.toString();
             }
-            return dateParser.parse(strValue, context::nowInMillis, roundUp, zone);
+            return dateParser.parse(strValue, nowInMillis, roundUp, zone);
         }
 
         @Override
@@ -325,10 +329,28 @@ public class DateFieldMapper extends FieldMapper {
             if (dateParser == null) {
                 dateParser = this.dateMathParser;
             }
+            final Long minValue;
+            final Long maxValue;
+            if (PointValues.size(reader, name()) == 0) {
+                minValue = maxValue = null;
+            } else {
+                minValue = LongPoint.decodeDimension(PointValues.getMinPackedValue(reader, name()), 0);
+                maxValue = LongPoint.decodeDimension(PointValues.getMaxPackedValue(reader, name()), 0);
+            }
+            return rangeRelation(minValue, maxValue, from, to, includeLower, includeUpper, timeZone, dateParser, context::nowInMillis);
+        }
 
+        /**
+         * Returns the relation of the given range to the values of a date field that are between the given minimum and maximum values,
+         * or to a field that has no values if they are {@code null}. This is what {@link #isFieldWithinQuery} returns for a shard whose
+         * minimum and maximum values are known without the shard at hand.
+         */
+        public static Relation rangeRelation(@Nullable Long minValue, @Nullable Long maxValue,
+                Object from, Object to, boolean includeLower, boolean includeUpper,
+                @Nullable DateTimeZone timeZone, DateMathParser dateParser, LongSupplier nowInMillis) {
             long fromInclusive = Long.MIN_VALUE;
             if (from != null) {
-                fromInclusive = parseToMilliseconds(from, !includeLower, timeZone, dateParser, context);
+                fromInclusive = parseToMilliseconds(from, !includeLower, timeZone, dateParser, nowInMillis);
                 if (includeLower == false) {
                     if (fromInclusive == Long.MAX_VALUE) {
                         return Relation.DISJOINT;
@@ -339,7 +361,7 @@ public class DateFieldMapper extends FieldMapper {
 
             long toInclusive = Long.MAX_VALUE;
             if (to != null) {
-                toInclusive = parseToMilliseconds(to, includeUpper, timeZone, dateParser, context);
+                toInclusive = parseToMilliseconds(to, includeUpper, timeZone, dateParser, nowInMillis);
                 if (includeUpper == false) {
                     if (toInclusive == Long.MIN_VALUE) {
                         return Relation.DISJOINT;
@@ -351,14 +373,11 @@ public class DateFieldMapper extends FieldMapper {
             // This check needs to be done after fromInclusive and toInclusive
             // are resolved so we can throw an exception if they are invalid
             // even if there are no points in the shard
-            if (PointValues.size(reader, name()) == 0) {
+            if (minValue == null || maxValue == null) {
                 // no points, so nothing matches
                 return Relation.DISJOINT;
             }
 
-            long minValue = LongPoint.decodeDimension(PointValues.getMinPackedValue(reader, name()), 0);
-            long maxValue = LongPoint.decodeDimension(PointValues.getMaxPackedValue(reader, name()), 0);
-
             if (minValue >= fromInclusive && maxValue <= toInclusive) {
                 return Relation.WITHIN;
             } else if (maxValue < fromInclusive || minValue > toInclusive) {
@@ -467,16 +486,17 @@ public class DateFieldMapper extends FieldMapper {
             context.allEntries().addText(fieldType().name(), dateAsString, fieldType().boost());
         }
 
+        final ReusableFields reusableFields = context.reusableFields();
         if (fieldType().indexOptions() != IndexOptions.NONE) {
-            fields.add(new LongPoint(fieldType().name(), timestamp));
+            fields.add(reusableFields.longPoint(fieldType().name(), timestamp));
         }
         if (fieldType().hasDocValues()) {
-            fields.add(new SortedNumericDocValuesField(fieldType().name(), timestamp));
+            fields.add(reusableFields.sortedNumericDocValues(fieldType().name(), timestamp));
         } else if (fieldType().stored() || fieldType().indexOptions() != IndexOptions.NONE) {
             createFieldNamesField(context, fields);
         }
         if (fieldType().stored()) {
-            fields.add(new StoredField(fieldType().name(), timestamp));
+            fields.add(reusableFields.storedField(fieldType().name(), timestamp));
         }
     }
 
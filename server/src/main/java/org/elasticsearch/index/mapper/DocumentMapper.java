@@ -260,7 +260,16 @@ public class DocumentMapper implements ToXContentFragment {
     }
 
     public ParsedDocument parse(SourceToParse source) throws MapperParsingException {
-        return documentParser.parseDocument(source);
+        return parse(source, false);
+    }
+
+    /**
+     * Parses the given source. If <code>reuseFields</code> is set, the Lucene fields of the parsed document are recycled from the
+     * previous document that the current thread parsed this way, and the parsed document must be indexed before the current
+     * thread parses another document.
+     */
+    public ParsedDocument parse(SourceToParse source, boolean reuseFields) throws MapperParsingException {
+        return documentParser.parseDocument(source, reuseFields);
     }
 
     /**
@@ -48,6 +48,8 @@ final class DocumentParser {
     private final IndexSettings indexSettings;
     private final DocumentMapperParser docMapperParser;
     private final DocumentMapper docMapper;
+    // the fields that the write threads recycle across the documents that they parse with this mapping
+    private final ThreadLocal<ReusableFields> reusableFields = ThreadLocal.withInitial(ReusableFields::new);
 
     DocumentParser(IndexSettings indexSettings, DocumentMapperParser docMapperParser, DocumentMapper docMapper) {
         this.indexSettings = indexSettings;
@@ -56,15 +58,27 @@ final class DocumentParser {
     }
 
     ParsedDocument parseDocument(SourceToParse source) throws MapperParsingException {
+        return parseDocument(source, false);
+    }
+
+    ParsedDocument parseDocument(SourceToParse source, boolean reuseFields) throws MapperParsingException {
         validateType(source);
 
         final Mapping mapping = docMapper.mapping();
         final ParseContext.InternalParseContext context;
         final XContentType xContentType = source.getXContentType();
+        final ReusableFields fields;
+        if (reuseFields) {
+            fields = reusableFields.get();
+            fields.reset();
+        } else {
+            fields = ReusableFields.NONE;
+        }
 
         try (XContentParser parser = XContentHelper.createParser(docMapperParser.getXContentRegistry(),
             LoggingDeprecationHandler.INSTANCE, source.source(), xContentType)) {
-            context = new ParseContext.InternalParseContext(indexSettings.getSettings(), docMapperParser, docMapper, source, parser);
+            context = new ParseContext.InternalParseContext(indexSettings.getSettings(), docMapperParser, docMapper, source, parser,
+                fields);
             validateStart(parser);
             internalParseDocument(mapping, context, parser);
             validateEnd(parser);
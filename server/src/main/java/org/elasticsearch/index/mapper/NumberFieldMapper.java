@@ -333,17 +333,23 @@ public class NumberFieldMapper extends FieldMapper {
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
                 List<Field> fields = new ArrayList<>();
+                addFields(ReusableFields.NONE, fields, name, value, indexed, docValued, stored);
+                return fields;
+            }
+
+            @Override
+            void addFields(ReusableFields reusableFields, List<? super Field> fields, String name, Number value,
+                           boolean indexed, boolean docValued, boolean stored) {
                 if (indexed) {
-                    fields.add(new FloatPoint(name, value.floatValue()));
+                    fields.add(reusableFields.floatPoint(name, value.floatValue()));
                 }
                 if (docValued) {
-                    fields.add(new SortedNumericDocValuesField(name,
+                    fields.add(reusableFields.sortedNumericDocValues(name,
                         NumericUtils.floatToSortableInt(value.floatValue())));
                 }
                 if (stored) {
-                    fields.add(new StoredField(name, value.floatValue()));
+                    fields.add(reusableFields.storedField(name, value.floatValue()));
                 }
-                return fields;
             }
 
             private void validateParsed(float value) {
@@ -414,17 +420,23 @@ public class NumberFieldMapper extends FieldMapper {
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
                 List<Field> fields = new ArrayList<>();
+                addFields(ReusableFields.NONE, fields, name, value, indexed, docValued, stored);
+                return fields;
+            }
+
+            @Override
+            void addFields(ReusableFields reusableFields, List<? super Field> fields, String name, Number value,
+                           boolean indexed, boolean docValued, boolean stored) {
                 if (indexed) {
-                    fields.add(new DoublePoint(name, value.doubleValue()));
+                    fields.add(reusableFields.doublePoint(name, value.doubleValue()));
                 }
                 if (docValued) {
-                    fields.add(new SortedNumericDocValuesField(name,
+                    fields.add(reusableFields.sortedNumericDocValues(name,
                         NumericUtils.doubleToSortableLong(value.doubleValue())));
                 }
                 if (stored) {
-                    fields.add(new StoredField(name, value.doubleValue()));
+                    fields.add(reusableFields.storedField(name, value.doubleValue()));
                 }
-                return fields;
             }
 
             private void validateParsed(double value) {
@@ -484,6 +496,12 @@ public class NumberFieldMapper extends FieldMapper {
                 return INTEGER.createFields(name, value, indexed, docValued, stored);
             }
 
+            @Override
+            void addFields(ReusableFields reusableFields, List<? super Field> fields, String name, Number value,
+                           boolean indexed, boolean docValued, boolean stored) {
+                INTEGER.addFields(reusableFields, fields, name, value, indexed, docValued, stored);
+            }
+
             @Override
             Number valueForSearch(Number value) {
                 return value.byteValue();
@@ -536,6 +554,12 @@ public class NumberFieldMapper extends FieldMapper {
                 return INTEGER.createFields(name, value, indexed, docValued, stored);
             }
 
+            @Override
+            void addFields(ReusableFields reusableFields, List<? super Field> fields, String name, Number value,
+                           boolean indexed, boolean docValued, boolean stored) {
+                INTEGER.addFields(reusableFields, fields, name, value, indexed, docValued, stored);
+            }
+
             @Override
             Number valueForSearch(Number value) {
                 return value.shortValue();
@@ -640,16 +664,22 @@ public class NumberFieldMapper extends FieldMapper {
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
                 List<Field> fields = new ArrayList<>();
+                addFields(ReusableFields.NONE, fields, name, value, indexed, docValued, stored);
+                return fields;
+            }
+
+            @Override
+            void addFields(ReusableFields reusableFields, List<? super Field> fields, String name, Number value,
+                           boolean indexed, boolean docValued, boolean stored) {
                 if (indexed) {
-                    fields.add(new IntPoint(name, value.intValue()));
+                    fields.add(reusableFields.intPoint(name, value.intValue()));
                 }
                 if (docValued) {
-                    fields.add(new SortedNumericDocValuesField(name, value.intValue()));
+                    fields.add(reusableFields.sortedNumericDocValues(name, value.intValue()));
                 }
                 if (stored) {
-                    fields.add(new StoredField(name, value.intValue()));
+                    fields.add(reusableFields.storedField(name, value.intValue()));
                 }
-                return fields;
             }
         },
         LONG("long", NumericType.LONG) {
@@ -754,16 +784,22 @@ public class NumberFieldMapper extends FieldMapper {
             public List<Field> createFields(String name, Number value,
                                             boolean indexed, boolean docValued, boolean stored) {
                 List<Field> fields = new ArrayList<>();
+                addFields(ReusableFields.NONE, fields, name, value, indexed, docValued, stored);
+                return fields;
+            }
+
+            @Override
+            void addFields(ReusableFields reusableFields, List<? super Field> fields, String name, Number value,
+                           boolean indexed, boolean docValued, boolean stored) {
                 if (indexed) {
-                    fields.add(new LongPoint(name, value.longValue()));
+                    fields.add(reusableFields.longPoint(name, value.longValue()));
                 }
                 if (docValued) {
-                    fields.add(new SortedNumericDocValuesField(name, value.longValue()));
+                    fields.add(reusableFields.sortedNumericDocValues(name, value.longValue()));
                 }
                 if (stored) {
-                    fields.add(new StoredField(name, value.longValue()));
+                    fields.add(reusableFields.storedField(name, value.longValue()));
                 }
-                return fields;
             }
         };
 
@@ -792,6 +828,14 @@ public class NumberFieldMapper extends FieldMapper {
         public abstract Number parse(Object value, boolean coerce);
         public abstract List<Field> createFields(String name, Number value, boolean indexed,
                                                  boolean docValued, boolean stored);
+
+        /**
+         * Adds the fields for the given value to the given list, recycling them from the given reusable fields if possible.
+         */
+        void addFields(ReusableFields reusableFields, List<? super Field> fields, String name, Number value,
+                       boolean indexed, boolean docValued, boolean stored) {
+            fields.addAll(createFields(name, value, indexed, docValued, stored));
+        }
         Number valueForSearch(Number value) {
             return value;
         }
@@ -1042,7 +1086,7 @@ public class NumberFieldMapper extends FieldMapper {
         boolean indexed = fieldType().indexOptions() != IndexOptions.NONE;
         boolean docValued = fieldType().hasDocValues();
         boolean stored = fieldType().stored();
-        fields.addAll(fieldType().type.createFields(fieldType().name(), numericValue, indexed, docValued, stored));
+        fieldType().type.addFields(context.reusableFields(), fields, fieldType().name(), numericValue, indexed, docValued, stored);
         if (docValued == false && (stored || indexed)) {
             createFieldNamesField(context, fields);
         }
@@ -267,6 +267,11 @@ public abstract class ParseContext implements Iterable<ParseContext.Document>{
             in.seqID(seqID);
         }
 
+        @Override
+        ReusableFields reusableFields() {
+            return in.reusableFields();
+        }
+
         @Override
         public AllEntries allEntries() {
             return in.allEntries();
@@ -339,8 +344,15 @@ public abstract class ParseContext implements Iterable<ParseContext.Document>{
 
         private final Set<String> ignoredFields = new HashSet<>();
 
+        private final ReusableFields reusableFields;
+
         public InternalParseContext(@Nullable Settings indexSettings, DocumentMapperParser docMapperParser, DocumentMapper docMapper,
                 SourceToParse source, XContentParser parser) {
+            this(indexSettings, docMapperParser, docMapper, source, parser, ReusableFields.NONE);
+        }
+
+        InternalParseContext(@Nullable Settings indexSettings, DocumentMapperParser docMapperParser, DocumentMapper docMapper,
+                SourceToParse source, XContentParser parser, ReusableFields reusableFields) {
             this.indexSettings = indexSettings;
             this.docMapper = docMapper;
             this.docMapperParser = docMapperParser;
@@ -353,6 +365,7 @@ public abstract class ParseContext implements Iterable<ParseContext.Document>{
             this.sourceToParse = source;
             this.allEntries = new AllEntries();
             this.dynamicMappers = new ArrayList<>();
+            this.reusableFields = reusableFields;
         }
 
         @Override
@@ -435,6 +448,11 @@ public abstract class ParseContext implements Iterable<ParseContext.Document>{
             this.seqID = seqID;
         }
 
+        @Override
+        ReusableFields reusableFields() {
+            return reusableFields;
+        }
+
         @Override
         public AllEntries allEntries() {
             return this.allEntries;
@@ -612,6 +630,11 @@ public abstract class ParseContext implements Iterable<ParseContext.Document>{
 
     public abstract void seqID(SeqNoFieldMapper.SequenceIDFields seqID);
 
+    /**
+     * The fields that mappers should add to the documents that they parse, which may be recycled from the previous document.
+     */
+    abstract ReusableFields reusableFields();
+
     public final boolean includeInAll(Boolean includeInAll, FieldMapper mapper) {
         return includeInAll(includeInAll, mapper.fieldType().indexOptions() != IndexOptions.NONE);
     }
@@ -0,0 +1,395 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.BinaryPoint;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.FloatPoint;
+import org.apache.lucene.document.InetAddressPoint;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LatLonDocValuesField;
+import org.apache.lucene.document.LatLonPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.IndexableFieldType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.mapper.ParseContext.Document;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes the Lucene documents of a {@link ParsedDocument} so that replicas can index the documents that the primary parsed,
+ * instead of parsing the source again. Each field is encoded with its name, its field type and its value, and text fields are
+ * analyzed again when the replica indexes them. Documents that hold fields which may compute their tokens or values in ways that
+ * a plain {@link Field} does not, such as fields with a custom token stream, are not encoded at all.
+ * <p>
+ * The values of the <code>_source</code>, <code>_id</code> and <code>_routing</code> fields are not encoded if they are what
+ * the replica can rebuild from the source it receives with the request anyway, so that the source is not sent twice.
+ */
+public final class ParsedDocumentCodec {
+
+    // the fields that are shared between the documents of a parsed document, and that the engine sets the values of
+    private static final byte REGULAR_FIELD = 0;
+    private static final byte VERSION_FIELD = 1;
+    private static final byte SEQ_NO_FIELD = 2;
+    private static final byte SEQ_NO_DOC_VALUE_FIELD = 3;
+    private static final byte PRIMARY_TERM_FIELD = 4;
+
+    private static final byte STRING_VALUE = 0;
+    private static final byte BINARY_VALUE = 1;
+    private static final byte INT_VALUE = 2;
+    private static final byte LONG_VALUE = 3;
+    private static final byte FLOAT_VALUE = 4;
+    private static final byte DOUBLE_VALUE = 5;
+    // values that are rebuilt from the source to parse when decoding
+    private static final byte SOURCE_VALUE = 6;
+    private static final byte ENCODED_ID_VALUE = 7;
+    private static final byte ID_VALUE = 8;
+    private static final byte ROUTING_VALUE = 9;
+
+    // field classes that index, store and add doc values for exactly what their name, field type and value say
+    private static final Set<Class<?>> PLAIN_FIELD_CLASSES = new HashSet<>();
+
+    static {
+        PLAIN_FIELD_CLASSES.add(Field.class);
+        PLAIN_FIELD_CLASSES.add(StringField.class);
+        PLAIN_FIELD_CLASSES.add(TextField.class);
+        PLAIN_FIELD_CLASSES.add(StoredField.class);
+        PLAIN_FIELD_CLASSES.add(NumericDocValuesField.class);
+        PLAIN_FIELD_CLASSES.add(SortedNumericDocValuesField.class);
+        PLAIN_FIELD_CLASSES.add(SortedDocValuesField.class);
+        PLAIN_FIELD_CLASSES.add(SortedSetDocValuesField.class);
+        PLAIN_FIELD_CLASSES.add(BinaryDocValuesField.class);
+        PLAIN_FIELD_CLASSES.add(IntPoint.class);
+        PLAIN_FIELD_CLASSES.add(LongPoint.class);
+        PLAIN_FIELD_CLASSES.add(FloatPoint.class);
+        PLAIN_FIELD_CLASSES.add(DoublePoint.class);
+        PLAIN_FIELD_CLASSES.add(BinaryPoint.class);
+        PLAIN_FIELD_CLASSES.add(InetAddressPoint.class);
+        PLAIN_FIELD_CLASSES.add(LatLonPoint.class);
+        PLAIN_FIELD_CLASSES.add(LatLonDocValuesField.class);
+        PLAIN_FIELD_CLASSES.add(ReusableFields.BinaryField.class);
+    }
+
+    private ParsedDocumentCodec() {}
+
+    /**
+     * Encodes the documents of the given parsed document.
+     *
+     * @return the encoded documents, or <code>null</code> if the documents hold fields that cannot be encoded
+     */
+    public static BytesReference encode(ParsedDocument parsedDocument) throws IOException {
+        final SeqNoFieldMapper.SequenceIDFields seqID = parsedDocument.seqID();
+        for (Document document : parsedDocument.docs()) {
+            for (IndexableField field : document) {
+                if (isEncodable(field) == false) {
+                    return null;
+                }
+            }
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            final Map<String, Integer> names = new HashMap<>();
+            out.writeVInt(parsedDocument.docs().size());
+            for (Document document : parsedDocument.docs()) {
+                out.writeVInt(document.getFields().size());
+                for (IndexableField field : document) {
+                    if (field == parsedDocument.version()) {
+                        out.writeByte(VERSION_FIELD);
+                    } else if (field == seqID.seqNo) {
+                        out.writeByte(SEQ_NO_FIELD);
+                    } else if (field == seqID.seqNoDocValue) {
+                        out.writeByte(SEQ_NO_DOC_VALUE_FIELD);
+                    } else if (field == seqID.primaryTerm) {
+                        out.writeByte(PRIMARY_TERM_FIELD);
+                    } else {
+                        out.writeByte(REGULAR_FIELD);
+                        writeName(out, field.name(), names);
+                        writeFieldType(out, field.fieldType());
+                        writeValue(out, field, parsedDocument);
+                    }
+                }
+            }
+            return out.bytes();
+        }
+    }
+
+    /**
+     * Decodes documents that were encoded with {@link #encode(ParsedDocument)}.
+     *
+     * @param source the source that the documents were parsed from
+     */
+    public static ParsedDocument decode(BytesReference bytes, SourceToParse source) throws IOException {
+        final Field version = new NumericDocValuesField(VersionFieldMapper.NAME, -1L);
+        final SeqNoFieldMapper.SequenceIDFields seqID = SeqNoFieldMapper.SequenceIDFields.emptySeqID();
+        try (StreamInput in = bytes.streamInput()) {
+            final List<String> names = new ArrayList<>();
+            final Map<Long, FieldType> fieldTypes = new HashMap<>();
+            final int numberOfDocuments = in.readVInt();
+            final List<Document> documents = new ArrayList<>(numberOfDocuments);
+            for (int i = 0; i < numberOfDocuments; i++) {
+                final Document document = new Document();
+                final int numberOfFields = in.readVInt();
+                for (int j = 0; j < numberOfFields; j++) {
+                    final byte kind = in.readByte();
+                    switch (kind) {
+                        case VERSION_FIELD:
+                            document.add(version);
+                            break;
+                        case SEQ_NO_FIELD:
+                            document.add(seqID.seqNo);
+                            break;
+                        case SEQ_NO_DOC_VALUE_FIELD:
+                            document.add(seqID.seqNoDocValue);
+                            break;
+                        case PRIMARY_TERM_FIELD:
+                            document.add(seqID.primaryTerm);
+                            break;
+                        case REGULAR_FIELD:
+                            final String name = readName(in, names);
+                            final FieldType fieldType = readFieldType(in, fieldTypes);
+                            document.add(new DecodedField(name, fieldType, readValue(in, source)));
+                            break;
+                        default:
+                            throw new IllegalStateException("unknown field kind [" + kind + "]");
+                    }
+                }
+                documents.add(document);
+            }
+            return new ParsedDocument(version, seqID, source.id(), source.type(), source.routing(), documents, source.source(),
+                source.getXContentType(), null).parent(source.parent());
+        }
+    }
+
+    /**
+     * Returns the names of the fields of the given documents that are mapped, that is all the fields except for the ones that the
+     * engine sets the values of.
+     */
+    public static Set<String> mappedFieldNames(ParsedDocument parsedDocument) {
+        final SeqNoFieldMapper.SequenceIDFields seqID = parsedDocument.seqID();
+        final Set<String> names = new HashSet<>();
+        for (Document document : parsedDocument.docs()) {
+            for (IndexableField field : document) {
+                if (field != parsedDocument.version() && field != seqID.seqNo && field != seqID.seqNoDocValue
+                    && field != seqID.primaryTerm) {
+                    names.add(field.name());
+                }
+            }
+        }
+        return names;
+    }
+
+    private static boolean isEncodable(IndexableField field) {
+        if (PLAIN_FIELD_CLASSES.contains(field.getClass()) == false) {
+            return false;
+        }
+        final Field plainField = (Field) field;
+        if (plainField.tokenStreamValue() != null || plainField.readerValue() != null) {
+            return false;
+        }
+        if (plainField.fieldType().pointDimensionCount() > 0) {
+            // points are indexed from their packed value, even the ones that also return it decoded as a number
+            return plainField.binaryValue() != null;
+        }
+        final Number numericValue = plainField.numericValue();
+        if (numericValue != null) {
+            return numericValue instanceof Integer || numericValue instanceof Long || numericValue instanceof Float
+                || numericValue instanceof Double;
+        }
+        return plainField.binaryValue() != null || plainField.stringValue() != null;
+    }
+
+    private static void writeName(StreamOutput out, String name, Map<String, Integer> names) throws IOException {
+        final Integer ordinal = names.get(name);
+        if (ordinal == null) {
+            out.writeVInt(0);
+            out.writeString(name);
+            names.put(name, names.size() + 1);
+        } else {
+            out.writeVInt(ordinal);
+        }
+    }
+
+    private static String readName(StreamInput in, List<String> names) throws IOException {
+        final int ordinal = in.readVInt();
+        if (ordinal == 0) {
+            final String name = in.readString();
+            names.add(name);
+            return name;
+        }
+        return names.get(ordinal - 1);
+    }
+
+    private static void writeFieldType(StreamOutput out, IndexableFieldType fieldType) throws IOException {
+        out.writeVLong(fieldTypeKey(fieldType));
+    }
+
+    /**
+     * Packs all the attributes of a field type into a single long, which also serves as a key to share the decoded field types.
+     */
+    private static long fieldTypeKey(IndexableFieldType fieldType) {
+        long key = 0;
+        key |= fieldType.stored() ? 1 : 0;
+        key |= fieldType.tokenized() ? 1 << 1 : 0;
+        key |= fieldType.storeTermVectors() ? 1 << 2 : 0;
+        key |= fieldType.storeTermVectorOffsets() ? 1 << 3 : 0;
+        key |= fieldType.storeTermVectorPositions() ? 1 << 4 : 0;
+        key |= fieldType.storeTermVectorPayloads() ? 1 << 5 : 0;
+        key |= fieldType.omitNorms() ? 1 << 6 : 0;
+        key |= ((long) fieldType.indexOptions().ordinal()) << 8;
+        key |= ((long) fieldType.docValuesType().ordinal()) << 16;
+        key |= ((long) fieldType.pointDimensionCount()) << 24;
+        key |= ((long) fieldType.pointNumBytes()) << 32;
+        return key;
+    }
+
+    private static FieldType readFieldType(StreamInput in, Map<Long, FieldType> fieldTypes) throws IOException {
+        final long key = in.readVLong();
+        FieldType fieldType = fieldTypes.get(key);
+        if (fieldType == null) {
+            fieldType = new FieldType();
+            fieldType.setStored((key & 1) != 0);
+            fieldType.setTokenized((key & (1 << 1)) != 0);
+            fieldType.setStoreTermVectors((key & (1 << 2)) != 0);
+            fieldType.setStoreTermVectorOffsets((key & (1 << 3)) != 0);
+            fieldType.setStoreTermVectorPositions((key & (1 << 4)) != 0);
+            fieldType.setStoreTermVectorPayloads((key & (1 << 5)) != 0);
+            fieldType.setOmitNorms((key & (1 << 6)) != 0);
+            fieldType.setIndexOptions(IndexOptions.values()[(int) ((key >>> 8) & 0xFF)]);
+            fieldType.setDocValuesType(DocValuesType.values()[(int) ((key >>> 16) & 0xFF)]);
+            final int pointDimensionCount = (int) ((key >>> 24) & 0xFF);
+            if (pointDimensionCount > 0) {
+                fieldType.setDimensions(pointDimensionCount, (int) ((key >>> 32) & 0xFFFF));
+            }
+            fieldType.freeze();
+            fieldTypes.put(key, fieldType);
+        }
+        return fieldType;
+    }
+
+    private static void writeValue(StreamOutput out, IndexableField field, ParsedDocument parsedDocument) throws IOException {
+        final Number numericValue = field.numericValue();
+        final BytesRef binaryValue = field.binaryValue();
+        // fields with a numeric value also return it as a string
+        final String stringValue = numericValue == null && binaryValue == null ? field.stringValue() : null;
+        if (field.fieldType().pointDimensionCount() > 0) {
+            // one dimensional points also return their value as a number, but they can only be indexed from their packed value
+            out.writeByte(BINARY_VALUE);
+            out.writeBytesRef(binaryValue);
+        } else if (isSource(field, binaryValue, parsedDocument)) {
+            out.writeByte(SOURCE_VALUE);
+        } else if (field.name().equals(IdFieldMapper.NAME) && binaryValue != null
+            && binaryValue.equals(Uid.encodeId(parsedDocument.id()))) {
+            out.writeByte(ENCODED_ID_VALUE);
+        } else if (field.name().equals(IdFieldMapper.NAME) && parsedDocument.id().equals(stringValue)) {
+            out.writeByte(ID_VALUE);
+        } else if (field.name().equals(RoutingFieldMapper.NAME) && stringValue != null
+            && stringValue.equals(parsedDocument.routing())) {
+            out.writeByte(ROUTING_VALUE);
+        } else if (numericValue instanceof Integer) {
+            out.writeByte(INT_VALUE);
+            out.writeInt(numericValue.intValue());
+        } else if (numericValue instanceof Long) {
+            out.writeByte(LONG_VALUE);
+            out.writeLong(numericValue.longValue());
+        } else if (numericValue instanceof Float) {
+            out.writeByte(FLOAT_VALUE);
+            out.writeFloat(numericValue.floatValue());
+        } else if (numericValue instanceof Double) {
+            out.writeByte(DOUBLE_VALUE);
+            out.writeDouble(numericValue.doubleValue());
+        } else if (numericValue != null) {
+            throw new IllegalArgumentException("unsupported value [" + numericValue + "] for field [" + field.name() + "]");
+        } else if (binaryValue != null) {
+            out.writeByte(BINARY_VALUE);
+            out.writeBytesRef(binaryValue);
+        } else {
+            out.writeByte(STRING_VALUE);
+            out.writeString(stringValue);
+        }
+    }
+
+    /**
+     * Whether the given field stores the source as it was sent, rather than a filtered version of it.
+     */
+    private static boolean isSource(IndexableField field, BytesRef binaryValue, ParsedDocument parsedDocument) {
+        return field.name().equals(SourceFieldMapper.NAME) && binaryValue != null && parsedDocument.source() != null
+            && binaryValue.equals(parsedDocument.source().toBytesRef());
+    }
+
+    private static Object readValue(StreamInput in, SourceToParse source) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case SOURCE_VALUE:
+                return source.source().toBytesRef();
+            case ENCODED_ID_VALUE:
+                return Uid.encodeId(source.id());
+            case ID_VALUE:
+                return source.id();
+            case ROUTING_VALUE:
+                return source.routing();
+            case STRING_VALUE:
+                return in.readString();
+            case BINARY_VALUE:
+                return in.readBytesRef();
+            case INT_VALUE:
+                return in.readInt();
+            case LONG_VALUE:
+                return in.readLong();
+            case FLOAT_VALUE:
+                return in.readFloat();
+            case DOUBLE_VALUE:
+                return in.readDouble();
+            default:
+                throw new IllegalStateException("unknown value type [" + type + "]");
+        }
+    }
+
+    /**
+     * A field that holds a decoded value, which it indexes, stores or adds doc values for according to its field type.
+     */
+    private static final class DecodedField extends Field {
+        DecodedField(String name, FieldType fieldType, Object value) {
+            super(name, fieldType);
+            this.fieldsData = value;
+        }
+    }
+}
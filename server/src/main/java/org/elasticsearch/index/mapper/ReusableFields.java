@@ -0,0 +1,271 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.FloatPoint;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.util.BytesRef;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out the Lucene fields that mappers add to documents, and recycles them across the documents that a single thread parses
+ * one after the other. Fields are recycled per field name, in the order in which the mappers ask for them, so a field is only
+ * valid until the thread that obtained it starts to parse its next document. This only suits documents that are indexed before
+ * their thread parses the next one, see {@link DocumentMapper#parse(SourceToParse, boolean)}.
+ */
+final class ReusableFields {
+
+    /** Hands out new fields for every document. */
+    static final ReusableFields NONE = new ReusableFields(false);
+
+    // bounds the number of fields that are kept for a field name, so that a document with a very large array does not pin memory
+    static final int MAX_FIELDS_PER_NAME = 64;
+
+    private final boolean recycle;
+    private final Map<String, Slots> slots = new HashMap<>();
+    private final List<Slots> usedSlots = new ArrayList<>();
+
+    ReusableFields() {
+        this(true);
+    }
+
+    private ReusableFields(boolean recycle) {
+        this.recycle = recycle;
+    }
+
+    /**
+     * Makes all the fields that were handed out since the last call available again. Must be called before parsing a document.
+     */
+    void reset() {
+        for (Slots used : usedSlots) {
+            used.next = 0;
+        }
+        usedSlots.clear();
+    }
+
+    LongPoint longPoint(String name, long value) {
+        final Slots slots = slots(name);
+        final LongPoint field = reuse(slots, LongPoint.class);
+        if (field == null) {
+            return keep(slots, new LongPoint(name, value));
+        }
+        field.setLongValue(value);
+        return field;
+    }
+
+    IntPoint intPoint(String name, int value) {
+        final Slots slots = slots(name);
+        final IntPoint field = reuse(slots, IntPoint.class);
+        if (field == null) {
+            return keep(slots, new IntPoint(name, value));
+        }
+        field.setIntValue(value);
+        return field;
+    }
+
+    FloatPoint floatPoint(String name, float value) {
+        final Slots slots = slots(name);
+        final FloatPoint field = reuse(slots, FloatPoint.class);
+        if (field == null) {
+            return keep(slots, new FloatPoint(name, value));
+        }
+        field.setFloatValue(value);
+        return field;
+    }
+
+    DoublePoint doublePoint(String name, double value) {
+        final Slots slots = slots(name);
+        final DoublePoint field = reuse(slots, DoublePoint.class);
+        if (field == null) {
+            return keep(slots, new DoublePoint(name, value));
+        }
+        field.setDoubleValue(value);
+        return field;
+    }
+
+    NumericDocValuesField numericDocValues(String name, long value) {
+        final Slots slots = slots(name);
+        final NumericDocValuesField field = reuse(slots, NumericDocValuesField.class);
+        if (field == null) {
+            return keep(slots, new NumericDocValuesField(name, value));
+        }
+        field.setLongValue(value);
+        return field;
+    }
+
+    SortedNumericDocValuesField sortedNumericDocValues(String name, long value) {
+        final Slots slots = slots(name);
+        final SortedNumericDocValuesField field = reuse(slots, SortedNumericDocValuesField.class);
+        if (field == null) {
+            return keep(slots, new SortedNumericDocValuesField(name, value));
+        }
+        field.setLongValue(value);
+        return field;
+    }
+
+    SortedSetDocValuesField sortedSetDocValues(String name, BytesRef value) {
+        final Slots slots = slots(name);
+        final SortedSetDocValuesField field = reuse(slots, SortedSetDocValuesField.class);
+        if (field == null) {
+            return keep(slots, new SortedSetDocValuesField(name, value));
+        }
+        field.setBytesValue(value);
+        return field;
+    }
+
+    StoredField storedField(String name, int value) {
+        final Slots slots = slots(name);
+        final StoredField field = reuseStoredField(slots, Integer.class);
+        if (field == null) {
+            return keep(slots, new StoredField(name, value));
+        }
+        field.setIntValue(value);
+        return field;
+    }
+
+    StoredField storedField(String name, long value) {
+        final Slots slots = slots(name);
+        final StoredField field = reuseStoredField(slots, Long.class);
+        if (field == null) {
+            return keep(slots, new StoredField(name, value));
+        }
+        field.setLongValue(value);
+        return field;
+    }
+
+    StoredField storedField(String name, float value) {
+        final Slots slots = slots(name);
+        final StoredField field = reuseStoredField(slots, Float.class);
+        if (field == null) {
+            return keep(slots, new StoredField(name, value));
+        }
+        field.setFloatValue(value);
+        return field;
+    }
+
+    StoredField storedField(String name, double value) {
+        final Slots slots = slots(name);
+        final StoredField field = reuseStoredField(slots, Double.class);
+        if (field == null) {
+            return keep(slots, new StoredField(name, value));
+        }
+        field.setDoubleValue(value);
+        return field;
+    }
+
+    /**
+     * Returns a field of the given type that indexes and/or stores the given binary value.
+     */
+    Field binaryField(String name, BytesRef value, FieldType fieldType) {
+        final Slots slots = slots(name);
+        BinaryField field = reuse(slots, BinaryField.class);
+        if (field != null && field.fieldType() != fieldType) {
+            // the slot holds a field of another field type, which keep replaces
+            slots.next--;
+            field = null;
+        }
+        if (field == null) {
+            return keep(slots, new BinaryField(name, value, fieldType));
+        }
+        field.setValue(value);
+        return field;
+    }
+
+    private Slots slots(String name) {
+        if (recycle == false) {
+            return null;
+        }
+        Slots fields = slots.get(name);
+        if (fields == null) {
+            fields = new Slots();
+            slots.put(name, fields);
+        }
+        if (fields.next == 0) {
+            usedSlots.add(fields);
+        }
+        return fields;
+    }
+
+    private static <F extends Field> F reuse(Slots slots, Class<F> fieldClass) {
+        if (slots == null || slots.next >= slots.fields.size()) {
+            return null;
+        }
+        final Field field = slots.fields.get(slots.next);
+        if (field.getClass() != fieldClass) {
+            return null;
+        }
+        slots.next++;
+        return fieldClass.cast(field);
+    }
+
+    private static StoredField reuseStoredField(Slots slots, Class<? extends Number> valueClass) {
+        final StoredField field = reuse(slots, StoredField.class);
+        if (field != null && (field.numericValue() == null || field.numericValue().getClass() != valueClass)) {
+            // the slot holds a stored field of another value type, which keep replaces
+            slots.next--;
+            return null;
+        }
+        return field;
+    }
+
+    private static <F extends Field> F keep(Slots slots, F field) {
+        if (slots != null) {
+            if (slots.next < slots.fields.size()) {
+                slots.fields.set(slots.next++, field);
+            } else if (slots.fields.size() < MAX_FIELDS_PER_NAME) {
+                slots.fields.add(field);
+                slots.next++;
+            }
+        }
+        return field;
+    }
+
+    private static final class Slots {
+        private final List<Field> fields = new ArrayList<>();
+        private int next;
+    }
+
+    /**
+     * A field with a binary value that, unlike {@link Field}, lets its value be replaced even if it is indexed.
+     */
+    static final class BinaryField extends Field {
+
+        BinaryField(String name, BytesRef value, FieldType fieldType) {
+            super(name, value, fieldType);
+        }
+
+        void setValue(BytesRef value) {
+            fieldsData = value;
+        }
+    }
+}
@@ -231,7 +231,10 @@ public class SeqNoFieldMapper extends MetadataFieldMapper {
     protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
         // see InternalEngine.innerIndex to see where the real version value is set
         // also see ParsedDocument.updateSeqID (called by innerIndex)
-        SequenceIDFields seqID = SequenceIDFields.emptySeqID();
+        final ReusableFields reusableFields = context.reusableFields();
+        SequenceIDFields seqID = new SequenceIDFields(reusableFields.longPoint(NAME, SequenceNumbers.UNASSIGNED_SEQ_NO),
+            reusableFields.numericDocValues(NAME, SequenceNumbers.UNASSIGNED_SEQ_NO),
+            reusableFields.numericDocValues(PRIMARY_TERM_NAME, 0));
         context.seqID(seqID);
         fields.add(seqID.seqNo);
         fields.add(seqID.seqNoDocValue);
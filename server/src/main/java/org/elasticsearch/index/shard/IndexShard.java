@@ -99,6 +99,7 @@ import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.ParsedDocumentCodec;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.UidFieldMapper;
@@ -123,6 +124,7 @@ import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 import org.elasticsearch.indices.TypeMissingException;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
@@ -154,11 +156,13 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.mapper.SourceToParse.source;
@@ -187,6 +191,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final Supplier<Sort> indexSortSupplier;
     // Package visible for testing
     final CircuitBreakerService circuitBreakerService;
+    // the group that syncs the translogs of all shards on the data path of this shard, null if this shard syncs its own translog
+    @Nullable
+    private final TranslogGroupCommitService.PathGroup translogSyncGroup;
 
     private final SearchOperationListener searchOperationListener;
 
@@ -240,6 +247,16 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      */
     private final RefreshListeners refreshListeners;
 
+    /**
+     * The relative time in millis at which an external searcher was last acquired, used to detect search idle shards.
+     */
+    private final AtomicLong lastSearcherAccess = new AtomicLong();
+    /**
+     * The translog location that has to become visible before a search idle shard can serve searches again, or null if no
+     * scheduled refresh was skipped since the last search.
+     */
+    private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
+
     public IndexShard(
             ShardRouting shardRouting,
             IndexSettings indexSettings,
@@ -258,7 +275,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             List<SearchOperationListener> searchOperationListener,
             List<IndexingOperationListener> listeners,
             Runnable globalCheckpointSyncer,
-            CircuitBreakerService circuitBreakerService) throws IOException {
+            CircuitBreakerService circuitBreakerService,
+            @Nullable TranslogGroupCommitService translogGroupCommitService) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -290,6 +308,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         state = IndexShardState.CREATED;
         this.path = path;
         this.circuitBreakerService = circuitBreakerService;
+        this.translogSyncGroup = translogGroupCommitService == null ? null : translogGroupCommitService.getGroup(path.getRootDataPath());
         /* create engine config */
         logger.debug("state: [CREATED]");
 
@@ -318,6 +337,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         pendingPrimaryTerm = indexSettings.getIndexMetaData().primaryTerm(shardId.id());
         operationPrimaryTerm = pendingPrimaryTerm;
         refreshListeners = buildRefreshListeners();
+        lastSearcherAccess.set(threadPool.relativeTimeInMillis());
         persistMetadata(path, indexSettings, shardRouting, null, logger);
     }
 
@@ -679,32 +699,57 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     public Engine.IndexResult applyIndexOperationOnPrimary(long version, VersionType versionType, SourceToParse sourceToParse,
                                                            long autoGeneratedTimestamp, boolean isRetry) throws IOException {
+        return applyIndexOperationOnPrimary(version, versionType, sourceToParse, autoGeneratedTimestamp, isRetry, null);
+    }
+
+    /**
+     * Applies an index operation on the primary, and passes the document that was indexed to the given consumer if it succeeded.
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(long version, VersionType versionType, SourceToParse sourceToParse,
+                                                           long autoGeneratedTimestamp, boolean isRetry,
+                                                           @Nullable Consumer<ParsedDocument> onIndexed) throws IOException {
         return applyIndexOperation(SequenceNumbers.UNASSIGNED_SEQ_NO, operationPrimaryTerm, version, versionType, autoGeneratedTimestamp,
-            isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse);
+            isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse, null, onIndexed);
     }
 
     public Engine.IndexResult applyIndexOperationOnReplica(long seqNo, long version, VersionType versionType,
                                                            long autoGeneratedTimeStamp, boolean isRetry, SourceToParse sourceToParse)
         throws IOException {
+        return applyIndexOperationOnReplica(seqNo, version, versionType, autoGeneratedTimeStamp, isRetry, sourceToParse, null);
+    }
+
+    /**
+     * Applies an index operation on a replica. The document that the primary parsed is indexed as is if it is provided, unless
+     * the mapping of this shard does not know all of its fields yet, in which case the source is parsed again.
+     */
+    public Engine.IndexResult applyIndexOperationOnReplica(long seqNo, long version, VersionType versionType,
+                                                           long autoGeneratedTimeStamp, boolean isRetry, SourceToParse sourceToParse,
+                                                           @Nullable ParsedDocument parsedDocument) throws IOException {
         return applyIndexOperation(seqNo, operationPrimaryTerm, version, versionType, autoGeneratedTimeStamp, isRetry,
-            Engine.Operation.Origin.REPLICA, sourceToParse);
+            Engine.Operation.Origin.REPLICA, sourceToParse, parsedDocument, null);
     }
 
     private Engine.IndexResult applyIndexOperation(long seqNo, long opPrimaryTerm, long version, VersionType versionType,
                                                    long autoGeneratedTimeStamp, boolean isRetry, Engine.Operation.Origin origin,
-                                                   SourceToParse sourceToParse) throws IOException {
+                                                   SourceToParse sourceToParse, @Nullable ParsedDocument parsedDocument,
+                                                   @Nullable Consumer<ParsedDocument> onIndexed) throws IOException {
         assert opPrimaryTerm <= this.operationPrimaryTerm : "op term [ " + opPrimaryTerm + " ] > shard term [" + this.operationPrimaryTerm
             + "]";
         assert versionType.validateVersionForWrites(version);
         ensureWriteAllowed(origin);
         Engine.Index operation;
         try {
-            operation = prepareIndex(docMapper(sourceToParse.type()), indexSettings.getIndexVersionCreated(), sourceToParse, seqNo,
-                    opPrimaryTerm, version, versionType, origin,
-                autoGeneratedTimeStamp, isRetry);
-            Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
-            if (update != null) {
-                return new Engine.IndexResult(update);
+            if (parsedDocument != null && canIndexParsedDocument(parsedDocument)) {
+                operation = prepareIndex(parsedDocument, seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp,
+                    isRetry);
+            } else {
+                operation = prepareIndex(docMapper(sourceToParse.type()), indexSettings.getIndexVersionCreated(), sourceToParse, seqNo,
+                        opPrimaryTerm, version, versionType, origin,
+                    autoGeneratedTimeStamp, isRetry);
+                Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
+                if (update != null) {
+                    return new Engine.IndexResult(update);
+                }
             }
         } catch (Exception e) {
             // We treat any exception during parsing and or mapping update as a document level failure
@@ -715,14 +760,42 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             return new Engine.IndexResult(e, version, opPrimaryTerm, seqNo);
         }
 
-        return index(getEngine(), operation);
+        final Engine.IndexResult result = index(getEngine(), operation);
+        if (onIndexed != null && result.getResultType() == Engine.Result.Type.SUCCESS) {
+            onIndexed.accept(operation.parsedDoc());
+        }
+        return result;
+    }
+
+    /**
+     * Whether a document that another shard copy parsed can be indexed without parsing its source again, that is whether the
+     * mapping of this shard knows about all of its fields.
+     */
+    private boolean canIndexParsedDocument(ParsedDocument parsedDocument) {
+        if (indexSettings.getIndexVersionCreated().before(Version.V_6_0_0_beta1)) {
+            return false;
+        }
+        for (String field : ParsedDocumentCodec.mappedFieldNames(parsedDocument)) {
+            if (mapperService.fullName(field) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Engine.Index prepareIndex(ParsedDocument doc, long seqNo, long primaryTerm, long version, VersionType versionType,
+                                             Engine.Operation.Origin origin, long autoGeneratedIdTimestamp, boolean isRetry) {
+        long startTime = System.nanoTime();
+        Term uid = new Term(IdFieldMapper.NAME, Uid.encodeId(doc.id()));
+        return new Engine.Index(uid, doc, seqNo, primaryTerm, version, versionType, origin, startTime, autoGeneratedIdTimestamp, isRetry);
     }
 
     public static Engine.Index prepareIndex(DocumentMapperForType docMapper, Version indexCreatedVersion, SourceToParse source, long seqNo,
             long primaryTerm, long version, VersionType versionType, Engine.Operation.Origin origin, long autoGeneratedIdTimestamp,
             boolean isRetry) {
         long startTime = System.nanoTime();
-        ParsedDocument doc = docMapper.getDocumentMapper().parse(source);
+        // the operation is indexed before this thread parses its next document, so the fields of the previous one can be reused
+        ParsedDocument doc = docMapper.getDocumentMapper().parse(source, true);
         if (docMapper.getMapping() != null) {
             doc.addDynamicMappingsUpdate(docMapper.getMapping());
         }
@@ -1192,6 +1265,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     private Engine.Searcher acquireSearcher(String source, Engine.SearcherScope scope) {
         readAllowed();
+        if (scope == Engine.SearcherScope.EXTERNAL) {
+            markSearcherAccessed();
+        }
         final Engine engine = getEngine();
         final Engine.Searcher searcher = engine.acquireSearcher(source, scope);
         boolean success = false;
@@ -1272,7 +1348,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 result = applyIndexOperation(index.seqNo(), index.primaryTerm(), index.version(),
                     index.versionType().versionTypeForReplicationAndRecovery(), index.getAutoGeneratedIdTimestamp(), true, origin,
                     source(shardId.getIndexName(), index.type(), index.id(), index.source(),
-                        XContentHelper.xContentType(index.source())).routing(index.routing()).parent(index.parent()));
+                        XContentHelper.xContentType(index.source())).routing(index.routing()).parent(index.parent()), null, null);
                 break;
             case DELETE:
                 final Translog.Delete delete = (Translog.Delete) operation;
@@ -2382,18 +2458,28 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor = new AsyncIOProcessor<Translog.Location>(logger, 1024) {
         @Override
         protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
-            try {
-                getEngine().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
-            } catch (AlreadyClosedException ex) {
-                // that's fine since we already synced everything on engine close - this also is conform with the methods
-                // documentation
-            } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                logger.debug("failed to sync translog", ex);
-                throw ex;
-            }
+            ensureTranslogSynced(candidates.stream().map(Tuple::v1));
         }
     };
 
+    /**
+     * Syncs the translog as part of the group of the data path of this shard, must be the same instance for every sync so that
+     * the group can merge the pending syncs of this shard.
+     */
+    private final TranslogGroupCommitService.TranslogSyncer translogSyncer = locations -> ensureTranslogSynced(locations.stream());
+
+    private void ensureTranslogSynced(Stream<Translog.Location> locations) throws IOException {
+        try {
+            getEngine().ensureTranslogSynced(locations);
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
@@ -2405,7 +2491,11 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogSyncGroup != null) {
+            translogSyncGroup.sync(translogSyncer, location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
@@ -2546,6 +2636,87 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().refreshNeeded() || (refreshListeners != null && refreshListeners.refreshNeeded());
     }
 
+    /**
+     * Executes a scheduled refresh if necessary. The refresh is skipped if the shard is search idle and nobody is waiting for it;
+     * in that case the current translog location is recorded so that the next search waits for the next scheduled refresh.
+     *
+     * @return <code>true</code> iff the engine got refreshed otherwise <code>false</code>
+     */
+    public boolean scheduledRefresh() {
+        verifyNotClosed();
+        final boolean listenerNeedsRefresh = refreshListeners.refreshNeeded();
+        if (isReadAllowed() && (listenerNeedsRefresh || getEngine().refreshNeeded())) {
+            if (listenerNeedsRefresh == false // a listener that is waiting for a refresh forces it
+                && indexSettings.isSearchIdleEnabled()
+                && isSearchIdle()
+                && active.get()) { // inactive shards are refreshed to free up the memory of the indexing buffer
+                // skip this refresh, the next search registers a refresh listener which forces the next scheduled refresh
+                final Engine engine = getEngine();
+                engine.maybePruneDeletes();
+                setRefreshPending(engine);
+                return false;
+            } else {
+                refresh("schedule");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if this shard has not been searched for longer than {@link IndexSettings#getSearchIdleAfter()}.
+     */
+    public final boolean isSearchIdle() {
+        return (threadPool.relativeTimeInMillis() - lastSearcherAccess.get()) >= indexSettings.getSearchIdleAfter().getMillis();
+    }
+
+    /**
+     * Returns the relative time in millis at which an external searcher was last acquired on this shard.
+     */
+    public final long getLastSearcherAccess() {
+        return lastSearcherAccess.get();
+    }
+
+    /**
+     * Returns true if a scheduled refresh was skipped because this shard is search idle and the skipped changes are not yet visible.
+     */
+    public final boolean hasRefreshPending() {
+        return pendingRefreshLocation.get() != null;
+    }
+
+    private void markSearcherAccessed() {
+        lastSearcherAccess.lazySet(threadPool.relativeTimeInMillis());
+    }
+
+    private void setRefreshPending(Engine engine) {
+        final Translog.Location lastWriteLocation = engine.getTranslogLastWriteLocation();
+        Translog.Location location;
+        do {
+            location = this.pendingRefreshLocation.get();
+            if (location != null && lastWriteLocation.compareTo(location) <= 0) {
+                break;
+            }
+        } while (pendingRefreshLocation.compareAndSet(location, lastWriteLocation) == false);
+    }
+
+    /**
+     * Registers the given listener and invokes it once the shard is active again for searches. If a scheduled refresh was skipped
+     * because the shard was search idle, the listener is invoked with <code>true</code> once the skipped changes are visible, which
+     * happens on the next scheduled refresh. Otherwise it is invoked immediately with <code>false</code>.
+     */
+    public final void awaitShardSearchActive(Consumer<Boolean> listener) {
+        markSearcherAccessed(); // move the shard out of search idle mode
+        final Translog.Location location = pendingRefreshLocation.get();
+        if (location != null) {
+            addRefreshListener(location, refreshed -> {
+                pendingRefreshLocation.compareAndSet(location, null);
+                listener.accept(true);
+            });
+        } else {
+            listener.accept(false);
+        }
+    }
+
     /**
      * Add a listener for refreshes.
      *
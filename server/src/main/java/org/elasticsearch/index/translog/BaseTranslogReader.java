@@ -84,6 +84,15 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
         return size;
     }
 
+    /**
+     * Acquires a reference to the memory mapping of the translog file, or returns <code>null</code> if operations must be read
+     * through the file channel. The caller must release the reference once it stopped reading. Only immutable generations may be
+     * mapped.
+     */
+    MappedTranslogFile acquireMapping() {
+        return null;
+    }
+
     public TranslogSnapshot newSnapshot() {
         return new TranslogSnapshot(this, sizeInBytes());
     }
@@ -107,7 +116,10 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
     }
 
     protected Translog.Operation read(BufferedChecksumStreamInput inStream) throws IOException {
-        final Translog.Operation op = Translog.readOperation(inStream);
+        return checkPrimaryTerm(Translog.readOperation(inStream));
+    }
+
+    protected final Translog.Operation checkPrimaryTerm(Translog.Operation op) {
         if (op.primaryTerm() > getPrimaryTerm() && getPrimaryTerm() != TranslogHeader.UNKNOWN_PRIMARY_TERM) {
             throw new TranslogCorruptedException("Operation's term is newer than translog header term; " +
                 "operation term[" + op.primaryTerm() + "], translog header term [" + getPrimaryTerm() + "]");
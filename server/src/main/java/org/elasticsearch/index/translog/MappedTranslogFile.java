@@ -0,0 +1,79 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.translog;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A memory mapping of an immutable translog file, shared by the reader of the generation and the snapshots that are taken of it.
+ * The reader holds a reference until it is closed and every snapshot holds one until it is closed, the file is unmapped when the
+ * last reference is released. The unmapping is left to {@link MMapDirectory}, which is allowed to unmap buffers and protects
+ * against accesses after the unmapping.
+ */
+final class MappedTranslogFile extends AbstractRefCounted {
+
+    private final Directory directory;
+    private final IndexInput input;
+
+    private MappedTranslogFile(Path path, Directory directory, IndexInput input) {
+        super("translog mapping [" + path + "]");
+        this.directory = directory;
+        this.input = input;
+    }
+
+    /**
+     * Maps the given translog file, the returned mapping holds a single reference.
+     */
+    static MappedTranslogFile map(Path path) throws IOException {
+        final Directory directory = new MMapDirectory(path.getParent());
+        boolean success = false;
+        try {
+            final IndexInput input = directory.openInput(path.getFileName().toString(), IOContext.READ);
+            success = true;
+            return new MappedTranslogFile(path, directory, input);
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(directory);
+            }
+        }
+    }
+
+    /**
+     * Returns a new input over the mapped file. It must only be used by a single thread and while a reference is held.
+     */
+    IndexInput newInput() {
+        return input.clone();
+    }
+
+    @Override
+    protected void closeInternal() {
+        // closing the input unmaps the file
+        IOUtils.closeWhileHandlingException(input, directory);
+    }
+}
@@ -28,6 +28,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasablePagedBytesReference;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -50,6 +51,7 @@ import org.elasticsearch.index.shard.ShardId;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -70,6 +72,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 /**
  * A Translog is a per index shard component that records all non-committed index operations in a durable manner.
@@ -590,9 +593,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 throw new IllegalArgumentException("requested snapshot generation [" + minGeneration + "] is not available. " +
                     "Min referenced generation is [" + getMinFileGeneration() + "]");
             }
-            TranslogSnapshot[] snapshots = Stream.concat(readers.stream(), Stream.of(current))
-                .filter(reader -> reader.getGeneration() >= minGeneration)
-                .map(BaseTranslogReader::newSnapshot).toArray(TranslogSnapshot[]::new);
+            TranslogSnapshot[] snapshots = newSnapshots(Stream.concat(readers.stream(), Stream.of(current))
+                .filter(reader -> reader.getGeneration() >= minGeneration));
             return newMultiSnapshot(snapshots);
         }
     }
@@ -630,28 +632,48 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public Snapshot newSnapshotFromMinSeqNo(long minSeqNo) throws IOException {
         try (ReleasableLock ignored = readLock.acquire()) {
             ensureOpen();
-            TranslogSnapshot[] snapshots = readersAboveMinSeqNo(minSeqNo).map(BaseTranslogReader::newSnapshot)
-                .toArray(TranslogSnapshot[]::new);
+            TranslogSnapshot[] snapshots = newSnapshots(readersAboveMinSeqNo(minSeqNo));
             return newMultiSnapshot(snapshots);
         }
     }
 
-    private Snapshot newMultiSnapshot(TranslogSnapshot[] snapshots) throws IOException {
-        final Closeable onClose;
-        if (snapshots.length == 0) {
-            onClose = () -> {};
-        } else {
-            assert Arrays.stream(snapshots).map(BaseTranslogReader::getGeneration).min(Long::compareTo).get()
-                == snapshots[0].generation : "first reader generation of " + snapshots + " is not the smallest";
-            onClose = acquireTranslogGenFromDeletionPolicy(snapshots[0].generation);
+    /**
+     * Creates a snapshot of each of the given readers. If one of them fails, the snapshots that were already created are closed
+     * so that they release the mappings of their translog files.
+     */
+    private static TranslogSnapshot[] newSnapshots(Stream<? extends BaseTranslogReader> readers) {
+        final List<TranslogSnapshot> snapshots = new ArrayList<>();
+        boolean success = false;
+        try {
+            final Iterator<? extends BaseTranslogReader> iterator = readers.iterator();
+            while (iterator.hasNext()) {
+                snapshots.add(iterator.next().newSnapshot());
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(snapshots);
+            }
         }
+        return snapshots.toArray(new TranslogSnapshot[0]);
+    }
+
+    private Snapshot newMultiSnapshot(TranslogSnapshot[] snapshots) throws IOException {
+        Closeable onClose = () -> {};
         boolean success = false;
         try {
+            if (snapshots.length > 0) {
+                assert Arrays.stream(snapshots).map(BaseTranslogReader::getGeneration).min(Long::compareTo).get()
+                    == snapshots[0].generation : "first reader generation of " + snapshots + " is not the smallest";
+                onClose = acquireTranslogGenFromDeletionPolicy(snapshots[0].generation);
+            }
             Snapshot result = new MultiSnapshot(snapshots, onClose);
             success = true;
             return result;
         } finally {
             if (success == false) {
+                // releases the mappings of the snapshots
+                IOUtils.closeWhileHandlingException(snapshots);
                 onClose.close();
             }
         }
@@ -1548,6 +1570,54 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         return operation;
     }
 
+    /**
+     * Reads a single operation from the given buffer, which must hold exactly the serialized operation including its size and
+     * checksum. Unlike {@link #readOperation(BufferedChecksumStreamInput)} the checksum is verified in a single pass over the
+     * buffer before the operation is deserialized. The returned operation does not reference the buffer, which can be reused.
+     *
+     * @param buffer   the serialized operation, between the position and the limit of the buffer
+     * @param checksum a checksum to reuse, which is reset before the bytes of the operation are added to it
+     */
+    static Translog.Operation readOperation(ByteBuffer buffer, CRC32 checksum) throws IOException {
+        final int start = buffer.position();
+        if (buffer.remaining() < 8) {
+            throw new TruncatedTranslogException("reached premature end of file, translog is truncated",
+                new EOFException("operation needs at least 8 bytes but only " + buffer.remaining() + " remaining"));
+        }
+        final int opSize = buffer.getInt(start);
+        if (opSize < 4) { // 4byte for the checksum
+            throw new TranslogCorruptedException("operation size must be at least 4 but was: " + opSize);
+        }
+        if (opSize != buffer.remaining() - 4) {
+            throw new TranslogCorruptedException(
+                "operation size is corrupted must be [" + (buffer.remaining() - 4) + "] but was: " + opSize);
+        }
+        final int checksumOffset = buffer.limit() - 4;
+        final ByteBuffer operationBytes = buffer.duplicate();
+        operationBytes.position(start + 4);
+        operationBytes.limit(checksumOffset);
+        checksum.reset();
+        // the operation is written with the same checksum, see BufferedChecksumStreamOutput
+        checksum.update(operationBytes.duplicate());
+        final long expectedChecksum = checksum.getValue();
+        final long readChecksum = Integer.toUnsignedLong(buffer.getInt(checksumOffset));
+        if (readChecksum != expectedChecksum) {
+            throw new TranslogCorruptedException("translog stream is corrupted, expected: 0x" +
+                Long.toHexString(expectedChecksum) + ", got: 0x" + Long.toHexString(readChecksum));
+        }
+        final ByteBufferStreamInput in = new ByteBufferStreamInput(operationBytes);
+        final Translog.Operation operation;
+        try {
+            operation = Translog.Operation.readOperation(in);
+        } catch (EOFException e) {
+            throw new TruncatedTranslogException("reached premature end of file, translog is truncated", e);
+        }
+        if (in.available() != 0) {
+            throw new TranslogCorruptedException("operation of size [" + opSize + "] has [" + in.available() + "] trailing bytes");
+        }
+        return operation;
+    }
+
     /**
      * Writes all operations in the given iterable to the given output stream including the size of the array
      * use {@link #readOperations(StreamInput)} to read it back.
@@ -20,6 +20,8 @@
 package org.elasticsearch.index.translog;
 
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.Constants;
+import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.io.Channels;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.seqno.SequenceNumbers;
@@ -39,10 +41,22 @@ import static org.elasticsearch.index.translog.Translog.getCommitCheckpointFileN
  * an immutable translog filereader
  */
 public class TranslogReader extends BaseTranslogReader implements Closeable {
+
+    /**
+     * Whether snapshots read the operations of immutable generations from a memory mapping of the translog file. The file is
+     * unmapped once the reader and all snapshots that read from the mapping are closed. Disabled on Windows, where mapped files
+     * cannot be deleted.
+     */
+    static final boolean MMAP_READS = Constants.JRE_IS_64BIT && Constants.WINDOWS == false
+        && Booleans.parseBoolean(System.getProperty("es.translog.mmap_reads", "true"));
+
     protected final long length;
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final AtomicBoolean closed = new AtomicBoolean(false);
+    // guarded by this
+    private MappedTranslogFile mapping;
+    private boolean mapFailed;
 
     /**
      * Create a translog writer against the specified translog file channel.
@@ -80,6 +94,8 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
      */
     TranslogReader closeIntoTrimmedReader(long aboveSeqNo, ChannelFactory channelFactory) throws IOException {
         if (closed.compareAndSet(false, true)) {
+            // the trimmed reader maps the file again if needed
+            releaseMapping();
             Closeable toCloseOnFailure = channel;
             final TranslogReader newReader;
             try {
@@ -134,10 +150,43 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
         Channels.readFromFileChannelWithEofException(channel, position, buffer);
     }
 
+    @Override
+    synchronized MappedTranslogFile acquireMapping() {
+        if (MMAP_READS == false || mapFailed || isClosed()) {
+            return null;
+        }
+        if (mapping == null) {
+            try {
+                mapping = MappedTranslogFile.map(path);
+            } catch (IOException e) {
+                // read through the channel instead, for instance if the address space is exhausted
+                mapFailed = true;
+                return null;
+            }
+        }
+        mapping.incRef();
+        return mapping;
+    }
+
+    /**
+     * Releases the reference of this reader to the mapping of the translog file, which is unmapped once all snapshots that
+     * read from it are closed too.
+     */
+    private synchronized void releaseMapping() {
+        if (mapping != null) {
+            mapping.decRef();
+            mapping = null;
+        }
+    }
+
     @Override
     public final void close() throws IOException {
         if (closed.compareAndSet(false, true)) {
-            channel.close();
+            try {
+                releaseMapping();
+            } finally {
+                channel.close();
+            }
         }
     }
 
@@ -18,20 +18,29 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.common.io.Channels;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
 
-final class TranslogSnapshot extends BaseTranslogReader {
+final class TranslogSnapshot extends BaseTranslogReader implements Closeable {
 
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final long length;
 
     private final ByteBuffer reusableBuffer;
+    // the mapped translog file if the operations are read from a memory mapping rather than through the file channel
+    private MappedTranslogFile mapping;
+    private final IndexInput mappedInput;
+    private final CRC32 checksum;
+    private byte[] mappedBytes;
     private long position;
     private int skippedOperations;
     private int readOperations;
@@ -46,6 +55,32 @@ final class TranslogSnapshot extends BaseTranslogReader {
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
         this.reusableBuffer = ByteBuffer.allocate(1024);
+        final MappedTranslogFile mapping = reader.acquireMapping();
+        IndexInput mappedInput = null;
+        if (mapping != null) {
+            boolean success = false;
+            try {
+                mappedInput = mapping.newInput();
+                success = true;
+            } finally {
+                if (success == false) {
+                    mapping.decRef();
+                }
+            }
+        }
+        if (mappedInput != null && length <= mappedInput.length()) {
+            this.mapping = mapping;
+            this.mappedInput = mappedInput;
+            this.checksum = new CRC32();
+            this.mappedBytes = new byte[1024];
+        } else {
+            if (mapping != null) {
+                mapping.decRef();
+            }
+            this.mapping = null;
+            this.mappedInput = null;
+            this.checksum = null;
+        }
         this.readOperations = 0;
         this.position = reader.getFirstOperationOffset();
         this.reuse = null;
@@ -77,18 +112,67 @@ final class TranslogSnapshot extends BaseTranslogReader {
     }
 
     protected Translog.Operation readOperation() throws IOException {
-        final int opSize = readSize(reusableBuffer, position);
-        reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
-        Translog.Operation op = read(reuse);
+        final int opSize;
+        final Translog.Operation op;
+        if (mappedInput != null) {
+            ensureMapped();
+            opSize = readMappedSize();
+            if (mappedBytes.length < opSize) {
+                mappedBytes = new byte[opSize];
+            }
+            // the operation is copied out of the mapping so that it stays valid once the file is unmapped
+            mappedInput.seek(position);
+            mappedInput.readBytes(mappedBytes, 0, opSize);
+            op = checkPrimaryTerm(Translog.readOperation(ByteBuffer.wrap(mappedBytes, 0, opSize), checksum));
+        } else {
+            opSize = readSize(reusableBuffer, position);
+            reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+            op = read(reuse);
+        }
         position += opSize;
         readOperations++;
         return op;
     }
 
+    /**
+     * Reads the size of the op at the current position from the mapped file, see {@link #readSize(ByteBuffer, long)}.
+     */
+    private int readMappedSize() throws IOException {
+        if (position + 4 > length) {
+            throw new EOFException("read requested past EOF. pos [" + position + "] end: [" + length + "], generation: [" +
+                getGeneration() + "], path: [" + path + "]");
+        }
+        mappedInput.seek(position);
+        // Add an extra 4 to account for the operation size integer itself
+        final int size = mappedInput.readInt() + 4;
+        final long maxSize = length - position;
+        if (size < 0 || size > maxSize) {
+            throw new TranslogCorruptedException("operation size is corrupted must be [0.." + maxSize + "] but was: " + size);
+        }
+        return size;
+    }
+
+    private void ensureMapped() {
+        if (mapping == null) {
+            throw new AlreadyClosedException(toString() + " is already closed");
+        }
+    }
+
     public long sizeInBytes() {
         return length;
     }
 
+    /**
+     * Releases the mapping of the translog file if the operations were read from it.
+     */
+    @Override
+    public void close() {
+        if (mapping != null) {
+            mapping.decRef();
+            mapping = null;
+        }
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
@@ -49,6 +49,16 @@ abstract class AbstractIndexShardCacheEntity implements IndicesRequestCache.Cach
         stats().onMiss();
     }
 
+    @Override
+    public final void onSegmentHit() {
+        stats().onSegmentHit();
+    }
+
+    @Override
+    public final void onSegmentMiss() {
+        stats().onSegmentMiss();
+    }
+
     @Override
     public final void onRemoval(RemovalNotification<IndicesRequestCache.Key, BytesReference> notification) {
         stats().onRemoval(notification.getKey(), notification.getValue(),
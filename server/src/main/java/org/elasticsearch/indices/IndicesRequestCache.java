@@ -23,8 +23,10 @@ import com.carrotsearch.hppc.ObjectHashSet;
 import com.carrotsearch.hppc.ObjectSet;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
@@ -70,6 +72,12 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
      */
     public static final Setting<Boolean> INDEX_CACHE_REQUEST_ENABLED_SETTING =
         Setting.boolSetting("index.requests.cache.enable", true, Property.Dynamic, Property.IndexScope);
+    /**
+     * A setting to also cache the aggregations of the individual segments of a shard, so that requests whose results are no longer
+     * cached because the shard was refreshed only need to compute the aggregations of the segments that changed.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_REQUEST_SEGMENTS_ENABLED_SETTING =
+        Setting.boolSetting("index.requests.cache.segments.enable", false, Property.Dynamic, Property.IndexScope);
     public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SIZE =
         Setting.memorySizeSetting("indices.requests.cache.size", "1%", Property.NodeScope);
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE =
@@ -130,6 +138,55 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
         return value;
     }
 
+    /**
+     * Returns the value that is cached for the given key and segment, or <code>null</code> if there is none.
+     * @param cacheEntity the cache entity of the shard that the segment belongs to
+     * @param segment the segment, whose entries are kept until its core is closed
+     * @param cacheKey the key of the request
+     */
+    BytesReference getForSegment(CacheEntity cacheEntity, LeafReader segment, BytesReference cacheKey) {
+        final BytesReference value = cache.get(segmentKey(cacheEntity, segment, cacheKey));
+        if (value == null) {
+            cacheEntity.onSegmentMiss();
+        } else {
+            cacheEntity.onSegmentHit();
+        }
+        return value;
+    }
+
+    /**
+     * Caches the given value for the given key and segment until the core of the segment is closed.
+     * @param cacheEntity the cache entity of the shard that the segment belongs to
+     * @param segment the segment, whose entries are kept until its core is closed
+     * @param cacheKey the key of the request
+     * @param value the value to cache
+     */
+    void putForSegment(CacheEntity cacheEntity, LeafReader segment, BytesReference cacheKey, BytesReference value) {
+        final Key key = segmentKey(cacheEntity, segment, cacheKey);
+        cache.put(key, value);
+        cacheEntity.onCached(key, value);
+        // see if its the first time we see this segment, and make sure to register a cleanup key
+        CleanupKey cleanupKey = new CleanupKey(cacheEntity, key.segmentKey);
+        if (!registeredClosedListeners.containsKey(cleanupKey)) {
+            Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
+            if (previous == null) {
+                segment.getCoreCacheHelper().addClosedListener(cleanupKey);
+            }
+        }
+    }
+
+    /**
+     * Whether values can be cached for the given segment.
+     */
+    static boolean canCacheSegment(LeafReader segment) {
+        return segment.getCoreCacheHelper() != null;
+    }
+
+    private static Key segmentKey(CacheEntity cacheEntity, LeafReader segment, BytesReference cacheKey) {
+        // the deletes of a segment only ever grow, so their number identifies the docs that are live in the segment
+        return new Key(cacheEntity, segment.getCoreCacheHelper().getKey(), segment.numDeletedDocs(), cacheKey);
+    }
+
     /**
      * Invalidates the given the cache entry for the given key and it's context
      * @param cacheEntity the cache entity to invalidate for
@@ -196,6 +253,16 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
          */
         void onMiss();
 
+        /**
+         * Called each time this entity has a cache hit for the value of a segment.
+         */
+        void onSegmentHit();
+
+        /**
+         * Called each time this entity has a cache miss for the value of a segment.
+         */
+        void onSegmentMiss();
+
         /**
          * Called when this entity instance is removed
          */
@@ -206,12 +273,25 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
         private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
 
         public final CacheEntity entity; // use as identity equality
-        public final long readerVersion; // use the reader version to now keep a reference to a "short" lived reader until its reaped
+        // use the reader version to now keep a reference to a "short" lived reader until its reaped, or the number of deleted docs
+        // of the segment for per-segment entries
+        public final long readerVersion;
+        @Nullable
+        public final IndexReader.CacheKey segmentKey; // the core key of the segment for per-segment entries, null otherwise
         public final BytesReference value;
 
         Key(CacheEntity entity, long readerVersion, BytesReference value) {
+            this(entity, readerVersion, null, value);
+        }
+
+        Key(CacheEntity entity, IndexReader.CacheKey segmentKey, int numDeletedDocs, BytesReference value) {
+            this(entity, numDeletedDocs, segmentKey, value);
+        }
+
+        private Key(CacheEntity entity, long readerVersion, @Nullable IndexReader.CacheKey segmentKey, BytesReference value) {
             this.entity = entity;
             this.readerVersion = readerVersion;
+            this.segmentKey = segmentKey;
             this.value = value;
         }
 
@@ -232,6 +312,7 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
             if (o == null || getClass() != o.getClass()) return false;
             Key key = (Key) o;
             if (readerVersion != key.readerVersion) return false;
+            if (segmentKey != key.segmentKey) return false;
             if (!entity.getCacheIdentity().equals(key.entity.getCacheIdentity())) return false;
             if (!value.equals(key.value)) return false;
             return true;
@@ -241,6 +322,7 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
         public int hashCode() {
             int result = entity.getCacheIdentity().hashCode();
             result = 31 * result + Long.hashCode(readerVersion);
+            result = 31 * result + System.identityHashCode(segmentKey);
             result = 31 * result + value.hashCode();
             return result;
         }
@@ -249,10 +331,21 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
     private class CleanupKey implements IndexReader.ClosedListener {
         final CacheEntity entity;
         final long readerVersion; // use the reader version to now keep a reference to a "short" lived reader until its reaped
+        @Nullable
+        final IndexReader.CacheKey segmentKey;
 
         private CleanupKey(CacheEntity entity, long readerVersion) {
+            this(entity, readerVersion, null);
+        }
+
+        private CleanupKey(CacheEntity entity, IndexReader.CacheKey segmentKey) {
+            this(entity, -1, segmentKey);
+        }
+
+        private CleanupKey(CacheEntity entity, long readerVersion, @Nullable IndexReader.CacheKey segmentKey) {
             this.entity = entity;
             this.readerVersion = readerVersion;
+            this.segmentKey = segmentKey;
         }
 
         @Override
@@ -271,6 +364,7 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
             }
             CleanupKey that = (CleanupKey) o;
             if (readerVersion != that.readerVersion) return false;
+            if (segmentKey != that.segmentKey) return false;
             if (!entity.getCacheIdentity().equals(that.entity.getCacheIdentity())) return false;
             return true;
         }
@@ -279,6 +373,7 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
         public int hashCode() {
             int result = entity.getCacheIdentity().hashCode();
             result = 31 * result + Long.hashCode(readerVersion);
+            result = 31 * result + System.identityHashCode(segmentKey);
             return result;
         }
     }
@@ -293,7 +388,7 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
         for (Iterator<CleanupKey> iterator = keysToClean.iterator(); iterator.hasNext(); ) {
             CleanupKey cleanupKey = iterator.next();
             iterator.remove();
-            if (cleanupKey.readerVersion == -1 || cleanupKey.entity.isOpen() == false) {
+            if ((cleanupKey.readerVersion == -1 && cleanupKey.segmentKey == null) || cleanupKey.entity.isOpen() == false) {
                 // -1 indicates full cleanup, as does a closed shard
                 currentFullClean.add(cleanupKey.entity.getCacheIdentity());
             } else {
@@ -306,7 +401,9 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
                 if (currentFullClean.contains(key.entity.getCacheIdentity())) {
                     iterator.remove();
                 } else {
-                    if (currentKeysToClean.contains(new CleanupKey(key.entity, key.readerVersion))) {
+                    // the entries of a segment are cleaned whatever their number of deleted docs
+                    long readerVersion = key.segmentKey == null ? key.readerVersion : -1;
+                    if (currentKeysToClean.contains(new CleanupKey(key.entity, readerVersion, key.segmentKey))) {
                         iterator.remove();
                     }
                 }
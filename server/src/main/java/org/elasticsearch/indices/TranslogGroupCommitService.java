@@ -0,0 +1,285 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Batches the translog syncs of all shards that live on the same data path. Shards hand their sync requests over to the
+ * group of their data path instead of syncing their own translog, and a single thread per data path fsyncs the translogs of
+ * all shards that requested a sync while the previous round of fsyncs was running. This bounds the number of concurrent
+ * fsyncs per disk to one and syncs each translog at most once per round no matter how many requests are pending for it.
+ */
+public class TranslogGroupCommitService extends AbstractComponent {
+
+    /** Whether the translog syncs of the shards of a data path are grouped (default: false). */
+    public static final Setting<Boolean> ENABLED_SETTING =
+        Setting.boolSetting("indices.translog.group_commit.enabled", false, Property.NodeScope);
+
+    /** The maximum number of pending sync requests per data path before callers block (default: 4096). */
+    public static final Setting<Integer> QUEUE_SIZE_SETTING =
+        Setting.intSetting("indices.translog.group_commit.queue_size", 4096, 1, Property.NodeScope);
+
+    /**
+     * Syncs the translog of a single shard.
+     */
+    @FunctionalInterface
+    public interface TranslogSyncer {
+
+        /**
+         * Ensures that all the given locations of the translog are synced to disk.
+         */
+        void ensureSynced(List<Translog.Location> locations) throws IOException;
+    }
+
+    private final boolean enabled;
+    private final int queueSize;
+    private final ConcurrentMap<Path, PathGroup> groups = new ConcurrentHashMap<>();
+
+    public TranslogGroupCommitService(Settings settings) {
+        super(settings);
+        this.enabled = ENABLED_SETTING.get(settings);
+        this.queueSize = QUEUE_SIZE_SETTING.get(settings);
+    }
+
+    /**
+     * Returns the group of the given data path, or <code>null</code> if translog syncs are not grouped.
+     */
+    public PathGroup getGroup(Path dataPath) {
+        if (enabled == false) {
+            return null;
+        }
+        return groups.computeIfAbsent(dataPath, PathGroup::new);
+    }
+
+    /**
+     * Returns the stats of every data path that synced a translog so far, keyed by the root data path of its shards.
+     */
+    public Map<Path, Stats> stats() {
+        final Map<Path, Stats> stats = new HashMap<>();
+        for (PathGroup group : groups.values()) {
+            stats.put(group.dataPath, group.stats());
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * The pending translog syncs of all shards of a data path.
+     */
+    public final class PathGroup {
+
+        private final Path dataPath;
+        private final AsyncIOProcessor<PendingSync> processor;
+        private final CounterMetric rounds = new CounterMetric();
+        private final CounterMetric fsyncs = new CounterMetric();
+        private final CounterMetric requests = new CounterMetric();
+        private final CounterMetric timeInNanos = new CounterMetric();
+        private final AtomicLong maxBatchSize = new AtomicLong();
+
+        private PathGroup(Path dataPath) {
+            this.dataPath = dataPath;
+            this.processor = new AsyncIOProcessor<PendingSync>(logger, queueSize) {
+                @Override
+                protected void write(List<Tuple<PendingSync, Consumer<Exception>>> candidates) {
+                    syncAll(candidates);
+                }
+            };
+        }
+
+        /**
+         * Syncs the given location of a translog with the underlying storage. The listener is notified once the location is
+         * synced or the sync failed, which might happen on the calling thread if it ends up running the fsyncs of the group.
+         * All the syncs of a translog must go through the same {@link TranslogSyncer} instance so that they can be merged.
+         */
+        public void sync(TranslogSyncer syncer, Translog.Location location, Consumer<Exception> listener) {
+            final PendingSync pendingSync = new PendingSync(syncer, location);
+            processor.put(pendingSync, e -> listener.accept(e != null ? e : pendingSync.failure));
+        }
+
+        private void syncAll(List<Tuple<PendingSync, Consumer<Exception>>> candidates) {
+            final long startTime = System.nanoTime();
+            final Map<TranslogSyncer, List<PendingSync>> bySyncer = new IdentityHashMap<>();
+            for (Tuple<PendingSync, Consumer<Exception>> candidate : candidates) {
+                bySyncer.computeIfAbsent(candidate.v1().syncer, k -> new ArrayList<>()).add(candidate.v1());
+            }
+            for (Map.Entry<TranslogSyncer, List<PendingSync>> entry : bySyncer.entrySet()) {
+                final List<PendingSync> pendingSyncs = entry.getValue();
+                final List<Translog.Location> locations = new ArrayList<>(pendingSyncs.size());
+                for (PendingSync pendingSync : pendingSyncs) {
+                    locations.add(pendingSync.location);
+                }
+                try {
+                    entry.getKey().ensureSynced(locations);
+                } catch (Exception e) {
+                    // only fail the requests of the translog that could not be synced
+                    for (PendingSync pendingSync : pendingSyncs) {
+                        pendingSync.failure = e;
+                    }
+                }
+            }
+            timeInNanos.inc(System.nanoTime() - startTime);
+            rounds.inc();
+            fsyncs.inc(bySyncer.size());
+            requests.inc(candidates.size());
+            maxBatchSize.accumulateAndGet(bySyncer.size(), Math::max);
+        }
+
+        Stats stats() {
+            return new Stats(rounds.count(), fsyncs.count(), requests.count(), timeInNanos.count(), maxBatchSize.get());
+        }
+    }
+
+    private static final class PendingSync {
+        private final TranslogSyncer syncer;
+        private final Translog.Location location;
+        // written by the thread that runs the fsyncs before the listeners are notified by the same thread
+        private Exception failure;
+
+        PendingSync(TranslogSyncer syncer, Translog.Location location) {
+            this.syncer = syncer;
+            this.location = location;
+        }
+    }
+
+    /**
+     * The fsync latency and batch sizes of the translog syncs of a data path.
+     */
+    public static final class Stats implements Writeable, ToXContentFragment {
+
+        private final long rounds;
+        private final long fsyncs;
+        private final long requests;
+        private final long timeInNanos;
+        private final long maxBatchSize;
+
+        Stats(long rounds, long fsyncs, long requests, long timeInNanos, long maxBatchSize) {
+            this.rounds = rounds;
+            this.fsyncs = fsyncs;
+            this.requests = requests;
+            this.timeInNanos = timeInNanos;
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            rounds = in.readVLong();
+            fsyncs = in.readVLong();
+            requests = in.readVLong();
+            timeInNanos = in.readVLong();
+            maxBatchSize = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(rounds);
+            out.writeVLong(fsyncs);
+            out.writeVLong(requests);
+            out.writeVLong(timeInNanos);
+            out.writeVLong(maxBatchSize);
+        }
+
+        /** The number of rounds of fsyncs, each of which synced the translogs of all pending requests. */
+        public long getRounds() {
+            return rounds;
+        }
+
+        /** The total number of translog fsyncs. */
+        public long getFsyncs() {
+            return fsyncs;
+        }
+
+        /** The total number of sync requests, which is larger than the number of fsyncs if requests were merged. */
+        public long getRequests() {
+            return requests;
+        }
+
+        /** The total time spent in rounds of fsyncs. */
+        public TimeValue getTime() {
+            return TimeValue.timeValueNanos(timeInNanos);
+        }
+
+        /** The average time of a round of fsyncs. */
+        public TimeValue getAverageRoundTime() {
+            return TimeValue.timeValueNanos(rounds == 0 ? 0 : timeInNanos / rounds);
+        }
+
+        /** The average number of translogs that were synced per round. */
+        public double getAverageBatchSize() {
+            return rounds == 0 ? 0 : (double) fsyncs / rounds;
+        }
+
+        /** The largest number of translogs that were synced in a single round. */
+        public long getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(Fields.TRANSLOG_GROUP_COMMIT);
+            builder.field(Fields.ROUNDS, rounds);
+            builder.field(Fields.FSYNCS, fsyncs);
+            builder.field(Fields.REQUESTS, requests);
+            builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, getTime());
+            builder.humanReadableField(Fields.AVG_ROUND_TIME_IN_MILLIS, Fields.AVG_ROUND_TIME, getAverageRoundTime());
+            builder.field(Fields.AVG_BATCH_SIZE, getAverageBatchSize());
+            builder.field(Fields.MAX_BATCH_SIZE, maxBatchSize);
+            builder.endObject();
+            return builder;
+        }
+
+        static final class Fields {
+            static final String TRANSLOG_GROUP_COMMIT = "translog_group_commit";
+            static final String ROUNDS = "rounds";
+            static final String FSYNCS = "fsyncs";
+            static final String REQUESTS = "requests";
+            static final String TIME = "time";
+            static final String TIME_IN_MILLIS = "time_in_millis";
+            static final String AVG_ROUND_TIME = "avg_round_time";
+            static final String AVG_ROUND_TIME_IN_MILLIS = "avg_round_time_in_millis";
+            static final String AVG_BATCH_SIZE = "avg_batch_size";
+            static final String MAX_BATCH_SIZE = "max_batch_size";
+        }
+    }
+}
@@ -329,6 +329,7 @@ public class RecoveryState implements ToXContentFragment, Streamable {
         static final String VERIFY_INDEX = "verify_index";
         static final String RECOVERED = "recovered";
         static final String RECOVERED_IN_BYTES = "recovered_in_bytes";
+        static final String RECOVERED_PER_SECOND = "recovered_per_second";
         static final String CHECK_INDEX_TIME = "check_index_time";
         static final String CHECK_INDEX_TIME_IN_MILLIS = "check_index_time_in_millis";
         static final String LENGTH = "length";
@@ -528,6 +529,18 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             return recovered * 100.0f / total;
         }
 
+        /**
+         * returns the number of translog operations recovered per second since the translog stage started, or 0 if the
+         * stage has not taken any measurable time yet
+         */
+        public synchronized double recoveredOperationsPerSecond() {
+            final long time = time();
+            if (time <= 0) {
+                return 0;
+            }
+            return recovered * 1000.0 / time;
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             super.readFrom(in);
@@ -551,6 +564,7 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             builder.field(Fields.PERCENT, String.format(Locale.ROOT, "%1.1f%%", recoveredPercent()));
             builder.field(Fields.TOTAL_ON_START, totalOnStart);
             builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, new TimeValue(time()));
+            builder.field(Fields.RECOVERED_PER_SECOND, recoveredOperationsPerSecond());
             return builder;
         }
     }
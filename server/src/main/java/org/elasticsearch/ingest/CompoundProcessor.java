@@ -41,6 +41,8 @@ public class CompoundProcessor implements Processor {
     private final boolean ignoreFailure;
     private final List<Processor> processors;
     private final List<Processor> onFailureProcessors;
+    private final List<ProcessorMetric> processorMetrics;
+    private final List<ProcessorMetric> onFailureProcessorMetrics;
 
     public CompoundProcessor(Processor... processor) {
         this(false, Arrays.asList(processor), Collections.emptyList());
@@ -51,6 +53,16 @@ public class CompoundProcessor implements Processor {
         this.ignoreFailure = ignoreFailure;
         this.processors = processors;
         this.onFailureProcessors = onFailureProcessors;
+        this.processorMetrics = newProcessorMetrics(processors.size());
+        this.onFailureProcessorMetrics = newProcessorMetrics(onFailureProcessors.size());
+    }
+
+    private static List<ProcessorMetric> newProcessorMetrics(int size) {
+        List<ProcessorMetric> metrics = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            metrics.add(new ProcessorMetric());
+        }
+        return Collections.unmodifiableList(metrics);
     }
 
     public boolean isIgnoreFailure() {
@@ -83,6 +95,38 @@ public class CompoundProcessor implements Processor {
         return flattened;
     }
 
+    /**
+     * Adds the stats of the processors and on failure processors of this processor to the given list, in execution order.
+     * Processors that are wrapped into a compound processor because they have their own on failure processors are reported
+     * directly, and the inner processors of {@link WrappingProcessor}s are reported after the processor that wraps them. The
+     * name of every processor is prefixed with the names of the processors it is nested into.
+     */
+    void collectProcessorStats(String prefix, List<IngestStats.ProcessorStats> stats) {
+        collectProcessorStats(prefix, processors, processorMetrics, stats);
+        collectProcessorStats(prefix + "on_failure/", onFailureProcessors, onFailureProcessorMetrics, stats);
+    }
+
+    private static void collectProcessorStats(String prefix, List<Processor> processors, List<ProcessorMetric> metrics,
+                                              List<IngestStats.ProcessorStats> stats) {
+        for (int i = 0; i < processors.size(); i++) {
+            collectProcessorStats(prefix, processors.get(i), metrics.get(i), stats);
+        }
+    }
+
+    private static void collectProcessorStats(String prefix, Processor processor, ProcessorMetric metric,
+                                              List<IngestStats.ProcessorStats> stats) {
+        if (processor instanceof CompoundProcessor) {
+            ((CompoundProcessor) processor).collectProcessorStats(prefix, stats);
+            return;
+        }
+        String name = prefix + (processor.getTag() == null ? processor.getType() : processor.getType() + ":" + processor.getTag());
+        stats.add(metric.createStats(name, processor.getType()));
+        if (processor instanceof WrappingProcessor) {
+            WrappingProcessor wrappingProcessor = (WrappingProcessor) processor;
+            collectProcessorStats(name + "/", wrappingProcessor.getInnerProcessor(), wrappingProcessor.getInnerProcessorMetric(), stats);
+        }
+    }
+
     @Override
     public String getType() {
         return "compound";
@@ -95,9 +139,10 @@ public class CompoundProcessor implements Processor {
 
     @Override
     public void execute(IngestDocument ingestDocument) throws Exception {
-        for (Processor processor : processors) {
+        for (int i = 0; i < processors.size(); i++) {
+            Processor processor = processors.get(i);
             try {
-                processor.execute(ingestDocument);
+                processorMetrics.get(i).execute(processor, ingestDocument);
             } catch (Exception e) {
                 if (ignoreFailure) {
                     continue;
@@ -118,9 +163,10 @@ public class CompoundProcessor implements Processor {
     void executeOnFailure(IngestDocument ingestDocument, ElasticsearchException exception) throws Exception {
         try {
             putFailureMetadata(ingestDocument, exception);
-            for (Processor processor : onFailureProcessors) {
+            for (int i = 0; i < onFailureProcessors.size(); i++) {
+                Processor processor = onFailureProcessors.get(i);
                 try {
-                    processor.execute(ingestDocument);
+                    onFailureProcessorMetrics.get(i).execute(processor, ingestDocument);
                 } catch (Exception e) {
                     throw newCompoundProcessorException(e, processor.getType(), processor.getTag());
                 }
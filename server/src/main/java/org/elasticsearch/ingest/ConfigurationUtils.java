@@ -323,17 +323,12 @@ public final class ConfigurationUtils {
             // This check is here because the DEFAULT_TEMPLATE_LANG(mustache) is not
             // installed for use by REST tests. `propertyValue` will not be
             // modified if templating is not available so a script that simply returns an unmodified `propertyValue`
-            // is returned.
-            if (scriptService.isLangSupported(DEFAULT_TEMPLATE_LANG)) {
+            // is returned. Values without any template snippet are not compiled either, since they render to themselves.
+            if (scriptService.isLangSupported(DEFAULT_TEMPLATE_LANG) && propertyValue.contains("{{")) {
                 Script script = new Script(ScriptType.INLINE, DEFAULT_TEMPLATE_LANG, propertyValue, Collections.emptyMap());
                 return scriptService.compile(script, TemplateScript.CONTEXT);
             } else {
-                return (params) -> new TemplateScript(params) {
-                    @Override
-                    public String execute() {
-                        return propertyValue;
-                    }
-                };
+                return new ConstantTemplateScriptFactory(propertyValue);
             }
         } catch (Exception e) {
             throw ConfigurationUtils.newConfigurationException(processorType, processorTag, propertyName, e);
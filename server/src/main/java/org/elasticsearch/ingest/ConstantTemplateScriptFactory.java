@@ -0,0 +1,65 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.script.TemplateScript;
+
+import java.util.Map;
+
+/**
+ * A template without any template snippet, which renders to the same value for every document. Ingest documents use the value
+ * as is instead of building a model to render the template with, and parse it only once when it is used as a field path.
+ */
+final class ConstantTemplateScriptFactory implements TemplateScript.Factory {
+
+    private final String value;
+    private volatile IngestDocument.FieldPath fieldPath;
+
+    ConstantTemplateScriptFactory(String value) {
+        this.value = value;
+    }
+
+    String getValue() {
+        return value;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not a valid field path
+     */
+    IngestDocument.FieldPath getFieldPath() {
+        IngestDocument.FieldPath fieldPath = this.fieldPath;
+        if (fieldPath == null) {
+            // racing threads parse the same path, and the value is not a path for templates that are not used as one
+            fieldPath = new IngestDocument.FieldPath(value);
+            this.fieldPath = fieldPath;
+        }
+        return fieldPath;
+    }
+
+    @Override
+    public TemplateScript newInstance(Map<String, Object> params) {
+        return new TemplateScript(params) {
+            @Override
+            public String execute() {
+                return value;
+            }
+        };
+    }
+}
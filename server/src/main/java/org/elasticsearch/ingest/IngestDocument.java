@@ -58,8 +58,12 @@ public final class IngestDocument {
 
     public IngestDocument(String index, String type, String id, String routing, String parent,
                           Long version, VersionType versionType, Map<String, Object> source) {
-        this.sourceAndMetadata = new HashMap<>();
-        this.sourceAndMetadata.putAll(source);
+        if (source instanceof LazySourceMap) {
+            this.sourceAndMetadata = new LazySourceMap((LazySourceMap) source);
+        } else {
+            this.sourceAndMetadata = new HashMap<>();
+            this.sourceAndMetadata.putAll(source);
+        }
         this.sourceAndMetadata.put(MetaData.INDEX.getFieldName(), index);
         this.sourceAndMetadata.put(MetaData.TYPE.getFieldName(), type);
         this.sourceAndMetadata.put(MetaData.ID.getFieldName(), id);
@@ -106,8 +110,20 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(String path, Class<T> clazz) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        return getFieldValue(new FieldPath(path), clazz);
+    }
+
+    /**
+     * Returns the value contained in the document for the provided pre-parsed path
+     * @param fieldPath The path within the document
+     * @param clazz The expected class of the field value
+     * @return the value for the provided path if existing, null otherwise
+     * @throws IllegalArgumentException if the field doesn't exist or if the field that is found at the provided path is not of
+     * the expected type.
+     */
+    public <T> T getFieldValue(FieldPath fieldPath, Class<T> clazz) {
+        String path = fieldPath.path;
+        Object context = initialContext(fieldPath);
         for (String pathElement : fieldPath.pathElements) {
             context = resolve(pathElement, path, context);
         }
@@ -125,10 +141,24 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(String path, Class<T> clazz, boolean ignoreMissing) {
+        return getFieldValue(new FieldPath(path), clazz, ignoreMissing);
+    }
+
+    /**
+     * Returns the value contained in the document for the provided pre-parsed path
+     *
+     * @param fieldPath The path within the document
+     * @param clazz The expected class of the field value
+     * @param ignoreMissing The flag to determine whether to throw an exception when `path` is not found in the document.
+     * @return the value for the provided path if existing, null otherwise.
+     * @throws IllegalArgumentException only if ignoreMissing is false and the field doesn't exist or if the field that is found
+     * at the provided path is not of the expected type.
+     */
+    public <T> T getFieldValue(FieldPath fieldPath, Class<T> clazz, boolean ignoreMissing) {
         try {
-            return getFieldValue(path, clazz);
+            return getFieldValue(fieldPath, clazz);
         } catch (IllegalArgumentException e) {
-            if (ignoreMissing && hasField(path) != true) {
+            if (ignoreMissing && hasField(fieldPath, false) != true) {
                 return null;
             } else {
                 throw e;
@@ -145,7 +175,7 @@ public final class IngestDocument {
      * or if the field that is found at the provided path is not of the expected type.
      */
     public <T> T getFieldValue(TemplateScript.Factory pathTemplate, Class<T> clazz) {
-        return getFieldValue(renderTemplate(pathTemplate), clazz);
+        return getFieldValue(fieldPath(pathTemplate, null), clazz);
     }
 
     /**
@@ -192,7 +222,7 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid
      */
     public boolean hasField(TemplateScript.Factory fieldPathTemplate) {
-        return hasField(renderTemplate(fieldPathTemplate));
+        return hasField(fieldPath(fieldPathTemplate, null), false);
     }
 
     /**
@@ -213,8 +243,18 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public boolean hasField(String path, boolean failOutOfRange) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        return hasField(new FieldPath(path), failOutOfRange);
+    }
+
+    /**
+     * Checks whether the document contains a value for the provided pre-parsed path
+     * @param fieldPath The path within the document
+     * @param failOutOfRange Whether to throw an IllegalArgumentException if array is accessed outside of its range
+     * @return true if the document contains a value for the field, false otherwise
+     */
+    public boolean hasField(FieldPath fieldPath, boolean failOutOfRange) {
+        String path = fieldPath.path;
+        Object context = initialContext(fieldPath);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             String pathElement = fieldPath.pathElements[i];
             if (context == null) {
@@ -281,7 +321,7 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty, invalid or if the field doesn't exist.
      */
     public void removeField(TemplateScript.Factory fieldPathTemplate) {
-        removeField(renderTemplate(fieldPathTemplate));
+        removeField(fieldPath(fieldPathTemplate, null));
     }
 
     /**
@@ -290,8 +330,17 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty, invalid or if the field doesn't exist.
      */
     public void removeField(String path) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+        removeField(new FieldPath(path));
+    }
+
+    /**
+     * Removes the field identified by the provided pre-parsed path.
+     * @param fieldPath the path of the field to be removed
+     * @throws IllegalArgumentException if the field doesn't exist.
+     */
+    public void removeField(FieldPath fieldPath) {
+        String path = fieldPath.path;
+        Object context = initialContext(fieldPath);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             context = resolve(fieldPath.pathElements[i], path, context);
         }
@@ -376,7 +425,7 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public void appendFieldValue(String path, Object value) {
-        setFieldValue(path, value, true);
+        setFieldValue(new FieldPath(path), value, true);
     }
 
     /**
@@ -392,8 +441,8 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty or invalid.
      */
     public void appendFieldValue(TemplateScript.Factory fieldPathTemplate, ValueSource valueSource) {
-        Map<String, Object> model = createTemplateModel();
-        appendFieldValue(fieldPathTemplate.newInstance(model).execute(), valueSource.copyAndResolve(model));
+        Map<String, Object> model = createTemplateModel(fieldPathTemplate, valueSource);
+        setFieldValue(fieldPath(fieldPathTemplate, model), valueSource.copyAndResolve(model), true);
     }
 
     /**
@@ -407,7 +456,19 @@ public final class IngestDocument {
      * item identified by the provided path.
      */
     public void setFieldValue(String path, Object value) {
-        setFieldValue(path, value, false);
+        setFieldValue(new FieldPath(path), value, false);
+    }
+
+    /**
+     * Sets the provided value to the provided pre-parsed path in the document.
+     * Any non existing path element will be created.
+     * If the last item in the path is a list, the value will replace the existing list as a whole.
+     * @param fieldPath The path within the document
+     * @param value The value to put in for the path key
+     * @throws IllegalArgumentException if the value cannot be set to the item identified by the provided path.
+     */
+    public void setFieldValue(FieldPath fieldPath, Object value) {
+        setFieldValue(fieldPath, value, false);
     }
 
     /**
@@ -420,13 +481,13 @@ public final class IngestDocument {
      * item identified by the provided path.
      */
     public void setFieldValue(TemplateScript.Factory fieldPathTemplate, ValueSource valueSource) {
-        Map<String, Object> model = createTemplateModel();
-        setFieldValue(fieldPathTemplate.newInstance(model).execute(), valueSource.copyAndResolve(model), false);
+        Map<String, Object> model = createTemplateModel(fieldPathTemplate, valueSource);
+        setFieldValue(fieldPath(fieldPathTemplate, model), valueSource.copyAndResolve(model), false);
     }
 
-    private void setFieldValue(String path, Object value, boolean append) {
-        FieldPath fieldPath = new FieldPath(path);
-        Object context = fieldPath.initialContext;
+    private void setFieldValue(FieldPath fieldPath, Object value, boolean append) {
+        String path = fieldPath.path;
+        Object context = initialContext(fieldPath);
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
             String pathElement = fieldPath.pathElements[i];
             if (context == null) {
@@ -550,11 +611,51 @@ public final class IngestDocument {
     }
 
     public String renderTemplate(TemplateScript.Factory template) {
+        if (template instanceof ConstantTemplateScriptFactory) {
+            return ((ConstantTemplateScriptFactory) template).getValue();
+        }
         return template.newInstance(createTemplateModel()).execute();
     }
 
+    /**
+     * Renders the given template and parses it as a field path, which is only done once for templates that are constant.
+     * @throws IllegalArgumentException if the rendered path is null, empty or invalid
+     */
+    public FieldPath renderFieldPath(TemplateScript.Factory fieldPathTemplate) {
+        return fieldPath(fieldPathTemplate, null);
+    }
+
+    /**
+     * Resolves the path that the given template renders to, reusing the path that constant templates parsed ahead of time.
+     *
+     * @param model the model to render the template with, or <code>null</code> to create it if needed
+     */
+    private FieldPath fieldPath(TemplateScript.Factory fieldPathTemplate, Map<String, Object> model) {
+        if (fieldPathTemplate instanceof ConstantTemplateScriptFactory) {
+            return ((ConstantTemplateScriptFactory) fieldPathTemplate).getFieldPath();
+        }
+        return new FieldPath(fieldPathTemplate.newInstance(model == null ? createTemplateModel() : model).execute());
+    }
+
+    /**
+     * Creates the model to render the given field path template and value source with, unless neither needs it.
+     */
+    private Map<String, Object> createTemplateModel(TemplateScript.Factory fieldPathTemplate, ValueSource valueSource) {
+        if (fieldPathTemplate instanceof ConstantTemplateScriptFactory
+            && (valueSource instanceof ValueSource.ObjectValue || valueSource instanceof ValueSource.ByteValue)) {
+            return null;
+        }
+        return createTemplateModel();
+    }
+
     private Map<String, Object> createTemplateModel() {
-        Map<String, Object> model = new HashMap<>(sourceAndMetadata);
+        Map<String, Object> model;
+        if (sourceAndMetadata instanceof LazySourceMap) {
+            // only parses the fields that the template accesses
+            model = new LazySourceMap((LazySourceMap) sourceAndMetadata);
+        } else {
+            model = new HashMap<>(sourceAndMetadata);
+        }
         model.put(SourceFieldMapper.NAME, sourceAndMetadata);
         // If there is a field in the source with the name '_ingest' it gets overwritten here,
         // if access to that field is required then it get accessed via '_source._ingest'
@@ -682,32 +783,54 @@ public final class IngestDocument {
         }
     }
 
-    private class FieldPath {
+    private Object initialContext(FieldPath fieldPath) {
+        return fieldPath.ingestMetadata ? ingestMetadata : sourceAndMetadata;
+    }
+
+    /**
+     * A path to a field of an ingest document in dot-notation, parsed once so that processors can access the same field of
+     * many documents without parsing its path again. Paths that start with <code>_ingest.</code> point to the ingest metadata
+     * and the ones that start with <code>_source.</code> to the source.
+     */
+    public static final class FieldPath {
 
+        private final String path;
+        private final boolean ingestMetadata;
         private final String[] pathElements;
-        private final Object initialContext;
 
-        private FieldPath(String path) {
+        /**
+         * @throws IllegalArgumentException if the path is null, empty or invalid
+         */
+        public FieldPath(String path) {
             if (Strings.isEmpty(path)) {
                 throw new IllegalArgumentException("path cannot be null nor empty");
             }
             String newPath;
             if (path.startsWith(INGEST_KEY_PREFIX)) {
-                initialContext = ingestMetadata;
+                ingestMetadata = true;
                 newPath = path.substring(INGEST_KEY_PREFIX.length(), path.length());
             } else {
-                initialContext = sourceAndMetadata;
+                ingestMetadata = false;
                 if (path.startsWith(SOURCE_PREFIX)) {
                     newPath = path.substring(SOURCE_PREFIX.length(), path.length());
                 } else {
                     newPath = path;
                 }
             }
+            this.path = path;
             this.pathElements = newPath.split("\\.");
             if (pathElements.length == 1 && pathElements[0].isEmpty()) {
                 throw new IllegalArgumentException("path [" + path + "] is not valid");
             }
         }
 
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
     }
 }
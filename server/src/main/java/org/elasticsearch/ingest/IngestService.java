@@ -59,7 +59,7 @@ public class IngestService {
             }
         }
         this.pipelineStore = new PipelineStore(settings, Collections.unmodifiableMap(processorFactories));
-        this.pipelineExecutionService = new PipelineExecutionService(pipelineStore, threadPool);
+        this.pipelineExecutionService = new PipelineExecutionService(settings, pipelineStore, threadPool);
     }
 
     public PipelineStore getPipelineStore() {
@@ -19,25 +19,35 @@
 
 package org.elasticsearch.ingest;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class IngestStats implements Writeable, ToXContentFragment {
     private final Stats totalStats;
     private final Map<String, Stats> statsPerPipeline;
+    private final Map<String, List<ProcessorStats>> processorStatsPerPipeline;
 
     public IngestStats(Stats totalStats, Map<String, Stats> statsPerPipeline) {
+        this(totalStats, statsPerPipeline, Collections.emptyMap());
+    }
+
+    public IngestStats(Stats totalStats, Map<String, Stats> statsPerPipeline, Map<String, List<ProcessorStats>> processorStatsPerPipeline) {
         this.totalStats = totalStats;
         this.statsPerPipeline = statsPerPipeline;
+        this.processorStatsPerPipeline = processorStatsPerPipeline;
     }
 
     /**
@@ -50,6 +60,15 @@ public class IngestStats implements Writeable, ToXContentFragment {
         for (int i = 0; i < size; i++) {
             statsPerPipeline.put(in.readString(), new Stats(in));
         }
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            size = in.readVInt();
+            this.processorStatsPerPipeline = new HashMap<>(size);
+            for (int i = 0; i < size; i++) {
+                processorStatsPerPipeline.put(in.readString(), in.readList(ProcessorStats::new));
+            }
+        } else {
+            this.processorStatsPerPipeline = Collections.emptyMap();
+        }
     }
 
     @Override
@@ -60,9 +79,15 @@ public class IngestStats implements Writeable, ToXContentFragment {
             out.writeString(entry.getKey());
             entry.getValue().writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+            out.writeVInt(processorStatsPerPipeline.size());
+            for (Map.Entry<String, List<ProcessorStats>> entry : processorStatsPerPipeline.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeList(entry.getValue());
+            }
+        }
     }
 
-
     /**
      * @return The accumulated stats for all pipelines
      */
@@ -77,6 +102,13 @@ public class IngestStats implements Writeable, ToXContentFragment {
         return statsPerPipeline;
     }
 
+    /**
+     * @return The stats of the processors of each pipeline, in execution order
+     */
+    public Map<String, List<ProcessorStats>> getProcessorStatsPerPipeline() {
+        return processorStatsPerPipeline;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("ingest");
@@ -87,6 +119,14 @@ public class IngestStats implements Writeable, ToXContentFragment {
         for (Map.Entry<String, Stats> entry : statsPerPipeline.entrySet()) {
             builder.startObject(entry.getKey());
             entry.getValue().toXContent(builder, params);
+            List<ProcessorStats> processorStats = processorStatsPerPipeline.get(entry.getKey());
+            if (processorStats != null) {
+                builder.startArray("processors");
+                for (ProcessorStats stats : processorStats) {
+                    stats.toXContent(builder, params);
+                }
+                builder.endArray();
+            }
             builder.endObject();
         }
         builder.endObject();
@@ -164,4 +204,127 @@ public class IngestStats implements Writeable, ToXContentFragment {
             return builder;
         }
     }
+
+    public static class ProcessorStats implements Writeable, ToXContentObject {
+
+        private final String name;
+        private final String type;
+        private final long count;
+        private final long timeInNanos;
+        private final long current;
+        private final long failedCount;
+        private final long[] latencyHistogram;
+
+        public ProcessorStats(String name, String type, long count, long timeInNanos, long current, long failedCount,
+                              long[] latencyHistogram) {
+            this.name = name;
+            this.type = type;
+            this.count = count;
+            this.timeInNanos = timeInNanos;
+            this.current = current;
+            this.failedCount = failedCount;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        /**
+         * Read from a stream.
+         */
+        public ProcessorStats(StreamInput in) throws IOException {
+            name = in.readString();
+            type = in.readString();
+            count = in.readVLong();
+            timeInNanos = in.readVLong();
+            current = in.readVLong();
+            failedCount = in.readVLong();
+            latencyHistogram = in.readVLongArray();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeString(type);
+            out.writeVLong(count);
+            out.writeVLong(timeInNanos);
+            out.writeVLong(current);
+            out.writeVLong(failedCount);
+            out.writeVLongArray(latencyHistogram);
+        }
+
+        /**
+         * @return The name of the processor, which is made of its type and tag, prefixed with the names of the processors it
+         * is nested into.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The type of the processor.
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return The total number of executions of the processor.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The total time spent executing the processor in nanos.
+         */
+        public long getTimeInNanos() {
+            return timeInNanos;
+        }
+
+        /**
+         * @return The number of executions of the processor that are currently running.
+         */
+        public long getCurrent() {
+            return current;
+        }
+
+        /**
+         * @return The total number of executions of the processor that have failed.
+         */
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * @return The number of executions per latency bucket. The first buckets hold the executions that took less than
+         * 1, 10, 100 micros and so on up to 1 second, and the last bucket holds the executions that took longer.
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.startObject(name);
+            builder.field("type", type);
+            builder.startObject("stats");
+            builder.field("count", count);
+            builder.humanReadableField("time_in_nanos", "time", new TimeValue(timeInNanos, TimeUnit.NANOSECONDS));
+            builder.field("current", current);
+            builder.field("failed", failedCount);
+            builder.startArray("latency_histogram");
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                builder.startObject();
+                if (i < ProcessorMetric.HISTOGRAM_BOUNDS_IN_NANOS.length) {
+                    builder.field("to_micros", TimeUnit.NANOSECONDS.toMicros(ProcessorMetric.HISTOGRAM_BOUNDS_IN_NANOS[i]));
+                }
+                builder.field("count", latencyHistogram[i]);
+                builder.endObject();
+            }
+            builder.endArray();
+            builder.endObject();
+            builder.endObject();
+            builder.endObject();
+            return builder;
+        }
+    }
 }
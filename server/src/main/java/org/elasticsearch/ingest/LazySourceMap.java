@@ -0,0 +1,212 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The source of a document that is being ingested, whose top level objects and arrays are only parsed into maps and lists
+ * when they are accessed. The ones that processors never access are written back to the source as they were, which avoids
+ * parsing and serializing the whole document for pipelines that only touch a few fields. Iterating over the entries of the
+ * map, like scripts or copies do, parses all the fields.
+ */
+final class LazySourceMap extends AbstractMap<String, Object> {
+
+    private final Map<String, Object> fields;
+
+    private LazySourceMap(Map<String, Object> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Creates a shallow copy of the given map, which shares the fields that are not parsed yet with it.
+     */
+    LazySourceMap(LazySourceMap other) {
+        this(new LinkedHashMap<>(other.fields));
+    }
+
+    /**
+     * Reads the top level fields of the given JSON source. Values are read right away, but objects and arrays are copied
+     * as they are until they are accessed.
+     */
+    static LazySourceMap parse(BytesReference source) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        List<String> rawFieldNames = new ArrayList<>();
+        List<Integer> rawFieldEnds = new ArrayList<>();
+        BytesStreamOutput rawValues = new BytesStreamOutput();
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source, XContentType.JSON);
+             XContentBuilder builder = new XContentBuilder(JsonXContent.jsonXContent, rawValues)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("source must be an object");
+            }
+            for (XContentParser.Token token = parser.nextToken(); token != XContentParser.Token.END_OBJECT; token = parser.nextToken()) {
+                String fieldName = parser.currentName();
+                token = parser.nextToken();
+                if (token == XContentParser.Token.START_OBJECT || token == XContentParser.Token.START_ARRAY) {
+                    builder.copyCurrentStructure(parser);
+                    builder.flush();
+                    rawFieldNames.add(fieldName);
+                    rawFieldEnds.add(rawValues.size());
+                    // keeps the position of the field in the source
+                    fields.put(fieldName, null);
+                } else {
+                    fields.put(fieldName, readValue(parser, token));
+                }
+            }
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("Failed to parse content to map", e);
+        }
+        BytesReference rawBytes = rawValues.bytes();
+        int start = 0;
+        for (int i = 0; i < rawFieldNames.size(); i++) {
+            int end = rawFieldEnds.get(i);
+            // skips the separator that the generator writes between root values
+            while (start < end && Character.isWhitespace(rawBytes.get(start))) {
+                start++;
+            }
+            fields.put(rawFieldNames.get(i), new RawValue(rawBytes.slice(start, end - start)));
+            start = end;
+        }
+        return new LazySourceMap(fields);
+    }
+
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = fields.get(key);
+        if (value instanceof RawValue) {
+            value = ((RawValue) value).parse();
+            fields.put((String) key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return fields.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return parsed(fields.put(key, value));
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return parsed(fields.remove(key));
+    }
+
+    @Override
+    public int size() {
+        return fields.size();
+    }
+
+    @Override
+    public void clear() {
+        fields.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return fields.keySet();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        for (Entry<String, Object> entry : fields.entrySet()) {
+            if (entry.getValue() instanceof RawValue) {
+                entry.setValue(((RawValue) entry.getValue()).parse());
+            }
+        }
+        return fields.entrySet();
+    }
+
+    /**
+     * Writes the source as an object, copying the fields that were not parsed as they are.
+     */
+    XContentBuilder toXContent(XContentBuilder builder) throws IOException {
+        builder.startObject();
+        for (Entry<String, Object> entry : fields.entrySet()) {
+            if (entry.getValue() instanceof RawValue) {
+                builder.rawField(entry.getKey(), ((RawValue) entry.getValue()).bytes.streamInput(), XContentType.JSON);
+            } else {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+        }
+        return builder.endObject();
+    }
+
+    private static Object parsed(Object value) {
+        return value instanceof RawValue ? ((RawValue) value).parse() : value;
+    }
+
+    /**
+     * An object or array of the source as JSON.
+     */
+    private static final class RawValue {
+
+        private final BytesReference bytes;
+
+        RawValue(BytesReference bytes) {
+            this.bytes = bytes;
+        }
+
+        Object parse() {
+            try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                    DeprecationHandler.THROW_UNSUPPORTED_OPERATION, bytes, XContentType.JSON)) {
+                return parser.nextToken() == XContentParser.Token.START_OBJECT ? parser.map() : parser.list();
+            } catch (IOException e) {
+                throw new ElasticsearchParseException("Failed to parse content to map", e);
+            }
+        }
+    }
+}
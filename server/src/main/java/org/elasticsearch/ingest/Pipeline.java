@@ -22,6 +22,7 @@ package org.elasticsearch.ingest;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -113,6 +114,16 @@ public final class Pipeline {
         return compoundProcessor.flattenProcessors();
     }
 
+    /**
+     * The stats of each processor of this pipeline, including the on_failure processors and the processors that are nested
+     * into other processors, in execution order.
+     */
+    public List<IngestStats.ProcessorStats> getProcessorStats() {
+        List<IngestStats.ProcessorStats> stats = new ArrayList<>();
+        compoundProcessor.collectProcessorStats("", stats);
+        return stats;
+    }
+
     public static final class Factory {
 
         public Pipeline create(String id, Map<String, Object> config, Map<String, Processor.Factory> processorFactories) throws Exception {
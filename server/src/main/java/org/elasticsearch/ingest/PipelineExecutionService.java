@@ -22,82 +22,196 @@ package org.elasticsearch.ingest;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.Requests;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterStateApplier;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class PipelineExecutionService implements ClusterStateApplier {
 
+    /**
+     * The maximum number of tasks of the write thread pool that the pipelines of the requests of a single bulk request are run on,
+     * which is also the maximum number of tasks that all bulk requests of the node fork on top of the one task that each bulk
+     * request runs on. Defaults to the number of processors.
+     */
+    public static final Setting<Integer> BULK_WORKERS_SETTING = new Setting<>("ingest.bulk.workers",
+        s -> Integer.toString(EsExecutors.numberOfProcessors(s)), s -> Setting.parseInt(s, 1, "ingest.bulk.workers"),
+        Property.NodeScope);
+
+    // bulk requests are not split into tasks that process fewer requests than this, which would cost more than it saves
+    static final int MIN_REQUESTS_PER_WORKER = 16;
+
     private final PipelineStore store;
     private final ThreadPool threadPool;
+    private final int bulkWorkers;
+    // the permits of the additional tasks that bulk requests fork to process their requests concurrently, across all bulk requests
+    private final Semaphore additionalBulkWorkers;
 
     private final StatsHolder totalStats = new StatsHolder();
     private volatile Map<String, StatsHolder> statsHolderPerPipeline = Collections.emptyMap();
 
-    public PipelineExecutionService(PipelineStore store, ThreadPool threadPool) {
+    public PipelineExecutionService(Settings settings, PipelineStore store, ThreadPool threadPool) {
         this.store = store;
         this.threadPool = threadPool;
+        this.bulkWorkers = BULK_WORKERS_SETTING.get(settings);
+        this.additionalBulkWorkers = new Semaphore(bulkWorkers);
     }
 
-    public void executeBulkRequest(Iterable<DocWriteRequest> actionRequests,
-                                   BiConsumer<IndexRequest, Exception> itemFailureHandler,
+    /**
+     * Runs the pipelines of the given requests. Large bulk requests are split into contiguous ranges of requests that are
+     * processed concurrently by up to {@link #BULK_WORKERS_SETTING} tasks of the write thread pool, as long as the node did not
+     * fork as many tasks for other bulk requests already. Once all requests are processed, the failures of the requests are
+     * reported with the slot of the request in the order of the slots, and then the completion handler is notified. If the write
+     * thread pool rejects some of the tasks, only the requests of the rejected tasks fail, the bulk request fails as a whole if
+     * all of its tasks are rejected.
+     *
+     * @param actionRequests     the requests of the bulk request
+     * @param itemFailureHandler notified with the slot of every request whose pipeline failed
+     * @param completionHandler  notified once all requests are processed, with an exception if the bulk request failed as a whole
+     */
+    public void executeBulkRequest(List<? extends DocWriteRequest> actionRequests,
+                                   BiConsumer<Integer, Exception> itemFailureHandler,
                                    Consumer<Exception> completionHandler) {
-        threadPool.executor(ThreadPool.Names.WRITE).execute(new AbstractRunnable() {
+        final int numRequests = actionRequests.size();
+        final int maxWorkers = Math.max(1, Math.min(bulkWorkers, numRequests / MIN_REQUESTS_PER_WORKER));
+        int numAdditionalWorkers = 0;
+        while (numAdditionalWorkers < maxWorkers - 1 && additionalBulkWorkers.tryAcquire()) {
+            numAdditionalWorkers++;
+        }
+        final int numWorkers = 1 + numAdditionalWorkers;
+        final Exception[] itemFailures = new Exception[numRequests];
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final AtomicInteger pendingWorkers = new AtomicInteger(numWorkers);
+        final AtomicInteger rejectedWorkers = new AtomicInteger();
+        for (int worker = 0; worker < numWorkers; worker++) {
+            final int from = (int) ((long) numRequests * worker / numWorkers);
+            final int to = (int) ((long) numRequests * (worker + 1) / numWorkers);
+            final boolean additionalWorker = worker > 0;
+            threadPool.executor(ThreadPool.Names.WRITE).execute(new AbstractRunnable() {
 
-            @Override
-            public void onFailure(Exception e) {
-                completionHandler.accept(e);
-            }
+                @Override
+                public void onFailure(Exception e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                }
 
-            @Override
-            protected void doRun() throws Exception {
-                for (DocWriteRequest actionRequest : actionRequests) {
-                    IndexRequest indexRequest = null;
-                    if (actionRequest instanceof IndexRequest) {
-                        indexRequest = (IndexRequest) actionRequest;
-                    } else if (actionRequest instanceof UpdateRequest) {
-                        UpdateRequest updateRequest = (UpdateRequest) actionRequest;
-                        indexRequest = updateRequest.docAsUpsert() ? updateRequest.doc() : updateRequest.upsertRequest();
+                @Override
+                public void onRejection(Exception e) {
+                    if (rejectedWorkers.incrementAndGet() == numWorkers) {
+                        // nothing was processed, the bulk request is rejected as a whole
+                        onFailure(e);
+                        return;
                     }
-                    if (indexRequest != null && Strings.hasText(indexRequest.getPipeline())) {
-                        try {
-                            innerExecute(indexRequest, getPipeline(indexRequest.getPipeline()));
-                            //this shouldn't be needed here but we do it for consistency with index api
-                            // which requires it to prevent double execution
-                            indexRequest.setPipeline(null);
-                        } catch (Exception e) {
-                            itemFailureHandler.accept(indexRequest, e);
+                    // the other workers process their requests, only the requests of this worker are rejected
+                    for (int slot = from; slot < to; slot++) {
+                        IndexRequest indexRequest = getIndexRequest(actionRequests.get(slot));
+                        if (indexRequest != null && Strings.hasText(indexRequest.getPipeline())) {
+                            itemFailures[slot] = e;
                         }
                     }
                 }
-                completionHandler.accept(null);
+
+                @Override
+                protected void doRun() throws Exception {
+                    for (int slot = from; slot < to; slot++) {
+                        IndexRequest indexRequest = getIndexRequest(actionRequests.get(slot));
+                        if (indexRequest != null && Strings.hasText(indexRequest.getPipeline())) {
+                            try {
+                                innerExecute(indexRequest, getPipeline(indexRequest.getPipeline()));
+                                //this shouldn't be needed here but we do it for consistency with index api
+                                // which requires it to prevent double execution
+                                indexRequest.setPipeline(null);
+                            } catch (Exception e) {
+                                itemFailures[slot] = e;
+                            }
+                        }
+                    }
+                }
+
+                @Override
+                public void onAfter() {
+                    if (additionalWorker) {
+                        additionalBulkWorkers.release();
+                    }
+                    // the last worker to complete reports the failures, which the other workers published through the counter
+                    if (pendingWorkers.decrementAndGet() == 0) {
+                        onBulkRequestExecuted(itemFailures, failure.get(), itemFailureHandler, completionHandler);
+                    }
+                }
+            });
+        }
+    }
+
+    private static void onBulkRequestExecuted(Exception[] itemFailures, Exception failure,
+                                              BiConsumer<Integer, Exception> itemFailureHandler,
+                                              Consumer<Exception> completionHandler) {
+        if (failure != null) {
+            completionHandler.accept(failure);
+            return;
+        }
+        try {
+            for (int slot = 0; slot < itemFailures.length; slot++) {
+                if (itemFailures[slot] != null) {
+                    itemFailureHandler.accept(slot, itemFailures[slot]);
+                }
             }
-        });
+        } catch (Exception e) {
+            completionHandler.accept(e);
+            return;
+        }
+        completionHandler.accept(null);
+    }
+
+    private static IndexRequest getIndexRequest(DocWriteRequest actionRequest) {
+        if (actionRequest instanceof IndexRequest) {
+            return (IndexRequest) actionRequest;
+        } else if (actionRequest instanceof UpdateRequest) {
+            UpdateRequest updateRequest = (UpdateRequest) actionRequest;
+            return updateRequest.docAsUpsert() ? updateRequest.doc() : updateRequest.upsertRequest();
+        }
+        return null;
     }
 
     public IngestStats stats() {
         Map<String, StatsHolder> statsHolderPerPipeline = this.statsHolderPerPipeline;
 
         Map<String, IngestStats.Stats> statsPerPipeline = new HashMap<>(statsHolderPerPipeline.size());
+        Map<String, List<IngestStats.ProcessorStats>> processorStatsPerPipeline = new HashMap<>(statsHolderPerPipeline.size());
         for (Map.Entry<String, StatsHolder> entry : statsHolderPerPipeline.entrySet()) {
             statsPerPipeline.put(entry.getKey(), entry.getValue().createStats());
+            // the processors are tracked by the pipeline instance, so their stats start over when the pipeline is updated
+            Pipeline pipeline = store.get(entry.getKey());
+            if (pipeline != null) {
+                processorStatsPerPipeline.put(entry.getKey(), pipeline.getProcessorStats());
+            }
         }
 
-        return new IngestStats(totalStats.createStats(), statsPerPipeline);
+        return new IngestStats(totalStats.createStats(), statsPerPipeline, processorStatsPerPipeline);
     }
 
     @Override
@@ -150,7 +264,9 @@ public class PipelineExecutionService implements ClusterStateApplier {
             String parent = indexRequest.parent();
             Long version = indexRequest.version();
             VersionType versionType = indexRequest.versionType();
-            Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
+            // json sources are parsed lazily, so that the fields that the pipeline does not access are written back as they are
+            Map<String, Object> sourceAsMap = indexRequest.getContentType() == XContentType.JSON ?
+                LazySourceMap.parse(indexRequest.source()) : indexRequest.sourceAsMap();
             IngestDocument ingestDocument = new IngestDocument(index, type, id, routing, parent, version, versionType, sourceAsMap);
             pipeline.execute(ingestDocument);
 
@@ -166,7 +282,12 @@ public class PipelineExecutionService implements ClusterStateApplier {
             if (metadataMap.get(IngestDocument.MetaData.VERSION_TYPE) != null) {
                 indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.MetaData.VERSION_TYPE)));
             }
-            indexRequest.source(ingestDocument.getSourceAndMetadata());
+            Map<String, Object> source = ingestDocument.getSourceAndMetadata();
+            if (source instanceof LazySourceMap) {
+                indexRequest.source(((LazySourceMap) source).toXContent(XContentFactory.contentBuilder(Requests.INDEX_CONTENT_TYPE)));
+            } else {
+                indexRequest.source(source);
+            }
         } catch (Exception e) {
             totalStats.ingestFailed();
             pipelineStats.ifPresent(StatsHolder::ingestFailed);
@@ -0,0 +1,85 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+/**
+ * Tracks the executions of a single processor: how often it ran, how long it took, how many executions are in flight and
+ * how many failed. Execution times are also recorded into a histogram with one bucket per order of magnitude, from under a
+ * microsecond to a second and over, which only costs an increment per execution on top of the counters.
+ */
+public final class ProcessorMetric {
+
+    /**
+     * The exclusive upper bounds of the latency histogram buckets, in nanoseconds. Executions that take longer than the
+     * last bound go into an additional bucket.
+     */
+    static final long[] HISTOGRAM_BOUNDS_IN_NANOS = new long[] { 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+        1_000_000_000L };
+
+    private final CounterMetric count = new CounterMetric();
+    private final CounterMetric timeInNanos = new CounterMetric();
+    private final CounterMetric current = new CounterMetric();
+    private final CounterMetric failed = new CounterMetric();
+    private final CounterMetric[] histogram = new CounterMetric[HISTOGRAM_BOUNDS_IN_NANOS.length + 1];
+
+    public ProcessorMetric() {
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new CounterMetric();
+        }
+    }
+
+    /**
+     * Executes the given processor and records the execution.
+     */
+    public void execute(Processor processor, IngestDocument ingestDocument) throws Exception {
+        final long startTimeInNanos = System.nanoTime();
+        current.inc();
+        try {
+            processor.execute(ingestDocument);
+        } catch (Exception e) {
+            failed.inc();
+            throw e;
+        } finally {
+            final long tookInNanos = System.nanoTime() - startTimeInNanos;
+            current.dec();
+            count.inc();
+            timeInNanos.inc(tookInNanos);
+            histogram[bucket(tookInNanos)].inc();
+        }
+    }
+
+    static int bucket(long nanos) {
+        int bucket = 0;
+        while (bucket < HISTOGRAM_BOUNDS_IN_NANOS.length && nanos >= HISTOGRAM_BOUNDS_IN_NANOS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    IngestStats.ProcessorStats createStats(String name, String type) {
+        final long[] counts = new long[histogram.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram[i].count();
+        }
+        return new IngestStats.ProcessorStats(name, type, count.count(), timeInNanos.count(), current.count(), failed.count(), counts);
+    }
+}
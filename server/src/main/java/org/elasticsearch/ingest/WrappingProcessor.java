@@ -0,0 +1,37 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+/**
+ * A processor that executes another processor, like the <code>foreach</code> processor does for every element of a list.
+ * Exposing the inner processor and its metric allows the ingest stats to report on it next to the processors of the pipeline.
+ */
+public interface WrappingProcessor extends Processor {
+
+    /**
+     * @return the processor that this processor executes
+     */
+    Processor getInnerProcessor();
+
+    /**
+     * @return the metric that the executions of the inner processor are recorded in
+     */
+    ProcessorMetric getInnerProcessorMetric();
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.monitor;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 import org.elasticsearch.monitor.fs.FsService;
 import org.elasticsearch.monitor.jvm.JvmGcMonitorService;
 import org.elasticsearch.monitor.jvm.JvmService;
@@ -41,13 +42,13 @@ public class MonitorService extends AbstractLifecycleComponent {
     private final FsService fsService;
 
     public MonitorService(Settings settings, NodeEnvironment nodeEnvironment, ThreadPool threadPool,
-                          ClusterInfoService clusterInfoService) throws IOException {
+                          ClusterInfoService clusterInfoService, TranslogGroupCommitService translogGroupCommitService) throws IOException {
         super(settings);
         this.jvmGcMonitorService = new JvmGcMonitorService(settings, threadPool);
         this.osService = new OsService(settings);
         this.processService = new ProcessService(settings);
         this.jvmService = new JvmService(settings);
-        this.fsService = new FsService(settings, nodeEnvironment, clusterInfoService);
+        this.fsService = new FsService(settings, nodeEnvironment, clusterInfoService, translogGroupCommitService);
     }
 
     public OsService osService() {
@@ -29,6 +29,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -49,6 +50,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
         long total = -1;
         long free = -1;
         long available = -1;
+        /** The stats of the grouped translog syncs of the shards on this path, if translog syncs are grouped. */
+        @Nullable
+        TranslogGroupCommitService.Stats translogGroupCommit;
 
         public Path() {
         }
@@ -74,6 +78,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             if (in.getVersion().before(Version.V_6_0_0_alpha1)) {
                 in.readOptionalBoolean();
             }
+            if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+                translogGroupCommit = in.readOptionalWriteable(TranslogGroupCommitService.Stats::new);
+            }
         }
 
         @Override
@@ -87,6 +94,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             if (out.getVersion().before(Version.V_6_0_0_alpha1)) {
                 out.writeOptionalBoolean(null);
             }
+            if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+                out.writeOptionalWriteable(translogGroupCommit);
+            }
         }
 
         public String getPath() {
@@ -113,6 +123,11 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             return new ByteSizeValue(available);
         }
 
+        @Nullable
+        public TranslogGroupCommitService.Stats getTranslogGroupCommit() {
+            return translogGroupCommit;
+        }
+
         private long addLong(long current, long other) {
             if (other == -1) {
                 return current;
@@ -173,6 +188,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             if (available != -1) {
                 builder.humanReadableField(Fields.AVAILABLE_IN_BYTES, Fields.AVAILABLE, getAvailable());
             }
+            if (translogGroupCommit != null) {
+                translogGroupCommit.toXContent(builder, params);
+            }
 
             builder.endObject();
             return builder;
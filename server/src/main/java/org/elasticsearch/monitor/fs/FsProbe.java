@@ -31,10 +31,13 @@ import org.elasticsearch.common.io.PathUtils;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.NodeEnvironment.NodePath;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -44,10 +47,13 @@ import java.util.Set;
 public class FsProbe extends AbstractComponent {
 
     private final NodeEnvironment nodeEnv;
+    @Nullable
+    private final TranslogGroupCommitService translogGroupCommitService;
 
-    public FsProbe(Settings settings, NodeEnvironment nodeEnv) {
+    public FsProbe(Settings settings, NodeEnvironment nodeEnv, @Nullable TranslogGroupCommitService translogGroupCommitService) {
         super(settings);
         this.nodeEnv = nodeEnv;
+        this.translogGroupCommitService = translogGroupCommitService;
     }
 
     public FsInfo stats(FsInfo previous, @Nullable ClusterInfo clusterInfo) throws IOException {
@@ -56,8 +62,11 @@ public class FsProbe extends AbstractComponent {
         }
         NodePath[] dataLocations = nodeEnv.nodePaths();
         FsInfo.Path[] paths = new FsInfo.Path[dataLocations.length];
+        Map<Path, TranslogGroupCommitService.Stats> translogGroupCommitStats =
+            translogGroupCommitService == null ? Collections.emptyMap() : translogGroupCommitService.stats();
         for (int i = 0; i < dataLocations.length; i++) {
             paths[i] = getFSInfo(dataLocations[i]);
+            paths[i].translogGroupCommit = translogGroupCommitStats.get(dataLocations[i].path);
         }
         FsInfo.IoStats ioStats = null;
         if (Constants.LINUX) {
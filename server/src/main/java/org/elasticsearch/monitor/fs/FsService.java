@@ -30,6 +30,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.SingleObjectCache;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.cluster.ClusterInfoService;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 
 import java.io.IOException;
 
@@ -47,9 +48,10 @@ public class FsService extends AbstractComponent {
             TimeValue.timeValueSeconds(1),
             Property.NodeScope);
 
-    public FsService(final Settings settings, final NodeEnvironment nodeEnvironment, ClusterInfoService clusterInfoService) {
+    public FsService(final Settings settings, final NodeEnvironment nodeEnvironment, ClusterInfoService clusterInfoService,
+                     final TranslogGroupCommitService translogGroupCommitService) {
         super(settings);
-        this.probe = new FsProbe(settings, nodeEnvironment);
+        this.probe = new FsProbe(settings, nodeEnvironment, translogGroupCommitService);
         this.clusterInfoService = clusterInfoService;
         refreshInterval = REFRESH_INTERVAL_SETTING.get(settings);
         logger.debug("using refresh_interval [{}]", refreshInterval);
@@ -0,0 +1,168 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStream;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * A response whose body is serialized while it is sent rather than up-front. The body is made of parts that are written to
+ * the same {@link XContentBuilder} one after the other, and HTTP transports that support chunked responses pull the body
+ * in chunks of the size of their choice through {@link #encodeChunk(OutputStream, int)}, so that only about a chunk of the
+ * response is held in memory at a time. Transports that do not support chunked responses get the whole body through
+ * {@link #content()}.
+ * <p>
+ * The chunk that was encoded last is accounted for in the circuit breaker set through {@link #setCircuitBreaker(CircuitBreaker)}
+ * until the next chunk is requested or the response is closed, which the transport must do once it is done with the response.
+ */
+public final class ChunkedRestResponse extends RestResponse implements Releasable {
+
+    private final RestStatus status;
+    private final XContentBuilder builder;
+    private final ToXContent.Params params;
+    private final Iterator<? extends ToXContent> parts;
+
+    private CircuitBreaker circuitBreaker;
+    private long reservedBytes;
+    private boolean chunked;
+    private boolean done;
+    private BytesReference content;
+
+    /**
+     * @param status  the status of the response
+     * @param builder the builder to write the parts to, which must write to a {@link BytesStream}, like the builders of a
+     *                {@link RestChannel} do
+     * @param params  the params to write the parts with
+     * @param parts   the parts of the body
+     */
+    public ChunkedRestResponse(RestStatus status, XContentBuilder builder, ToXContent.Params params, Iterator<? extends ToXContent> parts) {
+        if (builder.getOutputStream() instanceof BytesStream == false) {
+            throw new IllegalArgumentException("the builder must write to a bytes stream");
+        }
+        this.status = status;
+        this.builder = builder;
+        this.params = params;
+        this.parts = parts;
+    }
+
+    @Override
+    public String contentType() {
+        return builder.contentType().mediaType();
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+
+    /**
+     * Sets the circuit breaker that the encoded chunks are accounted for in.
+     */
+    public void setCircuitBreaker(@Nullable CircuitBreaker circuitBreaker) {
+        assert chunked == false : "the breaker must be set before the first chunk is encoded";
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Whether all the chunks of the body have been encoded.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Writes the next chunk of the body to the given stream. The chunk is at least <code>sizeHint</code> bytes long unless it is
+     * the last one, and might be larger since parts are never split.
+     *
+     * @return the number of bytes that were written
+     */
+    public int encodeChunk(OutputStream out, int sizeHint) throws IOException {
+        assert content == null : "the body was already serialized as a whole";
+        assert done == false : "all the chunks of the body were already encoded";
+        chunked = true;
+        release();
+        final BytesStream stream = (BytesStream) builder.getOutputStream();
+        while (parts.hasNext()) {
+            parts.next().toXContent(builder, params);
+            builder.flush();
+            if (stream.bytes().length() >= sizeHint) {
+                break;
+            }
+        }
+        if (parts.hasNext() == false) {
+            // closing the builder writes the end of the body, like the trailing new line of pretty printed responses
+            builder.close();
+            done = true;
+        }
+        final BytesReference chunk = stream.bytes();
+        final int length = chunk.length();
+        if (circuitBreaker != null) {
+            circuitBreaker.addEstimateBytesAndMaybeBreak(length, "<http_response_chunk>");
+            reservedBytes = length;
+        }
+        chunk.writeTo(out);
+        stream.reset();
+        return length;
+    }
+
+    /**
+     * Serializes the whole body at once, for transports that do not support chunked responses.
+     */
+    @Override
+    public BytesReference content() {
+        if (content == null) {
+            assert chunked == false : "the body was already partially encoded in chunks";
+            try {
+                while (parts.hasNext()) {
+                    parts.next().toXContent(builder, params);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to serialize the response", e);
+            }
+            content = BytesReference.bytes(builder);
+            done = true;
+        }
+        return content;
+    }
+
+    /**
+     * Releases the accounting of the chunk that was encoded last.
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    private void release() {
+        if (reservedBytes != 0) {
+            circuitBreaker.addWithoutBreaking(-reservedBytes);
+            reservedBytes = 0;
+        }
+    }
+}
@@ -493,6 +493,10 @@ public class RestController extends AbstractComponent implements HttpServerTrans
         @Override
         public void sendResponse(RestResponse response) {
             close();
+            if (response instanceof ChunkedRestResponse) {
+                // the chunks of the response are in flight until the transport wrote them
+                ((ChunkedRestResponse) response).setCircuitBreaker(inFlightRequestsBreaker(circuitBreakerService));
+            }
             delegate.sendResponse(response);
         }
 
@@ -20,15 +20,21 @@
 package org.elasticsearch.rest.action.search;
 
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.action.RestActions;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.Scroll;
@@ -56,8 +62,11 @@ public class RestSearchAction extends BaseRestHandler {
     public static final String TYPED_KEYS_PARAM = "typed_keys";
     private static final Set<String> RESPONSE_PARAMS = Collections.singleton(TYPED_KEYS_PARAM);
 
+    private final boolean chunkedResponses;
+
     public RestSearchAction(Settings settings, RestController controller) {
         super(settings);
+        this.chunkedResponses = HttpTransportSettings.SETTING_HTTP_CHUNKED_SEARCH_RESPONSES.get(settings);
         controller.registerHandler(GET, "/_search", this);
         controller.registerHandler(POST, "/_search", this);
         controller.registerHandler(GET, "/{index}/_search", this);
@@ -90,9 +99,27 @@ public class RestSearchAction extends BaseRestHandler {
         request.withContentOrSourceParamParserOrNull(parser ->
             parseSearchRequest(searchRequest, request, parser, setSize));
 
+        if (chunkedResponses) {
+            return channel -> client.search(searchRequest, new ChunkedSearchResponseListener(channel));
+        }
         return channel -> client.search(searchRequest, new RestStatusToXContentListener<>(channel));
     }
 
+    /**
+     * Sends search responses whose hits and aggregations are serialized while they are sent rather than up-front.
+     */
+    static final class ChunkedSearchResponseListener extends RestStatusToXContentListener<SearchResponse> {
+
+        ChunkedSearchResponseListener(RestChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        public RestResponse buildResponse(SearchResponse response, XContentBuilder builder) {
+            return new ChunkedRestResponse(response.status(), builder, channel.request(), response.toXContentChunks().iterator());
+        }
+    }
+
     /**
      * Parses the rest request on top of the SearchRequest, preserving values that are not overridden by the rest request.
      *
@@ -23,7 +23,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
-import org.elasticsearch.common.xcontent.ToXContent.Params;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
@@ -104,23 +104,35 @@ public final class SearchHits implements Streamable, ToXContentFragment, Iterabl
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
-        builder.startObject(Fields.HITS);
-        builder.field(Fields.TOTAL, totalHits);
-        if (Float.isNaN(maxScore)) {
-            builder.nullField(Fields.MAX_SCORE);
-        } else {
-            builder.field(Fields.MAX_SCORE, maxScore);
-        }
-        builder.field(Fields.HITS);
-        builder.startArray();
-        for (SearchHit hit : hits) {
-            hit.toXContent(builder, params);
+        for (ToXContent chunk : toXContentChunks()) {
+            chunk.toXContent(builder, params);
         }
-        builder.endArray();
-        builder.endObject();
         return builder;
     }
 
+    /**
+     * Splits {@link #toXContent(XContentBuilder, Params)} into parts that are written to the same builder one after the other:
+     * the start of the hits object, every single hit and the end of the hits object. This allows to serialize many hits
+     * incrementally.
+     */
+    public List<ToXContent> toXContentChunks() {
+        final List<ToXContent> chunks = new ArrayList<>(hits.length + 2);
+        chunks.add((builder, params) -> {
+            builder.startObject(Fields.HITS);
+            builder.field(Fields.TOTAL, totalHits);
+            if (Float.isNaN(maxScore)) {
+                builder.nullField(Fields.MAX_SCORE);
+            } else {
+                builder.field(Fields.MAX_SCORE, maxScore);
+            }
+            builder.field(Fields.HITS);
+            return builder.startArray();
+        });
+        chunks.addAll(Arrays.asList(hits));
+        chunks.add((builder, params) -> builder.endArray().endObject());
+        return chunks;
+    }
+
     public static SearchHits fromXContent(XContentParser parser) throws IOException {
         if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
             parser.nextToken();
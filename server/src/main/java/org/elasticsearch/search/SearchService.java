@@ -19,6 +19,9 @@
 
 package org.elasticsearch.search;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -29,8 +32,12 @@ import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.joda.FormatDateTimeFormatter;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -43,16 +50,20 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.InnerHitContextBuilder;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.MatchNoneQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
 import org.elasticsearch.node.ResponseCollectorService;
@@ -77,9 +88,11 @@ import org.elasticsearch.search.fetch.subphase.ScriptFieldsContext.ScriptField;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
+import org.elasticsearch.search.internal.ShardFieldRanges;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.profile.Profilers;
 import org.elasticsearch.search.query.QueryPhase;
@@ -99,6 +112,7 @@ import org.elasticsearch.threadpool.ThreadPool.Names;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -130,6 +144,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final Setting<Boolean> LOW_LEVEL_CANCELLATION_SETTING =
         Setting.boolSetting("search.low_level_cancellation", false, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Enables searching the segments of a shard concurrently on the {@link Names#SEARCH_WORKER} thread pool, for the requests whose
+     * collectors can be reduced per shard.
+     */
+    public static final Setting<Boolean> CONCURRENT_SEGMENT_SEARCH_SETTING =
+        Setting.boolSetting("search.concurrent_segment_search.enabled", false, Property.Dynamic, Property.NodeScope);
+
     public static final TimeValue NO_TIMEOUT = timeValueMillis(-1);
     public static final Setting<TimeValue> DEFAULT_SEARCH_TIMEOUT_SETTING =
         Setting.timeSetting("search.default_search_timeout", NO_TIMEOUT, Property.Dynamic, Property.NodeScope);
@@ -165,12 +186,16 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean lowLevelCancellation;
 
+    private volatile boolean concurrentSegmentSearch;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    private final ConcurrentMapLong<ReaderContext> activeReaders = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
     private final MultiBucketConsumerService multiBucketConsumerService;
 
     public SearchService(ClusterService clusterService, IndicesService indicesService,
@@ -205,6 +230,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
         lowLevelCancellation = LOW_LEVEL_CANCELLATION_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(LOW_LEVEL_CANCELLATION_SETTING, this::setLowLevelCancellation);
+
+        concurrentSegmentSearch = CONCURRENT_SEGMENT_SEARCH_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_SETTING,
+            this::setConcurrentSegmentSearch);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -237,6 +266,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.lowLevelCancellation = lowLevelCancellation;
     }
 
+    private void setConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -246,6 +279,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         // to release memory and let references to the filesystem go etc.
         if (reason == IndexRemovalReason.DELETED || reason == IndexRemovalReason.CLOSED) {
             freeAllContextForIndex(index);
+            freeAllReaderContextsForIndex(index);
         }
 
     }
@@ -268,6 +302,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         for (final SearchContext context : activeContexts.values()) {
             freeContext(context.id());
         }
+        for (final ReaderContext readerContext : activeReaders.values()) {
+            freeReaderContext(readerContext.id());
+        }
     }
 
     @Override
@@ -594,6 +631,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             }
             contextScrollKeepAlive(context, keepAlive);
             context.lowLevelCancellation(lowLevelCancellation);
+            if (concurrentSegmentSearch) {
+                context.searcher().setExecutor(threadPool.executor(Names.SEARCH_WORKER), threadPool.info(Names.SEARCH_WORKER).getMax());
+            }
         } catch (Exception e) {
             context.close();
             throw ExceptionsHelper.convertToRuntime(e);
@@ -613,7 +653,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().getId(),
                 indexShard.shardId(), request.getClusterAlias(), OriginalIndices.NONE);
-        Engine.Searcher engineSearcher = indexShard.acquireSearcher("search");
+        Engine.Searcher engineSearcher = request.readerId() >= 0 ? acquireReaderSearcher(request) : indexShard.acquireSearcher("search");
 
         final DefaultSearchContext searchContext = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget,
             engineSearcher, clusterService, indexService, indexShard, bigArrays, threadPool.estimatedTimeInMillisCounter(), timeout,
@@ -635,6 +675,74 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return searchContext;
     }
 
+    /**
+     * Opens a reader context that holds the current searcher of the given shard open for search requests of a point in time, until
+     * it is freed or it is not used for the given keep alive.
+     *
+     * @return the id of the reader context
+     */
+    public long openReaderContext(ShardId shardId, TimeValue keepAlive) {
+        validateReaderKeepAlive(keepAlive.millis());
+        IndexShard indexShard = indicesService.indexServiceSafe(shardId.getIndex()).getShard(shardId.id());
+        Engine.Searcher searcher = indexShard.acquireSearcher("point_in_time");
+        final ReaderContext readerContext = new ReaderContext(idGenerator.incrementAndGet(), indexShard.shardId(), searcher,
+            keepAlive.millis(), threadPool::relativeTimeInMillis);
+        final ReaderContext previous = activeReaders.put(readerContext.id(), readerContext);
+        assert previous == null;
+        return readerContext.id();
+    }
+
+    /**
+     * Frees the reader context with the given id. Search requests that use it keep their searcher until they complete.
+     *
+     * @return {@code true} if the reader context existed
+     */
+    public boolean freeReaderContext(long id) {
+        final ReaderContext readerContext = activeReaders.remove(id);
+        if (readerContext != null) {
+            readerContext.decRef();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of open reader contexts.
+     */
+    public int getActiveReaderContexts() {
+        return activeReaders.size();
+    }
+
+    private Engine.Searcher acquireReaderSearcher(ShardSearchRequest request) {
+        final ReaderContext readerContext = activeReaders.get(request.readerId());
+        if (readerContext == null || readerContext.shardId().equals(request.shardId()) == false) {
+            throw new SearchContextMissingException(request.readerId());
+        }
+        SearchSourceBuilder source = request.source();
+        if (source != null && source.pointInTimeBuilder() != null && source.pointInTimeBuilder().getKeepAlive() != null) {
+            long keepAlive = source.pointInTimeBuilder().getKeepAlive().millis();
+            validateReaderKeepAlive(keepAlive);
+            readerContext.keepAlive(keepAlive);
+        }
+        return readerContext.acquireSearcher("search");
+    }
+
+    private void validateReaderKeepAlive(long keepAlive) {
+        if (keepAlive > maxKeepAlive) {
+            throw new IllegalArgumentException("Keep alive for point in time (" + TimeValue.timeValueMillis(keepAlive) + ") is too " +
+                "large. It must be less than (" + TimeValue.timeValueMillis(maxKeepAlive) + "). " +
+                "This limit can be set by changing the [" + MAX_KEEPALIVE_SETTING.getKey() + "] cluster level setting.");
+        }
+    }
+
+    private void freeAllReaderContextsForIndex(Index index) {
+        for (ReaderContext readerContext : activeReaders.values()) {
+            if (index.equals(readerContext.shardId().getIndex())) {
+                freeReaderContext(readerContext.id());
+            }
+        }
+    }
+
     private void freeAllContextForIndex(Index index) {
         assert index != null;
         for (SearchContext ctx : activeContexts.values()) {
@@ -955,6 +1063,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     freeContext(context.id());
                 }
             }
+            for (ReaderContext readerContext : activeReaders.values()) {
+                if (readerContext.isExpired(time)) {
+                    logger.debug("freeing reader context [{}], time [{}], lastAccessTime [{}], keepAlive [{}]", readerContext.id(), time,
+                        readerContext.lastAccessTime(), readerContext.keepAlive());
+                    freeReaderContext(readerContext.id());
+                }
+            }
         }
     }
 
@@ -979,6 +1094,56 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * Returns the minimum and maximum values of the date fields that the query of the given request requires to be in a range, or
+     * {@code null} if the shard may still change, that is if its index is not write-blocked or it has operations that are not
+     * visible to searches yet. The coordinating node caches these ranges to skip the shard without a can_match round trip until
+     * the metadata of the index changes. This must be called before the request gets rewritten.
+     */
+    @Nullable
+    public ShardFieldRanges cacheableFieldRanges(ShardSearchRequest request) throws IOException {
+        SearchSourceBuilder source = request.source();
+        if (source == null || request.getClusterAlias() != null || request.readerId() >= 0) {
+            return null;
+        }
+        List<RangeQueryBuilder> rangeQueries = new ArrayList<>();
+        ShardFieldRanges.collectRequiredRanges(source.query(), rangeQueries);
+        if (rangeQueries.isEmpty()) {
+            return null;
+        }
+        final ClusterState state = clusterService.state();
+        final Index index = request.shardId().getIndex();
+        final IndexMetaData indexMetaData = state.metaData().index(index);
+        if (indexMetaData == null || state.blocks().indexBlocked(ClusterBlockLevel.WRITE, index.getName()) == false) {
+            return null;
+        }
+        IndexService indexService = indicesService.indexServiceSafe(index);
+        IndexShard indexShard = indexService.getShard(request.shardId().id());
+        if (indexShard.isRefreshNeeded() || indexShard.getLocalCheckpoint() != indexShard.seqNoStats().getMaxSeqNo()) {
+            return null;
+        }
+        Map<String, ShardFieldRanges.DateRange> ranges = new HashMap<>();
+        try (Engine.Searcher searcher = indexShard.acquireSearcher("can_match")) {
+            IndexReader reader = searcher.reader();
+            for (RangeQueryBuilder rangeQuery : rangeQueries) {
+                String field = rangeQuery.fieldName();
+                MappedFieldType fieldType = indexService.mapperService().fullName(field);
+                if (fieldType instanceof DateFieldMapper.DateFieldType == false || field.equals(fieldType.name()) == false) {
+                    continue;
+                }
+                FormatDateTimeFormatter formatter = ((DateFieldMapper.DateFieldType) fieldType).dateTimeFormatter();
+                Long min = null;
+                Long max = null;
+                if (PointValues.size(reader, field) > 0) {
+                    min = LongPoint.decodeDimension(PointValues.getMinPackedValue(reader, field), 0);
+                    max = LongPoint.decodeDimension(PointValues.getMaxPackedValue(reader, field), 0);
+                }
+                ranges.put(field, new ShardFieldRanges.DateRange(formatter.format(), formatter.locale().toString(), min, max));
+            }
+        }
+        return ranges.isEmpty() ? null : new ShardFieldRanges(indexMetaData.getVersion(), ranges);
+    }
+
     /**
      * Returns true iff the given search source builder can be early terminated by rewriting to a match none query. Or in other words
      * if the execution of a the search request can be early terminated without executing it. This is for instance not possible if
@@ -1007,7 +1172,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         // AliasFilters that might need to be rewritten. These are edge-cases but we are every efficient doing the rewrite here so it's not
         // adding a lot of overhead
         Rewriteable.rewriteAndFetch(request.getRewriteable(), indicesService.getRewriteContext(request::nowInMillis),
-            ActionListener.wrap(r ->
+            ActionListener.wrap(r -> {
+                // if the shard is search idle we need to wait for the changes that scheduled refreshes skipped to become visible
+                final IndexShard shard = indicesService.indexServiceSafe(request.shardId().getIndex()).getShard(request.shardId().id());
+                shard.awaitShardSearchActive(b ->
                     threadPool.executor(Names.SEARCH).execute(new AbstractRunnable() {
                         @Override
                         public void onFailure(Exception e) {
@@ -1018,7 +1186,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                         protected void doRun() throws Exception {
                             listener.onResponse(request);
                         }
-                    }), listener::onFailure));
+                    }));
+            }, listener::onFailure));
     }
 
     /**
@@ -33,6 +33,7 @@ import org.elasticsearch.search.query.QueryPhaseExecutionException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -59,8 +60,19 @@ public class AggregationPhase implements SearchPhase {
                     }
                 }
                 context.aggregations().aggregators(aggregators);
-                if (!collectors.isEmpty()) {
+                if (!collectors.isEmpty() && canCollectPerSegment(context, collectors.size() == aggregators.length)) {
+                    // the top level aggregators only build the aggregations of the shard if no segment is collected
+                    BucketCollector topLevelCollector = BucketCollector.wrap(collectors);
+                    topLevelCollector.preCollection();
+                    SegmentCachingAggregationCollector segmentCollector = new SegmentCachingAggregationCollector(context,
+                        context.aggregations().segmentCache(), topLevelCollector.needsScores());
+                    context.aggregations().segmentCachingCollector(segmentCollector);
+                    context.queryCollectors().put(AggregationPhase.class, BatchingBucketCollector.wrap(segmentCollector));
+                } else if (!collectors.isEmpty()) {
                     Collector collector = BucketCollector.wrap(collectors);
+                    if (context.getProfilers() == null) {
+                        collector = BatchingBucketCollector.wrap((BucketCollector) collector);
+                    }
                     ((BucketCollector)collector).preCollection();
                     if (context.getProfilers() != null) {
                         collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
@@ -75,6 +87,50 @@ public class AggregationPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Whether the aggregations of the request can be collected and cached per segment.
+     */
+    private static boolean canCollectPerSegment(SearchContext context, boolean noGlobalAggregations) {
+        return context.aggregations().segmentCache() != null
+            && noGlobalAggregations
+            && context.getProfilers() == null
+            && context.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+            && context.scrollContext() == null
+            && context.request() != null
+            && context.request().source() != null
+            && context.request().source().aggregations() != null
+            && SegmentCachingAggregationCollector.canCollectPerSegment(
+                context.request().source().aggregations().getAggregatorFactories());
+    }
+
+    /**
+     * Whether the aggregations of the request can be collected by the slices of segments that are searched concurrently, each slice
+     * with its own aggregators whose aggregations are reduced with the ones of the shard.
+     */
+    public static boolean canCollectConcurrently(SearchContext context) {
+        return context.aggregations() != null
+            && context.aggregations().segmentCachingCollector() == null
+            && context.getProfilers() == null
+            && context.request() != null
+            && context.request().source() != null
+            && context.request().source().aggregations() != null
+            && SegmentCachingAggregationCollector.canCollectPerSlice(
+                context.request().source().aggregations().getAggregatorFactories());
+    }
+
+    /**
+     * Creates the aggregators of a slice of segments that is searched concurrently and returns the collector to plug in its
+     * collector chain. This must be called on the thread of the search context since aggregators register their releasables on it.
+     */
+    public static Collector createSliceCollector(SearchContext context) throws IOException {
+        assert canCollectConcurrently(context);
+        Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
+        BucketCollector collector = BatchingBucketCollector.wrap(BucketCollector.wrap(Arrays.asList(aggregators)));
+        collector.preCollection();
+        context.aggregations().addSlice(aggregators, collector);
+        return collector;
+    }
+
     @Override
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
@@ -87,6 +143,15 @@ public class AggregationPhase implements SearchPhase {
             return;
         }
 
+        Collector queryCollector = context.queryCollectors().get(AggregationPhase.class);
+        if (queryCollector instanceof BatchingBucketCollector) {
+            try {
+                ((BatchingBucketCollector) queryCollector).flush();
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect aggregations", e);
+            }
+        }
+
         Aggregator[] aggregators = context.aggregations().aggregators();
         List<Aggregator> globals = new ArrayList<>();
         for (int i = 0; i < aggregators.length; i++) {
@@ -103,6 +168,7 @@ public class AggregationPhase implements SearchPhase {
             try {
                 final Collector collector;
                 if (context.getProfilers() == null) {
+                    globalsCollector = BatchingBucketCollector.wrap(globalsCollector);
                     collector = globalsCollector;
                 } else {
                     InternalProfileCollector profileCollector = new InternalProfileCollector(
@@ -115,6 +181,9 @@ public class AggregationPhase implements SearchPhase {
                 }
                 globalsCollector.preCollection();
                 context.searcher().search(query, collector);
+                if (globalsCollector instanceof BatchingBucketCollector) {
+                    ((BatchingBucketCollector) globalsCollector).flush();
+                }
             } catch (Exception e) {
                 throw new QueryPhaseExecutionException(context, "Failed to execute global aggregators", e);
             } finally {
@@ -132,7 +201,40 @@ public class AggregationPhase implements SearchPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(new InternalAggregations(aggregations));
+        InternalAggregations shardAggregations = new InternalAggregations(aggregations);
+        List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        if (sliceAggregators.isEmpty() == false) {
+            List<InternalAggregations> slices = new ArrayList<>(sliceAggregators.size() + 1);
+            slices.add(shardAggregations);
+            for (int i = 0; i < sliceAggregators.size(); i++) {
+                List<InternalAggregation> sliceAggregations = new ArrayList<>(sliceAggregators.get(i).length);
+                context.aggregations().resetBucketMultiConsumer();
+                try {
+                    context.aggregations().sliceCollectors().get(i).postCollection();
+                    for (Aggregator aggregator : sliceAggregators.get(i)) {
+                        sliceAggregations.add(aggregator.buildAggregation(0));
+                    }
+                } catch (IOException e) {
+                    throw new AggregationExecutionException("Failed to build the aggregations of a slice", e);
+                }
+                slices.add(new InternalAggregations(sliceAggregations));
+            }
+            final InternalAggregation.ReduceContext reduceContext =
+                new InternalAggregation.ReduceContext(context.bigArrays(), context.getQueryShardContext().getScriptService(), false);
+            shardAggregations = InternalAggregations.reduce(slices, reduceContext);
+        }
+        SegmentCachingAggregationCollector segmentCollector = context.aggregations().segmentCachingCollector();
+        if (segmentCollector != null) {
+            // the segment that was collected last is incomplete if the collection stopped early
+            boolean complete = context.queryResult().searchTimedOut() == false
+                && Boolean.TRUE.equals(context.queryResult().terminatedEarly()) == false;
+            try {
+                shardAggregations = segmentCollector.reduce(shardAggregations, complete);
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to build the aggregations of the segments", e);
+            }
+        }
+        context.queryResult().aggregations(shardAggregations);
         try {
             List<PipelineAggregator> pipelineAggregators = context.aggregations().factories().createPipelineAggregators();
             List<SiblingPipelineAggregator> siblingPipelineAggregators = new ArrayList<>(pipelineAggregators.size());
@@ -20,6 +20,7 @@ package org.elasticsearch.search.aggregations;
 
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
@@ -113,12 +114,25 @@ public class Aggregations implements Iterable<Aggregation>, ToXContentFragment {
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        for (ToXContent chunk : toXContentChunks()) {
+            chunk.toXContent(builder, params);
+        }
+        return builder;
+    }
+
+    /**
+     * Splits {@link #toXContent(XContentBuilder, Params)} into parts that are written to the same builder one after the other:
+     * the start of the aggregations object, every top-level aggregation and the end of the aggregations object.
+     */
+    public List<ToXContent> toXContentChunks() {
         if (aggregations.isEmpty()) {
-            return builder;
+            return Collections.emptyList();
         }
-        builder.startObject(AGGREGATIONS_FIELD);
-        toXContentInternal(builder, params);
-        return builder.endObject();
+        final List<ToXContent> chunks = new ArrayList<>(aggregations.size() + 2);
+        chunks.add((builder, params) -> builder.startObject(AGGREGATIONS_FIELD));
+        chunks.addAll(aggregations);
+        chunks.add((builder, params) -> builder.endObject());
+        return chunks;
     }
 
     /**
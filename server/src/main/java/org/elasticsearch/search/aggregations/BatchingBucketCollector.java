@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Scorer;
+
+import java.io.IOException;
+
+/**
+ * A {@link BucketCollector} that buffers the docs that are collected by a top-level collector and hands them over to the
+ * wrapped collector in blocks of up to {@link #BATCH_SIZE} docs through {@link LeafBucketCollector#collect(int[], int, long)}.
+ * <p>
+ * Since docs are handed over after the scorer moved past them, collectors that need scores are never wrapped. The docs of a
+ * segment are handed over at the latest when the collector of the next segment is requested, or when {@link #flush()} or
+ * {@link #postCollection()} is called, one of which must happen before the results of the wrapped collector are read.
+ */
+public final class BatchingBucketCollector extends BucketCollector {
+
+    /**
+     * The maximum number of docs that are handed over at once.
+     */
+    public static final int BATCH_SIZE = 128;
+
+    private final BucketCollector in;
+
+    private BatchingLeafBucketCollector current;
+
+    private BatchingBucketCollector(BucketCollector in) {
+        this.in = in;
+    }
+
+    /**
+     * Wraps the given collector so that it collects docs in batches, unless it needs scores.
+     */
+    public static BucketCollector wrap(BucketCollector collector) {
+        if (collector == NO_OP_COLLECTOR || collector.needsScores()) {
+            return collector;
+        }
+        return new BatchingBucketCollector(collector);
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        // the collector of the previous segment must see all of its docs before the collector of the next segment is created
+        flush();
+        final LeafBucketCollector leafCollector = in.getLeafCollector(ctx);
+        if (leafCollector == LeafBucketCollector.NO_OP_COLLECTOR) {
+            current = null;
+            return leafCollector;
+        }
+        current = new BatchingLeafBucketCollector(leafCollector);
+        return current;
+    }
+
+    /**
+     * Hands the buffered docs over to the wrapped collector.
+     */
+    public void flush() throws IOException {
+        if (current != null) {
+            try {
+                current.flush();
+            } catch (CollectionTerminatedException e) {
+                // the segment is done anyway
+            }
+            current = null;
+        }
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        in.preCollection();
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        flush();
+        in.postCollection();
+    }
+
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "batching(" + in + ")";
+    }
+
+    private static final class BatchingLeafBucketCollector extends LeafBucketCollector {
+
+        private final LeafBucketCollector in;
+        private final int[] docs = new int[BATCH_SIZE];
+        private int count;
+
+        BatchingLeafBucketCollector(LeafBucketCollector in) {
+            this.in = in;
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+            in.setScorer(scorer);
+        }
+
+        @Override
+        public void collect(int doc, long bucket) throws IOException {
+            if (bucket != 0) {
+                // only docs of the same bucket can be collected at once
+                flush();
+                in.collect(doc, bucket);
+                return;
+            }
+            docs[count++] = doc;
+            if (count == docs.length) {
+                flush();
+            }
+        }
+
+        @Override
+        public void collect(int[] docs, int count, long bucket) throws IOException {
+            flush();
+            in.collect(docs, count, bucket);
+        }
+
+        void flush() throws IOException {
+            if (count > 0) {
+                final int size = count;
+                count = 0;
+                in.collect(docs, size, 0);
+            }
+        }
+    }
+}
@@ -18,6 +18,10 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.common.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.IntConsumer;
 
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
@@ -30,6 +34,11 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private final MultiBucketConsumer multiBucketConsumer;
     private Aggregator[] aggregators;
+    private SegmentAggregationCache segmentCache;
+    private SegmentCachingAggregationCollector segmentCachingCollector;
+    // the aggregators and collectors of the slices of segments that are searched concurrently with the first one
+    private final List<Aggregator[]> sliceAggregators = new ArrayList<>();
+    private final List<BucketCollector> sliceCollectors = new ArrayList<>();
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -67,4 +76,42 @@ public class SearchContextAggregations {
     void resetBucketMultiConsumer() {
         multiBucketConsumer.reset();
     }
+
+    /**
+     * Returns the cache of the aggregations of the individual segments of the shard, if the request can be cached.
+     */
+    @Nullable
+    public SegmentAggregationCache segmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * Sets the cache of the aggregations of the individual segments of the shard, which is only used if all the aggregations of
+     * the request can be computed per segment.
+     */
+    public void segmentCache(@Nullable SegmentAggregationCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    @Nullable
+    SegmentCachingAggregationCollector segmentCachingCollector() {
+        return segmentCachingCollector;
+    }
+
+    void segmentCachingCollector(@Nullable SegmentCachingAggregationCollector segmentCachingCollector) {
+        this.segmentCachingCollector = segmentCachingCollector;
+    }
+
+    void addSlice(Aggregator[] aggregators, BucketCollector collector) {
+        sliceAggregators.add(aggregators);
+        sliceCollectors.add(collector);
+    }
+
+    List<Aggregator[]> sliceAggregators() {
+        return sliceAggregators;
+    }
+
+    List<BucketCollector> sliceCollectors() {
+        return sliceCollectors;
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Caches the aggregations of the individual segments of a shard for a request, so that the aggregations of the shard only need
+ * to be computed on the segments that changed since the last time the request was executed.
+ */
+public interface SegmentAggregationCache {
+
+    /**
+     * Returns the cached aggregations of the given segment, or <code>null</code> if they are not cached.
+     */
+    @Nullable
+    InternalAggregations get(LeafReaderContext ctx) throws IOException;
+
+    /**
+     * Caches the aggregations of the given segment, which were collected from all of its matching docs.
+     */
+    void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException;
+}
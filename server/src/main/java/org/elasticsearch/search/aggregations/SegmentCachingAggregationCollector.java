@@ -0,0 +1,193 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.missing.MissingAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.DateRangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.min.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.stats.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.stats.extended.ExtendedStatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountAggregationBuilder;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link BucketCollector} that computes the top-level aggregations of every segment of a shard separately, with a new set of
+ * aggregators per segment, and caches the aggregations of each segment once all of its docs were collected. Segments whose
+ * aggregations are already cached are not collected at all. The aggregations of the segments are then reduced into the
+ * aggregations of the shard.
+ * <p>
+ * This relies on segments being collected one after the other, and is only used for aggregations whose shard level results are
+ * the same whether they are computed on the whole shard at once or reduced from the results of its segments.
+ */
+final class SegmentCachingAggregationCollector extends BucketCollector {
+
+    // aggregations that do not prune or approximate anything when they build their shard level results
+    private static final Set<String> SEGMENT_REDUCIBLE_AGGREGATIONS = new HashSet<>(Arrays.asList(
+        MinAggregationBuilder.NAME, MaxAggregationBuilder.NAME, SumAggregationBuilder.NAME, AvgAggregationBuilder.NAME,
+        ValueCountAggregationBuilder.NAME, StatsAggregationBuilder.NAME, ExtendedStatsAggregationBuilder.NAME,
+        HistogramAggregationBuilder.NAME, DateHistogramAggregationBuilder.NAME, RangeAggregationBuilder.NAME,
+        DateRangeAggregationBuilder.NAME, FilterAggregationBuilder.NAME, FiltersAggregationBuilder.NAME,
+        MissingAggregationBuilder.NAME));
+
+    // aggregations whose aggregators can collect on several threads at once, each with its own aggregators, since their factories
+    // only share immutable state: filter and filters lazily create the weights of their filters on the factory
+    private static final Set<String> SLICE_REDUCIBLE_AGGREGATIONS;
+    static {
+        Set<String> sliceReducible = new HashSet<>(SEGMENT_REDUCIBLE_AGGREGATIONS);
+        sliceReducible.remove(FilterAggregationBuilder.NAME);
+        sliceReducible.remove(FiltersAggregationBuilder.NAME);
+        SLICE_REDUCIBLE_AGGREGATIONS = Collections.unmodifiableSet(sliceReducible);
+    }
+
+    private final SearchContext context;
+    private final SegmentAggregationCache cache;
+    private final boolean needsScores;
+    private final List<InternalAggregations> segmentAggregations = new ArrayList<>();
+
+    // the segment that is being collected, and its aggregators
+    private LeafReaderContext currentSegment;
+    private Aggregator[] currentAggregators;
+    private BucketCollector currentCollector;
+
+    SegmentCachingAggregationCollector(SearchContext context, SegmentAggregationCache cache, boolean needsScores) {
+        this.context = context;
+        this.cache = cache;
+        this.needsScores = needsScores;
+    }
+
+    /**
+     * Whether the given aggregations can be computed per segment.
+     */
+    static boolean canCollectPerSegment(Collection<AggregationBuilder> aggregations) {
+        return allReducible(aggregations, SEGMENT_REDUCIBLE_AGGREGATIONS);
+    }
+
+    /**
+     * Whether the given aggregations can be computed per slice of segments that are searched concurrently.
+     */
+    static boolean canCollectPerSlice(Collection<AggregationBuilder> aggregations) {
+        return allReducible(aggregations, SLICE_REDUCIBLE_AGGREGATIONS);
+    }
+
+    private static boolean allReducible(Collection<AggregationBuilder> aggregations, Set<String> reducible) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (reducible.contains(aggregation.getType()) == false
+                    || allReducible(aggregation.getSubAggregations(), reducible) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        // the previous segment was fully collected
+        finishSegment(true);
+        final InternalAggregations cached = cache.get(ctx);
+        if (cached != null) {
+            segmentAggregations.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        currentAggregators = context.aggregations().factories().createTopLevelAggregators();
+        currentCollector = BucketCollector.wrap(Arrays.asList(currentAggregators));
+        currentCollector.preCollection();
+        currentSegment = ctx;
+        return currentCollector.getLeafCollector(ctx);
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        // aggregators are created per segment
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        finishSegment(true);
+    }
+
+    @Override
+    public boolean needsScores() {
+        return needsScores;
+    }
+
+    /**
+     * Builds the aggregations of the segment that is being collected, and caches them if all of its docs were collected.
+     */
+    private void finishSegment(boolean complete) throws IOException {
+        if (currentSegment == null) {
+            return;
+        }
+        currentCollector.postCollection();
+        final List<InternalAggregation> aggregations = new ArrayList<>(currentAggregators.length);
+        context.aggregations().resetBucketMultiConsumer();
+        for (Aggregator aggregator : currentAggregators) {
+            aggregations.add(aggregator.buildAggregation(0));
+        }
+        final InternalAggregations internalAggregations = new InternalAggregations(aggregations);
+        if (complete) {
+            cache.put(currentSegment, internalAggregations);
+        }
+        segmentAggregations.add(internalAggregations);
+        currentSegment = null;
+        currentAggregators = null;
+        currentCollector = null;
+    }
+
+    /**
+     * Reduces the aggregations of all the segments into the aggregations of the shard.
+     *
+     * @param emptyAggregations the aggregations of the shard if no segment was collected
+     * @param complete whether the segment that was collected last was fully collected
+     */
+    InternalAggregations reduce(InternalAggregations emptyAggregations, boolean complete) throws IOException {
+        finishSegment(complete);
+        if (segmentAggregations.isEmpty()) {
+            return emptyAggregations;
+        }
+        final InternalAggregation.ReduceContext reduceContext =
+            new InternalAggregation.ReduceContext(context.bigArrays(), context.getQueryShardContext().getScriptService(), false);
+        return InternalAggregations.reduce(segmentAggregations, reduceContext);
+    }
+
+    @Override
+    public String toString() {
+        return "segment_caching(" + context.aggregations().factories() + ")";
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ * Counts the docs that have a value of a numeric or date field in a range by visiting the points of the field rather than
+ * reading its doc values, which allows bucket aggregations to count their buckets one range at a time ("filter by filter").
+ * <p>
+ * This is only correct if the aggregation would otherwise collect every doc that matches the query into bucket 0, so a
+ * counter is only {@link #build built} for top-level aggregations without sub-aggregations on the values of an indexed field,
+ * when the query either matches all docs or is a range query on the same field. Even then, segments where the field has
+ * more than one value per doc can not be counted, see {@link #canCount(LeafReaderContext)}.
+ */
+public final class PointRangeCounter {
+
+    // doubles represent all longs whose absolute value is below this limit exactly
+    private static final double MAX_EXACT_LONG = 1L << 53;
+
+    private enum PointType {
+        LONG(Long.BYTES),
+        INT(Integer.BYTES),
+        DOUBLE(Double.BYTES);
+
+        final int bytes;
+
+        PointType(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private final String field;
+    private final PointType type;
+    // the inclusive bounds of the range query, or null if the query matches all docs
+    private final byte[] queryLower;
+    private final byte[] queryUpper;
+
+    private PointRangeCounter(String field, PointType type, byte[] queryLower, byte[] queryUpper) {
+        this.field = field;
+        this.type = type;
+        this.queryLower = queryLower;
+        this.queryUpper = queryUpper;
+    }
+
+    /**
+     * Returns a counter for the values of the given aggregation, or {@code null} if its buckets can not be counted from the
+     * points of its field.
+     */
+    @Nullable
+    public static PointRangeCounter build(SearchContext context, Aggregator parent, AggregatorFactories factories,
+                                          ValuesSourceConfig<ValuesSource.Numeric> config,
+                                          @Nullable ValuesSource.Numeric valuesSource) {
+        if (parent != null || factories.countAggregators() > 0) {
+            return null;
+        }
+        if (context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER || context.minimumScore() != null) {
+            // not all docs that match the query are collected
+            return null;
+        }
+        // scripts and missing values wrap the doc values of the field
+        if (valuesSource == null || valuesSource.getClass() != ValuesSource.Numeric.FieldData.class || config.fieldContext() == null) {
+            return null;
+        }
+        final MappedFieldType fieldType = config.fieldContext().fieldType();
+        final PointType type = pointType(fieldType);
+        if (type == null) {
+            return null;
+        }
+
+        Query query = context.query();
+        while (true) {
+            if (query instanceof BoostQuery) {
+                query = ((BoostQuery) query).getQuery();
+            } else if (query instanceof ConstantScoreQuery) {
+                query = ((ConstantScoreQuery) query).getQuery();
+            } else if (query instanceof IndexOrDocValuesQuery) {
+                query = ((IndexOrDocValuesQuery) query).getIndexQuery();
+            } else {
+                break;
+            }
+        }
+        if (query instanceof MatchAllDocsQuery) {
+            return new PointRangeCounter(fieldType.name(), type, null, null);
+        }
+        if (query instanceof PointRangeQuery) {
+            final PointRangeQuery rangeQuery = (PointRangeQuery) query;
+            if (rangeQuery.getField().equals(fieldType.name()) && rangeQuery.getNumDims() == 1
+                    && rangeQuery.getLowerPoint().length == type.bytes) {
+                return new PointRangeCounter(fieldType.name(), type, rangeQuery.getLowerPoint(), rangeQuery.getUpperPoint());
+            }
+        }
+        return null;
+    }
+
+    private static PointType pointType(MappedFieldType fieldType) {
+        if (fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        if (fieldType instanceof DateFieldMapper.DateFieldType) {
+            return PointType.LONG;
+        }
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            switch (fieldType.typeName()) {
+                case "long":
+                    return PointType.LONG;
+                case "integer":
+                case "short":
+                case "byte":
+                    return PointType.INT;
+                case "double":
+                    return PointType.DOUBLE;
+                default:
+                    // float and half_float values are rounded when they are indexed, we can not translate ranges on doubles exactly
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The bounds of the docs whose value {@code v}, converted to a double, satisfies {@code from <= v < to}, like the ranges of
+     * the range aggregation, or {@code null} if they can not be expressed exactly on the points of the field.
+     */
+    @Nullable
+    public Bounds bounds(double from, double to) {
+        final byte[] lower = new byte[type.bytes];
+        final byte[] upper = new byte[type.bytes];
+        switch (type) {
+            case LONG:
+            case INT:
+                if (isExact(from, Double.NEGATIVE_INFINITY) == false || isExact(to, Double.POSITIVE_INFINITY) == false) {
+                    return null;
+                }
+                // the smallest long that is >= from and the largest long that is < to
+                long lowerLong = from == Double.NEGATIVE_INFINITY ? Long.MIN_VALUE : (long) Math.ceil(from);
+                long upperLong = to == Double.POSITIVE_INFINITY ? Long.MAX_VALUE : (long) Math.ceil(to) - 1;
+                if (type == PointType.LONG) {
+                    LongPoint.encodeDimension(lowerLong, lower, 0);
+                    LongPoint.encodeDimension(upperLong, upper, 0);
+                } else {
+                    lowerLong = Math.max(lowerLong, Integer.MIN_VALUE);
+                    upperLong = Math.min(upperLong, Integer.MAX_VALUE);
+                    if (lowerLong > upperLong) {
+                        return Bounds.EMPTY;
+                    }
+                    IntPoint.encodeDimension((int) lowerLong, lower, 0);
+                    IntPoint.encodeDimension((int) upperLong, upper, 0);
+                }
+                break;
+            case DOUBLE:
+                if (Double.isNaN(from) || Double.isNaN(to)) {
+                    return null;
+                }
+                if (to == Double.NEGATIVE_INFINITY) {
+                    return Bounds.EMPTY;
+                }
+                // -0.0 is smaller than 0.0 on points but equal as a double
+                DoublePoint.encodeDimension(from == 0 ? -0.0 : from, lower, 0);
+                DoublePoint.encodeDimension(Math.nextDown(to), upper, 0);
+                break;
+            default:
+                throw new AssertionError("unknown point type [" + type + "]");
+        }
+        return bounds(lower, upper);
+    }
+
+    private static boolean isExact(double value, double unbounded) {
+        return value == unbounded || Math.abs(value) < MAX_EXACT_LONG;
+    }
+
+    /**
+     * The bounds of the docs whose value {@code v} satisfies {@code from <= v < to}, for fields whose values are indexed as longs.
+     */
+    public Bounds bounds(long from, long to) {
+        if (type != PointType.LONG) {
+            throw new IllegalStateException("field [" + field + "] is not indexed as longs");
+        }
+        if (from >= to) {
+            return Bounds.EMPTY;
+        }
+        final byte[] lower = new byte[Long.BYTES];
+        final byte[] upper = new byte[Long.BYTES];
+        LongPoint.encodeDimension(from, lower, 0);
+        LongPoint.encodeDimension(to - 1, upper, 0);
+        return bounds(lower, upper);
+    }
+
+    private Bounds bounds(byte[] lower, byte[] upper) {
+        if (queryLower != null && compareEncoded(lower, queryLower) < 0) {
+            System.arraycopy(queryLower, 0, lower, 0, lower.length);
+        }
+        if (queryUpper != null && compareEncoded(upper, queryUpper) > 0) {
+            System.arraycopy(queryUpper, 0, upper, 0, upper.length);
+        }
+        if (compareEncoded(lower, upper) > 0) {
+            return Bounds.EMPTY;
+        }
+        return new Bounds(lower, upper);
+    }
+
+    /**
+     * The smallest and the largest value of the field that match the query in any segment of the given reader, or {@code null}
+     * if there is no such value. Only for fields whose values are indexed as longs.
+     */
+    @Nullable
+    public long[] minAndMax(IndexReader reader) throws IOException {
+        if (type != PointType.LONG) {
+            throw new IllegalStateException("field [" + field + "] is not indexed as longs");
+        }
+        final byte[] min = PointValues.getMinPackedValue(reader, field);
+        final byte[] max = PointValues.getMaxPackedValue(reader, field);
+        if (min == null || max == null) {
+            return null;
+        }
+        final Bounds bounds = bounds(min.clone(), max.clone());
+        if (bounds == Bounds.EMPTY) {
+            return null;
+        }
+        return new long[] { LongPoint.decodeDimension(bounds.lower, 0), LongPoint.decodeDimension(bounds.upper, 0) };
+    }
+
+    /**
+     * Whether the docs of the given segment can be counted. This requires that the field is indexed with points in the segment
+     * and that every doc has at most one value, since a doc with several values in a range must only be counted once.
+     */
+    public boolean canCount(LeafReaderContext ctx) throws IOException {
+        final FieldInfo fieldInfo = ctx.reader().getFieldInfos().fieldInfo(field);
+        if (fieldInfo == null) {
+            // no doc has a value
+            return true;
+        }
+        if (fieldInfo.getPointDimensionCount() != 1 || fieldInfo.getPointNumBytes() != type.bytes) {
+            return false;
+        }
+        final PointValues values = ctx.reader().getPointValues(field);
+        return values == null || values.size() == values.getDocCount();
+    }
+
+    /**
+     * Counts the live docs of the given segment whose value is within the given bounds. Must only be called if
+     * {@link #canCount(LeafReaderContext)} returned true for the segment.
+     */
+    public int count(LeafReaderContext ctx, Bounds bounds) throws IOException {
+        assert canCount(ctx);
+        final PointValues values = ctx.reader().getPointValues(field);
+        if (values == null || bounds == Bounds.EMPTY) {
+            return 0;
+        }
+        final CountingVisitor visitor = new CountingVisitor(bounds, ctx.reader().getLiveDocs());
+        values.intersect(visitor);
+        return visitor.count;
+    }
+
+    private int compareEncoded(byte[] a, byte[] b) {
+        return StringHelper.compare(type.bytes, a, 0, b, 0);
+    }
+
+    /**
+     * Inclusive bounds on the encoded values of a field.
+     */
+    public static final class Bounds {
+        static final Bounds EMPTY = new Bounds(null, null);
+
+        private final byte[] lower;
+        private final byte[] upper;
+
+        private Bounds(byte[] lower, byte[] upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+    }
+
+    private final class CountingVisitor implements PointValues.IntersectVisitor {
+        private final Bounds bounds;
+        private final Bits liveDocs;
+        int count;
+
+        CountingVisitor(Bounds bounds, Bits liveDocs) {
+            this.bounds = bounds;
+            this.liveDocs = liveDocs;
+        }
+
+        @Override
+        public void visit(int docID) {
+            if (liveDocs == null || liveDocs.get(docID)) {
+                count++;
+            }
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+            if (compareEncoded(packedValue, bounds.lower) >= 0 && compareEncoded(packedValue, bounds.upper) <= 0) {
+                visit(docID);
+            }
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+            if (compareEncoded(maxPackedValue, bounds.lower) < 0
+                    || compareEncoded(minPackedValue, bounds.upper) > 0) {
+                return PointValues.Relation.CELL_OUTSIDE_QUERY;
+            }
+            if (compareEncoded(minPackedValue, bounds.lower) >= 0
+                    && compareEncoded(maxPackedValue, bounds.upper) <= 0) {
+                return PointValues.Relation.CELL_INSIDE_QUERY;
+            }
+            return PointValues.Relation.CELL_CROSSES_QUERY;
+        }
+    }
+}
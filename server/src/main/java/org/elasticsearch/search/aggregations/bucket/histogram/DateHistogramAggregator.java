@@ -32,6 +32,7 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointRangeCounter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalOrder;
@@ -52,6 +53,9 @@ import java.util.Map;
  */
 class DateHistogramAggregator extends BucketsAggregator {
 
+    // the maximum number of buckets that are counted from the points of the field, one bucket after the other
+    static final int MAX_POINT_RANGE_BUCKETS = 1024;
+
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
     private final Rounding rounding;
@@ -65,10 +69,16 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final LongHash bucketOrds;
     private long offset;
 
+    // counts the docs of each bucket from the points of the field when possible, null otherwise
+    private PointRangeCounter pointRangeCounter;
+    // the keys and the bounds of the buckets that are counted from the points, computed on the first segment that is counted
+    private long[] pointRangeKeys;
+    private PointRangeCounter.Bounds[] pointRangeBounds;
+
     DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, Rounding shardRounding,
             long offset, BucketOrder order, boolean keyed,
             long minDocCount, @Nullable ExtendedBounds extendedBounds, @Nullable ValuesSource.Numeric valuesSource,
-            DocValueFormat formatter, SearchContext aggregationContext,
+            DocValueFormat formatter, @Nullable PointRangeCounter pointRangeCounter, SearchContext aggregationContext,
             Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
 
         super(name, factories, aggregationContext, parent, pipelineAggregators, metaData);
@@ -81,6 +91,7 @@ class DateHistogramAggregator extends BucketsAggregator {
         this.extendedBounds = extendedBounds;
         this.valuesSource = valuesSource;
         this.formatter = formatter;
+        this.pointRangeCounter = pointRangeCounter;
 
         bucketOrds = new LongHash(1, aggregationContext.bigArrays());
     }
@@ -93,7 +104,7 @@ class DateHistogramAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
-        if (valuesSource == null) {
+        if (valuesSource == null || countFromPoints(ctx)) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
         final SortedNumericDocValues values = valuesSource.longValues(ctx);
@@ -125,9 +136,105 @@ class DateHistogramAggregator extends BucketsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                assert bucket == 0;
+                // consecutive docs often fall into the same bucket, in which case we can skip looking up its ordinal
+                long lastRounded = Long.MIN_VALUE;
+                long lastBucketOrd = -1;
+                for (int d = 0; d < count; d++) {
+                    final int doc = docs[d];
+                    if (values.advanceExact(doc)) {
+                        final int valuesCount = values.docValueCount();
+
+                        long previousRounded = Long.MIN_VALUE;
+                        for (int i = 0; i < valuesCount; ++i) {
+                            long value = values.nextValue();
+                            long rounded = shardRounding.round(value - offset) + offset;
+                            assert rounded >= previousRounded;
+                            if (rounded == previousRounded) {
+                                continue;
+                            }
+                            if (lastBucketOrd == -1 || rounded != lastRounded) {
+                                long bucketOrd = bucketOrds.add(rounded);
+                                if (bucketOrd < 0) { // already seen
+                                    bucketOrd = -1 - bucketOrd;
+                                } else {
+                                    grow(bucketOrd + 1);
+                                }
+                                lastRounded = rounded;
+                                lastBucketOrd = bucketOrd;
+                            }
+                            collectExistingBucket(sub, doc, lastBucketOrd);
+                            previousRounded = rounded;
+                        }
+                    }
+                }
+            }
         };
     }
 
+    /**
+     * Counts the docs of every bucket of the given segment, one bucket after the other, from the points of the field.
+     *
+     * @return whether the docs were counted
+     */
+    private boolean countFromPoints(LeafReaderContext ctx) throws IOException {
+        if (pointRangeCounter == null || pointRangeCounter.canCount(ctx) == false) {
+            return false;
+        }
+        if (pointRangeKeys == null && buildPointRanges() == false) {
+            pointRangeCounter = null;
+            return false;
+        }
+        for (int i = 0; i < pointRangeKeys.length; i++) {
+            final int count = pointRangeCounter.count(ctx, pointRangeBounds[i]);
+            if (count > 0) {
+                long bucketOrd = bucketOrds.add(pointRangeKeys[i]);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                }
+                incrementBucketDocCount(bucketOrd, count);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the buckets between the smallest and the largest value of the field.
+     *
+     * @return false if there are too many buckets or if the buckets can not be expressed as ranges of values
+     */
+    private boolean buildPointRanges() throws IOException {
+        final List<Long> keys = new ArrayList<>();
+        final List<PointRangeCounter.Bounds> bounds = new ArrayList<>();
+        final long[] minAndMax = pointRangeCounter.minAndMax(context.searcher().getIndexReader());
+        if (minAndMax != null) {
+            long key = shardRounding.round(minAndMax[0] - offset) + offset;
+            if (shardRounding.round(key - offset) + offset != key) {
+                return false;
+            }
+            while (key <= minAndMax[1]) {
+                if (keys.size() == MAX_POINT_RANGE_BUCKETS) {
+                    return false;
+                }
+                final long next = shardRounding.nextRoundingValue(key - offset) + offset;
+                // all values in [key, next) must round to key
+                if (next <= key || shardRounding.round(next - 1 - offset) + offset != key
+                        || shardRounding.round(next - offset) + offset != next) {
+                    return false;
+                }
+                keys.add(key);
+                bounds.add(pointRangeCounter.bounds(key, next));
+                key = next;
+            }
+        }
+        pointRangeKeys = keys.stream().mapToLong(Long::longValue).toArray();
+        pointRangeBounds = bounds.toArray(new PointRangeCounter.Bounds[0]);
+        return true;
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         assert owningBucketOrdinal == 0;
@@ -125,6 +125,43 @@ class HistogramAggregator extends BucketsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                assert bucket == 0;
+                // consecutive docs often fall into the same bucket, in which case we can skip looking up its ordinal
+                long lastKeyBits = 0;
+                long lastBucketOrd = -1;
+                for (int d = 0; d < count; d++) {
+                    final int doc = docs[d];
+                    if (values.advanceExact(doc)) {
+                        final int valuesCount = values.docValueCount();
+
+                        double previousKey = Double.NEGATIVE_INFINITY;
+                        for (int i = 0; i < valuesCount; ++i) {
+                            double value = values.nextValue();
+                            double key = Math.floor((value - offset) / interval);
+                            assert key >= previousKey;
+                            if (key == previousKey) {
+                                continue;
+                            }
+                            final long keyBits = Double.doubleToLongBits(key);
+                            if (lastBucketOrd == -1 || keyBits != lastKeyBits) {
+                                long bucketOrd = bucketOrds.add(keyBits);
+                                if (bucketOrd < 0) { // already seen
+                                    bucketOrd = -1 - bucketOrd;
+                                } else {
+                                    grow(bucketOrd + 1);
+                                }
+                                lastKeyBits = keyBits;
+                                lastBucketOrd = bucketOrd;
+                            }
+                            collectExistingBucket(sub, doc, lastBucketOrd);
+                            previousKey = key;
+                        }
+                    }
+                }
+            }
         };
     }
 
@@ -19,6 +19,7 @@
 package org.elasticsearch.search.aggregations.bucket.range;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -38,6 +39,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.NonCollectingAggregator;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointRangeCounter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -225,9 +227,23 @@ public class RangeAggregator extends BucketsAggregator {
 
     final double[] maxTo;
 
+    // the bounds of the ranges on the points of the field if the ranges can be counted filter by filter, null otherwise
+    private final PointRangeCounter pointRangeCounter;
+    private final PointRangeCounter.Bounds[] pointRangeBounds;
+
     public RangeAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
             InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, SearchContext context,
             Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        this(name, factories, valuesSource, format, rangeFactory, ranges, keyed, null, context, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * @param pointRangeCounter counts the docs of each range from the points of the field when possible, may be null
+     */
+    public RangeAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
+            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, @Nullable PointRangeCounter pointRangeCounter,
+            SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
 
         super(name, factories, context, parent, pipelineAggregators, metaData);
         assert valuesSource != null;
@@ -244,6 +260,20 @@ public class RangeAggregator extends BucketsAggregator {
             maxTo[i] = Math.max(this.ranges[i].to,maxTo[i-1]);
         }
 
+        PointRangeCounter.Bounds[] bounds = null;
+        if (pointRangeCounter != null) {
+            bounds = new PointRangeCounter.Bounds[ranges.length];
+            for (int i = 0; i < ranges.length; i++) {
+                bounds[i] = pointRangeCounter.bounds(ranges[i].from, ranges[i].to);
+                if (bounds[i] == null) {
+                    bounds = null;
+                    break;
+                }
+            }
+        }
+        this.pointRangeCounter = bounds == null ? null : pointRangeCounter;
+        this.pointRangeBounds = bounds;
+
     }
 
     @Override
@@ -254,6 +284,16 @@ public class RangeAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        if (pointRangeCounter != null && pointRangeCounter.canCount(ctx)) {
+            // count the docs of each range on the points of the field instead of reading the values of every doc
+            for (int i = 0; i < ranges.length; i++) {
+                final int count = pointRangeCounter.count(ctx, pointRangeBounds[i]);
+                if (count > 0) {
+                    incrementBucketDocCount(subBucketOrdinal(0, i), count);
+                }
+            }
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
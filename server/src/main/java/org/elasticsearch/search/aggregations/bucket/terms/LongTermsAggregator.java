@@ -99,6 +99,42 @@ public class LongTermsAggregator extends TermsAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrdinal) throws IOException {
+                assert owningBucketOrdinal == 0;
+                // consecutive docs often have the same value, in which case we can skip looking up its ordinal
+                long lastValue = 0;
+                long lastBucketOrdinal = -1;
+                for (int d = 0; d < count; d++) {
+                    final int doc = docs[d];
+                    if (values.advanceExact(doc)) {
+                        final int valuesCount = values.docValueCount();
+
+                        long previous = Long.MAX_VALUE;
+                        for (int i = 0; i < valuesCount; ++i) {
+                            final long val = values.nextValue();
+                            if (previous != val || i == 0) {
+                                if (lastBucketOrdinal != -1 && val == lastValue) {
+                                    collectExistingBucket(sub, doc, lastBucketOrdinal);
+                                } else if ((longFilter == null) || (longFilter.accept(val))) {
+                                    long bucketOrdinal = bucketOrds.add(val);
+                                    if (bucketOrdinal < 0) { // already seen
+                                        bucketOrdinal = -1 - bucketOrdinal;
+                                        collectExistingBucket(sub, doc, bucketOrdinal);
+                                    } else {
+                                        collectBucket(sub, doc, bucketOrdinal);
+                                    }
+                                    lastValue = val;
+                                    lastBucketOrdinal = bucketOrdinal;
+                                }
+
+                                previous = val;
+                            }
+                        }
+                    }
+                }
+            }
         };
     }
 
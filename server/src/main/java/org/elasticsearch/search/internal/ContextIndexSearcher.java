@@ -34,7 +34,9 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.Weight;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
@@ -44,8 +46,14 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -66,6 +74,10 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
     private Runnable checkCancelled;
 
+    private Executor executor;
+
+    private List<List<LeafReaderContext>> slices;
+
     public ContextIndexSearcher(Engine.Searcher searcher,
             QueryCache queryCache, QueryCachingPolicy queryCachingPolicy) {
         super(searcher.reader());
@@ -74,6 +86,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         setSimilarity(searcher.searcher().getSimilarity(true));
         setQueryCache(queryCache);
         setQueryCachingPolicy(queryCachingPolicy);
+        slices = Collections.singletonList(getIndexReader().leaves());
     }
 
     @Override
@@ -92,6 +105,112 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         this.checkCancelled = checkCancelled;
     }
 
+    /**
+     * Allows {@link #search(Query, List)} to search up to {@code maxSlices} slices of the segments of this searcher concurrently
+     * on the given executor.
+     */
+    public void setExecutor(Executor executor, int maxSlices) {
+        this.executor = executor;
+        this.slices = slices(getIndexReader().leaves(), maxSlices);
+    }
+
+    /**
+     * The number of slices that {@link #search(Query, List)} searches concurrently, 1 if segments are searched sequentially.
+     */
+    public int numSlices() {
+        return slices.size();
+    }
+
+    /**
+     * Splits the given segments in up to {@code maxSlices} slices of consecutive segments that have about the same number of
+     * documents. Since slices are in index order, merging their top hits breaks ties the same way as a sequential search.
+     */
+    static List<List<LeafReaderContext>> slices(List<LeafReaderContext> leaves, int maxSlices) {
+        final int numSlices = Math.max(1, Math.min(maxSlices, leaves.size()));
+        long remainingDocs = 0;
+        for (LeafReaderContext ctx : leaves) {
+            remainingDocs += ctx.reader().maxDoc();
+        }
+        final List<List<LeafReaderContext>> slices = new ArrayList<>(numSlices);
+        List<LeafReaderContext> slice = new ArrayList<>();
+        long sliceDocs = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            final LeafReaderContext ctx = leaves.get(i);
+            slice.add(ctx);
+            sliceDocs += ctx.reader().maxDoc();
+            final int remainingSlices = numSlices - slices.size() - 1;
+            final int remainingLeaves = leaves.size() - i - 1;
+            // close the slice once it has its share of the remaining documents, or if each remaining slice needs one segment
+            if (remainingSlices > 0 && (remainingLeaves == remainingSlices || sliceDocs * (remainingSlices + 1) >= remainingDocs)) {
+                slices.add(slice);
+                remainingDocs -= sliceDocs;
+                slice = new ArrayList<>();
+                sliceDocs = 0;
+            }
+        }
+        if (slice.isEmpty() == false || slices.isEmpty()) {
+            slices.add(slice);
+        }
+        return slices;
+    }
+
+    /**
+     * Searches the given query with one collector per slice, see {@link #numSlices()}. The first slice is searched on the
+     * calling thread, the other ones on the executor of this searcher. All slices are searched to completion before the first
+     * exception that a slice threw, if any, is rethrown, so the collectors hold the partial results of a search that timed out.
+     */
+    public void search(Query query, List<? extends Collector> collectors) throws IOException {
+        if (collectors.size() != slices.size()) {
+            throw new IllegalArgumentException("expected [" + slices.size() + "] collectors, got [" + collectors.size() + "]");
+        }
+        boolean needsScores = false;
+        for (Collector collector : collectors) {
+            needsScores |= collector.needsScores();
+        }
+        final Weight weight = createNormalizedWeight(query, needsScores);
+        final List<RunnableFuture<Void>> tasks = new ArrayList<>(slices.size() - 1);
+        for (int i = 1; i < slices.size(); i++) {
+            final List<LeafReaderContext> slice = slices.get(i);
+            final Collector collector = collectors.get(i);
+            final RunnableFuture<Void> task = new FutureTask<>(() -> {
+                search(slice, weight, collector);
+                return null;
+            });
+            try {
+                executor.execute(task);
+            } catch (EsRejectedExecutionException e) {
+                // the node is shutting down, search the slice on this thread
+                task.run();
+            }
+            tasks.add(task);
+        }
+        Exception failure = null;
+        try {
+            search(slices.get(0), weight, collectors.get(0));
+        } catch (Exception e) {
+            failure = e;
+        }
+        for (RunnableFuture<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                final Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                failure = ExceptionsHelper.useOrSuppress(failure, cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = ExceptionsHelper.useOrSuppress(failure, e);
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw ExceptionsHelper.convertToRuntime(failure);
+        }
+    }
+
     public void setAggregatedDfs(AggregatedDfs aggregatedDfs) {
         this.aggregatedDfs = aggregatedDfs;
     }
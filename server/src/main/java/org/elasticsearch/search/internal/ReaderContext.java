@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchContextMissingException;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Holds a searcher of a shard open on behalf of a point in time so that any number of search requests can run against the same view
+ * of the shard. The searcher is closed once the context is freed and no request uses it anymore.
+ */
+public final class ReaderContext extends AbstractRefCounted {
+
+    private final long id;
+    private final ShardId shardId;
+    private final Engine.Searcher searcher;
+    private final LongSupplier relativeTimeInMillis;
+    private volatile long keepAlive;
+    private volatile long lastAccessTime;
+
+    public ReaderContext(long id, ShardId shardId, Engine.Searcher searcher, long keepAlive, LongSupplier relativeTimeInMillis) {
+        super("reader_context");
+        this.id = id;
+        this.shardId = shardId;
+        this.searcher = searcher;
+        this.keepAlive = keepAlive;
+        this.relativeTimeInMillis = relativeTimeInMillis;
+        this.lastAccessTime = relativeTimeInMillis.getAsLong();
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    /**
+     * Returns a searcher over the reader of this context. It must be closed once the caller is done with it, which does not close the
+     * reader of this context. The keep alive of the context starts over once all the searchers it returned are closed.
+     */
+    public Engine.Searcher acquireSearcher(String source) {
+        if (tryIncRef() == false) {
+            throw new SearchContextMissingException(id);
+        }
+        lastAccessTime = relativeTimeInMillis.getAsLong();
+        return new Engine.Searcher(source, searcher.searcher()) {
+            @Override
+            public void close() {
+                lastAccessTime = relativeTimeInMillis.getAsLong();
+                decRef();
+            }
+        };
+    }
+
+    public long keepAlive() {
+        return keepAlive;
+    }
+
+    public void keepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long lastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Returns {@code true} if no search request uses this context and it was last used more than its keep alive before the given
+     * time, which must come from the same clock as the one this context was created with.
+     */
+    public boolean isExpired(long relativeTimeInMillis) {
+        // one reference is held as long as the context is not freed, the others by the searchers in use
+        return refCount() <= 1 && relativeTimeInMillis - lastAccessTime > keepAlive;
+    }
+
+    @Override
+    protected void closeInternal() {
+        searcher.close();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.joda.DateMathParser;
+import org.elasticsearch.common.joda.Joda;
+import org.elasticsearch.common.util.LocaleUtils;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType.Relation;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * The minimum and maximum values of some date fields of a shard that no longer receives writes, along with the version of the
+ * index metadata they were computed against. They allow the coordinating node to tell that a shard cannot match a range query
+ * without sending it a request.
+ */
+public final class ShardFieldRanges implements Writeable {
+
+    private final long indexMetaDataVersion;
+    private final Map<String, DateRange> ranges;
+
+    public ShardFieldRanges(long indexMetaDataVersion, Map<String, DateRange> ranges) {
+        this.indexMetaDataVersion = indexMetaDataVersion;
+        this.ranges = Collections.unmodifiableMap(ranges);
+    }
+
+    public ShardFieldRanges(StreamInput in) throws IOException {
+        indexMetaDataVersion = in.readVLong();
+        ranges = Collections.unmodifiableMap(in.readMap(StreamInput::readString, DateRange::new));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(indexMetaDataVersion);
+        out.writeMap(ranges, StreamOutput::writeString, (o, range) -> range.writeTo(o));
+    }
+
+    /**
+     * The version of the index metadata these ranges are valid for.
+     */
+    public long getIndexMetaDataVersion() {
+        return indexMetaDataVersion;
+    }
+
+    /**
+     * Returns the ranges of the date fields, keyed by field name.
+     */
+    public Map<String, DateRange> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * Returns the ranges of both this instance and the given one if they were computed against the same index metadata,
+     * or the ones of the most recent index metadata otherwise.
+     */
+    public ShardFieldRanges merge(ShardFieldRanges other) {
+        if (other.indexMetaDataVersion != indexMetaDataVersion) {
+            return other.indexMetaDataVersion > indexMetaDataVersion ? other : this;
+        }
+        if (ranges.keySet().containsAll(other.ranges.keySet())) {
+            return this;
+        }
+        Map<String, DateRange> merged = new HashMap<>(ranges);
+        merged.putAll(other.ranges);
+        return new ShardFieldRanges(indexMetaDataVersion, merged);
+    }
+
+    /**
+     * Returns {@code true} if one of the given range queries is known not to match any document of the shard.
+     */
+    public boolean isDisjoint(List<RangeQueryBuilder> rangeQueries, LongSupplier nowInMillis) {
+        for (RangeQueryBuilder rangeQuery : rangeQueries) {
+            DateRange range = ranges.get(rangeQuery.fieldName());
+            if (range != null && range.relation(rangeQuery, nowInMillis) == Relation.DISJOINT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the range queries that a document must match in order to match the given query.
+     */
+    public static void collectRequiredRanges(@Nullable QueryBuilder query, List<RangeQueryBuilder> rangeQueries) {
+        if (query instanceof RangeQueryBuilder) {
+            rangeQueries.add((RangeQueryBuilder) query);
+        } else if (query instanceof ConstantScoreQueryBuilder) {
+            collectRequiredRanges(((ConstantScoreQueryBuilder) query).innerQuery(), rangeQueries);
+        } else if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder boolQuery = (BoolQueryBuilder) query;
+            for (QueryBuilder clause : boolQuery.must()) {
+                collectRequiredRanges(clause, rangeQueries);
+            }
+            for (QueryBuilder clause : boolQuery.filter()) {
+                collectRequiredRanges(clause, rangeQueries);
+            }
+        }
+    }
+
+    /**
+     * The minimum and maximum values of a date field, or {@code null} if the field has no values, along with the format of the
+     * field so that range queries are parsed the same way as on the shard.
+     */
+    public static final class DateRange implements Writeable {
+
+        private final String format;
+        private final String locale;
+        private final Long min;
+        private final Long max;
+
+        public DateRange(String format, String locale, @Nullable Long min, @Nullable Long max) {
+            this.format = Objects.requireNonNull(format);
+            this.locale = Objects.requireNonNull(locale);
+            this.min = min;
+            this.max = max;
+        }
+
+        public DateRange(StreamInput in) throws IOException {
+            format = in.readString();
+            locale = in.readString();
+            min = in.readOptionalLong();
+            max = in.readOptionalLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(format);
+            out.writeString(locale);
+            out.writeOptionalLong(min);
+            out.writeOptionalLong(max);
+        }
+
+        @Nullable
+        public Long getMin() {
+            return min;
+        }
+
+        @Nullable
+        public Long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the relation of the given range query to the values of the field.
+         */
+        public Relation relation(RangeQueryBuilder rangeQuery, LongSupplier nowInMillis) {
+            final DateMathParser parser;
+            if (rangeQuery.format() != null) {
+                parser = new DateMathParser(Joda.forPattern(rangeQuery.format()));
+            } else {
+                parser = new DateMathParser(Joda.forPattern(format, LocaleUtils.parse(locale)));
+            }
+            DateTimeZone timeZone = rangeQuery.timeZone() == null ? null : DateTimeZone.forID(rangeQuery.timeZone());
+            return DateFieldMapper.DateFieldType.rangeRelation(min, max, rangeQuery.from(), rangeQuery.to(),
+                rangeQuery.includeLower(), rangeQuery.includeUpper(), timeZone, parser, nowInMillis);
+        }
+    }
+}
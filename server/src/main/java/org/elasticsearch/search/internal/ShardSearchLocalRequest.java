@@ -73,12 +73,14 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
     private String[] indexRoutings = Strings.EMPTY_ARRAY;
     private String preference;
     private boolean profile;
+    private long readerId = -1;
 
     ShardSearchLocalRequest() {
     }
 
     ShardSearchLocalRequest(SearchRequest searchRequest, ShardId shardId, int numberOfShards,
-                            AliasFilter aliasFilter, float indexBoost, long nowInMillis, String clusterAlias, String[] indexRoutings) {
+                            AliasFilter aliasFilter, float indexBoost, long nowInMillis, String clusterAlias, String[] indexRoutings,
+                            long readerId) {
         this(shardId, numberOfShards, searchRequest.searchType(),
                 searchRequest.source(), searchRequest.types(), searchRequest.requestCache(), aliasFilter, indexBoost,
                 searchRequest.allowPartialSearchResults(), indexRoutings, searchRequest.preference());
@@ -88,6 +90,7 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
         this.scroll = searchRequest.scroll();
         this.nowInMillis = nowInMillis;
         this.clusterAlias = clusterAlias;
+        this.readerId = readerId;
     }
 
     public ShardSearchLocalRequest(ShardId shardId, String[] types, long nowInMillis, AliasFilter aliasFilter) {
@@ -191,6 +194,11 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
         return preference;
     }
 
+    @Override
+    public long readerId() {
+        return readerId;
+    }
+
     @Override
     public void setProfile(boolean profile) {
         this.profile = profile;
@@ -242,6 +250,11 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
             indexRoutings = Strings.EMPTY_ARRAY;
             preference = null;
         }
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            readerId = in.readZLong();
+        } else {
+            readerId = -1;
+        }
     }
 
     protected void innerWriteTo(StreamOutput out, boolean asKey) throws IOException {
@@ -272,6 +285,9 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
                 out.writeStringArray(indexRoutings);
                 out.writeOptionalString(preference);
             }
+            if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+                out.writeZLong(readerId);
+            }
         }
     }
 
@@ -82,6 +82,12 @@ public interface ShardSearchRequest {
      */
     String preference();
 
+    /**
+     * Returns the id of the reader context of the point in time that this request runs against on the shard, or {@code -1} to
+     * search the current state of the shard.
+     */
+    long readerId();
+
     /**
      * Sets if this shard search needs to be profiled or not
      * @param profile True if the shard should be profiled
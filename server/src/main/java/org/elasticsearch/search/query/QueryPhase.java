@@ -19,8 +19,11 @@
 
 package org.elasticsearch.search.query;
 
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.queries.MinDocQuery;
 import org.apache.lucene.queries.SearchAfterSortedDocQuery;
 import org.apache.lucene.search.BooleanClause;
@@ -34,13 +37,21 @@ import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.util.Counter;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.QueueResizingEsThreadPoolExecutor;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.SearchService;
@@ -57,7 +68,11 @@ import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.function.Consumer;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createCancellableCollectorContext;
@@ -66,6 +81,7 @@ import static org.elasticsearch.search.query.QueryCollectorContext.createFiltere
 import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.shortcutTotalHitCount;
 
 
 /**
@@ -74,6 +90,10 @@ import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDo
  */
 public class QueryPhase implements SearchPhase {
 
+    // the number of candidate points per requested hit that a narrowed sorted query keeps, it is multiplied on every new attempt
+    private static final int COMPETITIVE_POINTS_PER_HIT = 16;
+    private static final int MAX_NARROWING_ATTEMPTS = 4;
+
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private RescorePhase rescorePhase;
@@ -174,6 +194,8 @@ public class QueryPhase implements SearchPhase {
                 }
             }
 
+            long totalHits = -1;
+
             final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
             // whether the chain contains a collector that filters documents
             boolean hasFilterCollector = false;
@@ -253,6 +275,15 @@ public class QueryPhase implements SearchPhase {
             // add the top docs collector, the first collector context in the chain
             collectors.addFirst(topDocsFactory);
 
+            // the collector chains of the segment slices that are searched concurrently with the first one, if any
+            final List<List<QueryCollectorContext>> sliceCollectors = new ArrayList<>();
+            if (doProfile == false && canSearchConcurrently(searchContext, searcher, query, hasFilterCollector)) {
+                final ContextIndexSearcher contextSearcher = (ContextIndexSearcher) searcher;
+                for (int i = 1; i < contextSearcher.numSlices(); i++) {
+                    sliceCollectors.add(createSliceCollectorContexts(searchContext, searcher, hasFilterCollector));
+                }
+            }
+
             final Collector queryCollector;
             if (doProfile) {
                 InternalProfileCollector profileCollector = QueryCollectorContext.createQueryCollectorWithProfiler(collectors);
@@ -263,7 +294,26 @@ public class QueryPhase implements SearchPhase {
             }
 
             try {
-                searcher.search(query, queryCollector);
+                // when sorting on a numeric field, only search the documents whose sort values can compete for the top hits,
+                // the probing searches of the narrowing must be cancellable and count against the timeout like the main search
+                final Query competitiveQuery = narrowToCompetitiveSortValues(searchContext, searcher, query);
+                if (competitiveQuery != null) {
+                    if (searchContext.trackTotalHits()) {
+                        // the hits of a narrowed query are the top hits of the original query but not all of its hits
+                        totalHits = searcher.count(withPostFilter(searchContext, query));
+                    }
+                    query = competitiveQuery;
+                }
+                if (sliceCollectors.isEmpty()) {
+                    searcher.search(query, queryCollector);
+                } else {
+                    final List<Collector> queryCollectors = new ArrayList<>();
+                    queryCollectors.add(queryCollector);
+                    for (List<QueryCollectorContext> slice : sliceCollectors) {
+                        queryCollectors.add(QueryCollectorContext.createQueryCollector(slice));
+                    }
+                    ((ContextIndexSearcher) searcher).search(query, queryCollectors);
+                }
             } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
                 queryResult.terminatedEarly(true);
             } catch (TimeExceededException e) {
@@ -282,6 +332,17 @@ public class QueryPhase implements SearchPhase {
             for (QueryCollectorContext ctx : collectors) {
                 ctx.postProcess(result);
             }
+            if (sliceCollectors.isEmpty() == false) {
+                // every slice reads the hit count of the whole shard from the index statistics if it can be shortcut
+                final int shortcutTotalHits = hasFilterCollector || searchContext.trackTotalHits() == false
+                    ? -1 : shortcutTotalHitCount(reader, searchContext.query());
+                mergeSliceResults(searchContext, result, topDocsFactory.numHits(), sliceCollectors, shortcutTotalHits);
+            }
+            if (totalHits != -1) {
+                final TopDocs topDocs = result.topDocs();
+                topDocs.totalHits = totalHits;
+                result.topDocs(topDocs, result.sortValueFormats());
+            }
             EsThreadPoolExecutor executor = (EsThreadPoolExecutor)
                     searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
             if (executor instanceof QueueResizingEsThreadPoolExecutor) {
@@ -299,6 +360,274 @@ public class QueryPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Returns whether the segments of the shard can be searched concurrently. This is the case when the searcher has more than one
+     * slice and all collectors of the chain can be duplicated per slice and reduced, i.e. top docs and hit counts with an optional
+     * post filter, minimum score or aggregations that can be reduced per slice, but no terminate_after, scroll, field collapsing
+     * or profiling.
+     */
+    static boolean canSearchConcurrently(SearchContext searchContext, IndexSearcher searcher, Query query,
+                                         boolean hasFilterCollector) throws IOException {
+        if (searcher instanceof ContextIndexSearcher == false || ((ContextIndexSearcher) searcher).numSlices() <= 1) {
+            return false;
+        }
+        final boolean hasAggregations = searchContext.queryCollectors().containsKey(AggregationPhase.class);
+        if (searchContext.queryCollectors().size() != (hasAggregations ? 1 : 0)
+                || (hasAggregations && AggregationPhase.canCollectConcurrently(searchContext) == false)
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+                || searchContext.scrollContext() != null
+                || searchContext.collapse() != null) {
+            return false;
+        }
+        // hit counts that are read from the index statistics are cheaper than collecting them concurrently
+        return hasAggregations || hasFilterCollector || shortcutTotalHitCount(searcher.getIndexReader(), query) == -1;
+    }
+
+    /**
+     * Creates the collector chain of a slice that is searched concurrently, it must be equivalent to the chain of the shard.
+     */
+    private static List<QueryCollectorContext> createSliceCollectorContexts(SearchContext searchContext, IndexSearcher searcher,
+                                                                           boolean hasFilterCollector) throws IOException {
+        final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
+        collectors.add(createTopDocsCollectorContext(searchContext, searcher.getIndexReader(), hasFilterCollector));
+        if (searchContext.parsedPostFilter() != null) {
+            collectors.add(createFilteredCollectorContext(searcher, searchContext.parsedPostFilter().query()));
+        }
+        if (searchContext.queryCollectors().containsKey(AggregationPhase.class)) {
+            collectors.add(createMultiCollectorContext(Collections.singletonList(AggregationPhase.createSliceCollector(searchContext))));
+        }
+        if (searchContext.minimumScore() != null) {
+            collectors.add(createMinScoreCollectorContext(searchContext.minimumScore()));
+        }
+        collectors.add(createCancellableCollectorContext(searchContext.getTask()::isCancelled));
+        return collectors;
+    }
+
+    /**
+     * Merges the top docs of the slices that were searched concurrently into the top docs of the first slice in the result.
+     *
+     * @param shortcutTotalHits the total hits of the shard if the slices read them from the index statistics rather than counting
+     *                          their own hits, or -1
+     */
+    private static void mergeSliceResults(SearchContext searchContext, QuerySearchResult result, int numHits,
+                                          List<List<QueryCollectorContext>> sliceCollectors, int shortcutTotalHits) throws IOException {
+        final TopDocs[] sliceTopDocs = new TopDocs[sliceCollectors.size() + 1];
+        sliceTopDocs[0] = result.topDocs();
+        for (int i = 0; i < sliceCollectors.size(); i++) {
+            final QuerySearchResult sliceResult = new QuerySearchResult();
+            for (QueryCollectorContext ctx : sliceCollectors.get(i)) {
+                ctx.postProcess(sliceResult);
+            }
+            sliceTopDocs[i + 1] = sliceResult.topDocs();
+        }
+        final TopDocs topDocs;
+        if (numHits == 0) {
+            long totalHits = 0;
+            for (TopDocs slice : sliceTopDocs) {
+                totalHits += slice.totalHits;
+            }
+            topDocs = new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, sliceTopDocs[0].getMaxScore());
+        } else if (searchContext.sort() != null) {
+            final TopFieldDocs[] sliceTopFieldDocs = new TopFieldDocs[sliceTopDocs.length];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopFieldDocs[i] = (TopFieldDocs) sliceTopDocs[i];
+            }
+            topDocs = TopDocs.merge(searchContext.sort().sort, 0, numHits, sliceTopFieldDocs, true);
+        } else {
+            topDocs = TopDocs.merge(0, numHits, sliceTopDocs, true);
+        }
+        if (shortcutTotalHits != -1) {
+            topDocs.totalHits = shortcutTotalHits;
+        }
+        // the slice index is only used to break ties, shard indices are set on the coordinating node
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        result.topDocs(topDocs, result.sortValueFormats());
+    }
+
+    /**
+     * Returns a query that only matches the documents of <code>query</code> whose primary sort values can compete for the top hits,
+     * or <code>null</code> if the search cannot be narrowed. This applies to sorts on long, integer and date fields that are indexed
+     * with points and that are not already early terminated by the index sort. The points of the field give an estimate of the bound
+     * that leaves enough candidates in the range, and the narrowed query is only returned if it matches at least the requested
+     * number of hits since these are then the top hits of the original query too. Bounds that leave more candidates are tried
+     * when the query is too selective or when the estimates, that are only accurate to the size of a leaf of the BKD tree, were
+     * too optimistic, up to the point where narrowing would not skip most of the points anymore.
+     */
+    static Query narrowToCompetitiveSortValues(SearchContext searchContext, IndexSearcher searcher, Query query) throws IOException {
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        if (sortAndFormats == null
+                || searchContext.size() == 0
+                || searchContext.scrollContext() != null
+                || searchContext.searchAfter() != null
+                || searchContext.collapse() != null
+                || searchContext.queryCollectors().isEmpty() == false
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+                || searchContext.minimumScore() != null
+                || searchContext.trackScores()
+                || searchContext.getProfilers() != null) {
+            return null;
+        }
+        final IndexReader reader = searcher.getIndexReader();
+        if (canEarlyTerminate(reader, sortAndFormats)) {
+            // the index sort already stops the collection once the top hits are known
+            return null;
+        }
+        final SortField sortField = sortAndFormats.sort.getSort()[0];
+        if (sortField instanceof SortedNumericSortField == false
+                || ((SortedNumericSortField) sortField).getNumericType() != SortField.Type.LONG) {
+            return null;
+        }
+        final boolean reverse = sortField.getReverse();
+        // a multi-valued document must only be in the range if the value that it is sorted by is
+        final SortedNumericSelector.Type selector = reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN;
+        if (((SortedNumericSortField) sortField).getSelector() != selector) {
+            return null;
+        }
+        // documents without a value must sort after the competitive ones, Lucene sorts them as 0 if there is no missing value
+        final Object missingValue = sortField.getMissingValue();
+        if (missingValue == null || missingValue.equals(reverse ? Long.MIN_VALUE : Long.MAX_VALUE) == false) {
+            return null;
+        }
+        // the values of the points must be the ones of the doc values
+        final String field = sortField.getField();
+        final MappedFieldType fieldType = searchContext.smartNameFieldType(field);
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType == false
+                && fieldType instanceof DateFieldMapper.DateFieldType == false) {
+            return null;
+        }
+
+        final List<PointValues> pointValuesList = new ArrayList<>();
+        int bytesPerDim = -1;
+        long minValue = Long.MAX_VALUE;
+        long maxValue = Long.MIN_VALUE;
+        long numPoints = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+            final PointValues pointValues = ctx.reader().getPointValues(field);
+            if (pointValues == null) {
+                continue;
+            }
+            if (pointValues.getNumDimensions() != 1
+                    || (pointValues.getBytesPerDimension() != Integer.BYTES && pointValues.getBytesPerDimension() != Long.BYTES)
+                    || (bytesPerDim != -1 && pointValues.getBytesPerDimension() != bytesPerDim)) {
+                return null;
+            }
+            bytesPerDim = pointValues.getBytesPerDimension();
+            minValue = Math.min(minValue, decodePoint(pointValues.getMinPackedValue(), bytesPerDim));
+            maxValue = Math.max(maxValue, decodePoint(pointValues.getMaxPackedValue(), bytesPerDim));
+            numPoints += pointValues.size();
+            pointValuesList.add(pointValues);
+        }
+
+        final int numHits = searchContext.from() + searchContext.size();
+        long numCandidates = (long) numHits * COMPETITIVE_POINTS_PER_HIT;
+        for (int attempt = 0; attempt < MAX_NARROWING_ATTEMPTS && numCandidates * 2 <= numPoints; attempt++) {
+            final long bound = competitiveBound(pointValuesList, bytesPerDim, minValue, maxValue, reverse, numCandidates);
+            final long lower = reverse ? bound : minValue;
+            final long upper = reverse ? maxValue : bound;
+            final Query rangeQuery = bytesPerDim == Long.BYTES ? LongPoint.newRangeQuery(field, lower, upper)
+                : IntPoint.newRangeQuery(field, (int) lower, (int) upper);
+            final Query narrowedQuery = new BooleanQuery.Builder()
+                .add(query, BooleanClause.Occur.MUST)
+                .add(rangeQuery, BooleanClause.Occur.FILTER)
+                .build();
+            if (countUpTo(searcher, withPostFilter(searchContext, narrowedQuery), numHits) >= numHits) {
+                return narrowedQuery;
+            }
+            numCandidates *= COMPETITIVE_POINTS_PER_HIT;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the bound of the values of the field that leaves about <code>numCandidates</code> points in the competitive range,
+     * above the bound if the sort is reversed and below it otherwise.
+     */
+    private static long competitiveBound(List<PointValues> pointValuesList, int bytesPerDim, long minValue, long maxValue,
+                                         boolean reverse, long numCandidates) throws IOException {
+        long low = minValue;
+        long high = maxValue;
+        while (low < high) {
+            // the unsigned difference does not overflow even if the values span the whole range of longs
+            if (reverse) {
+                final long mid = low + ((high - low) >>> 1) + 1;
+                if (estimatePointCount(pointValuesList, bytesPerDim, mid, maxValue) >= numCandidates) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            } else {
+                final long mid = low + ((high - low) >>> 1);
+                if (estimatePointCount(pointValuesList, bytesPerDim, minValue, mid) >= numCandidates) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+        }
+        return low;
+    }
+
+    private static long estimatePointCount(List<PointValues> pointValuesList, int bytesPerDim, long lower, long upper) {
+        final PointValues.IntersectVisitor visitor = new PointValues.IntersectVisitor() {
+            @Override
+            public void visit(int docID) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void visit(int docID, byte[] packedValue) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+                final long cellMin = decodePoint(minPackedValue, bytesPerDim);
+                final long cellMax = decodePoint(maxPackedValue, bytesPerDim);
+                if (cellMin > upper || cellMax < lower) {
+                    return PointValues.Relation.CELL_OUTSIDE_QUERY;
+                } else if (cellMin >= lower && cellMax <= upper) {
+                    return PointValues.Relation.CELL_INSIDE_QUERY;
+                } else {
+                    return PointValues.Relation.CELL_CROSSES_QUERY;
+                }
+            }
+        };
+        long count = 0;
+        for (PointValues pointValues : pointValuesList) {
+            count += pointValues.estimatePointCount(visitor);
+        }
+        return count;
+    }
+
+    private static long decodePoint(byte[] packedValue, int bytesPerDim) {
+        return bytesPerDim == Long.BYTES ? LongPoint.decodeDimension(packedValue, 0) : IntPoint.decodeDimension(packedValue, 0);
+    }
+
+    /**
+     * Counts the matches of <code>query</code>, stopping as soon as <code>maxCount</code> documents were found.
+     */
+    private static int countUpTo(IndexSearcher searcher, Query query, int maxCount) throws IOException {
+        final TotalHitCountCollector counter = new TotalHitCountCollector();
+        try {
+            searcher.search(query, new EarlyTerminatingCollector(counter, maxCount, true));
+        } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
+            // enough documents were found
+        }
+        return counter.getTotalHits();
+    }
+
+    private static Query withPostFilter(SearchContext searchContext, Query query) {
+        if (searchContext.parsedPostFilter() == null) {
+            return query;
+        }
+        return new BooleanQuery.Builder()
+            .add(query, BooleanClause.Occur.MUST)
+            .add(searchContext.parsedPostFilter().query(), BooleanClause.Occur.FILTER)
+            .build();
+    }
+
     /**
      * Returns true if the provided <code>query</code> returns docs in index order (internal doc ids).
      * @param query The query to execute
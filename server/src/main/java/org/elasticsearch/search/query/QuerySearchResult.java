@@ -22,6 +22,7 @@ package org.elasticsearch.search.query;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.DelayableWriteable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
@@ -48,7 +49,7 @@ public final class QuerySearchResult extends SearchPhaseResult {
     private int size;
     private TopDocs topDocs;
     private DocValueFormat[] sortValueFormats;
-    private InternalAggregations aggregations;
+    private DelayableWriteable<InternalAggregations> aggregations;
     private boolean hasAggs;
     private List<SiblingPipelineAggregator> pipelineAggregators;
     private Suggest suggest;
@@ -154,16 +155,25 @@ public final class QuerySearchResult extends SearchPhaseResult {
      * @throws IllegalStateException if the aggregations have already been consumed.
      */
     public Aggregations consumeAggs() {
+        return consumeDelayableAggs().expand();
+    }
+
+    /**
+     * Returns and nulls out the aggregation for this search results without reading them if they are still serialized, so that they
+     * can be buffered in their compact serialized form until they are reduced.
+     * @throws IllegalStateException if the aggregations have already been consumed.
+     */
+    public DelayableWriteable<InternalAggregations> consumeDelayableAggs() {
         if (aggregations == null) {
             throw new IllegalStateException("aggs already consumed");
         }
-        Aggregations aggs = aggregations;
+        DelayableWriteable<InternalAggregations> aggs = aggregations;
         aggregations = null;
         return aggs;
     }
 
     public void aggregations(InternalAggregations aggregations) {
-        this.aggregations = aggregations;
+        this.aggregations = aggregations == null ? null : DelayableWriteable.referencing(aggregations);
         hasAggs = aggregations != null;
     }
 
@@ -288,7 +298,11 @@ public final class QuerySearchResult extends SearchPhaseResult {
         }
         setTopDocs(readTopDocs(in));
         if (hasAggs = in.readBoolean()) {
-            aggregations = InternalAggregations.readAggregations(in);
+            if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+                aggregations = DelayableWriteable.delayed(InternalAggregations::readAggregations, in);
+            } else {
+                aggregations = DelayableWriteable.referencing(InternalAggregations.readAggregations(in));
+            }
         }
         pipelineAggregators = in.readNamedWriteableList(PipelineAggregator.class).stream().map(a -> (SiblingPipelineAggregator) a)
                 .collect(Collectors.toList());
@@ -331,7 +345,11 @@ public final class QuerySearchResult extends SearchPhaseResult {
             out.writeBoolean(false);
         } else {
             out.writeBoolean(true);
-            aggregations.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+                aggregations.writeTo(out);
+            } else {
+                aggregations.expand().writeTo(out);
+            }
         }
         out.writeNamedWriteableList(pipelineAggregators == null ? emptyList() : pipelineAggregators);
         if (suggest == null) {
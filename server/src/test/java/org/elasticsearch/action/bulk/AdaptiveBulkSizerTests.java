@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.test.ESTestCase;
+
+public class AdaptiveBulkSizerTests extends ESTestCase {
+
+    private static final TimeValue TARGET_LATENCY = TimeValue.timeValueMillis(500);
+
+    public void testStartsWithConfiguredSizeAndSingleRequest() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(TARGET_LATENCY, 1000, 5_000_000, 4);
+        assertEquals(1000, sizer.getBulkActions());
+        assertEquals(5_000_000, sizer.getBulkSize());
+        assertEquals(1, sizer.getConcurrentRequests());
+
+        sizer = new AdaptiveBulkSizer(TARGET_LATENCY, -1, -1, 0);
+        assertEquals(-1, sizer.getBulkActions());
+        assertEquals(-1, sizer.getBulkSize());
+        assertEquals(0, sizer.getConcurrentRequests());
+    }
+
+    public void testInvalidTargetLatency() {
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveBulkSizer(TimeValue.ZERO, 1000, 5_000_000, 1));
+    }
+
+    public void testSlowResponseHalvesBulkSize() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(TARGET_LATENCY, 1000, -1, 4);
+        sizer.onResponse(bulkRequest(1000), response(1000, 0, 600));
+        assertEquals(500, sizer.getBulkActions());
+        assertEquals(-1, sizer.getBulkSize());
+        assertEquals(1, sizer.getConcurrentRequests());
+
+        // shrinks based on the size of requests that were sent before reaching the limit
+        sizer.onResponse(bulkRequest(100), response(100, 0, 600));
+        assertEquals(50, sizer.getBulkActions());
+
+        // but never below the lower bound
+        for (int i = 0; i < 10; i++) {
+            sizer.onResponse(bulkRequest(10), response(10, 0, 600));
+        }
+        assertEquals(1000 / AdaptiveBulkSizer.MIN_FRACTION, sizer.getBulkActions());
+    }
+
+    public void testFastResponsesGrowUpToConfiguredLimits() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(TARGET_LATENCY, 1000, -1, 3);
+        sizer.onResponse(bulkRequest(1000), response(1000, 0, 600));
+        assertEquals(500, sizer.getBulkActions());
+
+        sizer.onResponse(bulkRequest(500), response(500, 0, 100));
+        assertEquals(500 + 1000 / AdaptiveBulkSizer.STEP_FRACTION, sizer.getBulkActions());
+        assertEquals(2, sizer.getConcurrentRequests());
+
+        for (int i = 0; i < AdaptiveBulkSizer.STEP_FRACTION; i++) {
+            sizer.onResponse(bulkRequest(500), response(500, 0, 100));
+        }
+        assertEquals(1000, sizer.getBulkActions());
+        assertEquals(3, sizer.getConcurrentRequests());
+    }
+
+    public void testRejectionsHalveBulkSizeAndConcurrentRequests() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(TARGET_LATENCY, 1000, 4096, 8);
+        for (int i = 0; i < 10; i++) {
+            sizer.onResponse(bulkRequest(10), response(10, 0, 10));
+        }
+        assertEquals(8, sizer.getConcurrentRequests());
+
+        BulkRequest request = bulkRequest(1000);
+        sizer.onResponse(request, response(1000, 1, 10));
+        assertEquals(500, sizer.getBulkActions());
+        assertEquals(Math.min(4096, request.estimatedSizeInBytes()) / 2, sizer.getBulkSize());
+        assertEquals(4, sizer.getConcurrentRequests());
+
+        sizer.onFailure(bulkRequest(500), RestStatus.TOO_MANY_REQUESTS);
+        assertEquals(250, sizer.getBulkActions());
+        assertEquals(2, sizer.getConcurrentRequests());
+
+        // other failures are not a signal of overload
+        sizer.onFailure(bulkRequest(250), RestStatus.INTERNAL_SERVER_ERROR);
+        assertEquals(250, sizer.getBulkActions());
+        assertEquals(2, sizer.getConcurrentRequests());
+    }
+
+    private static BulkRequest bulkRequest(int numberOfActions) {
+        BulkRequest request = new BulkRequest();
+        for (int i = 0; i < numberOfActions; i++) {
+            request.add(new IndexRequest("index", "_doc", Integer.toString(i)).source("field", "value"));
+        }
+        return request;
+    }
+
+    private static BulkResponse response(int numberOfItems, int numberOfRejections, long tookInMillis) {
+        BulkItemResponse[] items = new BulkItemResponse[numberOfItems];
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        for (int i = 0; i < numberOfItems; i++) {
+            String id = Integer.toString(i);
+            if (i < numberOfRejections) {
+                items[i] = new BulkItemResponse(i, OpType.INDEX,
+                    new BulkItemResponse.Failure("index", "_doc", id, new EsRejectedExecutionException("rejected")));
+            } else {
+                items[i] = new BulkItemResponse(i, OpType.INDEX, new IndexResponse(shardId, "_doc", id, 1, 1, 1, true));
+            }
+        }
+        return new BulkResponse(items, tookInMillis);
+    }
+}
@@ -21,21 +21,27 @@ package org.elasticsearch.action.bulk;
 
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 
+import static org.hamcrest.Matchers.greaterThan;
+
 public class BulkProcessorTests extends ESTestCase {
 
     private ThreadPool threadPool;
@@ -124,4 +130,75 @@ public class BulkProcessorTests extends ESTestCase {
         bulkProcessor.awaitClose(100, TimeUnit.MILLISECONDS);
         assertTrue(called.get());
     }
+
+    public void testAddLargeDataExecutesSeveralBulks() throws Exception {
+        final List<Integer> bulkSizes = new ArrayList<>();
+        BulkProcessor bulkProcessor = new BulkProcessor((request, listener) -> {
+            bulkSizes.add(request.numberOfActions());
+            listener.onResponse(new BulkResponse(new BulkItemResponse[0], 0));
+        }, BackoffPolicy.noBackoff(), new BulkProcessor.Listener() {
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request) {
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            }
+        }, 0, 100, new ByteSizeValue(-1), null, (delay, executor, command) -> null, () -> {});
+
+        final int numberOfItems = 5000;
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < numberOfItems; i++) {
+            data.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n");
+            data.append("{\"field\":\"").append(randomAlphaOfLength(20)).append("\"}\n");
+        }
+        bulkProcessor.add(new BytesArray(data.toString()), "index", "_doc", XContentType.JSON);
+        bulkProcessor.close();
+
+        // the data does not end up in a single bulk request, but is split up in bulks of the configured number of actions
+        assertThat(bulkSizes.size(), greaterThan(1));
+        int total = 0;
+        for (int bulkSize : bulkSizes) {
+            total += bulkSize;
+        }
+        assertEquals(numberOfItems, total);
+    }
+
+    public void testAddDataWithInvalidLineExecutesNothing() throws Exception {
+        final List<Integer> bulkSizes = new ArrayList<>();
+        BulkProcessor bulkProcessor = new BulkProcessor((request, listener) -> {
+            bulkSizes.add(request.numberOfActions());
+            listener.onResponse(new BulkResponse(new BulkItemResponse[0], 0));
+        }, BackoffPolicy.noBackoff(), new BulkProcessor.Listener() {
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request) {
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            }
+        }, 0, 10, new ByteSizeValue(-1), null, (delay, executor, command) -> null, () -> {});
+
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            data.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n");
+            data.append("{\"field\":\"").append(randomAlphaOfLength(20)).append("\"}\n");
+        }
+        data.append("{\"index\":{\"_id\":\"1000\",\"unknown_parameter\":\"value\"}}\n");
+        data.append("{\"field\":\"value\"}\n");
+        expectThrows(IllegalArgumentException.class,
+            () -> bulkProcessor.add(new BytesArray(data.toString()), "index", "_doc", XContentType.JSON));
+        bulkProcessor.close();
+
+        // the whole data is parsed before any of it is sent, so the items before the invalid line are not sent either
+        assertTrue(bulkSizes.isEmpty());
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.routing.OperationRouting;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BulkRequestShardGrouperTests extends ESTestCase {
+
+    public void testGroupByShard() {
+        int numberOfIndices = between(1, 5);
+        MetaData.Builder metaDataBuilder = MetaData.builder();
+        for (int i = 0; i < numberOfIndices; i++) {
+            metaDataBuilder.put(IndexMetaData.builder("index" + i).settings(settings(Version.CURRENT))
+                .numberOfShards(between(1, 10)).numberOfReplicas(0));
+        }
+        MetaData metaData = metaDataBuilder.build();
+
+        int numberOfItems = between(0, 500);
+        BulkRequestShardGrouper grouper = new BulkRequestShardGrouper(metaData, numberOfItems);
+        Map<ShardId, List<Integer>> expected = new HashMap<>();
+        for (int i = 0; i < numberOfItems; i++) {
+            if (rarely()) {
+                // items that failed earlier are not added
+                continue;
+            }
+            IndexMetaData indexMetaData = metaData.index("index" + between(0, numberOfIndices - 1));
+            String id = randomAlphaOfLength(10);
+            DocWriteRequest<?> request;
+            if (randomBoolean()) {
+                request = new IndexRequest(indexMetaData.getIndex().getName(), "_doc", id);
+            } else {
+                request = new DeleteRequest(indexMetaData.getIndex().getName(), "_doc", id);
+            }
+            if (randomBoolean()) {
+                request.routing(randomAlphaOfLength(5));
+            }
+            grouper.add(i, indexMetaData.getIndex(), request);
+            ShardId shardId = new ShardId(indexMetaData.getIndex(),
+                OperationRouting.generateShardId(indexMetaData, request.id(), request.routing()));
+            expected.computeIfAbsent(shardId, k -> new ArrayList<>()).add(i);
+        }
+
+        Map<ShardId, BulkItemRequest[]> requestsByShard = grouper.group();
+        assertEquals(expected.keySet(), requestsByShard.keySet());
+        for (Map.Entry<ShardId, BulkItemRequest[]> entry : requestsByShard.entrySet()) {
+            List<Integer> itemIds = expected.get(entry.getKey());
+            BulkItemRequest[] items = entry.getValue();
+            assertEquals(itemIds.size(), items.length);
+            for (int i = 0; i < items.length; i++) {
+                assertEquals((int) itemIds.get(i), items[i].id());
+                assertEquals(entry.getKey().getIndexName(), items[i].index());
+            }
+        }
+    }
+
+    public void testUnknownIndex() {
+        MetaData metaData = MetaData.builder()
+            .put(IndexMetaData.builder("index").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .build();
+        BulkRequestShardGrouper grouper = new BulkRequestShardGrouper(metaData, 1);
+        expectThrows(IndexNotFoundException.class, () -> grouper.add(0, new Index("other", "_na_"), new IndexRequest("other", "_doc", "1")));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PointInTimeIdTests extends ESTestCase {
+
+    public void testEncodeDecode() {
+        String[] indices = generateRandomStringArray(5, 10, false, false);
+        Map<ShardId, PointInTimeId.ShardReader> shards = new LinkedHashMap<>();
+        int numShards = randomIntBetween(1, 10);
+        for (int i = 0; i < numShards; i++) {
+            shards.put(new ShardId(randomAlphaOfLength(5), randomAlphaOfLength(10), i),
+                new PointInTimeId.ShardReader(randomAlphaOfLength(8), randomNonNegativeLong()));
+        }
+        PointInTimeId pointInTimeId = PointInTimeId.decode(new PointInTimeId(indices, shards).encode());
+        assertArrayEquals(indices, pointInTimeId.getIndices());
+        assertEquals(shards.keySet(), pointInTimeId.getShards().keySet());
+        for (Map.Entry<ShardId, PointInTimeId.ShardReader> entry : shards.entrySet()) {
+            PointInTimeId.ShardReader reader = pointInTimeId.getShards().get(entry.getKey());
+            assertEquals(entry.getValue().getNodeId(), reader.getNodeId());
+            assertEquals(entry.getValue().getReaderId(), reader.getReaderId());
+        }
+    }
+
+    public void testDecodeInvalidId() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> PointInTimeId.decode("not a point in time"));
+        assertEquals("Cannot parse point in time id", e.getMessage());
+        String truncated = new PointInTimeId(new String[] {"index"},
+            Collections.singletonMap(new ShardId("index", "_na_", 0), new PointInTimeId.ShardReader("node", 1))).encode();
+        e = expectThrows(IllegalArgumentException.class, () -> PointInTimeId.decode(truncated.substring(0, truncated.length() / 2)));
+        assertEquals("Cannot parse point in time id", e.getMessage());
+    }
+}
@@ -22,13 +22,20 @@ package org.elasticsearch.action.search;
 import com.carrotsearch.randomizedtesting.RandomizedContext;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -58,6 +65,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
@@ -430,6 +438,65 @@ public class SearchPhaseControllerTests extends ESTestCase {
     }
 
 
+    public void testConsumerBuffersSerializedAggs() throws IOException {
+        NamedWriteableRegistry registry = new NamedWriteableRegistry(
+            new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(-1), 1.0, logger);
+        SearchPhaseController controller = new SearchPhaseController(Settings.EMPTY,
+            (b) -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, b), registry, breaker);
+        int expectedNumResults = randomIntBetween(3, 20);
+        SearchRequest request = new SearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")).size(0));
+        request.setBatchedReduceSize(2);
+        SearchPhaseController.QueryPhaseResultConsumer consumer =
+            (SearchPhaseController.QueryPhaseResultConsumer) controller.newSearchPhaseResults(request, expectedNumResults);
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < expectedNumResults; i++) {
+            double number = randomDoubleBetween(0, 1000, true);
+            max = Math.max(max, number);
+            consumer.consumeResult(serializedQueryResult(i, number, registry));
+            assertThat(consumer.getAggsBufferBytes(), greaterThan(0L));
+            assertEquals(consumer.getAggsBufferBytes(), breaker.getUsed());
+        }
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        assertEquals(expectedNumResults - 1, reduce.numReducePhases);
+        InternalMax internalMax = (InternalMax) reduce.aggregations.asList().get(0);
+        assertEquals(max, internalMax.getValue(), 0.0D);
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testConsumerTripsBreaker() throws IOException {
+        NamedWriteableRegistry registry = new NamedWriteableRegistry(
+            new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(1), 1.0, logger);
+        SearchPhaseController controller = new SearchPhaseController(Settings.EMPTY,
+            (b) -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, b), registry, breaker);
+        int expectedNumResults = randomIntBetween(3, 20);
+        SearchRequest request = new SearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.max("test")).size(0));
+        request.setBatchedReduceSize(2);
+        InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> consumer =
+            controller.newSearchPhaseResults(request, expectedNumResults);
+        for (int i = 0; i < expectedNumResults; i++) {
+            consumer.consumeResult(serializedQueryResult(i, randomDoubleBetween(0, 1000, true), registry));
+            assertEquals(0, breaker.getUsed());
+        }
+        expectThrows(CircuitBreakingException.class, consumer::reduce);
+        assertEquals(0, breaker.getUsed());
+    }
+
+    private static QuerySearchResult serializedQueryResult(int id, double max, NamedWriteableRegistry registry) throws IOException {
+        QuerySearchResult result = new QuerySearchResult(id, new SearchShardTarget("node", new Index("a", "b"), id, null));
+        result.topDocs(new TopDocs(1, new ScoreDoc[0], 1.0F), new DocValueFormat[0]);
+        result.aggregations(new InternalAggregations(Collections.singletonList(new InternalMax("test", max,
+            DocValueFormat.RAW, Collections.emptyList(), Collections.emptyMap()))));
+        // the aggregations of results that are received from other nodes are only read when they are reduced
+        QuerySearchResult copy = copyStreamable(result, registry, QuerySearchResult::new, Version.CURRENT);
+        copy.setSearchShardTarget(result.getSearchShardTarget());
+        copy.setShardIndex(id);
+        return copy;
+    }
+
     public void testNewSearchPhaseResults() {
         for (int i = 0; i < 10; i++) {
             int expectedNumResults = randomIntBetween(1, 10);
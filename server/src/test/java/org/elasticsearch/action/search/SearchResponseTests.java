@@ -30,6 +30,8 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -273,6 +275,18 @@ public class SearchResponseTests extends ESTestCase {
         }
     }
 
+    public void testToXContentChunks() throws IOException {
+        SearchResponse response = randomBoolean() ? createTestItem() : createMinimalTestItem();
+        XContentType xContentType = randomFrom(XContentType.values());
+        ToXContent.Params params = new ToXContent.MapParams(singletonMap(RestSearchAction.TYPED_KEYS_PARAM, "true"));
+        BytesReference expected = XContentHelper.toXContent(response, xContentType, params, false);
+        XContentBuilder builder = XContentFactory.contentBuilder(xContentType);
+        for (ToXContent chunk : response.toXContentChunks()) {
+            chunk.toXContent(builder, params);
+        }
+        assertEquals(expected, BytesReference.bytes(builder));
+    }
+
     public void testSerialization() throws IOException {
         SearchResponse searchResponse = createTestItem(false);
         BytesStreamOutput bytesStreamOutput = new BytesStreamOutput();
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlocks;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ShardFieldRanges;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardFieldRangesCacheTests extends ESTestCase {
+
+    private static ClusterState state(IndexMetaData indexMetaData, boolean writeBlocked) {
+        ClusterBlocks.Builder blocks = ClusterBlocks.builder();
+        if (writeBlocked) {
+            blocks.addIndexBlock(indexMetaData.getIndex().getName(), IndexMetaData.INDEX_WRITE_BLOCK);
+        }
+        return ClusterState.builder(new ClusterName("test"))
+            .metaData(MetaData.builder().put(indexMetaData, false))
+            .blocks(blocks)
+            .build();
+    }
+
+    private static ShardFieldRanges ranges(long indexMetaDataVersion) {
+        return new ShardFieldRanges(indexMetaDataVersion, Collections.singletonMap("@timestamp",
+            new ShardFieldRanges.DateRange("strict_date_optional_time||epoch_millis", "", 1000L, 2000L)));
+    }
+
+    public void testCannotMatch() {
+        IndexMetaData indexMetaData = IndexMetaData.builder("index")
+            .settings(settings(Version.CURRENT).put(IndexMetaData.SETTING_INDEX_UUID, "uuid"))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .version(3)
+            .build();
+        ClusterService clusterService = mock(ClusterService.class);
+        when(clusterService.state()).thenReturn(state(indexMetaData, true));
+        ShardFieldRangesCache cache = new ShardFieldRangesCache(Settings.EMPTY, clusterService);
+        ShardId shardId = new ShardId(indexMetaData.getIndex(), 0);
+        SearchSourceBuilder disjoint = new SearchSourceBuilder().query(new BoolQueryBuilder()
+            .filter(new RangeQueryBuilder("@timestamp").gt(2000))
+            .must(new TermQueryBuilder("foo", "bar")));
+        SearchSourceBuilder intersecting = new SearchSourceBuilder().query(new RangeQueryBuilder("@timestamp").gte(2000));
+
+        assertFalse(cache.cannotMatch(shardId, null, disjoint, 0L));
+        cache.put(shardId, null, null);
+        assertEquals(0, cache.count());
+        cache.put(shardId, "remote", ranges(3));
+        assertEquals(0, cache.count());
+
+        cache.put(shardId, null, ranges(3));
+        assertEquals(1, cache.count());
+        assertTrue(cache.cannotMatch(shardId, null, disjoint, 0L));
+        assertFalse(cache.cannotMatch(shardId, "remote", disjoint, 0L));
+        assertFalse(cache.cannotMatch(shardId, null, intersecting, 0L));
+        assertFalse(cache.cannotMatch(shardId, null, new SearchSourceBuilder().query(new MatchAllQueryBuilder()), 0L));
+        assertFalse(cache.cannotMatch(shardId, null, new SearchSourceBuilder().query(new RangeQueryBuilder("@timestamp").gt("foo")),
+            0L));
+
+        // the metadata of the index changed
+        IndexMetaData newIndexMetaData = IndexMetaData.builder(indexMetaData).version(4).build();
+        when(clusterService.state()).thenReturn(state(newIndexMetaData, true));
+        assertFalse(cache.cannotMatch(shardId, null, disjoint, 0L));
+        assertEquals(0, cache.count());
+
+        // the index is no longer write-blocked
+        cache.put(shardId, null, ranges(4));
+        assertTrue(cache.cannotMatch(shardId, null, disjoint, 0L));
+        when(clusterService.state()).thenReturn(state(newIndexMetaData, false));
+        assertFalse(cache.cannotMatch(shardId, null, disjoint, 0L));
+        assertEquals(0, cache.count());
+    }
+
+    public void testDisabled() {
+        ClusterService clusterService = mock(ClusterService.class);
+        Settings settings = Settings.builder().put(ShardFieldRangesCache.CACHE_SIZE_SETTING.getKey(), 0).build();
+        ShardFieldRangesCache cache = new ShardFieldRangesCache(settings, clusterService);
+        ShardId shardId = new ShardId("index", "uuid", 0);
+        cache.put(shardId, null, ranges(1));
+        assertEquals(0, cache.count());
+        assertFalse(cache.cannotMatch(shardId, null, new SearchSourceBuilder().query(new RangeQueryBuilder("@timestamp").gt(2000)), 0L));
+    }
+}
@@ -47,4 +47,11 @@ public class CacheBuilderTests extends ESTestCase {
         Cache<Object, Object> cache = CacheBuilder.builder().setExpireAfterWrite(timeValue).build();
         assertEquals(timeValue.getNanos(), cache.getExpireAfterWriteNanos());
     }
+
+    public void testSettingFrequencyBasedAdmission() {
+        assertFalse(CacheBuilder.builder().build().isFrequencyBasedAdmission());
+        final boolean frequencyBasedAdmission = randomBoolean();
+        Cache<Object, Object> cache = CacheBuilder.builder().setFrequencyBasedAdmission(frequencyBasedAdmission).build();
+        assertEquals(frequencyBasedAdmission, cache.isFrequencyBasedAdmission());
+    }
 }
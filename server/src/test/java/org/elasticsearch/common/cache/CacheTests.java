@@ -943,4 +943,70 @@ public class CacheTests extends ESTestCase {
             assertEquals(RemovalNotification.RemovalReason.INVALIDATED, removalNotifications.get(i).getRemovalReason());
         }
     }
+
+    // cache a set of frequently accessed entries, then scan through many entries that are accessed only once and check that
+    // the frequently accessed entries survived the scan
+    public void testFrequencyBasedAdmissionSurvivesScan() {
+        int maximumWeight = randomIntBetween(200, 1000);
+        AtomicLong evictions = new AtomicLong();
+        Cache<Integer, String> cache =
+            CacheBuilder.<Integer, String>builder()
+                .setMaximumWeight(maximumWeight)
+                .setFrequencyBasedAdmission(true)
+                .removalListener(notification -> evictions.incrementAndGet())
+                .build();
+        int hotEntries = maximumWeight / 2;
+        for (int i = 0; i < hotEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < hotEntries; i++) {
+                assertNotNull(cache.get(i));
+            }
+        }
+        // keep the scan short enough for the frequencies not to be aged
+        int scannedEntries = randomIntBetween(maximumWeight, 4 * maximumWeight);
+        for (int i = hotEntries; i < hotEntries + scannedEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        cache.refresh();
+        assertEquals(maximumWeight, cache.count());
+        assertEquals(maximumWeight, cache.weight());
+        assertEquals(hotEntries + scannedEntries - maximumWeight, evictions.get());
+        assertEquals(evictions.get(), cache.stats().getEvictions());
+        for (int i = 0; i < hotEntries; i++) {
+            assertNotNull(cache.get(i));
+        }
+    }
+
+    // cache entries with random weights and random accesses, then check that the cache respects the maximum weight and that
+    // iteration visits every entry exactly once
+    public void testFrequencyBasedAdmissionWeight() {
+        int maximumWeight = randomIntBetween(100, numberOfEntries);
+        Cache<Integer, String> cache =
+            CacheBuilder.<Integer, String>builder()
+                .setMaximumWeight(maximumWeight)
+                .setFrequencyBasedAdmission(true)
+                .weigher((k, v) -> 1 + k % 5)
+                .build();
+        for (int i = 0; i < numberOfEntries; i++) {
+            int key = randomIntBetween(0, numberOfEntries);
+            if (cache.get(key) == null) {
+                cache.put(key, Integer.toString(key));
+            }
+        }
+        cache.refresh();
+        assertTrue(cache.weight() <= maximumWeight);
+        Set<Integer> keys = new HashSet<>();
+        long weight = 0;
+        for (Integer key : cache.keys()) {
+            assertTrue(keys.add(key));
+            weight += 1 + key % 5;
+        }
+        assertEquals(cache.count(), keys.size());
+        assertEquals(cache.weight(), weight);
+        cache.invalidateAll();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.weight());
+    }
 }
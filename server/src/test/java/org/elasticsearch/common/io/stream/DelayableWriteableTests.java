@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.common.io.stream;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Objects;
+
+public class DelayableWriteableTests extends ESTestCase {
+    private static final NamedWriteableRegistry EMPTY = new NamedWriteableRegistry(Collections.emptyList());
+
+    public void testRoundTripFromReferencing() throws IOException {
+        Example original = new Example(randomAlphaOfLength(5));
+        DelayableWriteable<Example> delayed = roundTrip(DelayableWriteable.referencing(original), Example::new, Version.CURRENT, EMPTY);
+        assertTrue(delayed.isSerialized());
+        assertEquals(original, delayed.expand());
+    }
+
+    public void testRoundTripFromSerialized() throws IOException {
+        Example original = new Example(randomAlphaOfLength(5));
+        DelayableWriteable<Example> serialized = DelayableWriteable.referencing(original).asSerialized(Example::new, null);
+        assertTrue(serialized.isSerialized());
+        assertEquals(original, serialized.expand());
+        Version version = randomBoolean() ? Version.CURRENT : VersionUtils.randomVersion(random());
+        assertEquals(original, roundTrip(serialized, Example::new, version, EMPTY).expand());
+    }
+
+    public void testRoundTripWithNamedWriteables() throws IOException {
+        NamedWriteableRegistry registry = new NamedWriteableRegistry(Collections.singletonList(
+            new NamedWriteableRegistry.Entry(NamedExample.class, NamedExample.NAME, NamedExample::new)));
+        NamedHolder original = new NamedHolder(new NamedExample(randomAlphaOfLength(5)));
+        DelayableWriteable<NamedHolder> delayed =
+            roundTrip(DelayableWriteable.referencing(original), NamedHolder::new, Version.CURRENT, registry);
+        assertEquals(original, delayed.expand());
+        DelayableWriteable<NamedHolder> serialized =
+            DelayableWriteable.referencing(original).asSerialized(NamedHolder::new, registry);
+        assertEquals(original, serialized.expand());
+    }
+
+    private static <T extends Writeable> DelayableWriteable<T> roundTrip(DelayableWriteable<T> original, Writeable.Reader<T> reader,
+                                                                          Version version,
+                                                                          NamedWriteableRegistry registry) throws IOException {
+        return copyWriteable(original, registry, in -> DelayableWriteable.delayed(reader, in), version);
+    }
+
+    private static class Example implements Writeable {
+        private final String s;
+
+        Example(String s) {
+            this.s = s;
+        }
+
+        Example(StreamInput in) throws IOException {
+            s = in.readString();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(s);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            return s.equals(((Example) obj).s);
+        }
+
+        @Override
+        public int hashCode() {
+            return s.hashCode();
+        }
+    }
+
+    private static class NamedExample extends Example implements NamedWriteable {
+        private static final String NAME = "named";
+
+        NamedExample(String s) {
+            super(s);
+        }
+
+        NamedExample(StreamInput in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        public String getWriteableName() {
+            return NAME;
+        }
+    }
+
+    private static class NamedHolder implements Writeable {
+        private final NamedExample example;
+
+        NamedHolder(NamedExample example) {
+            this.example = example;
+        }
+
+        NamedHolder(StreamInput in) throws IOException {
+            example = in.readNamedWriteable(NamedExample.class);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeNamedWriteable(example);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            return Objects.equals(example, ((NamedHolder) obj).example);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(example);
+        }
+    }
+}
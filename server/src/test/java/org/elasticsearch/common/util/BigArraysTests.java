@@ -22,6 +22,7 @@ package org.elasticsearch.common.util;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
@@ -38,11 +39,13 @@ import java.util.function.Function;
 
 import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class BigArraysTests extends ESTestCase {
 
     private BigArrays randombigArrays() {
-        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        final Settings settings = Settings.builder().put(PageCacheRecycler.DIRECT_SETTING.getKey(), randomBoolean()).build();
+        return new MockBigArrays(new MockPageCacheRecycler(settings), new NoneCircuitBreakerService());
     }
 
     private BigArrays bigArrays;
@@ -386,6 +389,51 @@ public class BigArraysTests extends ESTestCase {
         }
     }
 
+    public void testDirectPages() {
+        final long maxSize = 1 << 24;
+        HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
+            Settings.builder()
+                .put(REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), maxSize, ByteSizeUnit.BYTES)
+                .build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final Settings settings = Settings.builder().put(PageCacheRecycler.DIRECT_SETTING.getKey(), true).build();
+        final BigArrays bigArrays = new BigArrays(new MockPageCacheRecycler(settings), hcbs, false).withCircuitBreaking();
+        final CircuitBreaker breaker = hcbs.getBreaker(CircuitBreaker.REQUEST);
+
+        final long size = randomIntBetween(BigArrays.LONG_PAGE_SIZE + 1, 100000);
+        LongArray longs = bigArrays.newLongArray(size, randomBoolean());
+        assertThat(longs, instanceOf(DirectBigLongArray.class));
+        DoubleArray doubles = bigArrays.newDoubleArray(size);
+        assertThat(doubles, instanceOf(DirectBigDoubleArray.class));
+        IntArray ints = bigArrays.newIntArray(size);
+        assertThat(ints, instanceOf(DirectBigIntArray.class));
+        for (long i = 0; i < size; i++) {
+            assertEquals(0d, doubles.get(i), 0d);
+            assertEquals(0, ints.get(i));
+            longs.set(i, i);
+            doubles.set(i, i);
+            ints.set(i, (int) i);
+        }
+        assertEquals(longs.ramBytesUsed() + doubles.ramBytesUsed() + ints.ramBytesUsed(), breaker.getUsed());
+        assertEquals(DirectBigDoubleArray.estimateRamBytes(size), doubles.ramBytesUsed());
+
+        final long newSize = size + randomIntBetween(1, 100000);
+        longs = bigArrays.resize(longs, newSize);
+        longs.fill(size, newSize, 7);
+        doubles = bigArrays.grow(doubles, newSize);
+        assertEquals(size + 0.5d, doubles.increment(size - 1, 1.5d), 0d);
+        ints = bigArrays.resize(ints, size / 2);
+        assertEquals(longs.ramBytesUsed() + doubles.ramBytesUsed() + ints.ramBytesUsed(), breaker.getUsed());
+        for (long i = 0; i < size / 2; i++) {
+            assertEquals(i, longs.get(i));
+            assertEquals(i, ints.get(i));
+        }
+        assertEquals(7, longs.get(newSize - 1));
+
+        Releasables.close(longs, doubles, ints);
+        assertEquals(0, breaker.getUsed());
+    }
+
     private List<BigArraysHelper> bigArrayCreators(final long maxSize, final boolean withBreaking) {
         final BigArrays byteBigArrays = newBigArraysInstance(maxSize, withBreaking);
         BigArraysHelper byteHelper = new BigArraysHelper(byteBigArrays,
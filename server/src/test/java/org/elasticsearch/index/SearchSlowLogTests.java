@@ -133,6 +133,11 @@ public class SearchSlowLogTests extends ESSingleNodeTestCase {
                     return null;
                 }
 
+                @Override
+                public long readerId() {
+                    return -1;
+                }
+
                 @Override
                 public void setProfile(boolean profile) {
 
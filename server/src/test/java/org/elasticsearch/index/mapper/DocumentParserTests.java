@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.index.IndexableField;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -1510,4 +1511,45 @@ public class DocumentParserTests extends ESSingleNodeTestCase {
         assertEquals("Could not dynamically add mapping for field [alias-field.dynamic-field]. "
             + "Existing mapping for [alias-field] must be of type object but found [alias].", exception.getMessage());
     }
+
+    public void testParseReusingFields() throws Exception {
+        DocumentMapperParser mapperParser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+            .startObject("date").field("type", "date").field("store", true).endObject()
+            .startObject("tag").field("type", "keyword").field("store", true).endObject()
+            .startObject("count").field("type", "long").field("store", true).endObject()
+            .startObject("ratio").field("type", "double").endObject()
+            .endObject().endObject().endObject());
+        DocumentMapper mapper = mapperParser.parse("type", new CompressedXContent(mapping));
+
+        ParsedDocument previous = null;
+        for (int i = 0; i < 5; i++) {
+            BytesReference bytes = BytesReference.bytes(XContentFactory.jsonBuilder()
+                .startObject()
+                .field("date", 1000L * i)
+                .array("tag", "a" + i, "b" + i)
+                .field("count", i)
+                .field("ratio", i / 2d)
+                .endObject());
+            SourceToParse source = SourceToParse.source("test", "type", Integer.toString(i), bytes, XContentType.JSON);
+            ParsedDocument expected = mapper.parse(source);
+            ParsedDocument actual = mapper.parse(source, true);
+            List<IndexableField> expectedFields = expected.rootDoc().getFields();
+            List<IndexableField> actualFields = actual.rootDoc().getFields();
+            assertEquals(expectedFields.size(), actualFields.size());
+            for (int j = 0; j < expectedFields.size(); j++) {
+                assertEquals(expectedFields.get(j).name(), actualFields.get(j).name());
+                assertEquals(expectedFields.get(j).numericValue(), actualFields.get(j).numericValue());
+                assertEquals(expectedFields.get(j).binaryValue(), actualFields.get(j).binaryValue());
+                assertEquals(expectedFields.get(j).stringValue(), actualFields.get(j).stringValue());
+            }
+            if (previous != null) {
+                // the fields of the previous document were recycled
+                assertSame(previous.rootDoc().getField("count"), actual.rootDoc().getField("count"));
+                assertSame(previous.version(), actual.version());
+            }
+            assertNotSame(expected.rootDoc().getField("count"), actual.rootDoc().getField("count"));
+            previous = actual;
+        }
+    }
 }
@@ -0,0 +1,218 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.IndexableFieldType;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.mapper.ParseContext.Document;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ParsedDocumentCodecTests extends ESSingleNodeTestCase {
+
+    private DocumentMapper createMapper() throws Exception {
+        DocumentMapperParser mapperParser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+            .startObject("title").field("type", "text").endObject()
+            .startObject("tag").field("type", "keyword").endObject()
+            .startObject("count").field("type", "long").field("store", true).endObject()
+            .startObject("comments").field("type", "nested").startObject("properties")
+            .startObject("stars").field("type", "integer").endObject()
+            .endObject().endObject()
+            .endObject().endObject().endObject());
+        return mapperParser.parse("type", new CompressedXContent(mapping));
+    }
+
+    private SourceToParse source() throws Exception {
+        BytesReference bytes = BytesReference.bytes(XContentFactory.jsonBuilder()
+            .startObject()
+            .field("title", "the quick brown fox")
+            .array("tag", "a", "b")
+            .field("count", 42)
+            .startArray("comments")
+            .startObject().field("stars", 3).endObject()
+            .startObject().field("stars", 5).endObject()
+            .endArray()
+            .endObject());
+        return SourceToParse.source("test", "type", "1", bytes, XContentType.JSON).routing("r");
+    }
+
+    public void testRoundTrip() throws Exception {
+        DocumentMapper mapper = createMapper();
+        SourceToParse source = source();
+        ParsedDocument doc = mapper.parse(source);
+        doc.updateSeqID(7, 2);
+        doc.version().setLongValue(3);
+
+        BytesReference bytes = ParsedDocumentCodec.encode(doc);
+        assertNotNull(bytes);
+        ParsedDocument decoded = ParsedDocumentCodec.decode(bytes, source);
+
+        assertEquals(doc.id(), decoded.id());
+        assertEquals(doc.type(), decoded.type());
+        assertEquals(doc.routing(), decoded.routing());
+        assertEquals(doc.source(), decoded.source());
+        assertEquals(doc.docs().size(), decoded.docs().size());
+        for (int i = 0; i < doc.docs().size(); i++) {
+            Document expected = doc.docs().get(i);
+            Document actual = decoded.docs().get(i);
+            assertEquals(expected.getFields().size(), actual.getFields().size());
+            for (int j = 0; j < expected.getFields().size(); j++) {
+                IndexableField expectedField = expected.getFields().get(j);
+                IndexableField actualField = actual.getFields().get(j);
+                if (expectedField == doc.version()) {
+                    assertThat(actualField, sameInstance(decoded.version()));
+                } else if (expectedField == doc.seqID().seqNo) {
+                    assertThat(actualField, sameInstance(decoded.seqID().seqNo));
+                } else if (expectedField == doc.seqID().seqNoDocValue) {
+                    assertThat(actualField, sameInstance(decoded.seqID().seqNoDocValue));
+                } else if (expectedField == doc.seqID().primaryTerm) {
+                    assertThat(actualField, sameInstance(decoded.seqID().primaryTerm));
+                } else {
+                    assertEquals(expectedField.name(), actualField.name());
+                    assertFieldType(expectedField.fieldType(), actualField.fieldType());
+                    assertEquals(expectedField.binaryValue(), actualField.binaryValue());
+                    if (expectedField.fieldType().pointDimensionCount() == 0) {
+                        // points are decoded from their packed value only
+                        assertEquals(expectedField.numericValue(), actualField.numericValue());
+                        assertEquals(expectedField.stringValue(), actualField.stringValue());
+                    }
+                }
+            }
+        }
+
+        // the engine sets the version and sequence number of the decoded document when it indexes it
+        decoded.updateSeqID(9, 4);
+        assertThat(decoded.seqID().seqNo.numericValue().longValue(), equalTo(9L));
+        assertThat(decoded.seqID().primaryTerm.numericValue().longValue(), equalTo(4L));
+    }
+
+    public void testIndexDecodedDocument() throws Exception {
+        DocumentMapper mapper = createMapper();
+        SourceToParse source = source();
+        ParsedDocument doc = mapper.parse(source);
+        ParsedDocument decoded = ParsedDocumentCodec.decode(ParsedDocumentCodec.encode(doc), source);
+        decoded.updateSeqID(7, 2);
+        decoded.version().setLongValue(3);
+
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            writer.addDocuments(decoded.docs());
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertEquals(doc.docs().size(), reader.numDocs());
+                IndexSearcher searcher = new IndexSearcher(reader);
+                assertEquals(1, searcher.count(LongPoint.newExactQuery("count", 42)));
+                assertEquals(1, searcher.count(IntPoint.newExactQuery("comments.stars", 5)));
+                assertEquals(0, searcher.count(IntPoint.newExactQuery("comments.stars", 4)));
+                assertEquals(1, searcher.count(new TermQuery(new Term("tag", "b"))));
+                assertEquals(1, searcher.count(new TermQuery(new Term("title", "fox"))));
+            }
+        }
+    }
+
+    public void testSourceIsNotEncoded() throws Exception {
+        DocumentMapperParser mapperParser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+            .startObject("blob").field("type", "object").field("enabled", false).endObject()
+            .endObject().endObject().endObject());
+        DocumentMapper mapper = mapperParser.parse("type", new CompressedXContent(mapping));
+        String blob = randomAlphaOfLength(10000);
+        BytesReference bytes = BytesReference.bytes(XContentFactory.jsonBuilder().startObject()
+            .startObject("blob").field("value", blob).endObject()
+            .endObject());
+        SourceToParse source = SourceToParse.source("test", "type", "1", bytes, XContentType.JSON).routing("r");
+        ParsedDocument doc = mapper.parse(source);
+
+        // the replica rebuilds the stored source, id and routing from the source that comes with the request
+        BytesReference encoded = ParsedDocumentCodec.encode(doc);
+        assertThat(encoded.length(), lessThan(blob.length()));
+        ParsedDocument decoded = ParsedDocumentCodec.decode(encoded, source);
+        assertEquals(doc.rootDoc().getBinaryValue(SourceFieldMapper.NAME), decoded.rootDoc().getBinaryValue(SourceFieldMapper.NAME));
+        assertEquals(doc.rootDoc().getBinaryValue(IdFieldMapper.NAME), decoded.rootDoc().getBinaryValue(IdFieldMapper.NAME));
+        assertEquals("r", decoded.rootDoc().get(RoutingFieldMapper.NAME));
+    }
+
+    public void testFilteredSourceIsEncoded() throws Exception {
+        DocumentMapperParser mapperParser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").array("excludes", "tag").endObject()
+            .endObject().endObject());
+        DocumentMapper mapper = mapperParser.parse("type", new CompressedXContent(mapping));
+        SourceToParse source = source();
+        ParsedDocument doc = mapper.parse(source);
+
+        // the stored source differs from the source of the request, so the replica cannot rebuild it
+        ParsedDocument decoded = ParsedDocumentCodec.decode(ParsedDocumentCodec.encode(doc), source);
+        BytesRef storedSource = decoded.rootDoc().getBinaryValue(SourceFieldMapper.NAME);
+        assertEquals(doc.rootDoc().getBinaryValue(SourceFieldMapper.NAME), storedSource);
+        assertNotEquals(source.source().toBytesRef(), storedSource);
+    }
+
+    public void testUnencodableDocument() throws Exception {
+        DocumentMapper mapper = createMapper();
+        ParsedDocument doc = mapper.parse(source());
+        doc.rootDoc().add(new TextField("title", new StringReader("jumps over the lazy dog")));
+        assertNull(ParsedDocumentCodec.encode(doc));
+    }
+
+    public void testMappedFieldNames() throws Exception {
+        DocumentMapper mapper = createMapper();
+        ParsedDocument doc = mapper.parse(source());
+        Set<String> names = ParsedDocumentCodec.mappedFieldNames(doc);
+        assertTrue(names.containsAll(Arrays.asList("title", "tag", "count", "comments.stars", IdFieldMapper.NAME)));
+        assertFalse(names.contains(VersionFieldMapper.NAME));
+        assertFalse(names.contains(SeqNoFieldMapper.NAME));
+        assertFalse(names.contains(SeqNoFieldMapper.PRIMARY_TERM_NAME));
+    }
+
+    private static void assertFieldType(IndexableFieldType expected, IndexableFieldType actual) {
+        assertEquals(expected.stored(), actual.stored());
+        assertEquals(expected.tokenized(), actual.tokenized());
+        assertEquals(expected.storeTermVectors(), actual.storeTermVectors());
+        assertEquals(expected.omitNorms(), actual.omitNorms());
+        assertEquals(expected.indexOptions(), actual.indexOptions());
+        assertEquals(expected.docValuesType(), actual.docValuesType());
+        assertEquals(expected.pointDimensionCount(), actual.pointDimensionCount());
+        assertEquals(expected.pointNumBytes(), actual.pointNumBytes());
+    }
+}
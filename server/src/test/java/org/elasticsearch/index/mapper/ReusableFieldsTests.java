@@ -0,0 +1,116 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ReusableFieldsTests extends ESTestCase {
+
+    public void testRecyclesFieldsAcrossDocuments() {
+        ReusableFields reusableFields = new ReusableFields();
+        reusableFields.reset();
+        LongPoint point = reusableFields.longPoint("field", 1);
+        Field docValues = reusableFields.sortedNumericDocValues("field", 1);
+        StoredField stored = reusableFields.storedField("field", 1L);
+
+        reusableFields.reset();
+        assertThat(reusableFields.longPoint("field", 2), sameInstance(point));
+        assertThat(reusableFields.sortedNumericDocValues("field", 2), sameInstance(docValues));
+        assertThat(reusableFields.storedField("field", 2L), sameInstance(stored));
+        assertThat(point.numericValue(), equalTo(2L));
+        assertThat(docValues.numericValue(), equalTo(2L));
+        assertThat(stored.numericValue(), equalTo(2L));
+    }
+
+    public void testMultipleValuesPerDocument() {
+        ReusableFields reusableFields = new ReusableFields();
+        reusableFields.reset();
+        Field first = reusableFields.numericDocValues("field", 1);
+        Field second = reusableFields.numericDocValues("field", 2);
+        assertThat(second, not(sameInstance(first)));
+        assertThat(first.numericValue(), equalTo(1L));
+
+        reusableFields.reset();
+        assertThat(reusableFields.numericDocValues("field", 3), sameInstance(first));
+        assertThat(reusableFields.numericDocValues("field", 4), sameInstance(second));
+        assertThat(reusableFields.numericDocValues("field", 5), not(sameInstance(second)));
+    }
+
+    public void testReplacesFieldsOfAnotherKind() {
+        ReusableFields reusableFields = new ReusableFields();
+        reusableFields.reset();
+        StoredField storedLong = reusableFields.storedField("field", 1L);
+        reusableFields.reset();
+        StoredField storedInt = reusableFields.storedField("field", 1);
+        assertThat(storedInt, not(sameInstance(storedLong)));
+        assertThat(storedInt.numericValue(), equalTo(1));
+        reusableFields.reset();
+        assertThat(reusableFields.storedField("field", 2), sameInstance(storedInt));
+
+        reusableFields.reset();
+        Field keyword = reusableFields.binaryField("field", new BytesRef("foo"), StringField.TYPE_STORED);
+        reusableFields.reset();
+        Field otherType = reusableFields.binaryField("field", new BytesRef("bar"), StringField.TYPE_NOT_STORED);
+        assertThat(otherType, not(sameInstance(keyword)));
+        reusableFields.reset();
+        Field recycled = reusableFields.binaryField("field", new BytesRef("baz"), StringField.TYPE_NOT_STORED);
+        assertThat(recycled, sameInstance(otherType));
+        assertThat(recycled.binaryValue(), equalTo(new BytesRef("baz")));
+    }
+
+    public void testBoundsFieldsPerName() {
+        ReusableFields reusableFields = new ReusableFields();
+        reusableFields.reset();
+        List<Field> fields = new ArrayList<>();
+        for (int i = 0; i < ReusableFields.MAX_FIELDS_PER_NAME + 10; i++) {
+            fields.add(reusableFields.numericDocValues("field", i));
+        }
+        reusableFields.reset();
+        for (int i = 0; i < ReusableFields.MAX_FIELDS_PER_NAME + 10; i++) {
+            Field field = reusableFields.numericDocValues("field", i);
+            if (i < ReusableFields.MAX_FIELDS_PER_NAME) {
+                assertThat(field, sameInstance(fields.get(i)));
+            } else {
+                assertThat(field, not(sameInstance(fields.get(i))));
+            }
+        }
+    }
+
+    public void testNoneNeverRecycles() {
+        ReusableFields reusableFields = ReusableFields.NONE;
+        reusableFields.reset();
+        Field first = reusableFields.longPoint("field", 1);
+        reusableFields.reset();
+        assertThat(reusableFields.longPoint("field", 1), not(sameInstance(first)));
+    }
+}
@@ -42,6 +42,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.Channels;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -81,6 +82,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
@@ -779,6 +781,93 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testSnapshotOfImmutableGenerations() throws IOException {
+        final List<Translog.Operation> ops = new ArrayList<>();
+        final int numGenerations = randomIntBetween(1, 4);
+        int seqNo = 0;
+        for (int generation = 0; generation < numGenerations; generation++) {
+            final int numOps = randomIntBetween(1, 100);
+            for (int i = 0; i < numOps; i++, seqNo++) {
+                final byte[] source = randomAlphaOfLengthBetween(0, 2048).getBytes(StandardCharsets.UTF_8);
+                if (randomBoolean()) {
+                    addToTranslogAndList(translog, ops, new Translog.Index("test", Integer.toString(seqNo), seqNo, primaryTerm.get(),
+                        source));
+                } else {
+                    addToTranslogAndList(translog, ops, new Translog.Delete("test", Integer.toString(seqNo), seqNo, primaryTerm.get(),
+                        newUid(Integer.toString(seqNo))));
+                }
+            }
+            translog.rollGeneration();
+        }
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            assertThat(snapshot, containsOperationsInAnyOrder(ops));
+        }
+        for (TranslogReader reader : translog.getReaders()) {
+            if (TranslogReader.MMAP_READS) {
+                final MappedTranslogFile mapping = reader.acquireMapping();
+                assertNotNull("immutable generations are read from a memory mapping", mapping);
+                // the reader and this test hold a reference, the closed snapshot released its own
+                assertThat(mapping.refCount(), equalTo(2));
+                mapping.decRef();
+            }
+        }
+    }
+
+    public void testMappingOutlivesClosedReader() throws IOException {
+        assumeTrue("translog generations are read through a memory mapping", TranslogReader.MMAP_READS);
+        final int numOps = randomIntBetween(1, 100);
+        for (int i = 0; i < numOps; i++) {
+            translog.add(new Translog.Index("test", Integer.toString(i), i, primaryTerm.get(),
+                randomAlphaOfLengthBetween(1, 256).getBytes(StandardCharsets.UTF_8)));
+        }
+        translog.rollGeneration();
+        final TranslogReader reader = translog.getReaders().get(translog.getReaders().size() - 1);
+        final TranslogSnapshot snapshot = reader.newSnapshot();
+        final MappedTranslogFile mapping = reader.acquireMapping();
+        assertThat(mapping.refCount(), equalTo(3));
+        mapping.decRef();
+
+        // closing the translog closes the reader, but the open snapshot keeps the file mapped
+        translog.close();
+        assertThat(mapping.refCount(), equalTo(1));
+        int readOps = 0;
+        while (snapshot.next() != null) {
+            readOps++;
+        }
+        assertThat(readOps, equalTo(numOps));
+        snapshot.close();
+        assertThat("the file is unmapped once the last snapshot is closed", mapping.refCount(), equalTo(0));
+    }
+
+    public void testMappedTranslogChecksums() throws Exception {
+        final int translogOperations = randomIntBetween(10, 100);
+        for (int op = 0; op < translogOperations; op++) {
+            String ascii = randomAlphaOfLengthBetween(1, 50);
+            translog.add(new Translog.Index("test", "" + op, op, primaryTerm.get(), ascii.getBytes("UTF-8")));
+        }
+        translog.rollGeneration();
+        translog.sync();
+
+        final TranslogReader reader = translog.getReaders().get(translog.getReaders().size() - 1);
+        final Checkpoint checkpoint = reader.getCheckpoint();
+        // flip a byte of an operation of the immutable generation
+        try (FileChannel channel = FileChannel.open(reader.path(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long position = randomLongBetween(reader.getFirstOperationOffset(), checkpoint.offset - 1);
+            final ByteBuffer buffer = ByteBuffer.allocate(1);
+            Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            buffer.put(0, (byte) ~buffer.get(0));
+            buffer.rewind();
+            assertThat(channel.write(buffer, position), equalTo(1));
+        }
+
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            expectThrows(TranslogCorruptedException.class, () -> {
+                while (snapshot.next() != null) {
+                }
+            });
+        }
+    }
+
     public void testTruncatedTranslogs() throws Exception {
         List<Translog.Location> locations = new ArrayList<>();
 
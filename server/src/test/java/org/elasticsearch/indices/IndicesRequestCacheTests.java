@@ -24,6 +24,9 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
@@ -32,6 +35,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -108,6 +112,72 @@ public class IndicesRequestCacheTests extends ESTestCase {
         assertEquals(0, cache.numRegisteredCloseListeners());
     }
 
+    public void testSegmentOperationsCache() throws Exception {
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        TestEntity entity = new TestEntity(requestCacheStats, indexShard);
+        BytesReference termBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "0"), XContentType.JSON, false);
+
+        writer.addDocument(newDoc(0, "foo"));
+        writer.addDocument(newDoc(1, "foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        LeafReader firstSegment = reader.leaves().get(0).reader();
+        assertTrue(IndicesRequestCache.canCacheSegment(firstSegment));
+        assertNull(cache.getForSegment(entity, firstSegment, termBytes));
+        cache.putForSegment(entity, firstSegment, termBytes, new BytesArray("first"));
+        assertEquals(new BytesArray("first"), cache.getForSegment(entity, firstSegment, termBytes));
+        // segment lookups are counted separately from the lookups of whole shard results
+        assertEquals(1, requestCacheStats.stats().getSegmentHitCount());
+        assertEquals(1, requestCacheStats.stats().getSegmentMissCount());
+        assertEquals(0, requestCacheStats.stats().getHitCount());
+        assertEquals(0, requestCacheStats.stats().getMissCount());
+        assertEquals(1, cache.count());
+        assertEquals(1, cache.numRegisteredCloseListeners());
+
+        // a refresh that adds a segment keeps the entry of the first segment
+        writer.addDocument(newDoc(2, "bar"));
+        DirectoryReader secondReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        assertEquals(2, secondReader.leaves().size());
+        assertEquals(new BytesArray("first"), cache.getForSegment(entity, secondReader.leaves().get(0).reader(), termBytes));
+        LeafReader secondSegment = secondReader.leaves().get(1).reader();
+        assertNull(cache.getForSegment(entity, secondSegment, termBytes));
+        cache.putForSegment(entity, secondSegment, termBytes, new BytesArray("second"));
+        assertEquals(2, cache.count());
+        assertEquals(2, cache.numRegisteredCloseListeners());
+
+        // deletes change the key of the segment
+        writer.deleteDocuments(new Term("id", "0"));
+        DirectoryReader thirdReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        LeafReader firstSegmentWithDeletes = thirdReader.leaves().get(0).reader();
+        assertNull(cache.getForSegment(entity, firstSegmentWithDeletes, termBytes));
+        cache.putForSegment(entity, firstSegmentWithDeletes, termBytes, new BytesArray("first with deletes"));
+        assertEquals(new BytesArray("second"), cache.getForSegment(entity, thirdReader.leaves().get(1).reader(), termBytes));
+        assertEquals(3, cache.count());
+        assertEquals(2, cache.numRegisteredCloseListeners());
+
+        // but not a refresh that leaves the deletes of the segment unchanged
+        writer.addDocument(newDoc(3, "baz"));
+        DirectoryReader fourthReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        assertEquals(new BytesArray("first with deletes"),
+            cache.getForSegment(entity, fourthReader.leaves().get(0).reader(), termBytes));
+
+        // the entries of a segment are only cleaned once its core is closed
+        reader.close();
+        secondReader.close();
+        cache.cleanCache();
+        assertEquals(3, cache.count());
+        assertEquals(2, cache.numRegisteredCloseListeners());
+
+        IOUtils.close(thirdReader, fourthReader, writer, dir);
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.numRegisteredCloseListeners());
+        IOUtils.close(cache);
+    }
+
     public void testCacheDifferentReaders() throws Exception {
         IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
         AtomicBoolean indexShard =  new AtomicBoolean(true);
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TranslogGroupCommitServiceTests extends ESTestCase {
+
+    private static Settings enabled() {
+        return Settings.builder().put(TranslogGroupCommitService.ENABLED_SETTING.getKey(), true).build();
+    }
+
+    public void testDisabledByDefault() {
+        final TranslogGroupCommitService service = new TranslogGroupCommitService(Settings.EMPTY);
+        assertNull(service.getGroup(createTempDir()));
+        assertTrue(service.stats().isEmpty());
+    }
+
+    public void testOneGroupPerDataPath() {
+        final TranslogGroupCommitService service = new TranslogGroupCommitService(enabled());
+        final Path first = createTempDir();
+        final Path second = createTempDir();
+        assertSame(service.getGroup(first), service.getGroup(first));
+        assertNotSame(service.getGroup(first), service.getGroup(second));
+        assertThat(service.stats().size(), equalTo(2));
+    }
+
+    public void testConcurrentSyncs() throws Exception {
+        final TranslogGroupCommitService service = new TranslogGroupCommitService(enabled());
+        final TranslogGroupCommitService.PathGroup group = service.getGroup(createTempDir());
+        final int numShards = randomIntBetween(1, 8);
+        final AtomicInteger[] syncedLocations = new AtomicInteger[numShards];
+        final TranslogGroupCommitService.TranslogSyncer[] syncers = new TranslogGroupCommitService.TranslogSyncer[numShards];
+        final AtomicInteger concurrentFsyncs = new AtomicInteger();
+        for (int i = 0; i < numShards; i++) {
+            final AtomicInteger synced = syncedLocations[i] = new AtomicInteger();
+            syncers[i] = locations -> {
+                assertThat("fsyncs of the same data path must not run concurrently", concurrentFsyncs.incrementAndGet(), equalTo(1));
+                synced.addAndGet(locations.size());
+                concurrentFsyncs.decrementAndGet();
+            };
+        }
+
+        final int numThreads = randomIntBetween(1, 8);
+        final int syncsPerThread = randomIntBetween(1, 200);
+        final CountDownLatch notified = new CountDownLatch(numThreads * syncsPerThread);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        final List<Thread> threads = new ArrayList<>();
+        final int[][] expectedLocations = new int[numThreads][numShards];
+        for (int t = 0; t < numThreads; t++) {
+            final int[] expected = expectedLocations[t];
+            final int[] shards = new int[syncsPerThread];
+            for (int i = 0; i < syncsPerThread; i++) {
+                shards[i] = randomInt(numShards - 1);
+                expected[shards[i]]++;
+            }
+            threads.add(new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int shard : shards) {
+                        group.sync(syncers[shard], new Translog.Location(0, 0, 0), e -> {
+                            if (e != null) {
+                                failure.set(e);
+                            }
+                            notified.countDown();
+                        });
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        notified.await();
+        assertNull(failure.get());
+
+        for (int i = 0; i < numShards; i++) {
+            int expected = 0;
+            for (int[] perThread : expectedLocations) {
+                expected += perThread[i];
+            }
+            assertThat(syncedLocations[i].get(), equalTo(expected));
+        }
+
+        final TranslogGroupCommitService.Stats stats = service.stats().values().iterator().next();
+        assertThat(stats.getRequests(), equalTo((long) numThreads * syncsPerThread));
+        assertThat(stats.getFsyncs(), lessThanOrEqualTo(stats.getRequests()));
+        assertThat(stats.getRounds(), lessThanOrEqualTo(stats.getFsyncs()));
+        assertThat(stats.getRounds(), greaterThan(0L));
+        assertThat(stats.getMaxBatchSize(), lessThanOrEqualTo((long) numShards));
+        assertThat(stats.getAverageBatchSize(), lessThanOrEqualTo((double) stats.getMaxBatchSize()));
+    }
+
+    public void testFailuresOnlyFailTheirOwnTranslog() {
+        final TranslogGroupCommitService service = new TranslogGroupCommitService(enabled());
+        final TranslogGroupCommitService.PathGroup group = service.getGroup(createTempDir());
+        final IOException exception = new IOException("boom");
+        final TranslogGroupCommitService.TranslogSyncer failing = locations -> {
+            throw exception;
+        };
+        final TranslogGroupCommitService.TranslogSyncer succeeding = locations -> {};
+
+        final AtomicReference<Exception> failingResult = new AtomicReference<>();
+        final AtomicReference<Exception> succeedingResult = new AtomicReference<>();
+        final AtomicInteger notified = new AtomicInteger();
+        group.sync(failing, new Translog.Location(0, 0, 0), e -> {
+            failingResult.set(e);
+            notified.incrementAndGet();
+        });
+        group.sync(succeeding, new Translog.Location(0, 0, 0), e -> {
+            succeedingResult.set(e);
+            notified.incrementAndGet();
+        });
+        assertThat(notified.get(), equalTo(2));
+        assertSame(exception, failingResult.get());
+        assertNull(succeedingResult.get());
+    }
+}
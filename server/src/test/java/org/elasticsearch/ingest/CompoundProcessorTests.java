@@ -23,9 +23,11 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -206,4 +208,36 @@ public class CompoundProcessorTests extends ESTestCase {
         assertThat(onFailureProcessor.getInvokedCounter(), equalTo(1));
 
     }
+
+    public void testProcessorStats() throws Exception {
+        TestProcessor failingProcessor = new TestProcessor("fail", "first", ingestDocument -> {throw new RuntimeException("error");});
+        TestProcessor innerOnFailureProcessor = new TestProcessor("inner", "second", ingestDocument -> {});
+        CompoundProcessor wrappedProcessor = new CompoundProcessor(false, Collections.singletonList(failingProcessor),
+                Collections.singletonList(innerOnFailureProcessor));
+        TestProcessor lastProcessor = new TestProcessor(ingestDocument -> {});
+        TestProcessor onFailureProcessor = new TestProcessor("outer", "third", ingestDocument -> {});
+        CompoundProcessor compoundProcessor = new CompoundProcessor(false, Arrays.asList(wrappedProcessor, lastProcessor),
+                Collections.singletonList(onFailureProcessor));
+        int executions = randomIntBetween(1, 10);
+        for (int i = 0; i < executions; i++) {
+            compoundProcessor.execute(ingestDocument);
+        }
+
+        List<IngestStats.ProcessorStats> stats = new ArrayList<>();
+        compoundProcessor.collectProcessorStats("", stats);
+        assertThat(stats, hasSize(4));
+        assertProcessorStats(stats.get(0), "first:fail", "first", executions, executions);
+        assertProcessorStats(stats.get(1), "on_failure/second:inner", "second", executions, 0);
+        assertProcessorStats(stats.get(2), "test-processor", "test-processor", executions, 0);
+        assertProcessorStats(stats.get(3), "on_failure/third:outer", "third", 0, 0);
+    }
+
+    private static void assertProcessorStats(IngestStats.ProcessorStats stats, String name, String type, long count, long failed) {
+        assertThat(stats.getName(), equalTo(name));
+        assertThat(stats.getType(), equalTo(type));
+        assertThat(stats.getCount(), equalTo(count));
+        assertThat(stats.getFailedCount(), equalTo(failed));
+        assertThat(stats.getCurrent(), equalTo(0L));
+        assertThat(Arrays.stream(stats.getLatencyHistogram()).sum(), equalTo(count));
+    }
 }
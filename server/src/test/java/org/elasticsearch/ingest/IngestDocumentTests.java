@@ -19,6 +19,7 @@
 
 package org.elasticsearch.ingest;
 
+import org.elasticsearch.script.TemplateScript;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
@@ -386,7 +387,7 @@ public class IngestDocumentTests extends ESTestCase {
 
     public void testSetFieldValueNullName() {
         try {
-            ingestDocument.setFieldValue(null, "bar");
+            ingestDocument.setFieldValue((String) null, "bar");
             fail("add field should have failed");
         } catch (IllegalArgumentException e) {
             assertThat(e.getMessage(), equalTo("path cannot be null nor empty"));
@@ -1020,4 +1021,40 @@ public class IngestDocumentTests extends ESTestCase {
         }
     }
 
+    public void testFieldPathAcrossDocuments() {
+        IngestDocument.FieldPath innerField = new IngestDocument.FieldPath("fizz.buzz");
+        IngestDocument.FieldPath newField = new IngestDocument.FieldPath("_source.new.field");
+        IngestDocument.FieldPath ingestField = new IngestDocument.FieldPath("_ingest.timestamp");
+        IngestDocument copy = new IngestDocument(ingestDocument);
+        for (IngestDocument document : Arrays.asList(ingestDocument, copy)) {
+            assertThat(document.getFieldValue(innerField, String.class), equalTo("hello world"));
+            assertTrue(document.hasField(innerField, false));
+            assertThat(document.getFieldValue(ingestField, ZonedDateTime.class), notNullValue());
+            assertNull(document.getFieldValue(newField, String.class, true));
+            document.setFieldValue(newField, "value");
+            assertThat(document.getFieldValue("new.field", String.class), equalTo("value"));
+            document.removeField(innerField);
+            assertFalse(document.hasField("fizz.buzz"));
+        }
+        expectThrows(IllegalArgumentException.class, () -> new IngestDocument.FieldPath(""));
+        expectThrows(IllegalArgumentException.class, () -> new IngestDocument.FieldPath("_ingest."));
+    }
+
+    public void testConstantTemplates() {
+        TemplateScript.Factory field = ConfigurationUtils.compileTemplate("set", null, "field", "fizz.new_field",
+            TestTemplateService.instance());
+        assertThat(field, instanceOf(ConstantTemplateScriptFactory.class));
+        assertThat(ConfigurationUtils.compileTemplate("set", null, "field", "{{foo}}", TestTemplateService.instance()),
+            not(instanceOf(ConstantTemplateScriptFactory.class)));
+        ValueSource value = ValueSource.wrap("value", TestTemplateService.instance());
+        assertThat(value, instanceOf(ValueSource.ObjectValue.class));
+
+        ingestDocument.setFieldValue(field, value);
+        assertThat(ingestDocument.getFieldValue("fizz.new_field", String.class), equalTo("value"));
+        assertTrue(ingestDocument.hasField(field));
+        assertThat(ingestDocument.renderTemplate(field), equalTo("fizz.new_field"));
+        assertSame(ingestDocument.renderFieldPath(field), ingestDocument.renderFieldPath(field));
+        ingestDocument.removeField(field);
+        assertFalse(ingestDocument.hasField("fizz.new_field"));
+    }
 }
@@ -19,12 +19,15 @@
 
 package org.elasticsearch.ingest;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class IngestStatsTests extends ESTestCase {
@@ -32,7 +35,10 @@ public class IngestStatsTests extends ESTestCase {
     public void testSerialization() throws IOException {
         IngestStats.Stats total = new IngestStats.Stats(5, 10, 20, 30);
         IngestStats.Stats foo = new IngestStats.Stats(50, 100, 200, 300);
-        IngestStats ingestStats = new IngestStats(total, Collections.singletonMap("foo", foo));
+        IngestStats.ProcessorStats processorStats = new IngestStats.ProcessorStats("set:tag", "set", 50, 1000, 2, 3,
+            new long[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        IngestStats ingestStats = new IngestStats(total, Collections.singletonMap("foo", foo),
+            Collections.singletonMap("foo", Collections.singletonList(processorStats)));
         IngestStats serialize = serialize(ingestStats);
         assertNotSame(serialize, ingestStats);
         assertNotSame(serialize.getTotalStats(), total);
@@ -57,12 +63,54 @@ public class IngestStatsTests extends ESTestCase {
         assertEquals(leftStats.getIngestFailedCount(), rightStats.getIngestFailedCount());
         assertEquals(leftStats.getIngestTimeInMillis(), rightStats.getIngestTimeInMillis());
         assertEquals(leftStats.getIngestCurrent(), rightStats.getIngestCurrent());
+
+        assertEquals(1, serialize.getProcessorStatsPerPipeline().size());
+        List<IngestStats.ProcessorStats> serializedProcessorStats = serialize.getProcessorStatsPerPipeline().get("foo");
+        assertEquals(1, serializedProcessorStats.size());
+        IngestStats.ProcessorStats serializedStats = serializedProcessorStats.get(0);
+        assertEquals(processorStats.getName(), serializedStats.getName());
+        assertEquals(processorStats.getType(), serializedStats.getType());
+        assertEquals(processorStats.getCount(), serializedStats.getCount());
+        assertEquals(processorStats.getTimeInNanos(), serializedStats.getTimeInNanos());
+        assertEquals(processorStats.getCurrent(), serializedStats.getCurrent());
+        assertEquals(processorStats.getFailedCount(), serializedStats.getFailedCount());
+        assertArrayEquals(processorStats.getLatencyHistogram(), serializedStats.getLatencyHistogram());
+    }
+
+    public void testSerializationToPreviousVersion() throws IOException {
+        IngestStats.Stats total = new IngestStats.Stats(5, 10, 20, 30);
+        IngestStats.ProcessorStats processorStats = new IngestStats.ProcessorStats("set:tag", "set", 50, 1000, 2, 3,
+            new long[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        IngestStats ingestStats = new IngestStats(total, Collections.singletonMap("foo", new IngestStats.Stats(50, 100, 200, 300)),
+            Collections.singletonMap("foo", Collections.singletonList(processorStats)));
+        Version version = VersionUtils.randomVersionBetween(random(), Version.V_6_0_0, Version.V_6_4_1);
+        IngestStats serialize = serialize(ingestStats, version);
+        assertEquals(total.getIngestCount(), serialize.getTotalStats().getIngestCount());
+        assertEquals(1, serialize.getStatsPerPipeline().size());
+        // nodes before 6.5.0 don't know about the stats of the processors
+        assertTrue(serialize.getProcessorStatsPerPipeline().isEmpty());
+    }
+
+    public void testProcessorMetricBuckets() {
+        assertEquals(0, ProcessorMetric.bucket(0));
+        assertEquals(0, ProcessorMetric.bucket(999));
+        assertEquals(1, ProcessorMetric.bucket(1_000));
+        assertEquals(3, ProcessorMetric.bucket(500_000));
+        assertEquals(6, ProcessorMetric.bucket(999_999_999));
+        assertEquals(7, ProcessorMetric.bucket(1_000_000_000));
+        assertEquals(7, ProcessorMetric.bucket(Long.MAX_VALUE));
     }
 
     private IngestStats serialize(IngestStats stats) throws IOException {
+        return serialize(stats, Version.CURRENT);
+    }
+
+    private IngestStats serialize(IngestStats stats, Version version) throws IOException {
         BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
         stats.writeTo(out);
         StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
         return new IngestStats(in);
     }
 }
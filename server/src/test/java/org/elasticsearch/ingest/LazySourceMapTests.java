@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class LazySourceMapTests extends ESTestCase {
+
+    private static final String SOURCE = "{\"string\":\"value\",\"number\":3,\"object\":{\"field\":[1,2]},\"array\":[{\"a\":\"b\"},1]," +
+        "\"boolean\":true,\"null\":null}";
+
+    public void testParse() {
+        LazySourceMap source = LazySourceMap.parse(new BytesArray(SOURCE));
+        assertThat(source.size(), equalTo(6));
+        assertThat(source.keySet(), equalTo(XContentHelper.convertToMap(new BytesArray(SOURCE), false, XContentType.JSON).v2().keySet()));
+        assertThat(source.get("string"), equalTo("value"));
+        assertThat(source.get("number"), equalTo(3));
+        assertThat(source.get("boolean"), equalTo(true));
+        assertTrue(source.containsKey("null"));
+        assertNull(source.get("null"));
+        Map<String, Object> object = new HashMap<>();
+        object.put("field", Arrays.asList(1, 2));
+        assertThat(source.get("object"), equalTo(object));
+        assertThat(((List<?>) source.get("array")).size(), equalTo(2));
+        assertThat(source, equalTo(XContentHelper.convertToMap(new BytesArray(SOURCE), false, XContentType.JSON).v2()));
+    }
+
+    public void testWriteUntouchedSource() throws IOException {
+        LazySourceMap source = LazySourceMap.parse(new BytesArray(SOURCE));
+        assertThat(toJson(source), equalTo(SOURCE));
+    }
+
+    public void testWriteModifiedSource() throws IOException {
+        LazySourceMap source = LazySourceMap.parse(new BytesArray(SOURCE));
+        IngestDocument ingestDocument = new IngestDocument("_index", "_type", "_id", null, null, null, null, source);
+        ingestDocument.setFieldValue("object.other", "value");
+        ingestDocument.setFieldValue("added", 4);
+        ingestDocument.removeField("string");
+        ingestDocument.extractMetadata();
+
+        Map<String, Object> expected = XContentHelper.convertToMap(new BytesArray(SOURCE), false, XContentType.JSON).v2();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) expected.get("object");
+        object.put("other", "value");
+        expected.put("added", 4);
+        expected.remove("string");
+
+        LazySourceMap written = (LazySourceMap) ingestDocument.getSourceAndMetadata();
+        String json = toJson(written);
+        // the array was not accessed, so it is copied as it is
+        assertThat(json, containsString("\"array\":[{\"a\":\"b\"},1]"));
+        assertThat(XContentHelper.convertToMap(new BytesArray(json), false, XContentType.JSON).v2(), equalTo(expected));
+    }
+
+    public void testTemplateModelDoesNotModifySource() {
+        LazySourceMap source = LazySourceMap.parse(new BytesArray(SOURCE));
+        LazySourceMap copy = new LazySourceMap(source);
+        copy.remove("object");
+        copy.put("string", "other");
+        assertThat(source.get("string"), equalTo("value"));
+        assertTrue(source.get("object") instanceof Map);
+    }
+
+    public void testInvalidSource() {
+        expectThrows(ElasticsearchParseException.class, () -> LazySourceMap.parse(new BytesArray("[1, 2]")));
+        expectThrows(ElasticsearchParseException.class, () -> LazySourceMap.parse(new BytesArray("{\"field\":")));
+    }
+
+    private static String toJson(LazySourceMap source) throws IOException {
+        XContentBuilder builder = source.toXContent(JsonXContent.contentBuilder());
+        return BytesReference.bytes(builder).utf8ToString();
+    }
+}
@@ -28,31 +28,43 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.CustomTypeSafeMatcher;
 import org.junit.Before;
 import org.mockito.ArgumentMatcher;
 import org.mockito.invocation.InvocationOnMock;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
-import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
@@ -76,16 +88,19 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         ThreadPool threadPool = mock(ThreadPool.class);
         final ExecutorService executorService = EsExecutors.newDirectExecutorService();
         when(threadPool.executor(anyString())).thenReturn(executorService);
-        executionService = new PipelineExecutionService(store, threadPool);
+        Settings settings = Settings.builder()
+            .put(PipelineExecutionService.BULK_WORKERS_SETTING.getKey(), randomIntBetween(1, 8))
+            .build();
+        executionService = new PipelineExecutionService(settings, store, threadPool);
     }
 
     public void testExecuteIndexPipelineDoesNotExist() {
         final IndexRequest indexRequest = new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("_id");
 
         final SetOnce<Boolean> failure = new SetOnce<>();
-        final BiConsumer<IndexRequest, Exception> failureHandler = (request, e) -> {
+        final BiConsumer<Integer, Exception> failureHandler = (slot, e) -> {
             failure.set(true);
-            assertThat(request, sameInstance(indexRequest));
+            assertThat(slot, equalTo(0));
             assertThat(e, instanceOf(IllegalArgumentException.class));
             assertThat(e.getMessage(), equalTo("pipeline with id [_id] does not exist"));
         };
@@ -115,7 +130,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
 
         final SetOnce<Boolean> failure = new SetOnce<>();
         final IndexRequest indexRequest = new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("_id");
-        final BiConsumer<IndexRequest, Exception> failureHandler = (request, e) -> {
+        final BiConsumer<Integer, Exception> failureHandler = (slot, e) -> {
             assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
             assertThat(e.getCause().getCause(), instanceOf(IllegalStateException.class));
             assertThat(e.getCause().getCause().getMessage(), equalTo("error"));
@@ -142,18 +157,12 @@ public class PipelineExecutionServiceTests extends ESTestCase {
                 new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("does_not_exist");
         bulkRequest.add(indexRequest2);
         @SuppressWarnings("unchecked")
-        BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(bulkRequest.requests(), failureHandler, completionHandler);
         verify(failureHandler, times(1)).accept(
-            argThat(new CustomTypeSafeMatcher<IndexRequest>("failure handler was not called with the expected arguments") {
-                @Override
-                protected boolean matchesSafely(IndexRequest item) {
-                    return item == indexRequest2;
-                }
-
-            }),
+            eq(1),
             argThat(new CustomTypeSafeMatcher<IllegalArgumentException>("failure handler was not called with the expected arguments") {
                 @Override
                 protected boolean matchesSafely(IllegalArgumentException iae) {
@@ -169,7 +178,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         when(store.get("_id")).thenReturn(new Pipeline("_id", "_description", version, processor));
         final IndexRequest indexRequest = new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("_id");
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(Collections.singletonList(indexRequest), failureHandler, completionHandler);
@@ -184,7 +193,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
 
         final IndexRequest indexRequest = new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("_id");
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(Collections.singletonList(indexRequest), failureHandler, completionHandler);
@@ -215,7 +224,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
 
         final IndexRequest indexRequest = new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("_id");
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(Collections.singletonList(indexRequest), failureHandler, completionHandler);
@@ -240,12 +249,12 @@ public class PipelineExecutionServiceTests extends ESTestCase {
                 .when(processor)
                 .execute(eqIndexTypeId(indexRequest.version(), indexRequest.versionType(), Collections.emptyMap()));
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(Collections.singletonList(indexRequest), failureHandler, completionHandler);
         verify(processor).execute(eqIndexTypeId(indexRequest.version(), indexRequest.versionType(), Collections.emptyMap()));
-        verify(failureHandler, times(1)).accept(eq(indexRequest), any(RuntimeException.class));
+        verify(failureHandler, times(1)).accept(eq(0), any(RuntimeException.class));
         verify(completionHandler, times(1)).accept(null);
     }
 
@@ -260,11 +269,11 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         final IndexRequest indexRequest = new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("_id");
         doThrow(new RuntimeException()).when(processor).execute(eqIndexTypeId(Collections.emptyMap()));
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(Collections.singletonList(indexRequest), failureHandler, completionHandler);
-        verify(failureHandler, never()).accept(eq(indexRequest), any(ElasticsearchException.class));
+        verify(failureHandler, never()).accept(eq(0), any(ElasticsearchException.class));
         verify(completionHandler, times(1)).accept(null);
     }
 
@@ -282,12 +291,12 @@ public class PipelineExecutionServiceTests extends ESTestCase {
                 .when(onFailureProcessor)
                 .execute(eqIndexTypeId(indexRequest.version(), indexRequest.versionType(), Collections.emptyMap()));
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(Collections.singletonList(indexRequest), failureHandler, completionHandler);
         verify(processor).execute(eqIndexTypeId(indexRequest.version(), indexRequest.versionType(), Collections.emptyMap()));
-        verify(failureHandler, times(1)).accept(eq(indexRequest), any(RuntimeException.class));
+        verify(failureHandler, times(1)).accept(eq(0), any(RuntimeException.class));
         verify(completionHandler, times(1)).accept(null);
     }
 
@@ -313,12 +322,12 @@ public class PipelineExecutionServiceTests extends ESTestCase {
                 .when(processor)
                 .execute(eqIndexTypeId(indexRequest.version(), indexRequest.versionType(), Collections.emptyMap()));
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(Collections.singletonList(indexRequest), failureHandler, completionHandler);
         verify(processor).execute(eqIndexTypeId(indexRequest.version(), indexRequest.versionType(), Collections.emptyMap()));
-        verify(failureHandler, times(1)).accept(eq(indexRequest), any(RuntimeException.class));
+        verify(failureHandler, times(1)).accept(eq(0), any(RuntimeException.class));
         verify(completionHandler, times(1)).accept(null);
     }
 
@@ -352,12 +361,12 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         when(store.get(pipelineId)).thenReturn(new Pipeline(pipelineId, null, version, processor));
 
         @SuppressWarnings("unchecked")
-        BiConsumer<IndexRequest, Exception> requestItemErrorHandler = mock(BiConsumer.class);
+        BiConsumer<Integer, Exception> requestItemErrorHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(bulkRequest.requests(), requestItemErrorHandler, completionHandler);
 
-        verify(requestItemErrorHandler, times(numIndexRequests)).accept(any(IndexRequest.class), eq(error));
+        verify(requestItemErrorHandler, times(numIndexRequests)).accept(anyInt(), eq(error));
         verify(completionHandler, times(1)).accept(null);
     }
 
@@ -375,7 +384,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         when(store.get(pipelineId)).thenReturn(new Pipeline(pipelineId, null, version, new CompoundProcessor()));
 
         @SuppressWarnings("unchecked")
-        BiConsumer<IndexRequest, Exception> requestItemErrorHandler = mock(BiConsumer.class);
+        BiConsumer<Integer, Exception> requestItemErrorHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         Consumer<Exception> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(bulkRequest.requests(), requestItemErrorHandler, completionHandler);
@@ -384,6 +393,186 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         verify(completionHandler, times(1)).accept(null);
     }
 
+    public void testBulkRequestExecutionAcrossWorkers() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            final int numWorkers = randomIntBetween(2, 8);
+            final Settings settings = Settings.builder()
+                .put(PipelineExecutionService.BULK_WORKERS_SETTING.getKey(), numWorkers)
+                .build();
+            final PipelineExecutionService service = new PipelineExecutionService(settings, store, threadPool);
+            final Set<String> threads = ConcurrentCollections.newConcurrentSet();
+            when(store.get("_id")).thenReturn(new Pipeline("_id", null, version, new CompoundProcessor(new AbstractProcessor("tag") {
+                @Override
+                public void execute(IngestDocument ingestDocument) {
+                    threads.add(Thread.currentThread().getName());
+                    if (ingestDocument.getFieldValue("fail", Boolean.class)) {
+                        throw new IllegalStateException("failed");
+                    }
+                    ingestDocument.setFieldValue("processed", true);
+                }
+
+                @Override
+                public String getType() {
+                    return "test";
+                }
+            })));
+
+            final BulkRequest bulkRequest = new BulkRequest();
+            final int numRequests = randomIntBetween(numWorkers * PipelineExecutionService.MIN_REQUESTS_PER_WORKER, 1000);
+            final List<Integer> expectedFailures = new ArrayList<>();
+            for (int i = 0; i < numRequests; i++) {
+                final boolean fail = rarely();
+                if (fail) {
+                    expectedFailures.add(i);
+                }
+                bulkRequest.add(new IndexRequest("_index", "_type", Integer.toString(i)).setPipeline("_id")
+                    .source(Requests.INDEX_CONTENT_TYPE, "fail", fail));
+            }
+
+            final List<Integer> failures = new ArrayList<>();
+            final CountDownLatch completed = new CountDownLatch(1);
+            final AtomicReference<Exception> completionFailure = new AtomicReference<>();
+            service.executeBulkRequest(bulkRequest.requests(), (slot, e) -> failures.add(slot), e -> {
+                completionFailure.set(e);
+                completed.countDown();
+            });
+            assertTrue(completed.await(30, TimeUnit.SECONDS));
+            assertNull(completionFailure.get());
+            // failures are reported in the order of the requests no matter which worker processed them
+            assertThat(failures, equalTo(expectedFailures));
+            assertThat(threads.size(), lessThanOrEqualTo(numWorkers));
+            for (int i = 0; i < numRequests; i++) {
+                final IndexRequest indexRequest = (IndexRequest) bulkRequest.requests().get(i);
+                if (expectedFailures.contains(i)) {
+                    assertThat(indexRequest.getPipeline(), equalTo("_id"));
+                } else {
+                    assertNull(indexRequest.getPipeline());
+                    assertThat(indexRequest.sourceAsMap().get("processed"), equalTo(true));
+                }
+            }
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testPartiallyRejectedBulkRequestOnlyFailsRejectedRequests() {
+        final int numWorkers = randomIntBetween(2, 8);
+        final int rejectedWorker = randomIntBetween(0, numWorkers - 1);
+        final AtomicInteger forkedWorkers = new AtomicInteger();
+        final PipelineExecutionService service = newServiceWithExecutor(numWorkers, runnable -> {
+            if (forkedWorkers.getAndIncrement() == rejectedWorker) {
+                reject(runnable);
+            } else {
+                runnable.run();
+            }
+        });
+        when(store.get("_id")).thenReturn(new Pipeline("_id", null, version, new CompoundProcessor()));
+
+        final int numRequests = randomIntBetween(numWorkers * PipelineExecutionService.MIN_REQUESTS_PER_WORKER, 500);
+        final BulkRequest bulkRequest = newBulkRequest(numRequests);
+        final List<Integer> expectedFailures = new ArrayList<>();
+        for (int slot = numRequests * rejectedWorker / numWorkers; slot < numRequests * (rejectedWorker + 1) / numWorkers; slot++) {
+            expectedFailures.add(slot);
+        }
+
+        final List<Integer> failures = new ArrayList<>();
+        final SetOnce<Boolean> completed = new SetOnce<>();
+        service.executeBulkRequest(bulkRequest.requests(), (slot, e) -> {
+            assertThat(e, instanceOf(EsRejectedExecutionException.class));
+            failures.add(slot);
+        }, e -> {
+            assertNull(e);
+            completed.set(true);
+        });
+        assertTrue(completed.get());
+        assertThat(forkedWorkers.get(), equalTo(numWorkers));
+        assertThat(failures, equalTo(expectedFailures));
+        for (int slot = 0; slot < numRequests; slot++) {
+            final IndexRequest indexRequest = (IndexRequest) bulkRequest.requests().get(slot);
+            if (expectedFailures.contains(slot)) {
+                assertThat(indexRequest.getPipeline(), equalTo("_id"));
+            } else {
+                assertNull(indexRequest.getPipeline());
+            }
+        }
+    }
+
+    public void testFullyRejectedBulkRequestFails() {
+        final int numWorkers = randomIntBetween(1, 8);
+        final PipelineExecutionService service = newServiceWithExecutor(numWorkers, PipelineExecutionServiceTests::reject);
+        when(store.get("_id")).thenReturn(new Pipeline("_id", null, version, new CompoundProcessor()));
+
+        final BulkRequest bulkRequest = newBulkRequest(randomIntBetween(1, 500));
+        final SetOnce<Exception> failure = new SetOnce<>();
+        service.executeBulkRequest(bulkRequest.requests(), (slot, e) -> fail("the bulk request must fail as a whole"), failure::set);
+        assertThat(failure.get(), instanceOf(EsRejectedExecutionException.class));
+    }
+
+    public void testAdditionalWorkersAreBoundedPerNode() {
+        final int numWorkers = randomIntBetween(2, 8);
+        final List<Runnable> forked = new ArrayList<>();
+        final PipelineExecutionService service = newServiceWithExecutor(numWorkers, forked::add);
+        when(store.get("_id")).thenReturn(new Pipeline("_id", null, version, new CompoundProcessor()));
+        final int numRequests = numWorkers * PipelineExecutionService.MIN_REQUESTS_PER_WORKER;
+
+        final AtomicInteger completed = new AtomicInteger();
+        final Consumer<Exception> completionHandler = e -> {
+            assertNull(e);
+            completed.incrementAndGet();
+        };
+        final BiConsumer<Integer, Exception> failureHandler = (slot, e) -> fail("unexpected failure of slot [" + slot + "]");
+        // the first bulk request takes all but one of the additional workers of the node
+        service.executeBulkRequest(newBulkRequest(numRequests).requests(), failureHandler, completionHandler);
+        assertThat(forked.size(), equalTo(numWorkers));
+        service.executeBulkRequest(newBulkRequest(numRequests).requests(), failureHandler, completionHandler);
+        assertThat(forked.size(), equalTo(numWorkers + 2));
+        // bulk requests are still processed by a single task once the node forked all additional workers
+        service.executeBulkRequest(newBulkRequest(numRequests).requests(), failureHandler, completionHandler);
+        assertThat(forked.size(), equalTo(numWorkers + 3));
+
+        for (Runnable runnable : forked) {
+            runnable.run();
+        }
+        assertThat(completed.get(), equalTo(3));
+        // the additional workers are released once they completed
+        forked.clear();
+        service.executeBulkRequest(newBulkRequest(numRequests).requests(), failureHandler, completionHandler);
+        assertThat(forked.size(), equalTo(numWorkers));
+    }
+
+    private PipelineExecutionService newServiceWithExecutor(int numWorkers, Consumer<AbstractRunnable> executor) {
+        final ThreadPool threadPool = mock(ThreadPool.class);
+        final ExecutorService executorService = mock(ExecutorService.class);
+        doAnswer(invocation -> {
+            executor.accept((AbstractRunnable) invocation.getArguments()[0]);
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+        when(threadPool.executor(anyString())).thenReturn(executorService);
+        final Settings settings = Settings.builder().put(PipelineExecutionService.BULK_WORKERS_SETTING.getKey(), numWorkers).build();
+        return new PipelineExecutionService(settings, store, threadPool);
+    }
+
+    /**
+     * Rejects the given task like {@link org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor} does if its queue is full.
+     */
+    private static void reject(AbstractRunnable runnable) {
+        try {
+            runnable.onRejection(new EsRejectedExecutionException("rejected"));
+        } finally {
+            runnable.onAfter();
+        }
+    }
+
+    private static BulkRequest newBulkRequest(int numRequests) {
+        final BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < numRequests; i++) {
+            bulkRequest.add(new IndexRequest("_index", "_type", Integer.toString(i)).setPipeline("_id")
+                .source(Requests.INDEX_CONTENT_TYPE, "field", i));
+        }
+        return bulkRequest;
+    }
+
     public void testStats() {
         final IngestStats initialStats = executionService.stats();
         assertThat(initialStats.getStatsPerPipeline().size(), equalTo(0));
@@ -401,7 +590,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         executionService.updatePipelineStats(new IngestMetadata(configurationMap));
 
         @SuppressWarnings("unchecked")
-        final BiConsumer<IndexRequest, Exception> failureHandler = mock(BiConsumer.class);
+        final BiConsumer<Integer, Exception> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         final Consumer<Exception> completionHandler = mock(Consumer.class);
 
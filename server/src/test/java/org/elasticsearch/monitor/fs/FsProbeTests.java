@@ -20,10 +20,13 @@
 package org.elasticsearch.monitor.fs;
 
 import org.apache.lucene.util.Constants;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.NodeEnvironment.NodePath;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
@@ -51,7 +54,7 @@ public class FsProbeTests extends ESTestCase {
     public void testFsInfo() throws IOException {
 
         try (NodeEnvironment env = newNodeEnvironment()) {
-            FsProbe probe = new FsProbe(Settings.EMPTY, env);
+            FsProbe probe = new FsProbe(Settings.EMPTY, env, null);
 
             FsInfo stats = probe.stats(null, null);
             assertNotNull(stats);
@@ -166,7 +169,7 @@ public class FsProbeTests extends ESTestCase {
                 " 253       1 dm-1 112 0 4624 13 0 0 0 0 0 5 13",
                 " 253       2 dm-2 47802 0 710658 49312 1371977 0 64126096 33730596 0 1058193 33781827"));
 
-        final FsProbe probe = new FsProbe(Settings.EMPTY, null) {
+        final FsProbe probe = new FsProbe(Settings.EMPTY, null, null) {
             @Override
             List<String> readProcDiskStats() throws IOException {
                 return diskStats.get();
@@ -243,6 +246,37 @@ public class FsProbeTests extends ESTestCase {
         assertThat(second.totalWriteKilobytes, equalTo(1236L));
     }
 
+    public void testTranslogGroupCommitStats() throws IOException {
+        final TranslogGroupCommitService service = new TranslogGroupCommitService(
+            Settings.builder().put(TranslogGroupCommitService.ENABLED_SETTING.getKey(), true).build());
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            final FsProbe probe = new FsProbe(Settings.EMPTY, env, service);
+            for (FsInfo.Path path : probe.stats(null, null)) {
+                assertNull(path.getTranslogGroupCommit());
+            }
+
+            final NodePath nodePath = env.nodePaths()[0];
+            final int numSyncs = randomIntBetween(1, 10);
+            for (int i = 0; i < numSyncs; i++) {
+                service.getGroup(nodePath.path).sync(locations -> {}, new Translog.Location(0, i, 0), e -> assertNull(e));
+            }
+            final FsInfo stats = probe.stats(null, null);
+            for (FsInfo.Path path : stats) {
+                if (path.getPath().equals(nodePath.path.toAbsolutePath().toString())) {
+                    assertNotNull(path.getTranslogGroupCommit());
+                    assertThat(path.getTranslogGroupCommit().getRequests(), equalTo((long) numSyncs));
+                } else {
+                    assertNull(path.getTranslogGroupCommit());
+                }
+            }
+            final FsInfo.Path path = stats.iterator().next();
+            final FsInfo.Path copy = copyWriteable(path, writableRegistry(), FsInfo.Path::new);
+            assertThat(copy.getTranslogGroupCommit().getRequests(), equalTo((long) numSyncs));
+            final FsInfo.Path bwcCopy = copyWriteable(path, writableRegistry(), FsInfo.Path::new, Version.V_6_4_1);
+            assertNull(bwcCopy.getTranslogGroupCommit());
+        }
+    }
+
     public void testAdjustForHugeFilesystems() throws Exception {
         NodePath np = new FakeNodePath(createTempDir());
         assertThat(FsProbe.getFSInfo(np).total, greaterThanOrEqualTo(0L));
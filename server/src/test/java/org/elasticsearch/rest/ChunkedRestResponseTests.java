@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class ChunkedRestResponseTests extends ESTestCase {
+
+    public void testEncodeChunks() throws IOException {
+        final List<ToXContent> parts = randomParts();
+        final XContentType xContentType = randomFrom(XContentType.values());
+        final boolean pretty = randomBoolean();
+        final ChunkedRestResponse response = new ChunkedRestResponse(RestStatus.OK, newBuilder(xContentType, pretty),
+            ToXContent.EMPTY_PARAMS, parts.iterator());
+        assertThat(response.contentType(), equalTo(xContentType.mediaType()));
+
+        final int sizeHint = randomIntBetween(1, 512);
+        final BytesStreamOutput out = new BytesStreamOutput();
+        while (response.isDone() == false) {
+            final long before = out.size();
+            final int length = response.encodeChunk(out, sizeHint);
+            assertThat((long) length, equalTo(out.size() - before));
+            if (response.isDone() == false) {
+                assertThat(length, greaterThanOrEqualTo(sizeHint));
+            }
+        }
+        response.close();
+        assertEquals(expected(parts, xContentType, pretty), out.bytes());
+    }
+
+    public void testContent() throws IOException {
+        final List<ToXContent> parts = randomParts();
+        final XContentType xContentType = randomFrom(XContentType.values());
+        final boolean pretty = randomBoolean();
+        final ChunkedRestResponse response = new ChunkedRestResponse(RestStatus.OK, newBuilder(xContentType, pretty),
+            ToXContent.EMPTY_PARAMS, parts.iterator());
+        final BytesReference content = response.content();
+        assertTrue(response.isDone());
+        assertSame(content, response.content());
+        assertEquals(expected(parts, xContentType, pretty), content);
+    }
+
+    public void testCircuitBreaker() throws IOException {
+        final CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(Long.MAX_VALUE), 1.0, logger);
+        final ChunkedRestResponse response = new ChunkedRestResponse(RestStatus.OK, newBuilder(XContentType.JSON, false),
+            ToXContent.EMPTY_PARAMS, randomParts().iterator());
+        response.setCircuitBreaker(breaker);
+        while (response.isDone() == false) {
+            final int length = response.encodeChunk(new BytesStreamOutput(), randomIntBetween(1, 512));
+            // only the chunk that was encoded last is in flight
+            assertThat(breaker.getUsed(), equalTo((long) length));
+        }
+        response.close();
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    public void testCircuitBreakerTrips() throws IOException {
+        final CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(16), 1.0, logger);
+        final List<ToXContent> parts = new ArrayList<>();
+        parts.add((builder, params) -> builder.startObject().field("field", randomAlphaOfLength(32)));
+        parts.add((builder, params) -> builder.endObject());
+        final ChunkedRestResponse response = new ChunkedRestResponse(RestStatus.OK, newBuilder(XContentType.JSON, false),
+            ToXContent.EMPTY_PARAMS, parts.iterator());
+        response.setCircuitBreaker(breaker);
+        expectThrows(CircuitBreakingException.class, () -> response.encodeChunk(new BytesStreamOutput(), 1));
+        response.close();
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    private static XContentBuilder newBuilder(XContentType xContentType, boolean pretty) throws IOException {
+        final XContentBuilder builder = new XContentBuilder(xContentType.xContent(), new BytesStreamOutput());
+        if (pretty) {
+            builder.prettyPrint();
+        }
+        return builder;
+    }
+
+    private static BytesReference expected(List<ToXContent> parts, XContentType xContentType, boolean pretty) throws IOException {
+        final XContentBuilder builder = newBuilder(xContentType, pretty);
+        for (ToXContent part : parts) {
+            part.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        }
+        return BytesReference.bytes(builder);
+    }
+
+    private static List<ToXContent> randomParts() {
+        final List<ToXContent> parts = new ArrayList<>();
+        parts.add((builder, params) -> builder.startObject().startArray("values"));
+        final int numValues = randomIntBetween(0, 200);
+        for (int i = 0; i < numValues; i++) {
+            final String value = randomAlphaOfLengthBetween(0, 64);
+            parts.add((builder, params) -> builder.startObject().field("value", value).endObject());
+        }
+        parts.add((builder, params) -> builder.endArray().endObject());
+        return parts;
+    }
+}
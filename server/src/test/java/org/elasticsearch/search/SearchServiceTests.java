@@ -24,11 +24,17 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequestBuilder;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
+import org.elasticsearch.action.search.OpenPointInTimeRequestBuilder;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -37,11 +43,13 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.MatchNoneQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.indices.IndicesService;
@@ -51,16 +59,21 @@ import org.elasticsearch.script.MockScriptEngine;
 import org.elasticsearch.script.MockScriptPlugin;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardFieldRanges;
 import org.elasticsearch.search.internal.ShardSearchLocalRequest;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPoolStats;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -78,6 +91,7 @@ import static org.elasticsearch.action.support.WriteRequest.RefreshPolicy.IMMEDI
 import static org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason.DELETED;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 
@@ -107,7 +121,9 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
 
     @Override
     protected Settings nodeSettings() {
-        return Settings.builder().put("search.default_search_timeout", "5s").build();
+        return Settings.builder().put("search.default_search_timeout", "5s")
+            // enough workers to search the segments of a shard in several slices when concurrent segment search is enabled
+            .put("thread_pool.search_worker.size", 4).build();
     }
 
     public void testClearOnClose() throws ExecutionException, InterruptedException {
@@ -146,6 +162,41 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertEquals(0, service.getActiveContexts());
     }
 
+    public void testPointInTime() {
+        createIndex("index");
+        client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchService service = getInstanceFromNode(SearchService.class);
+        String id = new OpenPointInTimeRequestBuilder(client(), OpenPointInTimeAction.INSTANCE)
+            .setIndices("index").setKeepAlive(TimeValue.timeValueMinutes(1)).get().getId();
+        assertEquals(1, service.getActiveReaderContexts());
+        assertEquals(0, service.getActiveContexts());
+
+        client().prepareIndex("index", "type", "2").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        assertEquals(2, client().prepareSearch("index").get().getHits().getTotalHits());
+        for (int i = 0; i < 3; i++) {
+            SearchResponse searchResponse = client().prepareSearch()
+                .setSource(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(id))).get();
+            assertEquals(1, searchResponse.getHits().getTotalHits());
+        }
+        assertEquals(1, service.getActiveReaderContexts());
+
+        assertTrue(new ClosePointInTimeRequestBuilder(client(), ClosePointInTimeAction.INSTANCE).setId(id).get().isSucceeded());
+        assertEquals(0, service.getActiveReaderContexts());
+        expectThrows(SearchPhaseExecutionException.class, () -> client().prepareSearch()
+            .setSource(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(id))).get());
+    }
+
+    public void testPointInTimeIndexDelete() {
+        createIndex("index");
+        client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchService service = getInstanceFromNode(SearchService.class);
+        new OpenPointInTimeRequestBuilder(client(), OpenPointInTimeAction.INSTANCE)
+            .setIndices("index").setKeepAlive(TimeValue.timeValueMinutes(1)).get();
+        assertEquals(1, service.getActiveReaderContexts());
+        assertAcked(client().admin().indices().prepareDelete("index"));
+        assertEquals(0, service.getActiveReaderContexts());
+    }
+
     public void testCloseSearchContextOnRewriteException() {
         createIndex("index");
         client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
@@ -433,6 +484,43 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
 
     }
 
+    public void testCacheableFieldRanges() throws IOException {
+        createIndex("index", Settings.EMPTY, "type", "@timestamp", "type=date", "foo", "type=keyword");
+        client().prepareIndex("index", "type", "1").setSource("@timestamp", 1000).setRefreshPolicy(IMMEDIATE).get();
+        client().prepareIndex("index", "type", "2").setSource("@timestamp", 2000).setRefreshPolicy(IMMEDIATE).get();
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexShard indexShard = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0);
+        final SearchSourceBuilder source = new SearchSourceBuilder().query(new BoolQueryBuilder()
+            .filter(new RangeQueryBuilder("@timestamp").gte(1500))
+            .filter(new RangeQueryBuilder("foo").gte("bar"))
+            .must(new RangeQueryBuilder("unmapped").gte(0)));
+        final ShardSearchLocalRequest request = new ShardSearchLocalRequest(indexShard.shardId(), 1, SearchType.QUERY_THEN_FETCH,
+            source, Strings.EMPTY_ARRAY, false, new AliasFilter(null, Strings.EMPTY_ARRAY), 1f, true, null, null);
+
+        // the index still receives writes
+        assertNull(service.cacheableFieldRanges(request));
+
+        client().admin().indices().prepareUpdateSettings("index")
+            .setSettings(Settings.builder().put(IndexMetaData.SETTING_BLOCKS_WRITE, true)).get();
+        try {
+            ShardFieldRanges fieldRanges = service.cacheableFieldRanges(request);
+            assertNotNull(fieldRanges);
+            assertEquals(getInstanceFromNode(ClusterService.class).state().metaData().index("index").getVersion(),
+                fieldRanges.getIndexMetaDataVersion());
+            assertEquals(Collections.singleton("@timestamp"), fieldRanges.getRanges().keySet());
+            assertEquals(Long.valueOf(1000), fieldRanges.getRanges().get("@timestamp").getMin());
+            assertEquals(Long.valueOf(2000), fieldRanges.getRanges().get("@timestamp").getMax());
+
+            assertNull(service.cacheableFieldRanges(new ShardSearchLocalRequest(indexShard.shardId(), 1, SearchType.QUERY_THEN_FETCH,
+                new SearchSourceBuilder().query(new TermQueryBuilder("foo", "bar")), Strings.EMPTY_ARRAY, false,
+                new AliasFilter(null, Strings.EMPTY_ARRAY), 1f, true, null, null)));
+        } finally {
+            client().admin().indices().prepareUpdateSettings("index")
+                .setSettings(Settings.builder().put(IndexMetaData.SETTING_BLOCKS_WRITE, false)).get();
+        }
+    }
+
     public void testCanRewriteToMatchNone() {
         assertFalse(SearchService.canRewriteToMatchNone(new SearchSourceBuilder().query(new MatchNoneQueryBuilder())
             .aggregation(new GlobalAggregationBuilder("test"))));
@@ -450,4 +538,60 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
             .suggest(new SuggestBuilder())));
 
     }
+
+    public void testConcurrentSegmentSearchWithAggregations() throws Exception {
+        createIndex("index", Settings.builder().put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).build(),
+            "type", "value", "type=long");
+        final int numSegments = randomIntBetween(4, 8);
+        long totalDocs = 0;
+        for (int i = 0; i < numSegments; i++) {
+            final int numDocs = randomIntBetween(1, 20);
+            totalDocs += numDocs;
+            for (int j = 0; j < numDocs; j++) {
+                client().prepareIndex("index", "type").setSource("value", randomIntBetween(0, 100)).get();
+            }
+            client().admin().indices().prepareRefresh("index").get();
+        }
+
+        // the match_all query reads its hit count from the index statistics, which must only be counted once for all slices
+        for (int size : new int[] { 0, randomIntBetween(1, 5) }) {
+            final SearchSourceBuilder source = new SearchSourceBuilder().size(size)
+                .aggregation(AggregationBuilders.histogram("histogram").field("value").interval(10)
+                    .subAggregation(AggregationBuilders.stats("stats").field("value")))
+                .aggregation(AggregationBuilders.range("range").field("value").addUnboundedTo(50).addUnboundedFrom(50)
+                    .subAggregation(AggregationBuilders.max("max").field("value")))
+                .aggregation(AggregationBuilders.avg("avg").field("value"))
+                .aggregation(AggregationBuilders.missing("missing").field("value"));
+            assertConcurrentSegmentSearch(source, totalDocs);
+        }
+    }
+
+    private void assertConcurrentSegmentSearch(SearchSourceBuilder source, long expectedTotalHits) throws Exception {
+        final SearchResponse sequential = client().prepareSearch("index").setSource(source).setRequestCache(false).get();
+        assertEquals(expectedTotalHits, sequential.getHits().getTotalHits());
+
+        client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(SearchService.CONCURRENT_SEGMENT_SEARCH_SETTING.getKey(), true)).get();
+        try {
+            final long completedTasks = completedSearchWorkerTasks();
+            final SearchResponse concurrent = client().prepareSearch("index").setSource(source).setRequestCache(false).get();
+            // the slices of segments were searched on the workers, which count their tasks once they returned their result
+            assertBusy(() -> assertThat(completedSearchWorkerTasks(), greaterThan(completedTasks)));
+            assertEquals(expectedTotalHits, concurrent.getHits().getTotalHits());
+            assertEquals(Math.min(source.size(), expectedTotalHits), concurrent.getHits().getHits().length);
+            assertEquals(Strings.toString(sequential.getAggregations()), Strings.toString(concurrent.getAggregations()));
+        } finally {
+            client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchService.CONCURRENT_SEGMENT_SEARCH_SETTING.getKey())).get();
+        }
+    }
+
+    private long completedSearchWorkerTasks() {
+        for (ThreadPoolStats.Stats stats : getInstanceFromNode(ThreadPool.class).stats()) {
+            if (ThreadPool.Names.SEARCH_WORKER.equals(stats.getName())) {
+                return stats.getCompleted();
+            }
+        }
+        throw new AssertionError("no stats for the [" + ThreadPool.Names.SEARCH_WORKER + "] thread pool");
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BatchingBucketCollectorTests extends ESTestCase {
+
+    public void testCollectsAllDocsInBatches() throws IOException {
+        try (Directory directory = newDirectory()) {
+            RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+            int numDocs = randomIntBetween(1, 1000);
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                document.add(new StringField("field", randomFrom("a", "b"), Field.Store.NO));
+                indexWriter.addDocument(document);
+                if (rarely()) {
+                    indexWriter.commit();
+                }
+            }
+            indexWriter.close();
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                Query query = randomBoolean() ? new MatchAllDocsQuery() : new TermQuery(new Term("field", "a"));
+
+                RecordingBucketCollector expected = new RecordingBucketCollector(false);
+                indexSearcher.search(query, expected);
+
+                RecordingBucketCollector recording = new RecordingBucketCollector(false);
+                BucketCollector collector = BatchingBucketCollector.wrap(recording);
+                assertThat(collector, instanceOf(BatchingBucketCollector.class));
+                collector.preCollection();
+                indexSearcher.search(query, collector);
+                collector.postCollection();
+
+                assertTrue(recording.postCollected);
+                assertThat(recording.docs, equalTo(expected.docs));
+                assertThat(recording.maxBatchSize, lessThanOrEqualTo(BatchingBucketCollector.BATCH_SIZE));
+                if (expected.docs.size() > 0) {
+                    assertThat(recording.batches, greaterThan(0));
+                }
+            }
+        }
+    }
+
+    public void testCollectorsThatNeedScoresAreNotWrapped() {
+        BucketCollector collector = new RecordingBucketCollector(true);
+        assertSame(collector, BatchingBucketCollector.wrap(collector));
+        assertSame(BucketCollector.NO_OP_COLLECTOR, BatchingBucketCollector.wrap(BucketCollector.NO_OP_COLLECTOR));
+    }
+
+    /**
+     * Records the global ids of the collected docs, and checks that the docs of a segment are collected before the collector
+     * of the next segment is requested.
+     */
+    private static class RecordingBucketCollector extends BucketCollector {
+
+        final boolean needsScores;
+        final List<Integer> docs = new ArrayList<>();
+        int batches;
+        int maxBatchSize;
+        boolean postCollected;
+        LeafReaderContext current;
+
+        RecordingBucketCollector(boolean needsScores) {
+            this.needsScores = needsScores;
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) {
+            current = ctx;
+            return new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long bucket) {
+                    assertSame("docs must be collected before the collector of the next segment is requested", ctx, current);
+                    assertThat(bucket, equalTo(0L));
+                    docs.add(ctx.docBase + doc);
+                }
+
+                @Override
+                public void collect(int[] batch, int count, long bucket) throws IOException {
+                    batches++;
+                    maxBatchSize = Math.max(maxBatchSize, count);
+                    for (int i = 1; i < count; i++) {
+                        assertThat(batch[i - 1], lessThanOrEqualTo(batch[i]));
+                    }
+                    super.collect(batch, count, bucket);
+                }
+            };
+        }
+
+        @Override
+        public void preCollection() {
+        }
+
+        @Override
+        public void postCollection() {
+            postCollected = true;
+        }
+
+        @Override
+        public boolean needsScores() {
+            return needsScores;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.missing.MissingAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.min.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.stats.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.stats.extended.ExtendedStatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.test.InternalAggregationTestCase.DEFAULT_MAX_BUCKETS;
+import static org.mockito.Mockito.when;
+
+public class SegmentCachingAggregationCollectorTests extends AggregatorTestCase {
+
+    private static final String FIELD = "value";
+
+    private static MappedFieldType fieldType() {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName(FIELD);
+        return fieldType;
+    }
+
+    private static List<AggregationBuilder> segmentReducibleAggregations() {
+        return Arrays.asList(
+            new MinAggregationBuilder("min").field(FIELD),
+            new MaxAggregationBuilder("max").field(FIELD),
+            new SumAggregationBuilder("sum").field(FIELD),
+            new AvgAggregationBuilder("avg").field(FIELD),
+            new ValueCountAggregationBuilder("value_count", ValueType.LONG).field(FIELD),
+            new StatsAggregationBuilder("stats").field(FIELD),
+            new ExtendedStatsAggregationBuilder("extended_stats").field(FIELD),
+            new HistogramAggregationBuilder("histogram").field(FIELD).interval(10)
+                .subAggregation(new StatsAggregationBuilder("stats").field(FIELD)),
+            new RangeAggregationBuilder("range").field(FIELD).addUnboundedTo(30).addRange(30, 60).addUnboundedFrom(60),
+            new MissingAggregationBuilder("missing", ValueType.LONG).field(FIELD),
+            new FilterAggregationBuilder("filter", QueryBuilders.rangeQuery(FIELD).gte(50))
+                .subAggregation(new SumAggregationBuilder("sum").field(FIELD)),
+            new FiltersAggregationBuilder("filters", QueryBuilders.rangeQuery(FIELD).lt(50), QueryBuilders.rangeQuery(FIELD).gte(50)));
+    }
+
+    public void testCanCollectPerSegment() {
+        for (AggregationBuilder aggregation : segmentReducibleAggregations()) {
+            assertTrue(aggregation.getName(),
+                SegmentCachingAggregationCollector.canCollectPerSegment(Collections.singletonList(aggregation)));
+        }
+    }
+
+    public void testReducedSegmentsEqualShardAggregation() throws IOException {
+        try (Directory directory = newDirectory()) {
+            final int numSegments = indexSegments(directory);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertEquals(numSegments, reader.leaves().size());
+                IndexSearcher searcher = new IndexSearcher(reader);
+                Query query = randomBoolean() ? new MatchAllDocsQuery() : LongPoint.newRangeQuery(FIELD, 10, 80);
+                for (AggregationBuilder aggregation : segmentReducibleAggregations()) {
+                    InternalAggregation expected = search(searcher, query, aggregation, fieldType());
+                    TestCache cache = new TestCache();
+                    InternalAggregation actual = collectPerSegment(searcher, query, aggregation, cache);
+                    assertEquals(aggregation.getName(), finalReduce(expected), finalReduce(actual));
+                    assertEquals(aggregation.getName(), numSegments, cache.cached.size());
+                }
+            }
+        }
+    }
+
+    public void testCachedSegmentsAreNotCollected() throws IOException {
+        try (Directory directory = newDirectory()) {
+            final int numSegments = indexSegments(directory);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                AggregationBuilder aggregation = randomFrom(segmentReducibleAggregations());
+                TestCache cache = new TestCache();
+                InternalAggregation first = collectPerSegment(searcher, new MatchAllDocsQuery(), aggregation, cache);
+                assertEquals(numSegments, cache.puts);
+
+                // the segments would not match any doc, so the aggregations can only come from the cache
+                InternalAggregation second = collectPerSegment(searcher, new MatchNoDocsQuery(), aggregation, cache);
+                assertEquals(numSegments, cache.puts);
+                assertEquals(numSegments, cache.hits);
+                assertEquals(aggregation.getName(), finalReduce(first), finalReduce(second));
+            }
+        }
+    }
+
+    public void testIncompleteSegmentIsNotCached() throws IOException {
+        try (Directory directory = newDirectory()) {
+            final int numSegments = indexSegments(directory);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                AggregationBuilder aggregation = randomFrom(segmentReducibleAggregations());
+                TestCache cache = new TestCache();
+                SegmentCachingAggregationCollector collector = newCollector(searcher, new MatchAllDocsQuery(), aggregation, cache);
+                collector.preCollection();
+                // the search times out or terminates early while it collects the last segment
+                List<LeafReaderContext> leaves = reader.leaves();
+                for (int i = 0; i < leaves.size(); i++) {
+                    LeafReaderContext leaf = leaves.get(i);
+                    LeafCollector leafCollector = collector.getLeafCollector(leaf);
+                    int maxDoc = i == leaves.size() - 1 ? leaf.reader().maxDoc() / 2 : leaf.reader().maxDoc();
+                    for (int doc = 0; doc < maxDoc; doc++) {
+                        leafCollector.collect(doc);
+                    }
+                }
+                collector.reduce(InternalAggregations.EMPTY, false);
+                assertEquals(numSegments - 1, cache.cached.size());
+                assertFalse(cache.cached.containsKey(leaves.get(numSegments - 1).reader().getCoreCacheHelper().getKey()));
+
+                // once the last segment is fully collected, its aggregations are cached too
+                collectPerSegment(searcher, new MatchAllDocsQuery(), aggregation, cache);
+                assertEquals(numSegments, cache.cached.size());
+            }
+        }
+    }
+
+    /**
+     * Indexes a random number of segments, and returns that number.
+     */
+    private int indexSegments(Directory directory) throws IOException {
+        final int numSegments = randomIntBetween(2, 5);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            for (int i = 0; i < numSegments; i++) {
+                final int numDocs = randomIntBetween(1, 50);
+                for (int j = 0; j < numDocs; j++) {
+                    Document document = new Document();
+                    if (rarely() == false) {
+                        long value = randomIntBetween(0, 99);
+                        document.add(new SortedNumericDocValuesField(FIELD, value));
+                        document.add(new LongPoint(FIELD, value));
+                    }
+                    writer.addDocument(document);
+                }
+                writer.commit();
+            }
+        }
+        return numSegments;
+    }
+
+    private SegmentCachingAggregationCollector newCollector(IndexSearcher searcher, Query query, AggregationBuilder aggregation,
+                                                            SegmentAggregationCache cache) throws IOException {
+        MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(DEFAULT_MAX_BUCKETS);
+        SearchContext context = createAggregatorFactory(query, aggregation, searcher, createIndexSettings(), bucketConsumer,
+            fieldType()).context;
+        AggregatorFactories factories = AggregatorFactories.builder().addAggregator(aggregation).build(context, null);
+        when(context.aggregations()).thenReturn(new SearchContextAggregations(factories, bucketConsumer));
+        return new SegmentCachingAggregationCollector(context, cache, false);
+    }
+
+    private InternalAggregation collectPerSegment(IndexSearcher searcher, Query query, AggregationBuilder aggregation,
+                                                  SegmentAggregationCache cache) throws IOException {
+        SegmentCachingAggregationCollector collector = newCollector(searcher, query, aggregation, cache);
+        // the aggregation phase collects docs in batches
+        BucketCollector bucketCollector = randomBoolean() ? BatchingBucketCollector.wrap(collector) : collector;
+        bucketCollector.preCollection();
+        searcher.search(query, bucketCollector);
+        bucketCollector.postCollection();
+        InternalAggregations aggregations = collector.reduce(InternalAggregations.EMPTY, true);
+        assertEquals(1, aggregations.asList().size());
+        return (InternalAggregation) aggregations.asList().get(0);
+    }
+
+    private InternalAggregation finalReduce(InternalAggregation aggregation) {
+        InternalAggregation.ReduceContext context = new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null,
+            new MultiBucketConsumer(DEFAULT_MAX_BUCKETS), true);
+        return aggregation.reduce(Collections.singletonList(aggregation), context);
+    }
+
+    /**
+     * A cache that keeps the aggregations of the segments by the key of their core.
+     */
+    private static final class TestCache implements SegmentAggregationCache {
+
+        final Map<Object, InternalAggregations> cached = new HashMap<>();
+        int hits;
+        int puts;
+
+        @Override
+        public InternalAggregations get(LeafReaderContext ctx) {
+            InternalAggregations aggregations = cached.get(ctx.reader().getCoreCacheHelper().getKey());
+            if (aggregations != null) {
+                hits++;
+            }
+            return aggregations;
+        }
+
+        @Override
+        public void put(LeafReaderContext ctx, InternalAggregations aggregations) {
+            puts++;
+            cached.put(ctx.reader().getCoreCacheHelper().getKey(), aggregations);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.IndexSearcher;
@@ -33,6 +34,7 @@ import org.apache.lucene.store.Directory;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -370,6 +372,70 @@ public class DateHistogramAggregatorTests extends AggregatorTestCase {
             histogram -> {}, 5));
     }
 
+    /**
+     * Top-level date histograms on indexed fields count their buckets from the points of the field when the query matches all
+     * docs or is a range query on the same field, check that this gives the same buckets as reading the doc values.
+     */
+    public void testCountFromPoints() throws IOException {
+        final String field = "indexed_date";
+        final long start = asLong("2017-01-01T00:00:00");
+        final long end = start + randomIntBetween(1, 40) * 24L * 60 * 60 * 1000;
+        final Query query;
+        if (randomBoolean()) {
+            query = new MatchAllDocsQuery();
+        } else {
+            query = LongPoint.newRangeQuery(field, randomLongBetween(start, end), randomLongBetween(end, end + 3600000));
+        }
+        final DateHistogramAggregationBuilder aggregationBuilder = new DateHistogramAggregationBuilder("_name").field(field);
+        if (randomBoolean()) {
+            aggregationBuilder.dateHistogramInterval(randomFrom(DateHistogramInterval.HOUR, DateHistogramInterval.DAY,
+                DateHistogramInterval.WEEK, DateHistogramInterval.MONTH));
+        } else {
+            aggregationBuilder.interval(randomIntBetween(1, 48) * 3600000L);
+        }
+        if (randomBoolean()) {
+            aggregationBuilder.timeZone(DateTimeZone.forID(randomFrom("Europe/Paris", "Asia/Kolkata", "America/New_York")));
+        }
+
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final int numDocs = randomIntBetween(1, 200);
+                for (int i = 0; i < numDocs; i++) {
+                    final Document document = new Document();
+                    if (frequently()) {
+                        final long instant = randomLongBetween(start, end);
+                        document.add(new SortedNumericDocValuesField(field, instant));
+                        document.add(new LongPoint(field, instant));
+                    }
+                    indexWriter.addDocument(document);
+                    if (rarely()) {
+                        indexWriter.commit();
+                    }
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                final IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+
+                final DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.Builder("_name").fieldType();
+                fieldType.setHasDocValues(true);
+                fieldType.setName(field);
+                // without index options the values of the field are only read from doc values
+                final DateFieldMapper.DateFieldType docValuesOnlyFieldType = (DateFieldMapper.DateFieldType) fieldType.clone();
+                fieldType.setIndexOptions(IndexOptions.DOCS);
+                docValuesOnlyFieldType.setIndexOptions(IndexOptions.NONE);
+
+                final InternalDateHistogram expected = search(indexSearcher, query, aggregationBuilder, docValuesOnlyFieldType);
+                final InternalDateHistogram histogram = search(indexSearcher, query, aggregationBuilder, fieldType);
+                assertEquals(expected.getBuckets().size(), histogram.getBuckets().size());
+                for (int i = 0; i < expected.getBuckets().size(); i++) {
+                    assertEquals(expected.getBuckets().get(i).getKey(), histogram.getBuckets().get(i).getKey());
+                    assertEquals(expected.getBuckets().get(i).getDocCount(), histogram.getBuckets().get(i).getDocCount());
+                }
+            }
+        }
+    }
+
     private void testSearchCase(Query query, List<String> dataset,
                                 Consumer<DateHistogramAggregationBuilder> configure,
                                 Consumer<Histogram> verify) throws IOException {
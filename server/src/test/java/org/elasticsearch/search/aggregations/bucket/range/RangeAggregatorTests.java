@@ -0,0 +1,175 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.range;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.mapper.NumberFieldMapper.NumberType;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RangeAggregatorTests extends AggregatorTestCase {
+
+    private static final String NUMBER_FIELD = "number";
+
+    /**
+     * Top-level range aggregations on indexed fields count their ranges from the points of the field when the query matches
+     * all docs or is a range query on the same field, check that this gives the same counts as reading the doc values.
+     */
+    public void testRanges() throws IOException {
+        final NumberType numberType = randomFrom(NumberType.LONG, NumberType.INTEGER, NumberType.DOUBLE);
+        final boolean multiValued = randomBoolean();
+        final boolean withQuery = randomBoolean();
+        final int queryFrom = randomIntBetween(-1000, -1);
+        final int queryTo = randomIntBetween(1, 1000);
+
+        final RangeAggregationBuilder builder = new RangeAggregationBuilder("_name").field(NUMBER_FIELD);
+        final int numRanges = randomIntBetween(1, 10);
+        final double[][] ranges = new double[numRanges][];
+        for (int i = 0; i < numRanges; i++) {
+            double from = randomBoolean() ? randomIntBetween(-1200, 1200) : randomDoubleBetween(-1200, 1200, true);
+            double to = randomBoolean() ? randomIntBetween(-1200, 1200) : randomDoubleBetween(-1200, 1200, true);
+            if (rarely()) {
+                from = randomBoolean() ? 0.0 : -0.0;
+            }
+            if (from > to) {
+                double tmp = from;
+                from = to;
+                to = tmp;
+            }
+            switch (randomInt(5)) {
+                case 0:
+                    from = Double.NEGATIVE_INFINITY;
+                    builder.addUnboundedTo("r" + i, to);
+                    break;
+                case 1:
+                    to = Double.POSITIVE_INFINITY;
+                    builder.addUnboundedFrom("r" + i, from);
+                    break;
+                default:
+                    builder.addRange("r" + i, from, to);
+                    break;
+            }
+            ranges[i] = new double[] { from, to };
+        }
+
+        final long[] expectedCounts = new long[numRanges];
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final int numDocs = randomIntBetween(1, 500);
+                final List<Integer> deleted = new ArrayList<>();
+                final Map<Integer, double[]> docValues = new HashMap<>();
+                for (int i = 0; i < numDocs; i++) {
+                    final Document document = new Document();
+                    document.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+                    final int numValues = randomBoolean() ? 0 : (multiValued && randomBoolean() ? 2 : 1);
+                    final double[] values = new double[numValues];
+                    for (int j = 0; j < numValues; j++) {
+                        final Number value;
+                        if (numberType == NumberType.DOUBLE) {
+                            value = rarely() ? randomFrom(0.0, -0.0) : randomDoubleBetween(-1000, 1000, true);
+                        } else {
+                            value = (long) randomIntBetween(-1000, 1000);
+                        }
+                        values[j] = value.doubleValue();
+                        for (Field field : numberType.createFields(NUMBER_FIELD, value, true, true, false)) {
+                            document.add(field);
+                        }
+                    }
+                    docValues.put(i, values);
+                    indexWriter.addDocument(document);
+                    if (rarely()) {
+                        indexWriter.commit();
+                    }
+                    if (rarely()) {
+                        deleted.add(i);
+                    }
+                }
+                for (int id : deleted) {
+                    indexWriter.deleteDocuments(new Term("id", Integer.toString(id)));
+                    docValues.remove(id);
+                }
+                for (double[] values : docValues.values()) {
+                    if (withQuery && matches(values, queryFrom, queryTo) == false) {
+                        continue;
+                    }
+                    for (int i = 0; i < numRanges; i++) {
+                        if (matches(values, ranges[i][0], ranges[i][1])) {
+                            expectedCounts[i]++;
+                        }
+                    }
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                final IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                final MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(numberType);
+                fieldType.setName(NUMBER_FIELD);
+                fieldType.setIndexOptions(IndexOptions.DOCS);
+                final Query query;
+                if (withQuery) {
+                    // a query on the values v such that queryFrom <= v < queryTo
+                    final Object upper = numberType == NumberType.DOUBLE ? Math.nextDown((double) queryTo) : queryTo - 1;
+                    query = numberType.rangeQuery(NUMBER_FIELD, queryFrom, upper, true, true, randomBoolean());
+                } else {
+                    query = new MatchAllDocsQuery();
+                }
+
+                final InternalRange<?, ?> range;
+                if (randomBoolean()) {
+                    range = search(indexSearcher, query, builder, fieldType);
+                } else {
+                    range = searchAndReduce(indexSearcher, query, builder, fieldType);
+                }
+                assertEquals(numRanges, range.getBuckets().size());
+                for (InternalRange.Bucket bucket : range.getBuckets()) {
+                    final int i = Integer.parseInt(bucket.getKeyAsString().substring(1));
+                    assertEquals("range " + bucket.getKeyAsString(), expectedCounts[i], bucket.getDocCount());
+                }
+            }
+        }
+    }
+
+    private static boolean matches(double[] values, double from, double to) {
+        for (double value : values) {
+            if (value >= from && value < to) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
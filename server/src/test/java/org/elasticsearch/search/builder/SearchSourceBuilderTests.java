@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.builder;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -439,6 +440,32 @@ public class SearchSourceBuilderTests extends AbstractSearchTestCase {
         }
     }
 
+    public void testParsePointInTime() throws IOException {
+        String restContent = "{ \"pit\": { \"id\": \"foo\", \"keep_alive\": \"1m\" }, \"size\": 10 }";
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, restContent)) {
+            SearchSourceBuilder searchSourceBuilder = SearchSourceBuilder.fromXContent(parser);
+            assertEquals(new PointInTimeBuilder("foo").setKeepAlive(TimeValue.timeValueMinutes(1)),
+                searchSourceBuilder.pointInTimeBuilder());
+            assertEquals(10, searchSourceBuilder.size());
+        }
+
+        SearchSourceBuilder testBuilder = new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(randomAlphaOfLength(10)));
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            testBuilder.writeTo(output);
+            try (StreamInput in = new NamedWriteableAwareStreamInput(output.bytes().streamInput(), namedWriteableRegistry)) {
+                assertEquals(testBuilder, new SearchSourceBuilder(in));
+            }
+        }
+        try (XContentParser parser = createParser(testBuilder.toXContent(XContentFactory.jsonBuilder(), ToXContent.EMPTY_PARAMS))) {
+            assertEquals(testBuilder, SearchSourceBuilder.fromXContent(parser));
+        }
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.setVersion(Version.V_6_4_1);
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> testBuilder.writeTo(output));
+            assertEquals("[pit] is not supported on nodes before version [6.5.0], node version [6.4.1]", e.getMessage());
+        }
+    }
+
     public void testNegativeFromErrors() {
         IllegalArgumentException expected = expectThrows(IllegalArgumentException.class, () -> new SearchSourceBuilder().from(-2));
         assertEquals("[from] parameter cannot be negative", expected.getMessage());
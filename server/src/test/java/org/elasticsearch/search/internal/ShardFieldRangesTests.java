@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.index.mapper.MappedFieldType.Relation;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.internal.ShardFieldRanges.DateRange;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ShardFieldRangesTests extends ESTestCase {
+
+    private static final String DEFAULT_FORMAT = "strict_date_optional_time||epoch_millis";
+
+    public void testSerialization() throws IOException {
+        Map<String, DateRange> ranges = new HashMap<>();
+        int numFields = randomIntBetween(0, 5);
+        for (int i = 0; i < numFields; i++) {
+            Long min = randomBoolean() ? null : randomLong();
+            ranges.put("field" + i, new DateRange(DEFAULT_FORMAT, randomFrom("", "fr_FR"), min, min == null ? null : randomLong()));
+        }
+        ShardFieldRanges original = new ShardFieldRanges(randomNonNegativeLong(), ranges);
+        ShardFieldRanges copy = copyWriteable(original, new NamedWriteableRegistry(Collections.emptyList()), ShardFieldRanges::new);
+        assertEquals(original.getIndexMetaDataVersion(), copy.getIndexMetaDataVersion());
+        assertEquals(original.getRanges().keySet(), copy.getRanges().keySet());
+        for (Map.Entry<String, DateRange> entry : original.getRanges().entrySet()) {
+            assertEquals(entry.getValue().getMin(), copy.getRanges().get(entry.getKey()).getMin());
+            assertEquals(entry.getValue().getMax(), copy.getRanges().get(entry.getKey()).getMax());
+        }
+    }
+
+    public void testCollectRequiredRanges() {
+        RangeQueryBuilder must = new RangeQueryBuilder("must");
+        RangeQueryBuilder filter = new RangeQueryBuilder("filter");
+        RangeQueryBuilder should = new RangeQueryBuilder("should");
+        RangeQueryBuilder mustNot = new RangeQueryBuilder("must_not");
+        BoolQueryBuilder query = new BoolQueryBuilder().must(must).filter(new ConstantScoreQueryBuilder(filter)).should(should)
+            .mustNot(mustNot);
+        List<RangeQueryBuilder> rangeQueries = new ArrayList<>();
+        ShardFieldRanges.collectRequiredRanges(query, rangeQueries);
+        assertEquals(2, rangeQueries.size());
+        assertSame(must, rangeQueries.get(0));
+        assertSame(filter, rangeQueries.get(1));
+
+        rangeQueries.clear();
+        ShardFieldRanges.collectRequiredRanges(null, rangeQueries);
+        assertTrue(rangeQueries.isEmpty());
+    }
+
+    public void testRelation() {
+        DateRange range = new DateRange(DEFAULT_FORMAT, "", 1000L, 2000L);
+        assertEquals(Relation.WITHIN, range.relation(new RangeQueryBuilder("field").gte(500).lte(2500), () -> 0L));
+        assertEquals(Relation.INTERSECTS, range.relation(new RangeQueryBuilder("field").gte(1500), () -> 0L));
+        assertEquals(Relation.DISJOINT, range.relation(new RangeQueryBuilder("field").gt(2000), () -> 0L));
+        assertEquals(Relation.DISJOINT, range.relation(new RangeQueryBuilder("field").lt(1000), () -> 0L));
+        assertEquals(Relation.INTERSECTS, range.relation(new RangeQueryBuilder("field").lte(1000), () -> 0L));
+        assertEquals(Relation.DISJOINT, range.relation(new RangeQueryBuilder("field").gte("now-1s"), () -> 5000L));
+        assertEquals(Relation.WITHIN, range.relation(new RangeQueryBuilder("field").gte("1970-01-01").format("yyyy-MM-dd"), () -> 0L));
+
+        DateRange empty = new DateRange(DEFAULT_FORMAT, "", null, null);
+        assertEquals(Relation.DISJOINT, empty.relation(new RangeQueryBuilder("field").gte(0), () -> 0L));
+    }
+
+    public void testIsDisjoint() {
+        DateRange range = new DateRange(DEFAULT_FORMAT, "", 10L, 20L);
+        ShardFieldRanges fieldRanges = new ShardFieldRanges(1, Collections.singletonMap("date", range));
+        assertTrue(fieldRanges.isDisjoint(Collections.singletonList(new RangeQueryBuilder("date").gt(20)), () -> 0L));
+        assertFalse(fieldRanges.isDisjoint(Collections.singletonList(new RangeQueryBuilder("date").gte(20)), () -> 0L));
+        assertFalse(fieldRanges.isDisjoint(Collections.singletonList(new RangeQueryBuilder("other").gt(20)), () -> 0L));
+    }
+
+    public void testMerge() {
+        DateRange range = new DateRange(DEFAULT_FORMAT, "", 10L, 20L);
+        ShardFieldRanges first = new ShardFieldRanges(1, Collections.singletonMap("first", range));
+        ShardFieldRanges second = new ShardFieldRanges(1, Collections.singletonMap("second", range));
+        ShardFieldRanges merged = first.merge(second);
+        assertEquals(1, merged.getIndexMetaDataVersion());
+        assertEquals(2, merged.getRanges().size());
+        assertSame(merged, merged.merge(first));
+
+        ShardFieldRanges newer = new ShardFieldRanges(2, Collections.singletonMap("second", range));
+        assertSame(newer, merged.merge(newer));
+        assertSame(newer, newer.merge(merged));
+    }
+}
@@ -21,10 +21,13 @@ package org.elasticsearch.search.query;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
@@ -46,24 +49,33 @@ import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
@@ -539,6 +551,154 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testConcurrentSegmentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+        final int numDocs = scaledRandomIntBetween(100, 500);
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            doc.add(new StringField("foo", randomFrom("a", "b", "c"), Store.NO));
+            if (randomBoolean()) {
+                doc.add(new StringField("foo", randomFrom("a", "b", "c"), Store.NO));
+            }
+            doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 10)));
+            w.addDocument(doc);
+            if (rarely()) {
+                w.commit();
+            }
+        }
+        w.commit();
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        final IndexSearcher sequentialSearcher = new IndexSearcher(reader);
+        final ContextIndexSearcher concurrentSearcher = new ContextIndexSearcher(new Engine.Searcher("test", sequentialSearcher),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+        final int maxSlices = randomIntBetween(2, 8);
+        concurrentSearcher.setExecutor(threadPool.executor(ThreadPool.Names.SEARCH_WORKER), maxSlices);
+        assertThat(concurrentSearcher.numSlices(), equalTo(Math.min(maxSlices, reader.leaves().size())));
+
+        for (int iter = 0; iter < 10; iter++) {
+            final Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("foo", "a")), Occur.SHOULD)
+                .add(new TermQuery(new Term("foo", randomFrom("b", "c"))), Occur.SHOULD)
+                .build();
+            final int size = randomBoolean() ? 0 : randomIntBetween(1, 50);
+            final SortAndFormats sort = randomBoolean() ? null :
+                new SortAndFormats(new Sort(new SortField("rank", SortField.Type.INT)), new DocValueFormat[] { DocValueFormat.RAW });
+            final Query postFilter = randomBoolean() ? null : new TermQuery(new Term("foo", randomFrom("a", "b")));
+
+            final TopDocs[] topDocs = new TopDocs[2];
+            for (int i = 0; i < topDocs.length; i++) {
+                TestSearchContext context = new TestSearchContext(null, indexShard);
+                context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+                context.parsedQuery(new ParsedQuery(query));
+                context.setSize(size);
+                if (sort != null) {
+                    context.sort(sort);
+                    context.trackScores(true);
+                }
+                if (postFilter != null) {
+                    context.parsedPostFilter(new ParsedQuery(postFilter));
+                }
+                QueryPhase.execute(context, i == 0 ? sequentialSearcher : concurrentSearcher, checkCancelled -> {});
+                topDocs[i] = context.queryResult().topDocs();
+            }
+            assertThat(topDocs[1].totalHits, equalTo(topDocs[0].totalHits));
+            assertThat(topDocs[1].scoreDocs.length, equalTo(topDocs[0].scoreDocs.length));
+            for (int i = 0; i < topDocs[0].scoreDocs.length; i++) {
+                assertThat(topDocs[1].scoreDocs[i].doc, equalTo(topDocs[0].scoreDocs[i].doc));
+                assertThat(topDocs[1].scoreDocs[i].score, equalTo(topDocs[0].scoreDocs[i].score));
+            }
+        }
+        reader.close();
+        dir.close();
+    }
+
+    public void testNumericSortOptimization() throws Exception {
+        Directory dir = newDirectory();
+        // the default codec makes the size of the leaves of the points, and thus the narrowing, predictable
+        IndexWriter w = new IndexWriter(dir, new IndexWriterConfig());
+        final int numDocs = 20000;
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            if (i % 3 == 0) {
+                doc.add(new StringField("foo", "bar", Store.NO));
+            }
+            if (i % 100 != 0) {
+                final long rank = randomLongBetween(-1000000, 1000000);
+                doc.add(new LongPoint("rank", rank));
+                doc.add(new SortedNumericDocValuesField("rank", rank));
+            }
+            w.addDocument(doc);
+        }
+        w.forceMerge(1);
+        w.close();
+
+        final IndexReader reader = DirectoryReader.open(dir);
+        final IndexSearcher searcher = new IndexSearcher(reader);
+        final NumberFieldMapper.NumberFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName("rank");
+        for (boolean reverse : new boolean[] { true, false }) {
+            final SortField sortField = new SortedNumericSortField("rank", SortField.Type.LONG, reverse,
+                reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN);
+            sortField.setMissingValue(reverse ? Long.MIN_VALUE : Long.MAX_VALUE);
+            final Sort sort = new Sort(sortField);
+            for (Query query : new Query[] { new MatchAllDocsQuery(), new TermQuery(new Term("foo", "bar")) }) {
+                final int size = randomIntBetween(1, 10);
+                TestSearchContext context = new TestSearchContext(null, indexShard) {
+                    @Override
+                    public MappedFieldType smartNameFieldType(String name) {
+                        return name.equals("rank") ? fieldType : null;
+                    }
+                };
+                context.setTask(new SearchTask(123L, "", "", "", null, Collections.emptyMap()));
+                context.parsedQuery(new ParsedQuery(query));
+                context.setSize(size);
+                context.sort(new SortAndFormats(sort, new DocValueFormat[] { DocValueFormat.RAW }));
+                context.trackTotalHits(randomBoolean());
+                assertNotNull(QueryPhase.narrowToCompetitiveSortValues(context, searcher, query));
+
+                // the probing searches of the narrowing must run once the cancellation checks are installed
+                final AtomicBoolean cancellationSet = new AtomicBoolean();
+                final IndexSearcher checkingSearcher = new IndexSearcher(reader) {
+                    @Override
+                    protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+                        assertTrue(cancellationSet.get());
+                        super.search(leaves, weight, collector);
+                    }
+                };
+                QueryPhase.execute(context, checkingSearcher, checkCancelled -> cancellationSet.set(true));
+                final TopDocs expected = searcher.search(query, size, sort);
+                final TopDocs topDocs = context.queryResult().topDocs();
+                if (context.trackTotalHits()) {
+                    assertThat(topDocs.totalHits, equalTo(expected.totalHits));
+                }
+                assertThat(topDocs.scoreDocs.length, equalTo(expected.scoreDocs.length));
+                for (int i = 0; i < expected.scoreDocs.length; i++) {
+                    assertThat(topDocs.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+                    assertThat(((FieldDoc) topDocs.scoreDocs[i]).fields[0], equalTo(((FieldDoc) expected.scoreDocs[i]).fields[0]));
+                }
+
+                // a missing value that competes with the values of the field disables the optimization
+                final SortField missingFirst = new SortedNumericSortField("rank", SortField.Type.LONG, reverse,
+                    reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN);
+                missingFirst.setMissingValue(reverse ? Long.MAX_VALUE : Long.MIN_VALUE);
+                context.sort(new SortAndFormats(new Sort(missingFirst), new DocValueFormat[] { DocValueFormat.RAW }));
+                assertNull(QueryPhase.narrowToCompetitiveSortValues(context, searcher, query));
+
+                // without a missing value, documents without a value are sorted as 0 and can compete too
+                final SortField noMissing = new SortedNumericSortField("rank", SortField.Type.LONG, reverse,
+                    reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN);
+                context.sort(new SortAndFormats(new Sort(noMissing), new DocValueFormat[] { DocValueFormat.RAW }));
+                assertNull(QueryPhase.narrowToCompetitiveSortValues(context, searcher, query));
+            }
+        }
+        reader.close();
+        dir.close();
+    }
+
     static IndexSearcher getAssertingEarlyTerminationSearcher(IndexReader reader, int size) {
         return new IndexSearcher(reader) {
             protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
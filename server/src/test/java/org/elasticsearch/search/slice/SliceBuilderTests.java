@@ -182,6 +182,11 @@ public class SliceBuilderTests extends ESTestCase {
             return preference;
         }
 
+        @Override
+        public long readerId() {
+            return -1;
+        }
+
         @Override
         public void setProfile(boolean profile) {
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.watcher.trigger.schedule.engine;
+
+import org.elasticsearch.xpack.watcher.trigger.schedule.engine.TickerScheduleTriggerEngine.ActiveSchedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A hashed timing wheel holding the {@link ActiveSchedule}s of the {@link TickerScheduleTriggerEngine}.
+ * <p>
+ * Time is divided into ticks of the tick interval of the engine and each schedule is put in the slot of the tick in which it is
+ * due next. Advancing the wheel to the current time only visits the slots of the ticks that elapsed since the last advance, so
+ * the work per tick is proportional to the number of schedules that are due, plus the schedules that hash to the same slot but
+ * are due in a later revolution of the wheel. Adding a schedule is O(1). Removing or replacing a schedule is done lazily: schedules
+ * that are no longer active are dropped when their slot is visited.
+ * <p>
+ * This class is not thread-safe, it must only be used by the ticker thread.
+ */
+final class ScheduleTimingWheel {
+
+    private final long tickMillis;
+    private final List<ActiveSchedule>[] slots;
+    private final int mask;
+
+    // the number of schedules in the wheel, including the ones that are no longer active but were not dropped yet
+    private int size;
+
+    // all schedules that are due in this tick or an earlier one have been processed; Long.MIN_VALUE if the wheel never advanced
+    private long lastTick = Long.MIN_VALUE;
+
+    @SuppressWarnings("unchecked")
+    ScheduleTimingWheel(long tickMillis, int numberOfSlots) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive but was [" + tickMillis + "]");
+        }
+        if (numberOfSlots <= 0 || Integer.bitCount(numberOfSlots) != 1) {
+            throw new IllegalArgumentException("numberOfSlots must be a positive power of two but was [" + numberOfSlots + "]");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new List[numberOfSlots];
+        this.mask = numberOfSlots - 1;
+    }
+
+    /**
+     * Puts the schedule in the slot of its next scheduled time. Schedules that will never trigger again are not added.
+     */
+    void add(ActiveSchedule schedule) {
+        final long scheduledTime = schedule.getScheduledTime();
+        if (scheduledTime < 0) {
+            return;
+        }
+        // schedules that are already due are put in the next slot that will be visited
+        final long tick = lastTick == Long.MIN_VALUE ? scheduledTime / tickMillis : Math.max(scheduledTime / tickMillis, lastTick + 1);
+        final int index = (int) (tick & mask);
+        List<ActiveSchedule> slot = slots[index];
+        if (slot == null) {
+            slot = slots[index] = new ArrayList<>();
+        }
+        slot.add(schedule);
+        size++;
+    }
+
+    /**
+     * Triggers all active schedules that are due at the given time, and puts them back into the wheel according to their next
+     * scheduled time.
+     *
+     * @param now       the current time in millis
+     * @param isActive  tests whether a schedule is still active; inactive schedules are dropped from the wheel
+     * @param onTrigger called with each due schedule and the time it was scheduled at
+     */
+    void advance(long now, Predicate<ActiveSchedule> isActive, BiConsumer<ActiveSchedule, Long> onTrigger) {
+        final long currentTick = now / tickMillis;
+        if (lastTick == Long.MIN_VALUE || currentTick <= lastTick) {
+            // either this is the first advance or the clock went backwards, in both cases the schedules might not be in the slots
+            // of the ticks that are going to be visited next
+            lastTick = currentTick - 1;
+            rehash();
+        }
+        final List<ActiveSchedule> triggered = new ArrayList<>();
+        // if more ticks elapsed than there are slots, we only need to visit every slot once
+        final long firstTick = Math.max(lastTick + 1, currentTick - slots.length + 1);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            final List<ActiveSchedule> slot = slots[(int) (tick & mask)];
+            if (slot == null || slot.isEmpty()) {
+                continue;
+            }
+            int kept = 0;
+            for (int i = 0; i < slot.size(); i++) {
+                final ActiveSchedule schedule = slot.get(i);
+                if (isActive.test(schedule) == false) {
+                    continue;
+                }
+                if (schedule.getScheduledTime() > now) {
+                    // due in a later revolution of the wheel, or later within the current tick
+                    slot.set(kept++, schedule);
+                    continue;
+                }
+                final long scheduledTime = schedule.check(now);
+                assert scheduledTime != -1 : "schedule was due but did not trigger";
+                onTrigger.accept(schedule, scheduledTime);
+                triggered.add(schedule);
+            }
+            size -= slot.size() - kept;
+            slot.subList(kept, slot.size()).clear();
+        }
+        // schedules that are due later within the current tick are still in the current slot, so we need to visit it again
+        lastTick = currentTick - 1;
+        for (ActiveSchedule schedule : triggered) {
+            add(schedule);
+        }
+    }
+
+    /**
+     * Removes all schedules from the wheel.
+     */
+    void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * The number of schedules in the wheel, including the ones that are no longer active but were not dropped yet.
+     */
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        final List<ActiveSchedule> schedules = new ArrayList<>(size);
+        for (List<ActiveSchedule> slot : slots) {
+            if (slot != null) {
+                schedules.addAll(slot);
+            }
+        }
+        clear();
+        for (ActiveSchedule schedule : schedules) {
+            add(schedule);
+        }
+    }
+}
@@ -24,25 +24,40 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 
 import static org.elasticsearch.common.settings.Setting.positiveTimeSetting;
 import static org.joda.time.DateTimeZone.UTC;
 
+/**
+ * A schedule trigger engine that checks the schedules of all watches on a dedicated ticker thread.
+ * <p>
+ * The schedules are kept in a {@link ScheduleTimingWheel} that is only accessed by the ticker thread, so that every tick only looks
+ * at the schedules that are due. Watches that are added are handed over to the ticker thread through a queue, and watches that are
+ * removed or replaced are only removed from the map of active schedules; the wheel drops them when it next visits them.
+ */
 public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
 
     public static final Setting<TimeValue> TICKER_INTERVAL_SETTING =
         positiveTimeSetting("xpack.watcher.trigger.schedule.ticker.tick_interval", TimeValue.timeValueMillis(500), Property.NodeScope);
 
+    // the number of slots of the timing wheel; with the default tick interval one revolution of the wheel takes about an hour
+    static final int NUMBER_OF_SLOTS = 8192;
+
     private final TimeValue tickInterval;
     private volatile Map<String, ActiveSchedule> schedules;
+    private final Queue<ActiveSchedule> addedSchedules = new ConcurrentLinkedQueue<>();
+    private final ScheduleTimingWheel wheel;
     private Ticker ticker;
 
     public TickerScheduleTriggerEngine(Settings settings, ScheduleRegistry scheduleRegistry, Clock clock) {
         super(settings, scheduleRegistry, clock);
         this.tickInterval = TICKER_INTERVAL_SETTING.get(settings);
         this.schedules = new ConcurrentHashMap<>();
+        this.wheel = new ScheduleTimingWheel(tickInterval.millis(), NUMBER_OF_SLOTS);
         this.ticker = new Ticker(Node.NODE_DATA_SETTING.get(settings));
     }
 
@@ -57,6 +72,7 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
             }
         }
         this.schedules.putAll(schedules);
+        schedules.values().forEach(this::handOverToTicker);
     }
 
     @Override
@@ -74,7 +90,16 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
     public void add(Watch watch) {
         assert watch.trigger() instanceof ScheduleTrigger;
         ScheduleTrigger trigger = (ScheduleTrigger) watch.trigger();
-        schedules.put(watch.id(), new ActiveSchedule(watch.id(), trigger.getSchedule(), clock.millis()));
+        ActiveSchedule schedule = new ActiveSchedule(watch.id(), trigger.getSchedule(), clock.millis());
+        schedules.put(watch.id(), schedule);
+        handOverToTicker(schedule);
+    }
+
+    private void handOverToTicker(ActiveSchedule schedule) {
+        // the ticker thread only runs on data nodes, there is nobody to pick up the schedule otherwise
+        if (ticker.isDataNode) {
+            addedSchedules.add(schedule);
+        }
     }
 
     @Override
@@ -82,11 +107,17 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
         return schedules.remove(jobId) != null;
     }
 
+    // must only be called by the ticker thread
     void checkJobs() {
         long triggeredTime = clock.millis();
+        ActiveSchedule added;
+        while ((added = addedSchedules.poll()) != null) {
+            if (isActive(added)) {
+                wheel.add(added);
+            }
+        }
         List<TriggerEvent> events = new ArrayList<>();
-        for (ActiveSchedule schedule : schedules.values()) {
-            long scheduledTime = schedule.check(triggeredTime);
+        wheel.advance(triggeredTime, this::isActive, (schedule, scheduledTime) -> {
             if (scheduledTime > 0) {
                 logger.debug("triggered job [{}] at [{}] (scheduled time was [{}])", schedule.name,
                     new DateTime(triggeredTime, UTC), new DateTime(scheduledTime, UTC));
@@ -97,12 +128,17 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
                     events.clear();
                 }
             }
-        }
+        });
         if (events.isEmpty() == false) {
             notifyListeners(events);
         }
     }
 
+    // a schedule is active as long as it was neither removed nor replaced by a newer schedule for the same watch
+    private boolean isActive(ActiveSchedule schedule) {
+        return schedules.get(schedule.name) == schedule;
+    }
+
     protected void notifyListeners(List<TriggerEvent> events) {
         consumers.forEach(consumer -> consumer.accept(events));
     }
@@ -122,6 +158,10 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
             this.scheduledTime = schedule.nextScheduledTimeAfter(startTime, startTime);
         }
 
+        long getScheduledTime() {
+            return scheduledTime;
+        }
+
         /**
          * Checks whether the given time is the same or after the scheduled time of this schedule. If so, the scheduled time is
          * returned a new scheduled time is computed and set. Otherwise (the given time is before the scheduled time), {@code -1}
@@ -14,6 +14,7 @@ import org.elasticsearch.xpack.core.watcher.trigger.TriggerEvent;
 import org.elasticsearch.xpack.core.watcher.watch.Watch;
 import org.elasticsearch.xpack.watcher.condition.InternalAlwaysCondition;
 import org.elasticsearch.xpack.watcher.input.none.ExecutableNoneInput;
+import org.elasticsearch.xpack.watcher.trigger.schedule.Schedule;
 import org.elasticsearch.xpack.watcher.trigger.schedule.ScheduleRegistry;
 import org.elasticsearch.xpack.watcher.trigger.schedule.ScheduleTrigger;
 import org.elasticsearch.xpack.watcher.trigger.schedule.ScheduleTriggerEngine;
@@ -29,6 +30,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Collections.emptySet;
+import static org.elasticsearch.xpack.watcher.trigger.schedule.Schedules.cron;
 import static org.elasticsearch.xpack.watcher.trigger.schedule.Schedules.interval;
 
 @SuppressForbidden(reason = "benchmark")
@@ -37,9 +39,11 @@ public class ScheduleEngineTriggerBenchmark {
     private static final Logger logger = ESLoggerFactory.getLogger(ScheduleEngineTriggerBenchmark.class);
 
     public static void main(String[] args) throws Exception {
-        int numWatches = 1000;
+        int numWatches = 100000;
         int interval = 2;
         int benchTime = 60000;
+        // the percentage of watches that use a cron schedule instead of an interval schedule
+        int cronPercentage = 50;
 
         if (args.length % 2 != 0) {
             throw new IllegalArgumentException("Uneven number of arguments");
@@ -52,16 +56,21 @@ public class ScheduleEngineTriggerBenchmark {
                 benchTime = Integer.valueOf(value);
             } else if ("--interval".equals(args[i])) {
                 interval = Integer.valueOf(value);
+            } else if ("--cron_percentage".equals(args[i])) {
+                cronPercentage = Integer.valueOf(value);
             }
         }
-        System.out.println("Running benchmark with numWatches=" + numWatches + " benchTime=" + benchTime + " interval=" + interval);
+        System.out.println("Running benchmark with numWatches=" + numWatches + " benchTime=" + benchTime + " interval=" + interval +
+                " cronPercentage=" + cronPercentage);
 
         Settings settings = Settings.builder()
                 .put("name", "test")
                 .build();
         List<Watch> watches = new ArrayList<>(numWatches);
         for (int i = 0; i < numWatches; i++) {
-            watches.add(new Watch("job_" + i, new ScheduleTrigger(interval(interval + "s")), new ExecutableNoneInput(logger),
+            // spread the cron schedules over the seconds of a minute, so that not all of them trigger at the same time
+            final Schedule schedule = i % 100 < cronPercentage ? cron((i % 60) + "/" + interval + " * * * * ?") : interval(interval + "s");
+            watches.add(new Watch("job_" + i, new ScheduleTrigger(schedule), new ExecutableNoneInput(logger),
                     InternalAlwaysCondition.INSTANCE, null, null, Collections.emptyList(), null, null, 1L));
         }
         ScheduleRegistry scheduleRegistry = new ScheduleRegistry(emptySet());
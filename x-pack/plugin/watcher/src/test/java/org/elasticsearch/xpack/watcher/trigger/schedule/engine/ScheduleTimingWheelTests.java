@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.watcher.trigger.schedule.engine;
+
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.watcher.trigger.schedule.Schedule;
+import org.elasticsearch.xpack.watcher.trigger.schedule.engine.TickerScheduleTriggerEngine.ActiveSchedule;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.elasticsearch.xpack.watcher.trigger.schedule.Schedules.interval;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ScheduleTimingWheelTests extends ESTestCase {
+
+    // advance the wheel and a plain list of schedules in lockstep, and check that they trigger the same schedules at the same times
+    public void testTriggersLikeCheckingAllSchedules() {
+        final long tickMillis = randomIntBetween(1, 1000);
+        final ScheduleTimingWheel wheel = new ScheduleTimingWheel(tickMillis, 1 << randomIntBetween(0, 8));
+        final long startTime = randomLongBetween(0, 1_000_000_000L);
+        final int numberOfSchedules = randomIntBetween(1, 200);
+
+        final Map<ActiveSchedule, Integer> ids = new IdentityHashMap<>();
+        final List<ActiveSchedule> expectedSchedules = new ArrayList<>();
+        for (int i = 0; i < numberOfSchedules; i++) {
+            final Schedule schedule = interval(randomIntBetween(1, 120) + "s");
+            final ActiveSchedule activeSchedule = new ActiveSchedule(Integer.toString(i), schedule, startTime);
+            ids.put(activeSchedule, i);
+            wheel.add(activeSchedule);
+            expectedSchedules.add(new ActiveSchedule(Integer.toString(i), schedule, startTime));
+        }
+        assertThat(wheel.size(), equalTo(numberOfSchedules));
+
+        long now = startTime;
+        final int iterations = randomIntBetween(1, 500);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            now += randomBoolean() ? randomIntBetween(0, 2000) : randomIntBetween(0, 600_000);
+            final Set<String> triggered = new HashSet<>();
+            wheel.advance(now, schedule -> true, (schedule, scheduledTime) -> {
+                assertTrue(triggered.add(ids.get(schedule) + "@" + scheduledTime));
+            });
+            final Set<String> expected = new HashSet<>();
+            for (int i = 0; i < expectedSchedules.size(); i++) {
+                final long scheduledTime = expectedSchedules.get(i).check(now);
+                if (scheduledTime != -1) {
+                    expected.add(i + "@" + scheduledTime);
+                }
+            }
+            assertThat(triggered, equalTo(expected));
+            assertThat(wheel.size(), equalTo(numberOfSchedules));
+        }
+    }
+
+    public void testInactiveSchedulesAreDropped() {
+        final ScheduleTimingWheel wheel = new ScheduleTimingWheel(500, 16);
+        final ActiveSchedule active = new ActiveSchedule("active", interval("1s"), 0);
+        final ActiveSchedule removed = new ActiveSchedule("removed", interval("1s"), 0);
+        wheel.add(active);
+        wheel.add(removed);
+        assertThat(wheel.size(), equalTo(2));
+
+        final List<ActiveSchedule> triggered = new ArrayList<>();
+        wheel.advance(1000, schedule -> schedule == active, (schedule, scheduledTime) -> triggered.add(schedule));
+        assertThat(triggered.size(), equalTo(1));
+        assertSame(active, triggered.get(0));
+        assertThat(wheel.size(), equalTo(1));
+    }
+
+    public void testClockGoingBackwards() {
+        final ScheduleTimingWheel wheel = new ScheduleTimingWheel(500, 16);
+        wheel.advance(1_000_000, schedule -> true, (schedule, scheduledTime) -> fail("nothing is scheduled"));
+
+        // a schedule that is due before the time the wheel was last advanced to
+        final ActiveSchedule schedule = new ActiveSchedule("schedule", interval("1s"), 10_000);
+        wheel.add(schedule);
+        final List<Long> triggered = new ArrayList<>();
+        wheel.advance(10_500, s -> true, (s, scheduledTime) -> triggered.add(scheduledTime));
+        assertThat(triggered.size(), equalTo(0));
+        wheel.advance(11_000, s -> true, (s, scheduledTime) -> triggered.add(scheduledTime));
+        assertThat(triggered.size(), equalTo(1));
+        assertThat(triggered.get(0), equalTo(11_000L));
+    }
+
+    public void testInvalidArguments() {
+        expectThrows(IllegalArgumentException.class, () -> new ScheduleTimingWheel(0, 16));
+        expectThrows(IllegalArgumentException.class, () -> new ScheduleTimingWheel(500, 0));
+        expectThrows(IllegalArgumentException.class, () -> new ScheduleTimingWheel(500, 12));
+    }
+}